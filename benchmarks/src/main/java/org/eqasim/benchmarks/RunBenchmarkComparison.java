@@ -0,0 +1,162 @@
+package org.eqasim.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.config.CommandLine;
+import org.matsim.core.config.CommandLine.ConfigurationException;
+import org.matsim.core.utils.io.IOUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH result files (written with -rf json) and reports the
+ * relative change of every benchmark. A change counts as a regression if the
+ * score is worse by more than the threshold and the difference exceeds the
+ * combined error margins of both runs.
+ */
+public class RunBenchmarkComparison {
+	private final static Logger logger = LogManager.getLogger(RunBenchmarkComparison.class);
+
+	static public void main(String[] args) throws ConfigurationException, IOException {
+		CommandLine cmd = new CommandLine.Builder(args) //
+				.requireOptions("baseline-path", "current-path") //
+				.allowOptions("output-path", "threshold", "fail-on-regression") //
+				.build();
+
+		double threshold = cmd.getOption("threshold").map(Double::parseDouble).orElse(0.05);
+		boolean failOnRegression = cmd.getOption("fail-on-regression").map(Boolean::parseBoolean).orElse(false);
+
+		Map<String, Result> baseline = read(new File(cmd.getOptionStrict("baseline-path")));
+		Map<String, Result> current = read(new File(cmd.getOptionStrict("current-path")));
+
+		List<String> rows = new ArrayList<>();
+		rows.add("| Benchmark | Unit | Baseline | Current | Change | Status |");
+		rows.add("|---|---|---|---|---|---|");
+
+		int numberOfRegressions = 0;
+
+		for (Map.Entry<String, Result> entry : current.entrySet()) {
+			Result currentResult = entry.getValue();
+			Result baselineResult = baseline.get(entry.getKey());
+
+			if (baselineResult == null) {
+				rows.add(String.format("| %s | %s | - | %s | - | new |", entry.getKey(), currentResult.unit,
+						currentResult.format()));
+				continue;
+			}
+
+			if (!baselineResult.unit.equals(currentResult.unit)) {
+				throw new IllegalStateException("Units do not match for " + entry.getKey());
+			}
+
+			double change = (currentResult.score - baselineResult.score) / baselineResult.score;
+
+			// For throughput higher is better, for all time-based modes lower is better
+			double worsening = currentResult.isThroughput ? -change : change;
+			boolean isSignificant = Math.abs(currentResult.score - baselineResult.score) > baselineResult.error
+					+ currentResult.error;
+
+			String status = "unchanged";
+
+			if (isSignificant && worsening > threshold) {
+				status = "REGRESSION";
+				numberOfRegressions++;
+			} else if (isSignificant && worsening < -threshold) {
+				status = "improvement";
+			}
+
+			rows.add(String.format("| %s | %s | %s | %s | %+.1f%% | %s |", entry.getKey(), currentResult.unit,
+					baselineResult.format(), currentResult.format(), 100.0 * change, status));
+		}
+
+		for (String key : baseline.keySet()) {
+			if (!current.containsKey(key)) {
+				rows.add(String.format("| %s | %s | %s | - | - | removed |", key, baseline.get(key).unit,
+						baseline.get(key).format()));
+			}
+		}
+
+		for (String row : rows) {
+			logger.info(row);
+		}
+
+		logger.info(String.format("Regressions beyond %.1f%%: %d", 100.0 * threshold, numberOfRegressions));
+
+		if (cmd.hasOption("output-path")) {
+			BufferedWriter writer = IOUtils.getBufferedWriter(cmd.getOptionStrict("output-path"));
+
+			for (String row : rows) {
+				writer.write(row + "\n");
+			}
+
+			writer.close();
+		}
+
+		if (failOnRegression && numberOfRegressions > 0) {
+			throw new IllegalStateException(String.format("Found %d benchmark regressions", numberOfRegressions));
+		}
+	}
+
+	static private Map<String, Result> read(File path) throws IOException {
+		Map<String, Result> results = new LinkedHashMap<>();
+
+		for (JsonNode node : new ObjectMapper().readTree(path)) {
+			StringBuilder key = new StringBuilder(node.get("benchmark").asText());
+
+			if (node.has("params")) {
+				// Sort parameters to obtain a stable key
+				Map<String, String> parameters = new TreeMap<>();
+				Iterator<Map.Entry<String, JsonNode>> iterator = node.get("params").fields();
+
+				while (iterator.hasNext()) {
+					Map.Entry<String, JsonNode> parameter = iterator.next();
+					parameters.put(parameter.getKey(), parameter.getValue().asText());
+				}
+
+				for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+					key.append(String.format(" %s=%s", parameter.getKey(), parameter.getValue()));
+				}
+			}
+
+			JsonNode metric = node.get("primaryMetric");
+			double error = metric.get("scoreError").asDouble();
+
+			results.put(key.toString(), new Result( //
+					metric.get("score").asDouble(), //
+					Double.isFinite(error) ? error : 0.0, //
+					metric.get("scoreUnit").asText(), //
+					node.get("mode").asText().equals("thrpt")));
+		}
+
+		return results;
+	}
+
+	static private class Result {
+		final double score;
+		final double error;
+		final String unit;
+		final boolean isThroughput;
+
+		Result(double score, double error, String unit, boolean isThroughput) {
+			this.score = score;
+			this.error = error;
+			this.unit = unit;
+			this.isThroughput = isThroughput;
+		}
+
+		String format() {
+			return String.format("%.3f ± %.3f", score, error);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package org.eqasim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+/**
+ * Helpers to create small in-memory scenarios for the benchmarks, so they run
+ * without any input files.
+ */
+public class SyntheticScenario {
+	private SyntheticScenario() {
+	}
+
+	/**
+	 * Creates a square grid network of size x size nodes with links in both
+	 * directions between neighbouring nodes. Capacities alternate between major
+	 * and minor roads, so that intersections have a priority structure.
+	 */
+	static public Network createGridNetwork(int size, double spacing) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				nodes[i][j] = NetworkUtils.createAndAddNode(network, Id.createNodeId(i + ":" + j),
+						new Coord(i * spacing, j * spacing));
+			}
+		}
+
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (i + 1 < size) {
+					addLinks(network, nodes[i][j], nodes[i + 1][j], spacing, j % 4 == 0);
+				}
+
+				if (j + 1 < size) {
+					addLinks(network, nodes[i][j], nodes[i][j + 1], spacing, i % 4 == 0);
+				}
+			}
+		}
+
+		return network;
+	}
+
+	static private void addLinks(Network network, Node a, Node b, double length, boolean isMajor) {
+		double freespeed = isMajor ? 50.0 / 3.6 : 30.0 / 3.6;
+		double capacity = isMajor ? 1800.0 : 600.0;
+
+		for (Node[] direction : new Node[][] { { a, b }, { b, a } }) {
+			Link link = NetworkUtils.createAndAddLink(network,
+					Id.createLinkId(direction[0].getId() + "-" + direction[1].getId()), direction[0], direction[1],
+					length, freespeed, capacity, 1.0);
+			link.setAllowedModes(new HashSet<>(Collections.singleton(TransportMode.car)));
+		}
+	}
+
+	/**
+	 * Creates a random walk of connected links through the network, without
+	 * immediate U-turns where possible.
+	 */
+	static public List<Link> createPath(Random random, Network network, int numberOfLinks) {
+		List<Link> links = new ArrayList<>(network.getLinks().values());
+		List<Link> path = new ArrayList<>(numberOfLinks);
+
+		Link current = links.get(random.nextInt(links.size()));
+		path.add(current);
+
+		while (path.size() < numberOfLinks) {
+			List<Link> candidates = new ArrayList<>();
+
+			for (Link next : current.getToNode().getOutLinks().values()) {
+				if (next.getToNode() != current.getFromNode()) {
+					candidates.add(next);
+				}
+			}
+
+			if (candidates.isEmpty()) {
+				candidates.addAll(current.getToNode().getOutLinks().values());
+			}
+
+			current = candidates.get(random.nextInt(candidates.size()));
+			path.add(current);
+		}
+
+		return path;
+	}
+}
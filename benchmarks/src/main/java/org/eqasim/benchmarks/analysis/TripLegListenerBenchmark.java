@@ -0,0 +1,151 @@
+package org.eqasim.benchmarks.analysis;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eqasim.analysis.ReferenceTripLegListener;
+import org.eqasim.benchmarks.SyntheticScenario;
+import org.eqasim.core.analysis.DefaultPersonAnalysisFilter;
+import org.eqasim.core.analysis.legs.LegListener;
+import org.eqasim.core.analysis.trips.TripListener;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replays a synthetic event stream of home - work - home days into the
+ * TripListener and LegListener. The outbound trip is performed by car over a
+ * random path, the return trip is teleported.
+ *
+ * The "reference" implementation is the map-based listener from the core test
+ * sources that produces both trips and legs, so that the indexed listeners can
+ * be compared against it within the same run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TripLegListenerBenchmark {
+	static final int NUMBER_OF_PERSONS = 5000;
+	static final int LINKS_PER_ROUTE = 30;
+
+	@Param({ "indexed", "reference" })
+	public String implementation;
+
+	private EventsManager eventsManager;
+	private List<Event> events;
+
+	private Supplier<Integer> numberOfItems;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		Network network = SyntheticScenario.createGridNetwork(50, 200.0);
+
+		events = new ArrayList<>();
+
+		for (int k = 0; k < NUMBER_OF_PERSONS; k++) {
+			Id<Person> personId = Id.createPersonId("person" + k);
+			Id<Vehicle> vehicleId = Id.createVehicleId("person" + k);
+
+			List<Link> path = SyntheticScenario.createPath(random, network, LINKS_PER_ROUTE);
+			Id<Link> homeLinkId = path.get(0).getId();
+			Id<Link> workLinkId = path.get(path.size() - 1).getId();
+
+			double time = 6.0 * 3600.0 + random.nextDouble() * 4.0 * 3600.0;
+
+			events.add(new ActivityEndEvent(time, personId, homeLinkId, null, "home", null));
+			events.add(new PersonDepartureEvent(time, personId, homeLinkId, TransportMode.car, TransportMode.car));
+			events.add(new PersonEntersVehicleEvent(time, personId, vehicleId));
+
+			for (int i = 1; i < path.size(); i++) {
+				time += 20.0;
+				events.add(new LinkEnterEvent(time, vehicleId, path.get(i).getId()));
+			}
+
+			time += 10.0;
+			events.add(new PersonLeavesVehicleEvent(time, personId, vehicleId));
+			events.add(new PersonArrivalEvent(time, personId, workLinkId, TransportMode.car));
+			events.add(new ActivityStartEvent(time, personId, workLinkId, null, "work", null));
+
+			time += 8.0 * 3600.0;
+			double travelTime = 600.0 + random.nextDouble() * 1200.0;
+
+			events.add(new ActivityEndEvent(time, personId, workLinkId, null, "work", null));
+			events.add(
+					new PersonDepartureEvent(time, personId, workLinkId, TransportMode.walk, TransportMode.walk));
+			events.add(new TeleportationArrivalEvent(time + travelTime, personId, travelTime * 1.3,
+					TransportMode.walk));
+			events.add(new PersonArrivalEvent(time + travelTime, personId, homeLinkId, TransportMode.walk));
+			events.add(new ActivityStartEvent(time + travelTime, personId, homeLinkId, null, "home", null));
+		}
+
+		events.sort(Comparator.comparingDouble(Event::getTime));
+
+		eventsManager = EventsUtils.createEventsManager();
+
+		switch (implementation) {
+		case "indexed": {
+			TripListener tripListener = new TripListener(network, new DefaultPersonAnalysisFilter());
+			LegListener legListener = new LegListener(network, new DefaultPersonAnalysisFilter());
+			eventsManager.addHandler(tripListener);
+			eventsManager.addHandler(legListener);
+			numberOfItems = () -> tripListener.getTripItems().size() + legListener.getLegItems().size();
+			break;
+		}
+		case "reference": {
+			ReferenceTripLegListener listener = new ReferenceTripLegListener(network,
+					new DefaultPersonAnalysisFilter());
+			eventsManager.addHandler(listener);
+			numberOfItems = () -> listener.getTripItems().size() + listener.getLegItems().size();
+			break;
+		}
+		default:
+			throw new IllegalStateException("Unknown implementation: " + implementation);
+		}
+
+		eventsManager.initProcessing();
+	}
+
+	@Benchmark
+	public int replay() {
+		eventsManager.resetHandlers(0);
+
+		for (Event event : events) {
+			eventsManager.processEvent(event);
+		}
+
+		return numberOfItems.get();
+	}
+}
@@ -0,0 +1,190 @@
+package org.eqasim.benchmarks.drt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eqasim.benchmarks.SyntheticScenario;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleAnalysisListener;
+import org.eqasim.core.simulation.modes.drt.analysis.passengers.PassengerAnalysisListener;
+import org.eqasim.core.simulation.modes.drt.analysis.utils.LinkFinder;
+import org.eqasim.core.simulation.modes.drt.analysis.utils.VehicleRegistry;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.contrib.drt.schedule.DrtStayTask;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.vrpagent.TaskStartedEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replays a synthetic DRT event stream into the passenger and vehicle analysis
+ * listeners. Every fleet vehicle serves a sequence of rides, each consisting
+ * of a pickup drive, a stop, an occupied drive with one or two passengers and
+ * a dropoff stop. Other persons generate non-DRT events that the listeners
+ * need to filter out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrtListenerBenchmark {
+	static final String MODE = "drt";
+
+	static final int NUMBER_OF_VEHICLES = 200;
+	static final int RIDES_PER_VEHICLE = 20;
+	static final int LINKS_PER_DRIVE = 15;
+	static final int NUMBER_OF_OTHER_PERSONS = 2000;
+
+	private EventsManager eventsManager;
+	private List<Event> events;
+
+	private PassengerAnalysisListener passengerListener;
+	private VehicleAnalysisListener vehicleListener;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		Network network = SyntheticScenario.createGridNetwork(50, 200.0);
+
+		VehicleRegistry vehicleRegistry = new VehicleRegistry();
+		events = new ArrayList<>();
+
+		int passengerIndex = 0;
+
+		for (int v = 0; v < NUMBER_OF_VEHICLES; v++) {
+			Id<DvrpVehicle> dvrpVehicleId = Id.create("drt" + v, DvrpVehicle.class);
+			Id<Person> driverId = Id.createPersonId(dvrpVehicleId);
+			Id<Vehicle> vehicleId = Id.createVehicleId(dvrpVehicleId);
+
+			double time = 5.0 * 3600.0;
+
+			List<Link> path = SyntheticScenario.createPath(random, network, 2 * LINKS_PER_DRIVE * RIDES_PER_VEHICLE);
+			vehicleRegistry.handleEvent(new TaskStartedEvent(time, MODE, dvrpVehicleId, driverId, DrtStayTask.TYPE, 0,
+					path.get(0).getId()));
+
+			for (int r = 0; r < RIDES_PER_VEHICLE; r++) {
+				List<Link> pickupDrive = path.subList(2 * r * LINKS_PER_DRIVE, (2 * r + 1) * LINKS_PER_DRIVE);
+				List<Link> occupiedDrive = path.subList((2 * r + 1) * LINKS_PER_DRIVE - 1,
+						(2 * r + 2) * LINKS_PER_DRIVE);
+
+				List<Id<Person>> passengerIds = new ArrayList<>();
+				int numberOfPassengers = 1 + random.nextInt(2);
+
+				for (int p = 0; p < numberOfPassengers; p++) {
+					Id<Person> passengerId = Id.createPersonId("passenger" + passengerIndex++);
+					passengerIds.add(passengerId);
+
+					events.add(new PersonDepartureEvent(time, passengerId, pickupDrive.get(pickupDrive.size() - 1).getId(),
+							MODE, MODE));
+				}
+
+				time = addDrive(events, time, driverId, vehicleId, pickupDrive);
+				time = addStop(events, time, driverId, pickupDrive.get(pickupDrive.size() - 1).getId(), "DrtStop");
+
+				for (Id<Person> passengerId : passengerIds) {
+					events.add(new PersonEntersVehicleEvent(time, passengerId, vehicleId));
+				}
+
+				time = addDrive(events, time, driverId, vehicleId, occupiedDrive);
+				Id<Link> dropoffLinkId = occupiedDrive.get(occupiedDrive.size() - 1).getId();
+
+				for (Id<Person> passengerId : passengerIds) {
+					events.add(new PersonLeavesVehicleEvent(time, passengerId, vehicleId));
+					events.add(new PersonArrivalEvent(time, passengerId, dropoffLinkId, MODE));
+				}
+
+				time = addStop(events, time, driverId, dropoffLinkId, "DrtStop");
+			}
+		}
+
+		// Other persons driving their own vehicles
+		for (int k = 0; k < NUMBER_OF_OTHER_PERSONS; k++) {
+			Id<Person> personId = Id.createPersonId("other" + k);
+			Id<Vehicle> vehicleId = Id.createVehicleId("other" + k);
+
+			List<Link> path = SyntheticScenario.createPath(random, network, LINKS_PER_DRIVE);
+			double time = 6.0 * 3600.0 + random.nextDouble() * 12.0 * 3600.0;
+
+			events.add(new PersonDepartureEvent(time, personId, path.get(0).getId(), "car", "car"));
+			events.add(new PersonEntersVehicleEvent(time, personId, vehicleId));
+
+			for (int i = 1; i < path.size(); i++) {
+				time += 20.0;
+				events.add(new LinkEnterEvent(time, vehicleId, path.get(i).getId()));
+			}
+
+			events.add(new PersonLeavesVehicleEvent(time, personId, vehicleId));
+			events.add(new PersonArrivalEvent(time, personId, path.get(path.size() - 1).getId(), "car"));
+		}
+
+		events.sort(Comparator.comparingDouble(Event::getTime));
+
+		LinkFinder linkFinder = new LinkFinder(network);
+		passengerListener = new PassengerAnalysisListener(Collections.singleton(MODE), linkFinder, vehicleRegistry);
+		vehicleListener = new VehicleAnalysisListener(linkFinder, vehicleRegistry);
+
+		eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler(passengerListener);
+		eventsManager.addHandler(vehicleListener);
+		eventsManager.initProcessing();
+	}
+
+	static private double addDrive(List<Event> events, double time, Id<Person> driverId, Id<Vehicle> vehicleId,
+			List<Link> drive) {
+		events.add(new PersonDepartureEvent(time, driverId, drive.get(0).getId(), MODE, MODE));
+
+		for (int i = 1; i < drive.size(); i++) {
+			time += 20.0;
+			events.add(new LinkEnterEvent(time, vehicleId, drive.get(i).getId()));
+		}
+
+		events.add(new PersonArrivalEvent(time, driverId, drive.get(drive.size() - 1).getId(), MODE));
+		return time;
+	}
+
+	static private double addStop(List<Event> events, double time, Id<Person> driverId, Id<Link> linkId,
+			String type) {
+		events.add(new ActivityStartEvent(time, driverId, linkId, null, type, null));
+		time += 60.0;
+		events.add(new ActivityEndEvent(time, driverId, linkId, null, type, null));
+		return time;
+	}
+
+	@Benchmark
+	public int replay() {
+		eventsManager.resetHandlers(0);
+
+		for (Event event : events) {
+			eventsManager.processEvent(event);
+		}
+
+		return passengerListener.getRides().size() + vehicleListener.getNumberOfMovements();
+	}
+}
@@ -0,0 +1,61 @@
+package org.eqasim.benchmarks.mode_choice;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eqasim.core.simulation.mode_choice.epsilon.GumbelEpsilonProvider;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Draws epsilons for all combinations of a set of persons, trip indices and
+ * modes through the hashing of AbstractEpsilonProvider.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EpsilonProviderBenchmark {
+	static final int NUMBER_OF_PERSONS = 200;
+	static final int NUMBER_OF_TRIPS = 5;
+	static final String[] MODES = { "car", "pt", "bike", "walk", "car_passenger" };
+
+	private GumbelEpsilonProvider provider;
+	private Id<Person>[] personIds;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		provider = new GumbelEpsilonProvider(1234, 1.0);
+		personIds = new Id[NUMBER_OF_PERSONS];
+
+		for (int i = 0; i < NUMBER_OF_PERSONS; i++) {
+			personIds[i] = Id.createPersonId("epsilon" + i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_PERSONS * NUMBER_OF_TRIPS * 5)
+	public void drawEpsilons(Blackhole blackhole) {
+		for (Id<Person> personId : personIds) {
+			for (int tripIndex = 0; tripIndex < NUMBER_OF_TRIPS; tripIndex++) {
+				for (String mode : MODES) {
+					blackhole.consume(provider.getEpsilon(personId, tripIndex, mode));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package org.eqasim.benchmarks.mode_choice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eqasim.core.simulation.mode_choice.cost.ZeroCostModel;
+import org.eqasim.core.simulation.mode_choice.parameters.ModeParameters;
+import org.eqasim.core.simulation.mode_choice.utilities.ModalUtilityEstimator;
+import org.eqasim.core.simulation.mode_choice.utilities.UtilityEstimator;
+import org.eqasim.core.simulation.mode_choice.utilities.estimators.BikeUtilityEstimator;
+import org.eqasim.core.simulation.mode_choice.utilities.estimators.CarUtilityEstimator;
+import org.eqasim.core.simulation.mode_choice.utilities.estimators.PtUtilityEstimator;
+import org.eqasim.core.simulation.mode_choice.utilities.estimators.WalkUtilityEstimator;
+import org.eqasim.core.simulation.mode_choice.utilities.predictors.BikePredictor;
+import org.eqasim.core.simulation.mode_choice.utilities.predictors.CarPredictor;
+import org.eqasim.core.simulation.mode_choice.utilities.predictors.PersonPredictor;
+import org.eqasim.core.simulation.mode_choice.utilities.predictors.PtPredictor;
+import org.eqasim.core.simulation.mode_choice.utilities.predictors.WalkPredictor;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.utils.timing.TimeInterpretation;
+import org.matsim.facilities.FacilitiesUtils;
+import org.matsim.pt.routes.DefaultTransitPassengerRoute;
+import org.matsim.utils.objectattributes.attributable.AttributesImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Estimates the utilities of all core modes for a set of trips, using the core
+ * estimators and predictors behind a ModalUtilityEstimator as in the mode
+ * choice model. Every mode is estimated once per trip, which is how the
+ * predictor caches are hit during chain evaluation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilityEstimatorBenchmark {
+	static final int NUMBER_OF_TRIPS = 1000;
+	static final List<String> MODES = Arrays.asList(TransportMode.car, TransportMode.pt, TransportMode.bike,
+			TransportMode.walk);
+
+	private ExposedModalUtilityEstimator estimator;
+
+	private Person[] persons;
+	private DiscreteModeChoiceTrip[] trips;
+	private List<Map<String, List<? extends PlanElement>>> elements;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+
+		ModeParameters parameters = new ModeParameters();
+		parameters.car.alpha_u = -0.5;
+		parameters.car.betaTravelTime_u_min = -0.05;
+		parameters.car.constantParkingSearchPenalty_min = 4.0;
+		parameters.car.additionalAccessEgressWalkTime_min = 2.0;
+		parameters.pt.betaInVehicleTime_u_min = -0.02;
+		parameters.pt.betaWaitingTime_u_min = -0.04;
+		parameters.pt.betaAccessEgressTime_u_min = -0.06;
+		parameters.pt.betaLineSwitch_u = -0.3;
+		parameters.bike.alpha_u = -2.0;
+		parameters.bike.betaTravelTime_u_min = -0.1;
+		parameters.bike.betaAgeOver18_u_a = -0.02;
+		parameters.walk.alpha_u = 1.0;
+		parameters.walk.betaTravelTime_u_min = -0.15;
+		parameters.betaCost_u_MU = -0.2;
+		parameters.lambdaCostEuclideanDistance = -0.4;
+		parameters.referenceEuclideanDistance_km = 5.0;
+
+		Map<String, UtilityEstimator> estimators = new HashMap<>();
+		estimators.put(TransportMode.car,
+				new CarUtilityEstimator(parameters, new CarPredictor(parameters, new ZeroCostModel())));
+		estimators.put(TransportMode.pt, new PtUtilityEstimator(parameters, new PtPredictor(new ZeroCostModel())));
+		estimators.put(TransportMode.bike,
+				new BikeUtilityEstimator(parameters, new PersonPredictor(), new BikePredictor()));
+		estimators.put(TransportMode.walk, new WalkUtilityEstimator(parameters, new WalkPredictor()));
+
+		estimator = new ExposedModalUtilityEstimator(estimators);
+
+		persons = new Person[NUMBER_OF_TRIPS];
+		trips = new DiscreteModeChoiceTrip[NUMBER_OF_TRIPS];
+		elements = new ArrayList<>(NUMBER_OF_TRIPS);
+
+		for (int i = 0; i < NUMBER_OF_TRIPS; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.createPersonId("person" + i));
+			person.getAttributes().putAttribute("age", 18 + random.nextInt(60));
+			persons[i] = person;
+
+			Activity origin = PopulationUtils.createActivityFromCoord("home",
+					new Coord(random.nextDouble() * 10000.0, random.nextDouble() * 10000.0));
+			Activity destination = PopulationUtils.createActivityFromCoord("work",
+					new Coord(random.nextDouble() * 10000.0, random.nextDouble() * 10000.0));
+			origin.setLinkId(Id.createLinkId("origin" + i));
+			destination.setLinkId(Id.createLinkId("destination" + i));
+
+			trips[i] = new DiscreteModeChoiceTrip(origin, destination, TransportMode.walk, Collections.emptyList(),
+					i, 0, 0, new AttributesImpl());
+
+			Map<String, List<? extends PlanElement>> tripElements = new HashMap<>();
+			tripElements.put(TransportMode.car, Arrays.asList( //
+					createLeg(TransportMode.walk, 0.0, 120.0), //
+					PopulationUtils.createActivityFromCoordAndLinkId("car interaction", origin.getCoord(),
+							origin.getLinkId()), //
+					createLeg(TransportMode.car, 120.0, 600.0 + random.nextDouble() * 1800.0), //
+					PopulationUtils.createActivityFromCoordAndLinkId("car interaction", destination.getCoord(),
+							destination.getLinkId()), //
+					createLeg(TransportMode.walk, 0.0, 120.0)));
+			tripElements.put(TransportMode.pt, Arrays.asList( //
+					createLeg(TransportMode.walk, 0.0, 300.0), //
+					createPtLeg(300.0, 1200.0, 420.0), //
+					createLeg(TransportMode.walk, 1500.0, 60.0), //
+					createPtLeg(1560.0, 900.0, 1700.0), //
+					createLeg(TransportMode.walk, 2460.0, 240.0)));
+			tripElements.put(TransportMode.bike,
+					Collections.singletonList(createLeg(TransportMode.bike, 0.0, 300.0 + random.nextDouble() * 1800.0)));
+			tripElements.put(TransportMode.walk,
+					Collections.singletonList(createLeg(TransportMode.walk, 0.0, 600.0 + random.nextDouble() * 3600.0)));
+
+			elements.add(tripElements);
+		}
+	}
+
+	static private Leg createLeg(String mode, double departureTime, double travelTime) {
+		Leg leg = PopulationUtils.createLeg(mode);
+		leg.setDepartureTime(departureTime);
+		leg.setTravelTime(travelTime);
+		return leg;
+	}
+
+	static private Leg createPtLeg(double departureTime, double travelTime, double boardingTime) {
+		DefaultTransitPassengerRoute route = new DefaultTransitPassengerRoute(null, null, null, null, null, null);
+		route.setBoardingTime(boardingTime);
+
+		Leg leg = createLeg(TransportMode.pt, departureTime, travelTime);
+		leg.setRoute(route);
+		return leg;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_TRIPS * 4)
+	public void estimateUtilities(Blackhole blackhole) {
+		for (int i = 0; i < NUMBER_OF_TRIPS; i++) {
+			Map<String, List<? extends PlanElement>> tripElements = elements.get(i);
+
+			for (String mode : MODES) {
+				blackhole.consume(estimator.estimate(persons[i], mode, trips[i], tripElements.get(mode)));
+			}
+		}
+	}
+
+	/**
+	 * Makes the per-trip estimation accessible without going through the trip
+	 * router, which is not part of what is measured here.
+	 */
+	static private class ExposedModalUtilityEstimator extends ModalUtilityEstimator {
+		ExposedModalUtilityEstimator(Map<String, UtilityEstimator> estimators) {
+			super(null, FacilitiesUtils.createActivityFacilities(), estimators,
+					TimeInterpretation.create(ConfigUtils.createConfig()), Collections.emptySet());
+		}
+
+		double estimate(Person person, String mode, DiscreteModeChoiceTrip trip,
+				List<? extends PlanElement> elements) {
+			return estimateTrip(person, mode, trip, Collections.emptyList(), elements);
+		}
+	}
+}
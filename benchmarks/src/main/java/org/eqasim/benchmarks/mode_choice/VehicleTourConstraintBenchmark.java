@@ -0,0 +1,93 @@
+package org.eqasim.benchmarks.mode_choice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eqasim.core.simulation.mode_choice.constraints.EqasimVehicleTourConstraint;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.utils.objectattributes.attributable.AttributesImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Validates random mode chains of a random tour with EqasimVehicleTourConstraint
+ * in the same way the discrete mode choice model does before estimation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VehicleTourConstraintBenchmark {
+	static final int NUMBER_OF_CHAINS = 1000;
+	static final List<String> MODES = Arrays.asList("car", "pt", "bike", "walk");
+
+	@Param({ "4", "10" })
+	public int numberOfTrips;
+
+	private EqasimVehicleTourConstraint constraint;
+	private List<DiscreteModeChoiceTrip> tour;
+	private List<List<String>> chains;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+
+		constraint = new EqasimVehicleTourConstraint(Arrays.asList("car", "bike"), Id.createLinkId("L0"));
+		tour = new ArrayList<>(numberOfTrips);
+
+		String location = "L0";
+
+		for (int i = 0; i < numberOfTrips; i++) {
+			String nextLocation = i == numberOfTrips - 1 ? "L0" : "L" + random.nextInt(4);
+
+			Activity originActivity = PopulationUtils.createActivityFromLinkId("activity", Id.createLinkId(location));
+			Activity destinationActivity = PopulationUtils.createActivityFromLinkId("activity",
+					Id.createLinkId(nextLocation));
+
+			tour.add(new DiscreteModeChoiceTrip(originActivity, destinationActivity, "walk", Collections.emptyList(), 0,
+					i, i, new AttributesImpl()));
+
+			location = nextLocation;
+		}
+
+		chains = new ArrayList<>(NUMBER_OF_CHAINS);
+
+		for (int k = 0; k < NUMBER_OF_CHAINS; k++) {
+			List<String> chain = new ArrayList<>(numberOfTrips);
+
+			for (int i = 0; i < numberOfTrips; i++) {
+				chain.add(MODES.get(random.nextInt(MODES.size())));
+			}
+
+			chains.add(chain);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_CHAINS)
+	public void validateChains(Blackhole blackhole) {
+		for (List<String> chain : chains) {
+			blackhole.consume(constraint.validateBeforeEstimation(tour, chain, Collections.emptyList()));
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package org.eqasim.benchmarks.transit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eqasim.core.components.transit.departure.DefaultDepartureFinder;
+import org.eqasim.core.components.transit.departure.DepartureFinder;
+import org.eqasim.core.components.transit.departure.DepartureFinder.NoDepartureFoundException;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.pt.transitSchedule.TransitScheduleFactoryImpl;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Finds the next departures for random access and egress stops and departure
+ * times on a single route with a regular headway over the day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepartureFinderBenchmark {
+	static final int NUMBER_OF_QUERIES = 1000;
+
+	@Param({ "20" })
+	public int numberOfStops;
+
+	@Param({ "50", "200" })
+	public int numberOfDepartures;
+
+	private DepartureFinder finder;
+	private TransitRoute route;
+
+	private List<Id<TransitStopFacility>> accessStopIds;
+	private List<Id<TransitStopFacility>> egressStopIds;
+	private double[] departureTimes;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		TransitScheduleFactory factory = new TransitScheduleFactoryImpl();
+
+		List<TransitRouteStop> stops = new ArrayList<>(numberOfStops);
+
+		for (int i = 0; i < numberOfStops; i++) {
+			TransitStopFacility facility = factory.createTransitStopFacility(
+					Id.create("stop" + i, TransitStopFacility.class), new Coord(i * 500.0, 0.0), false);
+			stops.add(factory.createTransitRouteStop(facility, i * 90.0 - 20.0, i * 90.0));
+		}
+
+		route = factory.createTransitRoute(Id.create("route", TransitRoute.class), null, stops, "bus");
+
+		double headway = 20.0 * 3600.0 / numberOfDepartures;
+
+		for (int k = 0; k < numberOfDepartures; k++) {
+			route.addDeparture(
+					factory.createDeparture(Id.create("departure" + k, Departure.class), 5.0 * 3600.0 + k * headway));
+		}
+
+		finder = new DefaultDepartureFinder();
+
+		accessStopIds = new ArrayList<>(NUMBER_OF_QUERIES);
+		egressStopIds = new ArrayList<>(NUMBER_OF_QUERIES);
+		departureTimes = new double[NUMBER_OF_QUERIES];
+
+		for (int q = 0; q < NUMBER_OF_QUERIES; q++) {
+			int accessIndex = random.nextInt(numberOfStops - 1);
+			int egressIndex = accessIndex + 1 + random.nextInt(numberOfStops - accessIndex - 1);
+
+			accessStopIds.add(stops.get(accessIndex).getStopFacility().getId());
+			egressStopIds.add(stops.get(egressIndex).getStopFacility().getId());
+			departureTimes[q] = 5.0 * 3600.0 + random.nextDouble() * 19.0 * 3600.0;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_QUERIES)
+	public void findNextDepartures(Blackhole blackhole) throws NoDepartureFoundException {
+		for (int q = 0; q < NUMBER_OF_QUERIES; q++) {
+			blackhole.consume(finder.findNextDeparture(route, accessStopIds.get(q), egressStopIds.get(q),
+					departureTimes[q]));
+		}
+	}
+}
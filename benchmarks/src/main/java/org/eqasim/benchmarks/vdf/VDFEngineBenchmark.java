@@ -0,0 +1,180 @@
+package org.eqasim.benchmarks.vdf;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eqasim.benchmarks.SyntheticScenario;
+import org.eqasim.core.simulation.vdf.VDFScope;
+import org.eqasim.core.simulation.vdf.engine.VDFEngine;
+import org.eqasim.core.simulation.vdf.handlers.VDFInterpolationHandler;
+import org.eqasim.core.simulation.vdf.travel_time.VDFTravelTime;
+import org.eqasim.core.simulation.vdf.travel_time.function.BPRFunction;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.framework.MobsimDriverAgent;
+import org.matsim.core.mobsim.framework.PlanAgent;
+import org.matsim.core.mobsim.qsim.InternalInterface;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Processes departures through the VDF engine without network events: every
+ * departure traverses its route in the engine (travel time lookups and enter
+ * link counting), and the agents are released again when stepping through the
+ * day. The mobsim is replaced by stubs that only provide what the engine uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VDFEngineBenchmark {
+	static final int NUMBER_OF_AGENTS = 1000;
+	static final int LINKS_PER_ROUTE = 40;
+
+	private VDFEngine engine;
+	private MobsimAgent[] agents;
+	private double[] departureTimes;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+
+		Network network = SyntheticScenario.createGridNetwork(50, 200.0);
+		VDFScope scope = new VDFScope(0.0, 24.0 * 3600.0, 3600.0);
+
+		VDFTravelTime travelTime = new VDFTravelTime(scope, 5.0 / 3.6, 1.0, 0.1, network,
+				new BPRFunction(0.15, 4.0), 0.0);
+		VDFInterpolationHandler handler = new VDFInterpolationHandler(network, scope, 0.5);
+
+		engine = new VDFEngine(Collections.singleton(TransportMode.car), travelTime, network, handler, false);
+
+		EventsManager eventsManager = stub(EventsManager.class);
+		engine.setInternalInterface(stub(InternalInterface.class, "getMobsim",
+				stubWithReturnType(InternalInterface.class, "getMobsim", "getEventsManager", eventsManager)));
+
+		agents = new MobsimAgent[NUMBER_OF_AGENTS];
+		departureTimes = new double[NUMBER_OF_AGENTS];
+
+		for (int k = 0; k < NUMBER_OF_AGENTS; k++) {
+			List<Link> path = SyntheticScenario.createPath(random, network, LINKS_PER_ROUTE);
+			List<Id<Link>> linkIds = new ArrayList<>();
+
+			for (int i = 1; i < path.size() - 1; i++) {
+				linkIds.add(path.get(i).getId());
+			}
+
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(path.get(0).getId(), linkIds,
+					path.get(path.size() - 1).getId());
+
+			Leg leg = PopulationUtils.createLeg(TransportMode.car);
+			leg.setRoute(route);
+
+			agents[k] = createAgent(Id.createPersonId("agent" + k), leg);
+			departureTimes[k] = 6.0 * 3600.0 + random.nextDouble() * 12.0 * 3600.0;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_AGENTS)
+	public void processTraversals() {
+		for (int k = 0; k < NUMBER_OF_AGENTS; k++) {
+			engine.handleDeparture(departureTimes[k], agents[k], null);
+		}
+
+		for (double now = 0.0; now <= 30.0 * 3600.0; now += 60.0) {
+			engine.doSimStep(now);
+		}
+	}
+
+	static private MobsimAgent createAgent(Id<Person> personId, Leg leg) {
+		return (MobsimAgent) Proxy.newProxyInstance(VDFEngineBenchmark.class.getClassLoader(),
+				new Class<?>[] { MobsimDriverAgent.class, PlanAgent.class }, (proxy, method, arguments) -> {
+					switch (method.getName()) {
+					case "getMode":
+						return leg.getMode();
+					case "getId":
+						return personId;
+					case "getCurrentPlanElement":
+						return leg;
+					case "getCurrentLinkId":
+						return leg.getRoute().getStartLinkId();
+					default:
+						return defaultValue(method.getReturnType());
+					}
+				});
+	}
+
+	/**
+	 * Creates an implementation of an interface that returns the given value for
+	 * the given method and default values otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	static private <T> T stub(Class<T> type, String methodName, Object value) {
+		return (T) Proxy.newProxyInstance(VDFEngineBenchmark.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, arguments) -> {
+					if (method.getName().equals(methodName)) {
+						return value;
+					}
+
+					return defaultValue(method.getReturnType());
+				});
+	}
+
+	static private <T> T stub(Class<T> type) {
+		return stub(type, null, null);
+	}
+
+	/**
+	 * Creates a stub for the return type of a method, which needs to be an
+	 * interface.
+	 */
+	static private Object stubWithReturnType(Class<?> type, String methodName, String stubMethodName, Object value) {
+		for (var method : type.getMethods()) {
+			if (method.getName().equals(methodName)) {
+				return stub(method.getReturnType(), stubMethodName, value);
+			}
+		}
+
+		throw new IllegalStateException("Method not found: " + methodName);
+	}
+
+	static private Object defaultValue(Class<?> type) {
+		if (type == boolean.class) {
+			return false;
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == double.class) {
+			return 0.0;
+		} else if (type == float.class) {
+			return 0.0f;
+		} else {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package org.eqasim.benchmarks.vdf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eqasim.benchmarks.SyntheticScenario;
+import org.eqasim.core.simulation.vdf.VDFScope;
+import org.eqasim.core.simulation.vdf.travel_time.VDFTravelTime;
+import org.eqasim.core.simulation.vdf.travel_time.function.BPRFunction;
+import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Updates the VDF travel times of a grid network from random hourly counts, as
+ * done after every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VDFTravelTimeBenchmark {
+	@Param({ "50", "150" })
+	public int gridSize;
+
+	private VDFTravelTime travelTime;
+	private IdMap<Link, List<Double>> counts;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+
+		Network network = SyntheticScenario.createGridNetwork(gridSize, 200.0);
+		VDFScope scope = new VDFScope(0.0, 24.0 * 3600.0, 3600.0);
+
+		travelTime = new VDFTravelTime(scope, 5.0 / 3.6, 1.0, 0.1, network, new BPRFunction(0.15, 4.0), 0.0);
+		counts = new IdMap<>(Link.class);
+
+		for (Link link : network.getLinks().values()) {
+			List<Double> linkCounts = new ArrayList<>(scope.getIntervals());
+
+			for (int i = 0; i < scope.getIntervals(); i++) {
+				linkCounts.add((double) random.nextInt(200));
+			}
+
+			counts.put(link.getId(), linkCounts);
+		}
+	}
+
+	@Benchmark
+	public VDFTravelTime update() {
+		travelTime.update(counts);
+		return travelTime;
+	}
+}
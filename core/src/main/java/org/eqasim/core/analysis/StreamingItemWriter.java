@@ -0,0 +1,111 @@
+package org.eqasim.core.analysis;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.matsim.core.utils.io.IOUtils;
+
+/**
+ * Writes analysis items to a CSV file while they are produced. Items are passed
+ * through a bounded queue to a background thread that formats and writes them,
+ * so the producing thread (usually the events handling) only blocks if the
+ * writer falls behind. The output is compressed if the path ends with ".gz".
+ *
+ * If writing fails, the background thread discards all further items, so that
+ * producers never block, and the failure is rethrown by the next call to
+ * {@link #accept(Object)} or {@link #close()}. The background thread is a
+ * daemon thread, so a writer that is never closed does not keep the JVM alive.
+ */
+public class StreamingItemWriter<T> implements Consumer<T> {
+	private final static Object END = new Object();
+
+	private final BlockingQueue<Object> queue;
+	private final Thread thread;
+
+	private final String outputPath;
+	private final BufferedWriter writer;
+	private final Function<T, String> formatter;
+
+	private volatile Exception failure = null;
+	private boolean isClosed = false;
+
+	public StreamingItemWriter(String outputPath, String header, Function<T, String> formatter, int queueSize)
+			throws IOException {
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		this.formatter = formatter;
+		this.outputPath = outputPath;
+
+		this.writer = IOUtils.getBufferedWriter(outputPath);
+		this.writer.write(header + "\n");
+
+		this.thread = new Thread(this::run);
+		this.thread.setName("StreamingItemWriter");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void run() {
+		try {
+			while (true) {
+				Object item = queue.take();
+
+				if (item == END) {
+					break;
+				}
+
+				if (failure == null) {
+					try {
+						writer.write(formatter.apply((T) item) + "\n");
+					} catch (IOException | RuntimeException e) {
+						failure = e;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void accept(T item) {
+		if (failure != null) {
+			throw new IllegalStateException("Writing to " + outputPath + " failed", failure);
+		}
+
+		try {
+			queue.put(item);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Waits until all queued items are written and closes the file. Calling it
+	 * again has no effect.
+	 */
+	public void close() throws IOException, InterruptedException {
+		if (isClosed) {
+			return;
+		}
+
+		isClosed = true;
+
+		try {
+			queue.put(END);
+			thread.join();
+		} finally {
+			writer.close();
+		}
+
+		if (failure instanceof IOException exception) {
+			throw exception;
+		} else if (failure != null) {
+			throw new IllegalStateException("Writing to " + outputPath + " failed", failure);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package org.eqasim.core.analysis;
+
+import java.util.Arrays;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Keeps track of the persons that are currently inside of each vehicle. State
+ * is kept in arrays that are indexed by vehicle index and hold person indices,
+ * so no collections are allocated while handling events. The per-vehicle
+ * arrays are reused when passengers change.
+ */
+public class VehiclePassengerRegistry {
+	private final static int[] EMPTY = new int[0];
+
+	private int[][] passengers = new int[0][];
+	private int[] counts = new int[0];
+
+	/**
+	 * Adds a person to a vehicle unless it is already registered there.
+	 */
+	public void add(Id<Vehicle> vehicleId, Id<Person> personId) {
+		int vehicleIndex = vehicleId.index();
+		int personIndex = personId.index();
+
+		ensureCapacity(vehicleIndex);
+
+		int[] vehiclePassengers = passengers[vehicleIndex];
+		int count = counts[vehicleIndex];
+
+		for (int i = 0; i < count; i++) {
+			if (vehiclePassengers[i] == personIndex) {
+				return;
+			}
+		}
+
+		if (count == vehiclePassengers.length) {
+			vehiclePassengers = Arrays.copyOf(vehiclePassengers, Math.max(4, 2 * count));
+			passengers[vehicleIndex] = vehiclePassengers;
+		}
+
+		vehiclePassengers[count] = personIndex;
+		counts[vehicleIndex] = count + 1;
+	}
+
+	/**
+	 * Removes a person from a vehicle and returns whether the vehicle had any
+	 * registered passengers before.
+	 */
+	public boolean remove(Id<Vehicle> vehicleId, Id<Person> personId) {
+		int vehicleIndex = vehicleId.index();
+		int count = getNumberOfPassengers(vehicleIndex);
+
+		if (count == 0) {
+			return false;
+		}
+
+		int personIndex = personId.index();
+		int[] vehiclePassengers = passengers[vehicleIndex];
+
+		for (int i = 0; i < count; i++) {
+			if (vehiclePassengers[i] == personIndex) {
+				vehiclePassengers[i] = vehiclePassengers[count - 1];
+				counts[vehicleIndex] = count - 1;
+				break;
+			}
+		}
+
+		return true;
+	}
+
+	public int getNumberOfPassengers(int vehicleIndex) {
+		return vehicleIndex < counts.length ? counts[vehicleIndex] : 0;
+	}
+
+	/**
+	 * Returns the person index of the i-th passenger of a vehicle.
+	 */
+	public int getPassenger(int vehicleIndex, int i) {
+		return passengers[vehicleIndex][i];
+	}
+
+	public void clear() {
+		Arrays.fill(counts, 0);
+	}
+
+	private void ensureCapacity(int vehicleIndex) {
+		if (vehicleIndex >= counts.length) {
+			int size = Math.max(vehicleIndex + 1, Math.max(16, 2 * counts.length));
+			int previousSize = counts.length;
+
+			counts = Arrays.copyOf(counts, size);
+			passengers = Arrays.copyOf(passengers, size);
+
+			Arrays.fill(passengers, previousSize, size, EMPTY);
+		}
+	}
+}
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import org.eqasim.core.analysis.PersonAnalysisFilter;
 import org.matsim.api.core.v01.Id;
@@ -21,6 +22,7 @@ public class ActivityListener implements ActivityStartEventHandler, ActivityEndE
 	final private Collection<ActivityItem> activities = new LinkedList<>();
 	final private Map<Id<Person>, ActivityItem> ongoing = new HashMap<>();
 	final private Map<Id<Person>, Integer> activityIndex = new HashMap<>();
+	private Consumer<ActivityItem> itemConsumer = null;
 
 	final private PersonAnalysisFilter personFilter;
 
@@ -32,6 +34,30 @@ public class ActivityListener implements ActivityStartEventHandler, ActivityEndE
 		return activities;
 	}
 
+	/**
+	 * Passes activities to the given consumer once their end time is known instead
+	 * of collecting them in memory. Activities that are still ongoing are only
+	 * passed on when calling flushOngoing. The consumer hence receives the
+	 * activities in the order in which they end, while the collected items are
+	 * ordered by their start. Passing null restores the default behaviour.
+	 */
+	public void setItemConsumer(Consumer<ActivityItem> itemConsumer) {
+		this.itemConsumer = itemConsumer;
+	}
+
+	/**
+	 * Passes all activities that have not ended yet to the item consumer.
+	 */
+	public void flushOngoing() {
+		if (itemConsumer != null) {
+			for (ActivityItem activity : ongoing.values()) {
+				if (Double.isInfinite(activity.endTime)) {
+					itemConsumer.accept(activity);
+				}
+			}
+		}
+	}
+
 	@Override
 	public void reset(int iteration) {
 		activities.clear();
@@ -50,7 +76,10 @@ public class ActivityListener implements ActivityStartEventHandler, ActivityEndE
 				ActivityItem activity = new ActivityItem(event.getPersonId(), personActivityIndex, event.getActType(),
 						event.getTime(), Double.POSITIVE_INFINITY, event.getCoord().getX(), event.getCoord().getY());
 
-				activities.add(activity);
+				if (itemConsumer == null) {
+					activities.add(activity);
+				}
+
 				ongoing.put(event.getPersonId(), activity);
 			}
 		}
@@ -74,10 +103,19 @@ public class ActivityListener implements ActivityStartEventHandler, ActivityEndE
 
 					Verify.verify(activityIndex.put(event.getPersonId(), 0) == null);
 
-					activities.add(activity);
+					if (itemConsumer == null) {
+						activities.add(activity);
+					} else {
+						itemConsumer.accept(activity);
+					}
+
 					ongoing.put(event.getPersonId(), activity);
 				} else {
 					activity.endTime = event.getTime();
+
+					if (itemConsumer != null) {
+						itemConsumer.accept(activity);
+					}
 				}
 			}
 		}
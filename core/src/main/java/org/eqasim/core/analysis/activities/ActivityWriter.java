@@ -34,7 +34,7 @@ public class ActivityWriter {
 		writer.close();
 	}
 
-	private String formatHeader() {
+	public String formatHeader() {
 		return String.join(delimiter, new String[] { //
 				"person_id", //
 				"activity_index", //
@@ -46,7 +46,7 @@ public class ActivityWriter {
 		});
 	}
 
-	private String formatActivity(ActivityItem activity) {
+	public String formatActivity(ActivityItem activity) {
 		return String.join(delimiter, new String[] { //
 				activity.personId.toString(), //
 				String.valueOf(activity.activityIndex), //
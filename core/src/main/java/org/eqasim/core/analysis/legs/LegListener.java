@@ -1,12 +1,12 @@
 package org.eqasim.core.analysis.legs;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
-import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eqasim.core.analysis.PersonAnalysisFilter;
+import org.eqasim.core.analysis.VehiclePassengerRegistry;
 import org.eqasim.core.components.transit.events.PublicTransitEvent;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.ActivityEndEvent;
@@ -23,6 +23,7 @@ import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
 import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
 import org.matsim.api.core.v01.events.handler.PersonEntersVehicleEventHandler;
 import org.matsim.api.core.v01.events.handler.PersonLeavesVehicleEventHandler;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.PopulationFactory;
@@ -32,7 +33,6 @@ import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.core.utils.geometry.CoordUtils;
-import org.matsim.vehicles.Vehicle;
 
 public class LegListener implements ActivityStartEventHandler, ActivityEndEventHandler, PersonDepartureEventHandler,
 		PersonEntersVehicleEventHandler, PersonLeavesVehicleEventHandler, LinkEnterEventHandler,
@@ -40,11 +40,16 @@ public class LegListener implements ActivityStartEventHandler, ActivityEndEventH
 	final private Network network;
 	final private PopulationFactory factory;
 
+	final private double[] linkLengths;
+
 	final private Collection<LegItem> trips = new LinkedList<>();
-	final private Map<Id<Person>, LegListenerItem> ongoing = new HashMap<>();
-	final private Map<Id<Vehicle>, Collection<Id<Person>>> passengers = new HashMap<>();
-	final private Map<Id<Person>, Integer> tripIndex = new HashMap<>();
-	final private Map<Id<Person>, Integer> legIndex = new HashMap<>();
+	final private VehiclePassengerRegistry passengers = new VehiclePassengerRegistry();
+	private Consumer<LegItem> itemConsumer = null;
+
+	// Person state indexed by Id<Person>.index()
+	private LegListenerItem[] ongoing = new LegListenerItem[0];
+	private int[] tripIndex = new int[0];
+	private int[] legIndex = new int[0];
 
 	final private PersonAnalysisFilter personFilter;
 
@@ -52,69 +57,111 @@ public class LegListener implements ActivityStartEventHandler, ActivityEndEventH
 		this.network = network;
 		this.factory = ScenarioUtils.createScenario(ConfigUtils.createConfig()).getPopulation().getFactory();
 		this.personFilter = personFilter;
+
+		this.linkLengths = new double[Id.getNumberOfIds(Link.class)];
+
+		for (Link link : network.getLinks().values()) {
+			linkLengths[link.getId().index()] = link.getLength();
+		}
 	}
 
 	public Collection<LegItem> getLegItems() {
 		return trips;
 	}
 
+	/**
+	 * Passes completed items to the given consumer instead of collecting them in
+	 * memory. Passing null restores the default behaviour.
+	 */
+	public void setItemConsumer(Consumer<LegItem> itemConsumer) {
+		this.itemConsumer = itemConsumer;
+	}
+
+	private void addItem(LegItem item) {
+		if (itemConsumer == null) {
+			trips.add(item);
+		} else {
+			itemConsumer.accept(item);
+		}
+	}
+
 	@Override
 	public void reset(int iteration) {
 		trips.clear();
-		ongoing.clear();
 		passengers.clear();
-		tripIndex.clear();
-		legIndex.clear();
+
+		Arrays.fill(ongoing, null);
+		Arrays.fill(tripIndex, -1);
+		Arrays.fill(legIndex, -1);
+	}
+
+	private void ensurePersonCapacity(int personIndex) {
+		if (personIndex >= ongoing.length) {
+			int size = Math.max(personIndex + 1, Math.max(Id.getNumberOfIds(Person.class), 2 * ongoing.length));
+			int previousSize = ongoing.length;
+
+			ongoing = Arrays.copyOf(ongoing, size);
+			tripIndex = Arrays.copyOf(tripIndex, size);
+			legIndex = Arrays.copyOf(legIndex, size);
+
+			Arrays.fill(tripIndex, previousSize, size, -1);
+			Arrays.fill(legIndex, previousSize, size, -1);
+		}
+	}
+
+	private double getLinkLength(Id<Link> linkId) {
+		int linkIndex = linkId.index();
+		return linkIndex < linkLengths.length ? linkLengths[linkIndex] : network.getLinks().get(linkId).getLength();
+	}
+
+	private LegListenerItem getOngoing(Id<Person> personId) {
+		int personIndex = personId.index();
+		return personIndex < ongoing.length ? ongoing[personIndex] : null;
 	}
 
 	@Override
 	public void handleEvent(ActivityEndEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			Integer localLegIndex = legIndex.get(event.getPersonId());
-
-			if (localLegIndex == null) {
-				localLegIndex = 0;
-			} else {
-				localLegIndex = localLegIndex + 1;
-			}
+			int personIndex = event.getPersonId().index();
+			ensurePersonCapacity(personIndex);
 
-			Integer personTripIndex = tripIndex.get(event.getPersonId());
+			int localLegIndex = legIndex[personIndex] + 1;
+			int personTripIndex = tripIndex[personIndex];
 
 			if (!TripStructureUtils.isStageActivityType(event.getActType())) {
-				if (personTripIndex == null) {
-					personTripIndex = 0;
-				} else {
-					personTripIndex = personTripIndex + 1;
-				}
+				personTripIndex = personTripIndex + 1;
 			}
 
-			ongoing.put(event.getPersonId(), new LegListenerItem(event.getPersonId(), personTripIndex, localLegIndex,
-					network.getLinks().get(event.getLinkId()).getCoord()));
+			ongoing[personIndex] = new LegListenerItem(event.getPersonId(), personTripIndex, localLegIndex,
+					network.getLinks().get(event.getLinkId()).getCoord());
 
-			tripIndex.put(event.getPersonId(), personTripIndex);
-			legIndex.put(event.getPersonId(), localLegIndex);
+			tripIndex[personIndex] = personTripIndex;
+			legIndex[personIndex] = localLegIndex;
 		}
 	}
 
 	@Override
 	public void handleEvent(PersonDepartureEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			ongoing.get(event.getPersonId()).mode = event.getLegMode();
-			ongoing.get(event.getPersonId()).departureTime = event.getTime();
+			LegListenerItem leg = getOngoing(event.getPersonId());
+			leg.mode = event.getLegMode();
+			leg.departureTime = event.getTime();
 		}
 	}
 
 	@Override
 	public void handleEvent(ActivityStartEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			LegListenerItem leg = ongoing.remove(event.getPersonId());
+			LegListenerItem leg = getOngoing(event.getPersonId());
 
 			if (leg != null) {
+				ongoing[event.getPersonId().index()] = null;
+
 				leg.travelTime = event.getTime() - leg.departureTime;
 				leg.destination = network.getLinks().get(event.getLinkId()).getCoord();
 				leg.euclideanDistance = CoordUtils.calcEuclideanDistance(leg.origin, leg.destination);
 
-				trips.add(new LegItem(leg.personId, leg.personTripId, leg.legIndex, leg.origin, leg.destination,
+				addItem(new LegItem(leg.personId, leg.personTripId, leg.legIndex, leg.origin, leg.destination,
 						leg.departureTime, leg.travelTime, leg.vehicleDistance, leg.routedDistance, leg.mode,
 						leg.euclideanDistance));
 			}
@@ -124,26 +171,16 @@ public class LegListener implements ActivityStartEventHandler, ActivityEndEventH
 	@Override
 	public void handleEvent(PersonEntersVehicleEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			if (!passengers.containsKey(event.getVehicleId())) {
-				passengers.put(event.getVehicleId(), new HashSet<>());
-			}
-
-			passengers.get(event.getVehicleId()).add(event.getPersonId());
+			passengers.add(event.getVehicleId(), event.getPersonId());
 		}
 	}
 
 	@Override
 	public void handleEvent(PersonLeavesVehicleEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			if (passengers.containsKey(event.getVehicleId())) {
-				passengers.get(event.getVehicleId()).remove(event.getPersonId());
-
-				if (passengers.get(event.getVehicleId()).size() == 0) {
-					passengers.remove(event.getVehicleId());
-				}
-
+			if (passengers.remove(event.getVehicleId(), event.getPersonId())) {
 				// Last link is not traversed, so we should not count it!
-				LegListenerItem item = ongoing.get(event.getPersonId());
+				LegListenerItem item = getOngoing(event.getPersonId());
 				item.routedDistance -= item.lastAddedLinkDistance;
 				item.vehicleDistance -= item.lastAddedLinkDistance;
 			}
@@ -152,24 +189,26 @@ public class LegListener implements ActivityStartEventHandler, ActivityEndEventH
 
 	@Override
 	public void handleEvent(LinkEnterEvent event) {
-		Collection<Id<Person>> personIds = passengers.get(event.getVehicleId());
+		int vehicleIndex = event.getVehicleId().index();
+		int numberOfPassengers = passengers.getNumberOfPassengers(vehicleIndex);
+
+		if (numberOfPassengers > 0) {
+			double linkDistance = getLinkLength(event.getLinkId());
 
-		if (personIds != null) {
-			personIds.forEach(id -> {
-				double linkDistance = network.getLinks().get(event.getLinkId()).getLength();
-				LegListenerItem item = ongoing.get(id);
+			for (int i = 0; i < numberOfPassengers; i++) {
+				LegListenerItem item = ongoing[passengers.getPassenger(vehicleIndex, i)];
 
 				item.routedDistance += linkDistance;
 				item.vehicleDistance += linkDistance;
 				item.lastAddedLinkDistance = linkDistance;
-			});
+			}
 		}
 	}
 
 	@Override
 	public void handleEvent(TeleportationArrivalEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			LegListenerItem item = ongoing.get(event.getPersonId());
+			LegListenerItem item = getOngoing(event.getPersonId());
 			item.routedDistance += event.getDistance();
 		}
 	}
@@ -180,7 +219,7 @@ public class LegListener implements ActivityStartEventHandler, ActivityEndEventH
 			PublicTransitEvent transitEvent = (PublicTransitEvent) event;
 
 			if (personFilter.analyzePerson(transitEvent.getPersonId())) {
-				LegListenerItem item = ongoing.get(transitEvent.getPersonId());
+				LegListenerItem item = getOngoing(transitEvent.getPersonId());
 				item.vehicleDistance += transitEvent.getTravelDistance();
 			}
 		}
@@ -41,7 +41,7 @@ public class LegWriter {
 		writer.close();
 	}
 
-	private String formatHeader() {
+	public String formatHeader() {
 		return String.join(delimiter, new String[] { //
 				"person_id", //
 				"person_trip_id", //
@@ -84,7 +84,7 @@ public class LegWriter {
 		return factor;
 	}
 
-	private String formatLeg(LegItem leg) {
+	public String formatLeg(LegItem leg) {
 		double inputFactor = getUnitFactor(inputUnit);
 		double outputFactor = 1.0 / getUnitFactor(outputUnit);
 
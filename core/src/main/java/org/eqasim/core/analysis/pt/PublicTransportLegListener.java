@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eqasim.core.components.transit.events.PublicTransitEvent;
 import org.matsim.api.core.v01.Id;
@@ -25,6 +26,7 @@ public class PublicTransportLegListener implements PersonDepartureEventHandler,
 	private final Map<Id<Person>, Integer> tripIndices = new HashMap<>();
 	private final Map<Id<Person>, Integer> legIndices = new HashMap<>();
 	private final TransitSchedule schedule;
+	private Consumer<PublicTransportLegItem> itemConsumer = null;
 
 	public PublicTransportLegListener(TransitSchedule schedule) {
 		this.schedule = schedule;
@@ -34,6 +36,22 @@ public class PublicTransportLegListener implements PersonDepartureEventHandler,
 		return trips;
 	}
 
+	/**
+	 * Passes completed items to the given consumer instead of collecting them in
+	 * memory. Passing null restores the default behaviour.
+	 */
+	public void setItemConsumer(Consumer<PublicTransportLegItem> itemConsumer) {
+		this.itemConsumer = itemConsumer;
+	}
+
+	private void addItem(PublicTransportLegItem item) {
+		if (itemConsumer == null) {
+			trips.add(item);
+		} else {
+			itemConsumer.accept(item);
+		}
+	}
+
 	@Override
 	public void reset(int iteration) {
 		trips.clear();
@@ -48,7 +66,7 @@ public class PublicTransportLegListener implements PersonDepartureEventHandler,
 				.getRoutes().get(event.getTransitRouteId())//
 				.getTransportMode();
 		
-		trips.add(new PublicTransportLegItem(event.getPersonId(), //
+		addItem(new PublicTransportLegItem(event.getPersonId(), //
 				tripIndices.get(event.getPersonId()), //
 				legIndices.get(event.getPersonId()), //
 				event.getAccessStopId(), //
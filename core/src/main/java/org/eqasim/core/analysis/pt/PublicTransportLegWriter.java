@@ -34,7 +34,7 @@ public class PublicTransportLegWriter {
 		writer.close();
 	}
 
-	private String formatHeader() {
+	public String formatHeader() {
 		return String.join(delimiter, new String[] { //
 				"person_id", //
 				"person_trip_id", //
@@ -49,7 +49,7 @@ public class PublicTransportLegWriter {
 		});
 	}
 
-	private String formatTrip(PublicTransportLegItem trip) {
+	public String formatTrip(PublicTransportLegItem trip) {
 		return String.join(delimiter, new String[] { //
 				trip.personId.toString(), //
 				String.valueOf(trip.personTripId), //
@@ -0,0 +1,178 @@
+package org.eqasim.core.analysis.run;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eqasim.core.analysis.DefaultPersonAnalysisFilter;
+import org.eqasim.core.analysis.DistanceUnit;
+import org.eqasim.core.analysis.PersonAnalysisFilter;
+import org.eqasim.core.analysis.activities.ActivityListener;
+import org.eqasim.core.analysis.activities.ActivityWriter;
+import org.eqasim.core.analysis.legs.LegListener;
+import org.eqasim.core.analysis.legs.LegWriter;
+import org.eqasim.core.analysis.pt.PublicTransportLegListener;
+import org.eqasim.core.analysis.pt.PublicTransportLegWriter;
+import org.eqasim.core.analysis.trips.TripListener;
+import org.eqasim.core.analysis.trips.TripWriter;
+import org.eqasim.core.components.transit.events.PublicTransitEvent;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.CommandLine;
+import org.matsim.core.config.CommandLine.ConfigurationException;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.pt.transitSchedule.api.TransitScheduleReader;
+
+/**
+ * Produces the trip, leg, activity and public transport leg analyses from one
+ * single pass over an events file. Only the analyses for which an output path
+ * is given are performed. Events are parsed and decompressed by the reading
+ * thread while the listeners are served by the threads of a parallel events
+ * manager. At the end, all output files are written concurrently.
+ */
+public class RunEventsAnalysis {
+	private final static Logger logger = LogManager.getLogger(RunEventsAnalysis.class);
+
+	static public void main(String[] args) throws IOException, ConfigurationException, InterruptedException {
+		CommandLine cmd = new CommandLine.Builder(args) //
+				.requireOptions("events-path", "network-path") //
+				.allowOptions("trips-output-path", "legs-output-path", "activities-output-path",
+						"pt-legs-output-path") //
+				.allowOptions("schedule-path") //
+				.allowOptions("input-distance-unit", "output-distance-unit") //
+				.build();
+
+		run(cmd, new DefaultPersonAnalysisFilter());
+	}
+
+	public static void run(CommandLine cmd, PersonAnalysisFilter personAnalysisFilter)
+			throws ConfigurationException, IOException, InterruptedException {
+		boolean tripsRequired = cmd.hasOption("trips-output-path");
+		boolean legsRequired = cmd.hasOption("legs-output-path");
+		boolean activitiesRequired = cmd.hasOption("activities-output-path");
+		boolean ptLegsRequired = cmd.hasOption("pt-legs-output-path");
+
+		if (!(tripsRequired || legsRequired || activitiesRequired || ptLegsRequired)) {
+			throw new IllegalStateException("At least one output path must be provided.");
+		}
+
+		if (ptLegsRequired && !cmd.hasOption("schedule-path")) {
+			throw new IllegalStateException("Schedule must be given for public transport leg analysis.");
+		}
+
+		DistanceUnit inputUnit = DistanceUnit.valueOf(cmd.getOption("input-distance-unit").orElse("meter"));
+		DistanceUnit outputUnit = DistanceUnit.valueOf(cmd.getOption("output-distance-unit").orElse("meter"));
+
+		Network network = NetworkUtils.createNetwork();
+		new MatsimNetworkReader(network).readFile(cmd.getOptionStrict("network-path"));
+
+		// Set up listeners
+		EventsManager eventsManager = EventsUtils.createParallelEventsManager();
+
+		TripListener tripListener = null;
+		LegListener legListener = null;
+		ActivityListener activityListener = null;
+		PublicTransportLegListener ptLegListener = null;
+
+		if (tripsRequired) {
+			tripListener = new TripListener(network, personAnalysisFilter);
+			eventsManager.addHandler(tripListener);
+		}
+
+		if (legsRequired) {
+			legListener = new LegListener(network, personAnalysisFilter);
+			eventsManager.addHandler(legListener);
+		}
+
+		if (activitiesRequired) {
+			activityListener = new ActivityListener(personAnalysisFilter);
+			eventsManager.addHandler(activityListener);
+		}
+
+		if (ptLegsRequired) {
+			Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+			new TransitScheduleReader(scenario).readFile(cmd.getOptionStrict("schedule-path"));
+
+			ptLegListener = new PublicTransportLegListener(scenario.getTransitSchedule());
+			eventsManager.addHandler(ptLegListener);
+		}
+
+		// Single pass over the events
+		logger.info("Reading events ...");
+
+		MatsimEventsReader reader = new MatsimEventsReader(eventsManager);
+		reader.addCustomEventMapper(PublicTransitEvent.TYPE, PublicTransitEvent::convert);
+
+		eventsManager.initProcessing();
+		reader.readFile(cmd.getOptionStrict("events-path"));
+		eventsManager.finishProcessing();
+
+		// Write output concurrently
+		logger.info("Writing analysis output ...");
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> futures = new LinkedList<>();
+
+		if (tripsRequired) {
+			TripWriter writer = new TripWriter(tripListener.getTripItems(), inputUnit, outputUnit);
+			String outputPath = cmd.getOptionStrict("trips-output-path");
+			futures.add(executor.submit(() -> {
+				writer.write(outputPath);
+				return null;
+			}));
+		}
+
+		if (legsRequired) {
+			LegWriter writer = new LegWriter(legListener.getLegItems(), inputUnit, outputUnit);
+			String outputPath = cmd.getOptionStrict("legs-output-path");
+			futures.add(executor.submit(() -> {
+				writer.write(outputPath);
+				return null;
+			}));
+		}
+
+		if (activitiesRequired) {
+			ActivityWriter writer = new ActivityWriter(activityListener.getActivityItems());
+			String outputPath = cmd.getOptionStrict("activities-output-path");
+			futures.add(executor.submit(() -> {
+				writer.write(outputPath);
+				return null;
+			}));
+		}
+
+		if (ptLegsRequired) {
+			PublicTransportLegWriter writer = new PublicTransportLegWriter(ptLegListener.getTripItems());
+			String outputPath = cmd.getOptionStrict("pt-legs-output-path");
+			futures.add(executor.submit(() -> {
+				writer.write(outputPath);
+				return null;
+			}));
+		}
+
+		executor.shutdown();
+
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+
+			throw new RuntimeException(e.getCause());
+		}
+	}
+}
@@ -1,12 +1,12 @@
 package org.eqasim.core.analysis.trips;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
-import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eqasim.core.analysis.PersonAnalysisFilter;
+import org.eqasim.core.analysis.VehiclePassengerRegistry;
 import org.eqasim.core.components.transit.events.PublicTransitEvent;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.ActivityEndEvent;
@@ -23,60 +23,106 @@ import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
 import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
 import org.matsim.api.core.v01.events.handler.PersonEntersVehicleEventHandler;
 import org.matsim.api.core.v01.events.handler.PersonLeavesVehicleEventHandler;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
 import org.matsim.core.api.experimental.events.handler.TeleportationArrivalEventHandler;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.utils.geometry.CoordUtils;
-import org.matsim.vehicles.Vehicle;
 
 public class TripListener implements ActivityStartEventHandler, ActivityEndEventHandler, PersonDepartureEventHandler,
 		PersonEntersVehicleEventHandler, PersonLeavesVehicleEventHandler, LinkEnterEventHandler,
 		TeleportationArrivalEventHandler, GenericEventHandler {
 	final private Network network;
 
+	final private double[] linkLengths;
+
 	final private Collection<TripItem> trips = new LinkedList<>();
-	final private Map<Id<Person>, TripListenerItem> ongoing = new HashMap<>();
-	final private Map<Id<Vehicle>, Collection<Id<Person>>> passengers = new HashMap<>();
-	final private Map<Id<Person>, Integer> tripIndex = new HashMap<>();
+	final private VehiclePassengerRegistry passengers = new VehiclePassengerRegistry();
+	private Consumer<TripItem> itemConsumer = null;
+
+	// Person state indexed by Id<Person>.index()
+	private TripListenerItem[] ongoing = new TripListenerItem[0];
+	private int[] tripIndex = new int[0];
 
 	final private PersonAnalysisFilter personFilter;
 
 	public TripListener(Network network, PersonAnalysisFilter personFilter) {
 		this.network = network;
 		this.personFilter = personFilter;
+
+		this.linkLengths = new double[Id.getNumberOfIds(Link.class)];
+
+		for (Link link : network.getLinks().values()) {
+			linkLengths[link.getId().index()] = link.getLength();
+		}
 	}
 
 	public Collection<TripItem> getTripItems() {
 		return trips;
 	}
 
+	/**
+	 * Passes completed items to the given consumer instead of collecting them in
+	 * memory. Passing null restores the default behaviour.
+	 */
+	public void setItemConsumer(Consumer<TripItem> itemConsumer) {
+		this.itemConsumer = itemConsumer;
+	}
+
+	private void addItem(TripItem item) {
+		if (itemConsumer == null) {
+			trips.add(item);
+		} else {
+			itemConsumer.accept(item);
+		}
+	}
+
 	@Override
 	public void reset(int iteration) {
 		trips.clear();
-		ongoing.clear();
 		passengers.clear();
-		tripIndex.clear();
+
+		Arrays.fill(ongoing, null);
+		Arrays.fill(tripIndex, -1);
+	}
+
+	private void ensurePersonCapacity(int personIndex) {
+		if (personIndex >= ongoing.length) {
+			int size = Math.max(personIndex + 1, Math.max(Id.getNumberOfIds(Person.class), 2 * ongoing.length));
+			int previousSize = ongoing.length;
+
+			ongoing = Arrays.copyOf(ongoing, size);
+			tripIndex = Arrays.copyOf(tripIndex, size);
+
+			Arrays.fill(tripIndex, previousSize, size, -1);
+		}
+	}
+
+	private double getLinkLength(Id<Link> linkId) {
+		int linkIndex = linkId.index();
+		return linkIndex < linkLengths.length ? linkLengths[linkIndex] : network.getLinks().get(linkId).getLength();
+	}
+
+	private TripListenerItem getOngoing(Id<Person> personId) {
+		int personIndex = personId.index();
+		return personIndex < ongoing.length ? ongoing[personIndex] : null;
 	}
 
 	@Override
 	public void handleEvent(ActivityEndEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
 			if (!TripStructureUtils.isStageActivityType(event.getActType())) {
-				Integer personTripIndex = tripIndex.get(event.getPersonId());
-				network.getLinks().get(event.getLinkId()).getCoord();
+				int personIndex = event.getPersonId().index();
+				ensurePersonCapacity(personIndex);
 
-				if (personTripIndex == null) {
-					personTripIndex = 0;
-				} else {
-					personTripIndex = personTripIndex + 1;
-				}
+				int personTripIndex = tripIndex[personIndex] + 1;
 
-				ongoing.put(event.getPersonId(), new TripListenerItem(event.getPersonId(), personTripIndex,
-						network.getLinks().get(event.getLinkId()).getCoord(), event.getTime(), event.getActType()));
+				ongoing[personIndex] = new TripListenerItem(event.getPersonId(), personTripIndex,
+						network.getLinks().get(event.getLinkId()).getCoord(), event.getTime(), event.getActType());
 
-				tripIndex.put(event.getPersonId(), personTripIndex);
+				tripIndex[personIndex] = personTripIndex;
 			}
 		}
 	}
@@ -84,7 +130,7 @@ public class TripListener implements ActivityStartEventHandler, ActivityEndEvent
 	@Override
 	public void handleEvent(PersonDepartureEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			ongoing.get(event.getPersonId()).mode = event.getRoutingMode();
+			getOngoing(event.getPersonId()).mode = event.getRoutingMode();
 		}
 	}
 
@@ -92,16 +138,18 @@ public class TripListener implements ActivityStartEventHandler, ActivityEndEvent
 	public void handleEvent(ActivityStartEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
 			if (!TripStructureUtils.isStageActivityType(event.getActType())) {
-				TripListenerItem trip = ongoing.remove(event.getPersonId());
+				TripListenerItem trip = getOngoing(event.getPersonId());
 
 				if (trip != null) {
+					ongoing[event.getPersonId().index()] = null;
+
 					trip.returning = event.getActType().equals("home");
 					trip.followingPurpose = event.getActType();
 					trip.travelTime = event.getTime() - trip.departureTime;
 					trip.destination = network.getLinks().get(event.getLinkId()).getCoord();
 					trip.euclideanDistance = CoordUtils.calcEuclideanDistance(trip.origin, trip.destination);
 
-					trips.add(new TripItem(trip.personId, trip.personTripId, trip.origin, trip.destination,
+					addItem(new TripItem(trip.personId, trip.personTripId, trip.origin, trip.destination,
 							trip.departureTime, trip.travelTime, trip.vehicleDistance, trip.routedDistance, trip.mode,
 							trip.precedingPurpose, trip.followingPurpose, trip.returning, trip.euclideanDistance));
 				}
@@ -112,26 +160,16 @@ public class TripListener implements ActivityStartEventHandler, ActivityEndEvent
 	@Override
 	public void handleEvent(PersonEntersVehicleEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			if (!passengers.containsKey(event.getVehicleId())) {
-				passengers.put(event.getVehicleId(), new HashSet<>());
-			}
-
-			passengers.get(event.getVehicleId()).add(event.getPersonId());
+			passengers.add(event.getVehicleId(), event.getPersonId());
 		}
 	}
 
 	@Override
 	public void handleEvent(PersonLeavesVehicleEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			if (passengers.containsKey(event.getVehicleId())) {
-				passengers.get(event.getVehicleId()).remove(event.getPersonId());
-
-				if (passengers.get(event.getVehicleId()).size() == 0) {
-					passengers.remove(event.getVehicleId());
-				}
-
+			if (passengers.remove(event.getVehicleId(), event.getPersonId())) {
 				// Last link is not traversed, so we should not count it!
-				TripListenerItem item = ongoing.get(event.getPersonId());
+				TripListenerItem item = getOngoing(event.getPersonId());
 				item.routedDistance -= item.lastAddedLinkDistance;
 				item.vehicleDistance -= item.lastAddedLinkDistance;
 			}
@@ -140,24 +178,26 @@ public class TripListener implements ActivityStartEventHandler, ActivityEndEvent
 
 	@Override
 	public void handleEvent(LinkEnterEvent event) {
-		Collection<Id<Person>> personIds = passengers.get(event.getVehicleId());
+		int vehicleIndex = event.getVehicleId().index();
+		int numberOfPassengers = passengers.getNumberOfPassengers(vehicleIndex);
+
+		if (numberOfPassengers > 0) {
+			double linkDistance = getLinkLength(event.getLinkId());
 
-		if (personIds != null) {
-			personIds.forEach(id -> {
-				double linkDistance = network.getLinks().get(event.getLinkId()).getLength();
-				TripListenerItem item = ongoing.get(id);
+			for (int i = 0; i < numberOfPassengers; i++) {
+				TripListenerItem item = ongoing[passengers.getPassenger(vehicleIndex, i)];
 
 				item.routedDistance += linkDistance;
 				item.vehicleDistance += linkDistance;
 				item.lastAddedLinkDistance = linkDistance;
-			});
+			}
 		}
 	}
 
 	@Override
 	public void handleEvent(TeleportationArrivalEvent event) {
 		if (personFilter.analyzePerson(event.getPersonId())) {
-			TripListenerItem item = ongoing.get(event.getPersonId());
+			TripListenerItem item = getOngoing(event.getPersonId());
 			item.routedDistance += event.getDistance();
 		}
 	}
@@ -168,7 +208,7 @@ public class TripListener implements ActivityStartEventHandler, ActivityEndEvent
 			PublicTransitEvent transitEvent = (PublicTransitEvent) event;
 
 			if (personFilter.analyzePerson(transitEvent.getPersonId())) {
-				TripListenerItem item = ongoing.get(transitEvent.getPersonId());
+				TripListenerItem item = getOngoing(transitEvent.getPersonId());
 				item.vehicleDistance += transitEvent.getTravelDistance();
 			}
 		}
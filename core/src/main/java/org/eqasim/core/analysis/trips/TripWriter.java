@@ -45,7 +45,7 @@ public class TripWriter {
 		return activityType.replaceAll("_[0-9]+$", "");
 	}
 
-	private String formatHeader() {
+	public String formatHeader() {
 		return String.join(delimiter, new String[] { //
 				"person_id", //
 				"person_trip_id", //
@@ -90,7 +90,7 @@ public class TripWriter {
 		return factor;
 	}
 
-	private String formatTrip(TripItem trip) {
+	public String formatTrip(TripItem trip) {
 		double inputFactor = getUnitFactor(inputUnit);
 		double outputFactor = 1.0 / getUnitFactor(outputUnit);
 
@@ -22,6 +22,8 @@ public class EqasimConfigGroup extends ReflectiveConfigGroup {
 
 	private final static String ANALYSIS_INTERVAL = "analysisInterval";
 	private final static String ANALYSIS_DISTANCE_UNIT = "analysisDistanceUnit";
+	private final static String STREAM_ANALYSIS_OUTPUT = "streamAnalysisOutput";
+	private final static String COMPRESS_ANALYSIS_OUTPUT = "compressAnalysisOutput";
 	
 	private final static String TRAVEL_TIME_RECORDING_INTERVAL = "travelTimeRecordingInterval";
 
@@ -37,6 +39,8 @@ public class EqasimConfigGroup extends ReflectiveConfigGroup {
 
 	private int analysisInterval = 0;
 	private DistanceUnit analysisDistanceUnit = DistanceUnit.meter;
+	private boolean streamAnalysisOutput = false;
+	private boolean compressAnalysisOutput = false;
 	
 	private int travelTimeRecordingInterval = 0;
 
@@ -242,6 +246,26 @@ public class EqasimConfigGroup extends ReflectiveConfigGroup {
 		this.analysisDistanceUnit = analysisDistanceUnit;
 	}
 
+	@StringGetter(STREAM_ANALYSIS_OUTPUT)
+	public boolean getStreamAnalysisOutput() {
+		return streamAnalysisOutput;
+	}
+
+	@StringSetter(STREAM_ANALYSIS_OUTPUT)
+	public void setStreamAnalysisOutput(boolean streamAnalysisOutput) {
+		this.streamAnalysisOutput = streamAnalysisOutput;
+	}
+
+	@StringGetter(COMPRESS_ANALYSIS_OUTPUT)
+	public boolean getCompressAnalysisOutput() {
+		return compressAnalysisOutput;
+	}
+
+	@StringSetter(COMPRESS_ANALYSIS_OUTPUT)
+	public void setCompressAnalysisOutput(boolean compressAnalysisOutput) {
+		this.compressAnalysisOutput = compressAnalysisOutput;
+	}
+
 	@StringGetter(USE_SCHEDULE_BASED_TRANSPORT)
 	public boolean getUseScheduleBasedTransport() {
 		return useScheduleBasedTransport;
@@ -0,0 +1,429 @@
+package org.eqasim.core.components.emissions;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.analysis.spatial.Grid;
+import org.matsim.contrib.analysis.spatial.SpatialInterpolation;
+import org.matsim.contrib.emissions.Pollutant;
+import org.matsim.contrib.emissions.events.ColdEmissionEvent;
+import org.matsim.contrib.emissions.events.ColdEmissionEventHandler;
+import org.matsim.contrib.emissions.events.WarmEmissionEvent;
+import org.matsim.contrib.emissions.events.WarmEmissionEventHandler;
+
+/**
+ * Streaming variant of the EmissionGridAnalyzer. Emission events are expected in
+ * chronological order and are summed per link for the current time bin only.
+ * Whenever a time bin is complete, the link emissions are distributed to the
+ * grid cells and written out, so neither the events nor the grids of all time
+ * bins are held in memory.
+ *
+ * The cells of the grid are partitioned into square tiles. For every link that
+ * carries emissions, the overlapping cells (within five smoothing radii of the
+ * link center, weighted as by the EmissionGridAnalyzer) are computed once and
+ * stored per tile. For a time bin, every tile is accumulated into a primitive
+ * array by one of the workers and the tiles are written in a fixed order, so
+ * the output does not depend on the number of threads.
+ *
+ * The output has one row per time bin, cell and pollutant with a non-zero
+ * value: time;x;y;pollutant;value
+ */
+public class EmissionsGridAggregator implements WarmEmissionEventHandler, ColdEmissionEventHandler, Closeable {
+    private final static Pollutant[] POLLUTANTS = Pollutant.values();
+    private final static int NUMBER_OF_POLLUTANTS = POLLUTANTS.length;
+
+    private final GeometryFactory factory = new GeometryFactory();
+
+    private final Network network;
+    private final Grid<?> grid;
+    private final double smoothingRadius;
+    private final double countScaleFactor;
+    private final double binSize;
+
+    private final BufferedWriter writer;
+    private final ExecutorService executor;
+
+    // Tiles and cells
+    private final Map<Coordinate, int[]> cellLocations = new HashMap<>();
+    private final List<Tile> tiles = new ArrayList<>();
+
+    // Overlap table by link index
+    private LinkCells[] linkCells = new LinkCells[0];
+
+    // Emissions of the current time bin by link row
+    private int[] linkRows = new int[0];
+    private int[] rowLinks = new int[16];
+    private double[] rowEmissions = new double[16 * NUMBER_OF_POLLUTANTS];
+    private int numberOfRows = 0;
+
+    private int currentBin = -1;
+
+    public EmissionsGridAggregator(Network network, Grid<?> grid, double smoothingRadius, double countScaleFactor,
+            double binSize, int tileSize, int numberOfThreads, BufferedWriter writer) throws IOException {
+        this.network = network;
+        this.grid = grid;
+        this.smoothingRadius = smoothingRadius;
+        this.countScaleFactor = countScaleFactor;
+        this.binSize = binSize;
+        this.writer = writer;
+        this.executor = Executors.newFixedThreadPool(numberOfThreads);
+
+        createTiles(grid.getCells(), tileSize);
+
+        writer.write(String.join(";", Arrays.asList("time", "x", "y", "pollutant", "value")) + "\n");
+    }
+
+    private void createTiles(Collection<? extends Grid.Cell<?>> cells, int tileSize) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+
+        for (Grid.Cell<?> cell : cells) {
+            minX = Math.min(minX, cell.getCoordinate().x);
+            minY = Math.min(minY, cell.getCoordinate().y);
+            maxX = Math.max(maxX, cell.getCoordinate().x);
+            maxY = Math.max(maxY, cell.getCoordinate().y);
+        }
+
+        // Tiles are squares of approximately tileSize x tileSize cells
+        double cellDistance = Math.sqrt(grid.getCellArea());
+        double tileExtent = tileSize * cellDistance;
+        int tilesX = Math.max(1, (int) Math.floor((maxX - minX) / tileExtent) + 1);
+
+        Map<Integer, List<Coordinate>> coordinatesByTile = new HashMap<>();
+
+        for (Grid.Cell<?> cell : cells) {
+            int tileX = (int) Math.floor((cell.getCoordinate().x - minX) / tileExtent);
+            int tileY = (int) Math.floor((cell.getCoordinate().y - minY) / tileExtent);
+
+            coordinatesByTile.computeIfAbsent(tileY * tilesX + tileX, key -> new ArrayList<>())
+                    .add(cell.getCoordinate());
+        }
+
+        List<Integer> tileKeys = new ArrayList<>(coordinatesByTile.keySet());
+        tileKeys.sort(Comparator.naturalOrder());
+
+        for (int tileKey : tileKeys) {
+            List<Coordinate> coordinates = coordinatesByTile.get(tileKey);
+            coordinates.sort(Comparator.<Coordinate>comparingDouble(c -> c.y).thenComparingDouble(c -> c.x));
+
+            int tileIndex = tiles.size();
+            tiles.add(new Tile(coordinates.toArray(new Coordinate[0])));
+
+            for (int k = 0; k < coordinates.size(); k++) {
+                cellLocations.put(coordinates.get(k), new int[] { tileIndex, k });
+            }
+        }
+    }
+
+    @Override
+    public void handleEvent(WarmEmissionEvent event) {
+        addEmissions(event.getTime(), event.getLinkId(), event.getWarmEmissions());
+    }
+
+    @Override
+    public void handleEvent(ColdEmissionEvent event) {
+        addEmissions(event.getTime(), event.getLinkId(), event.getColdEmissions());
+    }
+
+    private void addEmissions(double time, Id<Link> linkId, Map<Pollutant, Double> emissions) {
+        int bin = (int) Math.floor(time / binSize);
+
+        if (bin != currentBin) {
+            if (bin < currentBin) {
+                throw new IllegalStateException("Emission events must be ordered by time");
+            }
+
+            flush();
+            currentBin = bin;
+        }
+
+        int linkIndex = linkId.index();
+
+        if (linkIndex >= linkRows.length) {
+            int previousLength = linkRows.length;
+            linkRows = Arrays.copyOf(linkRows, Math.max(linkIndex + 1, previousLength * 2));
+            Arrays.fill(linkRows, previousLength, linkRows.length, -1);
+        }
+
+        int row = linkRows[linkIndex];
+
+        if (row < 0) {
+            row = numberOfRows++;
+            linkRows[linkIndex] = row;
+
+            if (row == rowLinks.length) {
+                rowLinks = Arrays.copyOf(rowLinks, rowLinks.length * 2);
+                rowEmissions = Arrays.copyOf(rowEmissions, rowLinks.length * NUMBER_OF_POLLUTANTS);
+            }
+
+            rowLinks[row] = linkIndex;
+        }
+
+        int offset = row * NUMBER_OF_POLLUTANTS;
+
+        for (Map.Entry<Pollutant, Double> entry : emissions.entrySet()) {
+            rowEmissions[offset + entry.getKey().ordinal()] += entry.getValue();
+        }
+    }
+
+    /**
+     * Distributes the emissions of the current time bin to the grid and writes
+     * them.
+     */
+    private void flush() {
+        if (numberOfRows == 0) {
+            return;
+        }
+
+        try {
+            prepareLinkCells();
+
+            // Collect the link segments that fall into each tile
+            for (int row = 0; row < numberOfRows; row++) {
+                LinkCells cells = linkCells[rowLinks[row]];
+
+                for (int segment = 0; segment < cells.tiles.length; segment++) {
+                    tiles.get(cells.tiles[segment]).addSegment(row, segment);
+                }
+            }
+
+            List<Future<String>> results = new ArrayList<>(tiles.size());
+            double startTime = currentBin * binSize;
+
+            for (Tile tile : tiles) {
+                results.add(executor.submit(() -> tile.process(startTime)));
+            }
+
+            for (Future<String> result : results) {
+                writer.write(result.get());
+            }
+
+            writer.flush();
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+
+        // Reset the link emissions
+        for (int row = 0; row < numberOfRows; row++) {
+            linkRows[rowLinks[row]] = -1;
+        }
+
+        Arrays.fill(rowEmissions, 0, numberOfRows * NUMBER_OF_POLLUTANTS, 0.0);
+        numberOfRows = 0;
+    }
+
+    /**
+     * Computes the overlap table for all links of the current time bin that have
+     * not been seen before.
+     */
+    private void prepareLinkCells() throws InterruptedException, ExecutionException {
+        if (linkRows.length > linkCells.length) {
+            linkCells = Arrays.copyOf(linkCells, linkRows.length);
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int row = 0; row < numberOfRows; row++) {
+            int linkIndex = rowLinks[row];
+
+            if (linkCells[linkIndex] == null) {
+                tasks.add(() -> {
+                    linkCells[linkIndex] = computeLinkCells(linkIndex);
+                    return null;
+                });
+            }
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    private LinkCells computeLinkCells(int linkIndex) {
+        Link link = network.getLinks().get(Id.get(linkIndex, Link.class));
+
+        if (link == null) {
+            throw new IllegalStateException("Link " + Id.get(linkIndex, Link.class) + " is not in the network");
+        }
+
+        // Same clipping and weighting as in the EmissionGridAnalyzer
+        Geometry clip = factory.createPoint(new Coordinate(link.getCoord().getX(), link.getCoord().getY()))
+                .buffer(smoothingRadius * 5);
+
+        Coordinate fromCoordinate = new Coordinate(link.getFromNode().getCoord().getX(),
+                link.getFromNode().getCoord().getY());
+        Coordinate toCoordinate = new Coordinate(link.getToNode().getCoord().getX(),
+                link.getToNode().getCoord().getY());
+
+        double normalizationFactor = grid.getCellArea() / (Math.PI * smoothingRadius * smoothingRadius);
+
+        List<int[]> locations = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+
+        for (Grid.Cell<?> cell : grid.getCells(clip)) {
+            locations.add(cellLocations.get(cell.getCoordinate()));
+            weights.add(normalizationFactor * SpatialInterpolation.calculateWeightFromLine(fromCoordinate,
+                    toCoordinate, cell.getCoordinate(), smoothingRadius));
+        }
+
+        // Sort by tile and cell, so every tile covers a contiguous segment
+        Integer[] order = new Integer[locations.size()];
+
+        for (int k = 0; k < order.length; k++) {
+            order[k] = k;
+        }
+
+        Arrays.sort(order, Comparator.<Integer>comparingInt(k -> locations.get(k)[0])
+                .thenComparingInt(k -> locations.get(k)[1]));
+
+        int[] cellIndices = new int[order.length];
+        double[] cellWeights = new double[order.length];
+
+        List<Integer> segmentTiles = new ArrayList<>();
+        List<Integer> segmentStarts = new ArrayList<>();
+
+        for (int k = 0; k < order.length; k++) {
+            int[] location = locations.get(order[k]);
+
+            if (segmentTiles.isEmpty() || segmentTiles.get(segmentTiles.size() - 1) != location[0]) {
+                segmentTiles.add(location[0]);
+                segmentStarts.add(k);
+            }
+
+            cellIndices[k] = location[1];
+            cellWeights[k] = weights.get(order[k]);
+        }
+
+        int[] segmentOffsets = new int[segmentTiles.size() + 1];
+
+        for (int s = 0; s < segmentTiles.size(); s++) {
+            segmentOffsets[s] = segmentStarts.get(s);
+        }
+
+        segmentOffsets[segmentTiles.size()] = order.length;
+
+        return new LinkCells(segmentTiles.stream().mapToInt(Integer::intValue).toArray(), segmentOffsets,
+                cellIndices, cellWeights);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        executor.shutdown();
+        writer.close();
+    }
+
+    /**
+     * Overlapping cells of one link, grouped by tile. The cells of segment s are
+     * found between offsets[s] and offsets[s + 1].
+     */
+    static private class LinkCells {
+        final int[] tiles;
+        final int[] offsets;
+        final int[] cells;
+        final double[] weights;
+
+        LinkCells(int[] tiles, int[] offsets, int[] cells, double[] weights) {
+            this.tiles = tiles;
+            this.offsets = offsets;
+            this.cells = cells;
+            this.weights = weights;
+        }
+    }
+
+    private class Tile {
+        private final Coordinate[] coordinates;
+
+        // Pending link segments of the current time bin as (row, segment)
+        private int[] segments = new int[16];
+        private int numberOfSegments = 0;
+
+        Tile(Coordinate[] coordinates) {
+            this.coordinates = coordinates;
+        }
+
+        void addSegment(int row, int segment) {
+            if (2 * numberOfSegments + 2 > segments.length) {
+                segments = Arrays.copyOf(segments, segments.length * 2);
+            }
+
+            segments[2 * numberOfSegments] = row;
+            segments[2 * numberOfSegments + 1] = segment;
+            numberOfSegments++;
+        }
+
+        String process(double startTime) {
+            if (numberOfSegments == 0) {
+                return "";
+            }
+
+            double[] values = new double[coordinates.length * NUMBER_OF_POLLUTANTS];
+            boolean[] touched = new boolean[coordinates.length];
+
+            for (int s = 0; s < numberOfSegments; s++) {
+                int row = segments[2 * s];
+                int segment = segments[2 * s + 1];
+
+                LinkCells cells = linkCells[rowLinks[row]];
+                int emissionsOffset = row * NUMBER_OF_POLLUTANTS;
+
+                for (int k = cells.offsets[segment]; k < cells.offsets[segment + 1]; k++) {
+                    int valuesOffset = cells.cells[k] * NUMBER_OF_POLLUTANTS;
+                    double weight = cells.weights[k];
+                    touched[cells.cells[k]] = true;
+
+                    for (int p = 0; p < NUMBER_OF_POLLUTANTS; p++) {
+                        double emission = rowEmissions[emissionsOffset + p];
+
+                        if (emission != 0.0) {
+                            values[valuesOffset + p] += emission * weight * countScaleFactor;
+                        }
+                    }
+                }
+            }
+
+            numberOfSegments = 0;
+
+            StringBuilder builder = new StringBuilder();
+
+            for (int c = 0; c < coordinates.length; c++) {
+                if (touched[c]) {
+                    for (int p = 0; p < NUMBER_OF_POLLUTANTS; p++) {
+                        double value = values[c * NUMBER_OF_POLLUTANTS + p];
+
+                        if (value != 0.0) {
+                            builder.append(startTime).append(";") //
+                                    .append(coordinates[c].x).append(";") //
+                                    .append(coordinates[c].y).append(";") //
+                                    .append(POLLUTANTS[p].name()).append(";") //
+                                    .append(value).append("\n");
+                        }
+                    }
+                }
+            }
+
+            return builder.toString();
+        }
+    }
+}
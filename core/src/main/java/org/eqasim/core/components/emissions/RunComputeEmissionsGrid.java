@@ -1,25 +1,33 @@
 package org.eqasim.core.components.emissions;
 
+import java.io.IOException;
+
 import org.eqasim.core.misc.ClassUtils;
 import org.eqasim.core.simulation.EqasimConfigurator;
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.locationtech.jts.geom.Geometry;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.analysis.spatial.SquareGrid;
 import org.matsim.contrib.emissions.analysis.EmissionGridAnalyzer;
+import org.matsim.contrib.emissions.events.EmissionEventsReader;
+import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.CommandLine;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsUtils;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.gis.ShapeFileReader;
 
 public class RunComputeEmissionsGrid {
 
-    public static void main(String[] args) throws CommandLine.ConfigurationException {
+    public static void main(String[] args) throws CommandLine.ConfigurationException, IOException {
 
         CommandLine cmd = new CommandLine.Builder(args) //
                 .requireOptions("config-path", "domain-shp-path") //
-                .allowOptions("scale-factor", "grid-size", "smooth-radius", "time-bin-size", "configurator-class")
+                .allowOptions("scale-factor", "grid-size", "smooth-radius", "time-bin-size", "configurator-class",
+                        "streaming", "tile-size", "threads")
                 .build();
         
         EqasimConfigurator configurator;
@@ -45,6 +53,28 @@ public class RunComputeEmissionsGrid {
         int smoothRadius = Integer.parseInt(cmd.getOption("smooth-radius").orElse("50"));
         int timeBinSize = Integer.parseInt(cmd.getOption("time-bin-size").orElse("3600"));
 
+        if (cmd.getOption("streaming").map(Boolean::parseBoolean).orElse(false)) {
+            int tileSize = Integer.parseInt(cmd.getOption("tile-size").orElse("64"));
+            int threads = cmd.getOption("threads").map(Integer::parseInt)
+                    .orElse(Runtime.getRuntime().availableProcessors());
+
+            SquareGrid<Void> grid = new SquareGrid<>(gridSize, () -> null, analysisGeometry);
+
+            EmissionsGridAggregator aggregator = new EmissionsGridAggregator(network, grid, smoothRadius, scaleFactor,
+                    timeBinSize, tileSize, threads,
+                    IOUtils.getBufferedWriter(outputDirectory + "output_emissions_grid.csv"));
+
+            EventsManager eventsManager = EventsUtils.createEventsManager();
+            eventsManager.addHandler(aggregator);
+
+            eventsManager.initProcessing();
+            new EmissionEventsReader(eventsManager).readFile(outputDirectory + "output_emissions_events.xml.gz");
+            eventsManager.finishProcessing();
+
+            aggregator.close();
+            return;
+        }
+
         new EmissionGridAnalyzer.Builder() //
                 .withBounds(analysisGeometry) //
                 .withNetwork(network) //
@@ -0,0 +1,733 @@
+package org.eqasim.core.components.raptor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.MinimalTransferTimes.MinimalTransferTimesIterator;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitScheduleReader;
+import org.matsim.pt.transitSchedule.api.TransitStopArea;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Versioned binary snapshot of the network and transit schedule from which the
+ * SwissRailRaptorData is built. Reading the snapshot replaces parsing the XML
+ * inputs, which dominates the startup time of the server and the routing tools
+ * for large regions.
+ *
+ * The snapshot starts with a format version, a fingerprint (path, size and
+ * modification time) and a SHA-256 checksum of the input files. If the
+ * fingerprint matches, the snapshot is used without reading the inputs at all.
+ * Otherwise, the checksum is computed and compared, and if it does not match
+ * either, the inputs are read from XML again and the snapshot is rewritten. All
+ * strings (identifiers, modes, attribute keys) are stored once in a dictionary
+ * that is built while writing, later occurrences only refer to their index.
+ *
+ * Only attributes with String, Double, Integer, Long or Boolean values and
+ * departures without chained departures can be stored. If the inputs contain
+ * anything else, no snapshot is written and the inputs are always read from
+ * XML.
+ */
+public class RaptorSnapshot {
+	private final static Logger logger = LogManager.getLogger(RaptorSnapshot.class);
+
+	static public final int MAGIC = 0x45515253; // EQRS
+	static public final int FORMAT_VERSION = 2;
+
+	static private final int NULL_STRING = -2;
+	static private final int NEW_STRING = -1;
+
+	static private final byte STRING_ATTRIBUTE = 0;
+	static private final byte DOUBLE_ATTRIBUTE = 1;
+	static private final byte INTEGER_ATTRIBUTE = 2;
+	static private final byte LONG_ATTRIBUTE = 3;
+	static private final byte BOOLEAN_ATTRIBUTE = 4;
+
+	static private final byte AWAIT_DEPARTURE = 1;
+	static private final byte ALLOW_BOARDING = 2;
+	static private final byte ALLOW_ALIGHTING = 4;
+
+	private RaptorSnapshot() {
+	}
+
+	/**
+	 * Loads the network and, if given, the transit schedule into the scenario.
+	 * They are read from the snapshot if it exists and matches the inputs.
+	 * Otherwise, they are read from the input files and the snapshot is
+	 * (re)written.
+	 */
+	static public void load(Scenario scenario, URL networkURL, URL scheduleURL, File snapshotPath) {
+		Network network = scenario.getNetwork();
+		TransitSchedule schedule = scheduleURL == null ? null : scenario.getTransitSchedule();
+
+		String fingerprint = computeFingerprint(networkURL, scheduleURL);
+		byte[] checksum = null;
+
+		if (snapshotPath.exists()) {
+			long startTime = System.nanoTime();
+
+			if (fingerprint != null && read(snapshotPath, fingerprint, null, network, schedule)) {
+				logger.info(String.format("Loaded network and schedule from snapshot %s in %.2fs", snapshotPath,
+						1e-9 * (System.nanoTime() - startTime)));
+				return;
+			}
+
+			// The inputs may have been copied or touched without changing their content
+			checksum = computeChecksum(networkURL, scheduleURL);
+
+			if (read(snapshotPath, null, checksum, network, schedule)) {
+				logger.info(String.format("Loaded network and schedule from snapshot %s in %.2fs", snapshotPath,
+						1e-9 * (System.nanoTime() - startTime)));
+
+				write(snapshotPath, fingerprint, checksum, network, schedule);
+				return;
+			}
+
+			logger.info("Snapshot " + snapshotPath + " does not match the inputs, rebuilding");
+		}
+
+		new MatsimNetworkReader(network).readURL(networkURL);
+
+		if (scheduleURL != null) {
+			new TransitScheduleReader(scenario).readURL(scheduleURL);
+		}
+
+		if (checksum == null) {
+			checksum = computeChecksum(networkURL, scheduleURL);
+		}
+
+		if (write(snapshotPath, fingerprint, checksum, network, schedule)) {
+			logger.info("Written snapshot " + snapshotPath);
+		} else {
+			// Otherwise, every later start would compute the checksum to reject it
+			snapshotPath.delete();
+		}
+	}
+
+	/**
+	 * Returns a fingerprint of the input files made of their paths, sizes and
+	 * modification times, or null if one of them is not a local file.
+	 */
+	static public String computeFingerprint(URL networkURL, URL scheduleURL) {
+		StringBuilder builder = new StringBuilder();
+
+		for (URL url : Arrays.asList(networkURL, scheduleURL)) {
+			if (url == null) {
+				builder.append("none;");
+				continue;
+			}
+
+			if (!url.getProtocol().equals("file")) {
+				return null;
+			}
+
+			File file;
+
+			try {
+				file = new File(url.toURI());
+			} catch (URISyntaxException e) {
+				return null;
+			}
+
+			if (!file.isFile()) {
+				return null;
+			}
+
+			builder.append(file.getAbsolutePath()).append("|").append(file.length()).append("|")
+					.append(file.lastModified()).append(";");
+		}
+
+		return builder.toString();
+	}
+
+	static public byte[] computeChecksum(URL networkURL, URL scheduleURL) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[1 << 16];
+
+			for (URL url : Arrays.asList(networkURL, scheduleURL)) {
+				if (url == null) {
+					digest.update((byte) 0);
+					continue;
+				}
+
+				digest.update((byte) 1);
+
+				try (InputStream inputStream = url.openStream()) {
+					int length;
+
+					while ((length = inputStream.read(buffer)) > 0) {
+						digest.update(buffer, 0, length);
+					}
+				}
+			}
+
+			return digest.digest();
+		} catch (NoSuchAlgorithmException | IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Writes the snapshot. Returns false without writing anything if the network or
+	 * the schedule contain data that cannot be stored in the snapshot.
+	 */
+	static public boolean write(File path, String fingerprint, byte[] checksum, Network network,
+			TransitSchedule schedule) {
+		File temporaryPath = new File(path.getPath() + ".tmp");
+
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temporaryPath), 1 << 16))) {
+			output.writeInt(MAGIC);
+			output.writeInt(FORMAT_VERSION);
+			output.writeBoolean(fingerprint != null);
+
+			if (fingerprint != null) {
+				output.writeUTF(fingerprint);
+			}
+
+			output.writeInt(checksum.length);
+			output.write(checksum);
+
+			Writer writer = new Writer(output);
+			writer.writeNetwork(network);
+
+			output.writeBoolean(schedule != null);
+
+			if (schedule != null) {
+				writer.writeSchedule(schedule);
+			}
+		} catch (UnsupportedContentException e) {
+			logger.warn("Not writing snapshot " + path + ": " + e.getMessage());
+			temporaryPath.delete();
+			return false;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		try {
+			// An interrupted write never leaves a broken snapshot behind
+			Files.move(temporaryPath.toPath(), path.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Reads the snapshot into the given (empty) network and schedule. The snapshot
+	 * is accepted if either the given fingerprint or the given checksum matches
+	 * the stored one, null values never match. Returns false without modifying the
+	 * network and schedule if the snapshot is not accepted.
+	 */
+	static public boolean read(File path, String fingerprint, byte[] checksum, Network network,
+			TransitSchedule schedule) {
+		try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(path), 1 << 16))) {
+			if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+				return false;
+			}
+
+			String snapshotFingerprint = input.readBoolean() ? input.readUTF() : null;
+
+			byte[] snapshotChecksum = new byte[input.readInt()];
+			input.readFully(snapshotChecksum);
+
+			boolean matchesFingerprint = fingerprint != null && fingerprint.equals(snapshotFingerprint);
+			boolean matchesChecksum = checksum != null && Arrays.equals(checksum, snapshotChecksum);
+
+			if (!matchesFingerprint && !matchesChecksum) {
+				return false;
+			}
+
+			Reader reader = new Reader(input);
+			reader.readNetwork(network);
+
+			boolean hasSchedule = input.readBoolean();
+
+			if (schedule != null) {
+				if (!hasSchedule) {
+					throw new IllegalStateException("Snapshot " + path + " does not contain a schedule");
+				}
+
+				reader.readSchedule(schedule);
+			}
+
+			return true;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static private class UnsupportedContentException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		UnsupportedContentException(String message) {
+			super(message);
+		}
+	}
+
+	static private class Writer {
+		private final DataOutputStream output;
+		private final Map<String, Integer> dictionary = new HashMap<>();
+
+		Writer(DataOutputStream output) {
+			this.output = output;
+		}
+
+		void writeString(String value) throws IOException {
+			if (value == null) {
+				output.writeInt(NULL_STRING);
+				return;
+			}
+
+			Integer index = dictionary.get(value);
+
+			if (index == null) {
+				dictionary.put(value, dictionary.size());
+				output.writeInt(NEW_STRING);
+				output.writeUTF(value);
+			} else {
+				output.writeInt(index);
+			}
+		}
+
+		void writeId(Id<?> id) throws IOException {
+			writeString(id == null ? null : id.toString());
+		}
+
+		void writeOptionalTime(OptionalTime time) throws IOException {
+			output.writeDouble(time.isDefined() ? time.seconds() : Double.NaN);
+		}
+
+		void writeCoord(Coord coord) throws IOException {
+			output.writeDouble(coord.getX());
+			output.writeDouble(coord.getY());
+			output.writeDouble(coord.hasZ() ? coord.getZ() : Double.NaN);
+		}
+
+		void writeAttributes(Attributes attributes) throws IOException {
+			Map<String, Object> entries = attributes.getAsMap();
+
+			for (Map.Entry<String, Object> entry : entries.entrySet()) {
+				Object value = entry.getValue();
+
+				if (!(value instanceof String || value instanceof Double || value instanceof Integer
+						|| value instanceof Long || value instanceof Boolean)) {
+					throw new UnsupportedContentException("Attribute " + entry.getKey() + " has unsupported type "
+							+ (value == null ? null : value.getClass().getName()));
+				}
+			}
+
+			output.writeInt(entries.size());
+
+			for (Map.Entry<String, Object> entry : entries.entrySet()) {
+				writeString(entry.getKey());
+				Object value = entry.getValue();
+
+				if (value instanceof String stringValue) {
+					output.writeByte(STRING_ATTRIBUTE);
+					writeString(stringValue);
+				} else if (value instanceof Double doubleValue) {
+					output.writeByte(DOUBLE_ATTRIBUTE);
+					output.writeDouble(doubleValue);
+				} else if (value instanceof Integer integerValue) {
+					output.writeByte(INTEGER_ATTRIBUTE);
+					output.writeInt(integerValue);
+				} else if (value instanceof Long longValue) {
+					output.writeByte(LONG_ATTRIBUTE);
+					output.writeLong(longValue);
+				} else {
+					output.writeByte(BOOLEAN_ATTRIBUTE);
+					output.writeBoolean((Boolean) value);
+				}
+			}
+		}
+
+		void writeNetwork(Network network) throws IOException {
+			output.writeDouble(network.getCapacityPeriod());
+			output.writeDouble(network.getEffectiveLaneWidth());
+			writeAttributes(network.getAttributes());
+
+			Map<Id<Node>, Integer> nodeIndices = new HashMap<>();
+			output.writeInt(network.getNodes().size());
+
+			for (Node node : network.getNodes().values()) {
+				nodeIndices.put(node.getId(), nodeIndices.size());
+
+				writeId(node.getId());
+				writeCoord(node.getCoord());
+				writeAttributes(node.getAttributes());
+			}
+
+			output.writeInt(network.getLinks().size());
+
+			for (Link link : network.getLinks().values()) {
+				writeId(link.getId());
+				output.writeInt(nodeIndices.get(link.getFromNode().getId()));
+				output.writeInt(nodeIndices.get(link.getToNode().getId()));
+				output.writeDouble(link.getLength());
+				output.writeDouble(link.getFreespeed());
+				output.writeDouble(link.getCapacity());
+				output.writeDouble(link.getNumberOfLanes());
+
+				output.writeInt(link.getAllowedModes().size());
+
+				for (String mode : link.getAllowedModes()) {
+					writeString(mode);
+				}
+
+				writeAttributes(link.getAttributes());
+			}
+		}
+
+		void writeSchedule(TransitSchedule schedule) throws IOException {
+			writeAttributes(schedule.getAttributes());
+
+			Map<Id<TransitStopFacility>, Integer> stopIndices = new HashMap<>();
+			output.writeInt(schedule.getFacilities().size());
+
+			for (TransitStopFacility stop : schedule.getFacilities().values()) {
+				stopIndices.put(stop.getId(), stopIndices.size());
+
+				writeId(stop.getId());
+				writeCoord(stop.getCoord());
+				output.writeBoolean(stop.getIsBlockingLane());
+				writeId(stop.getLinkId());
+				writeString(stop.getName());
+				writeId(stop.getStopAreaId());
+				writeAttributes(stop.getAttributes());
+			}
+
+			List<double[]> transferTimes = new ArrayList<>();
+			MinimalTransferTimesIterator iterator = schedule.getMinimalTransferTimes().iterator();
+
+			while (iterator.hasNext()) {
+				iterator.next();
+				transferTimes.add(new double[] { stopIndices.get(iterator.getFromStopId()),
+						stopIndices.get(iterator.getToStopId()), iterator.getSeconds() });
+			}
+
+			output.writeInt(transferTimes.size());
+
+			for (double[] transferTime : transferTimes) {
+				output.writeInt((int) transferTime[0]);
+				output.writeInt((int) transferTime[1]);
+				output.writeDouble(transferTime[2]);
+			}
+
+			output.writeInt(schedule.getTransitLines().size());
+
+			for (TransitLine line : schedule.getTransitLines().values()) {
+				writeId(line.getId());
+				writeString(line.getName());
+				writeAttributes(line.getAttributes());
+
+				output.writeInt(line.getRoutes().size());
+
+				for (TransitRoute route : line.getRoutes().values()) {
+					writeId(route.getId());
+					writeString(route.getTransportMode());
+					writeString(route.getDescription());
+
+					output.writeInt(route.getStops().size());
+
+					for (TransitRouteStop routeStop : route.getStops()) {
+						output.writeInt(stopIndices.get(routeStop.getStopFacility().getId()));
+						writeOptionalTime(routeStop.getArrivalOffset());
+						writeOptionalTime(routeStop.getDepartureOffset());
+
+						byte flags = 0;
+						flags |= routeStop.isAwaitDepartureTime() ? AWAIT_DEPARTURE : 0;
+						flags |= routeStop.isAllowBoarding() ? ALLOW_BOARDING : 0;
+						flags |= routeStop.isAllowAlighting() ? ALLOW_ALIGHTING : 0;
+						output.writeByte(flags);
+					}
+
+					NetworkRoute networkRoute = route.getRoute();
+
+					if (networkRoute == null) {
+						output.writeInt(-1);
+					} else {
+						output.writeInt(networkRoute.getLinkIds().size());
+						writeId(networkRoute.getStartLinkId());
+
+						for (Id<Link> linkId : networkRoute.getLinkIds()) {
+							writeId(linkId);
+						}
+
+						writeId(networkRoute.getEndLinkId());
+					}
+
+					output.writeInt(route.getDepartures().size());
+
+					for (Departure departure : route.getDepartures().values()) {
+						if (!departure.getChainedDepartures().isEmpty()) {
+							throw new UnsupportedContentException(
+									"Departure " + departure.getId() + " of route " + route.getId()
+											+ " has chained departures");
+						}
+
+						writeId(departure.getId());
+						output.writeDouble(departure.getDepartureTime());
+						writeId(departure.getVehicleId());
+						writeAttributes(departure.getAttributes());
+					}
+
+					writeAttributes(route.getAttributes());
+				}
+			}
+		}
+	}
+
+	static private class Reader {
+		private final DataInputStream input;
+		private final List<String> dictionary = new ArrayList<>();
+
+		Reader(DataInputStream input) {
+			this.input = input;
+		}
+
+		String readString() throws IOException {
+			int index = input.readInt();
+
+			if (index == NULL_STRING) {
+				return null;
+			} else if (index == NEW_STRING) {
+				String value = input.readUTF();
+				dictionary.add(value);
+				return value;
+			} else {
+				return dictionary.get(index);
+			}
+		}
+
+		<T> Id<T> readId(Class<T> type) throws IOException {
+			String value = readString();
+			return value == null ? null : Id.create(value, type);
+		}
+
+		Coord readCoord() throws IOException {
+			double x = input.readDouble();
+			double y = input.readDouble();
+			double z = input.readDouble();
+			return Double.isNaN(z) ? new Coord(x, y) : new Coord(x, y, z);
+		}
+
+		OptionalTime readOptionalTime() throws IOException {
+			double value = input.readDouble();
+			return Double.isNaN(value) ? OptionalTime.undefined() : OptionalTime.defined(value);
+		}
+
+		void readAttributes(Attributes attributes) throws IOException {
+			int numberOfAttributes = input.readInt();
+
+			for (int i = 0; i < numberOfAttributes; i++) {
+				String key = readString();
+				byte type = input.readByte();
+
+				switch (type) {
+				case STRING_ATTRIBUTE:
+					attributes.putAttribute(key, readString());
+					break;
+				case DOUBLE_ATTRIBUTE:
+					attributes.putAttribute(key, input.readDouble());
+					break;
+				case INTEGER_ATTRIBUTE:
+					attributes.putAttribute(key, input.readInt());
+					break;
+				case LONG_ATTRIBUTE:
+					attributes.putAttribute(key, input.readLong());
+					break;
+				case BOOLEAN_ATTRIBUTE:
+					attributes.putAttribute(key, input.readBoolean());
+					break;
+				default:
+					throw new IllegalStateException("Unknown attribute type: " + type);
+				}
+			}
+		}
+
+		void readNetwork(Network network) throws IOException {
+			NetworkFactory factory = network.getFactory();
+
+			network.setCapacityPeriod(input.readDouble());
+			network.setEffectiveLaneWidth(input.readDouble());
+			readAttributes(network.getAttributes());
+
+			Node[] nodes = new Node[input.readInt()];
+
+			for (int i = 0; i < nodes.length; i++) {
+				Id<Node> nodeId = readId(Node.class);
+				Coord coord = readCoord();
+
+				nodes[i] = factory.createNode(nodeId, coord);
+				readAttributes(nodes[i].getAttributes());
+				network.addNode(nodes[i]);
+			}
+
+			int numberOfLinks = input.readInt();
+
+			for (int i = 0; i < numberOfLinks; i++) {
+				Id<Link> linkId = readId(Link.class);
+				Node fromNode = nodes[input.readInt()];
+				Node toNode = nodes[input.readInt()];
+
+				Link link = factory.createLink(linkId, fromNode, toNode);
+				link.setLength(input.readDouble());
+				link.setFreespeed(input.readDouble());
+				link.setCapacity(input.readDouble());
+				link.setNumberOfLanes(input.readDouble());
+
+				int numberOfModes = input.readInt();
+				Set<String> allowedModes = new HashSet<>();
+
+				for (int k = 0; k < numberOfModes; k++) {
+					allowedModes.add(readString());
+				}
+
+				link.setAllowedModes(allowedModes);
+				readAttributes(link.getAttributes());
+				network.addLink(link);
+			}
+		}
+
+		void readSchedule(TransitSchedule schedule) throws IOException {
+			TransitScheduleFactory factory = schedule.getFactory();
+			readAttributes(schedule.getAttributes());
+
+			TransitStopFacility[] stops = new TransitStopFacility[input.readInt()];
+
+			for (int i = 0; i < stops.length; i++) {
+				Id<TransitStopFacility> stopId = readId(TransitStopFacility.class);
+				Coord coord = readCoord();
+				boolean isBlocking = input.readBoolean();
+
+				TransitStopFacility stop = factory.createTransitStopFacility(stopId, coord, isBlocking);
+				stop.setLinkId(readId(Link.class));
+				stop.setName(readString());
+				stop.setStopAreaId(readId(TransitStopArea.class));
+				readAttributes(stop.getAttributes());
+
+				schedule.addStopFacility(stop);
+				stops[i] = stop;
+			}
+
+			int numberOfTransferTimes = input.readInt();
+
+			for (int i = 0; i < numberOfTransferTimes; i++) {
+				TransitStopFacility fromStop = stops[input.readInt()];
+				TransitStopFacility toStop = stops[input.readInt()];
+				schedule.getMinimalTransferTimes().set(fromStop.getId(), toStop.getId(), input.readDouble());
+			}
+
+			int numberOfLines = input.readInt();
+
+			for (int i = 0; i < numberOfLines; i++) {
+				TransitLine line = factory.createTransitLine(readId(TransitLine.class));
+				line.setName(readString());
+				readAttributes(line.getAttributes());
+
+				int numberOfRoutes = input.readInt();
+
+				for (int j = 0; j < numberOfRoutes; j++) {
+					Id<TransitRoute> routeId = readId(TransitRoute.class);
+					String transportMode = readString();
+					String description = readString();
+
+					int numberOfStops = input.readInt();
+					List<TransitRouteStop> routeStops = new ArrayList<>(numberOfStops);
+
+					for (int k = 0; k < numberOfStops; k++) {
+						TransitStopFacility stop = stops[input.readInt()];
+						OptionalTime arrivalOffset = readOptionalTime();
+						OptionalTime departureOffset = readOptionalTime();
+						byte flags = input.readByte();
+
+						TransitRouteStop routeStop = factory.createTransitRouteStop(stop, arrivalOffset,
+								departureOffset);
+						routeStop.setAwaitDepartureTime((flags & AWAIT_DEPARTURE) > 0);
+						routeStop.setAllowBoarding((flags & ALLOW_BOARDING) > 0);
+						routeStop.setAllowAlighting((flags & ALLOW_ALIGHTING) > 0);
+						routeStops.add(routeStop);
+					}
+
+					int numberOfLinks = input.readInt();
+					NetworkRoute networkRoute = null;
+
+					if (numberOfLinks >= 0) {
+						Id<Link> startLinkId = readId(Link.class);
+						List<Id<Link>> linkIds = new ArrayList<>(numberOfLinks);
+
+						for (int k = 0; k < numberOfLinks; k++) {
+							linkIds.add(readId(Link.class));
+						}
+
+						Id<Link> endLinkId = readId(Link.class);
+						networkRoute = RouteUtils.createLinkNetworkRouteImpl(startLinkId, linkIds, endLinkId);
+					}
+
+					TransitRoute route = factory.createTransitRoute(routeId, networkRoute, routeStops, transportMode);
+					route.setDescription(description);
+
+					int numberOfDepartures = input.readInt();
+
+					for (int k = 0; k < numberOfDepartures; k++) {
+						Departure departure = factory.createDeparture(readId(Departure.class), input.readDouble());
+						departure.setVehicleId(readId(Vehicle.class));
+						readAttributes(departure.getAttributes());
+						route.addDeparture(departure);
+					}
+
+					readAttributes(route.getAttributes());
+
+					line.addRoute(route);
+				}
+
+				schedule.addTransitLine(line);
+			}
+		}
+	}
+}
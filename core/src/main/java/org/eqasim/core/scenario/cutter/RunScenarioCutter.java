@@ -27,6 +27,7 @@ import org.eqasim.core.scenario.cutter.transit.TransitScheduleCutter;
 import org.eqasim.core.scenario.cutter.transit.TransitVehiclesCutter;
 import org.eqasim.core.scenario.routing.PopulationRouter;
 import org.eqasim.core.scenario.routing.PopulationRouterModule;
+import org.eqasim.core.scenario.routing.RoutingCache;
 import org.eqasim.core.scenario.validation.ScenarioValidator;
 import org.eqasim.core.scenario.validation.VehiclesValidator;
 import org.eqasim.core.simulation.EqasimConfigurator;
@@ -47,7 +48,8 @@ public class RunScenarioCutter {
 
 	public static final Collection<String> REQUIRED_ARGS = Set.of("config-path", "output-path", "extent-path");
 	public static final Collection<String> OPTIONAL_ARGS = Set.of("threads", "prefix", "extent-attribute",
-			"extent-value", "plans-path", "events-path", "skip-routing");
+			"extent-value", "plans-path", "events-path", "skip-routing", "routing-cache-size", "routing-cache-interval",
+			"routing-cache-modes", "routing-cache-attributes");
 
 	static public void main(String[] args) throws ConfigurationException, IOException, InterruptedException {
 		CommandLine cmd = new CommandLine.Builder(args) //
@@ -67,7 +69,7 @@ public class RunScenarioCutter {
 		File extentPath = new File(cmd.getOptionStrict("extent-path"));
 		Optional<String> extentAttribute = cmd.getOption("extent-attribute");
 		Optional<String> extentValue = cmd.getOption("extent-value");
-		ScenarioExtent extent = new ShapeScenarioExtent.Builder(extentPath, extentAttribute, extentValue).build();
+		ScenarioExtent extent = new ShapeScenarioExtent.Builder(extentPath, extentAttribute, extentValue).buildPrepared();
 
 		// Load scenario
 		EqasimConfigurator configurator = new EqasimConfigurator();
@@ -142,7 +144,7 @@ public class RunScenarioCutter {
 		StopSequenceCrossingPointFinder stopSequenceCrossingPointFinder = new DefaultStopSequenceCrossingPointFinder(
 				extent);
 		TransitScheduleCutter transitScheduleCutter = new TransitScheduleCutter(extent,
-				stopSequenceCrossingPointFinder);
+				stopSequenceCrossingPointFinder, numberOfThreads);
 		transitScheduleCutter.run(scenario.getTransitSchedule());
 
 		TransitVehiclesCutter transitVehiclesCutter = new TransitVehiclesCutter(scenario.getTransitSchedule());
@@ -169,10 +171,13 @@ public class RunScenarioCutter {
 		configCutter.run(config);
 
 		// Final routing
+		PopulationRouterModule routerModule = new PopulationRouterModule(numberOfThreads, 100, false);
+		RoutingCache.create(cmd).ifPresent(routerModule::withCache);
+
 		Injector routingInjector = new InjectorBuilder(scenario) //
 				.addOverridingModules(configurator.getModules(config).stream()
 						.filter(module -> !(module instanceof AbstractEqasimExtension) && !(module instanceof DiscreteModeChoiceModule)).toList()) //
-				.addOverridingModule(new PopulationRouterModule(numberOfThreads, 100, false)) //
+				.addOverridingModule(routerModule) //
 				.addOverridingModule(new CutterTravelTimeModule(travelTime)) //
 				.addOverridingModule(new TimeInterpretationModule()) //
 				.build();
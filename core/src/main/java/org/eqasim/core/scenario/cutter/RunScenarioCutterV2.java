@@ -3,16 +3,23 @@ package org.eqasim.core.scenario.cutter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
+import org.eqasim.core.components.travel_time.RecordedTravelTime;
+import org.eqasim.core.misc.InjectorBuilder;
 import org.eqasim.core.scenario.cutter.extent.ScenarioExtent;
 import org.eqasim.core.scenario.cutter.extent.ShapeScenarioExtent;
+import org.eqasim.core.scenario.cutter.network.RoadNetwork;
+import org.eqasim.core.scenario.cutter.population.PopulationCutter;
+import org.eqasim.core.scenario.cutter.population.PopulationCutterModule;
+import org.eqasim.core.scenario.validation.ScenarioValidator;
+import org.eqasim.core.scenario.validation.VehiclesValidator;
 import org.eqasim.core.simulation.EqasimConfigurator;
+import org.eqasim.core.simulation.mode_choice.AbstractEqasimExtension;
+import org.eqasim.core.simulation.termination.EqasimTerminationConfigGroup;
 import org.eqasim.core.simulation.vdf.VDFConfigGroup;
 import org.eqasim.core.simulation.vdf.engine.VDFEngineConfigGroup;
 import org.matsim.api.core.v01.IdSet;
@@ -20,14 +27,17 @@ import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.contribs.discrete_mode_choice.modules.DiscreteModeChoiceModule;
 import org.matsim.core.config.CommandLine;
 import org.matsim.core.config.CommandLine.ConfigurationException;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.algorithms.TransportModeNetworkFilter;
-import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.timing.TimeInterpretationModule;
+
+import com.google.inject.Injector;
 
 public class RunScenarioCutterV2 {
 
@@ -42,43 +52,26 @@ public class RunScenarioCutterV2 {
                 .build();
 
         String outputPath = cmd.getOptionStrict("output-path");
+        String prefix = cmd.getOption("prefix").orElse("");
+        int numberOfThreads = cmd.getOption("threads").map(Integer::parseInt)
+                .orElse(Runtime.getRuntime().availableProcessors());
+
+        File outputDirectory = new File(outputPath).getAbsoluteFile();
+        ScenarioWriter.checkOutputDirectory(outputDirectory);
 
         EqasimConfigurator eqasimConfigurator = new EqasimConfigurator();
         Config config = ConfigUtils.loadConfig(cmd.getOptionStrict("config-path"));
         eqasimConfigurator.updateConfig(config);
+        config.removeModule(EqasimTerminationConfigGroup.GROUP_NAME);
         cmd.applyConfiguration(config);
 
         if(!config.getModules().containsKey(VDFConfigGroup.GROUP_NAME) || !config.getModules().containsKey(VDFEngineConfigGroup.GROUP_NAME)) {
             throw new IllegalStateException(String.format("This scenario cutter only works with configs where both '%s' and '%s' modules are used", VDFConfigGroup.GROUP_NAME, VDFEngineConfigGroup.GROUP_NAME));
         }
 
-        List<String> scenarioCutterArgs = new ArrayList<>();
-        for(String requiredOption: RunScenarioCutter.REQUIRED_ARGS) {
-            scenarioCutterArgs.add("--"+requiredOption);
-            scenarioCutterArgs.add(cmd.getOptionStrict(requiredOption));
-        }
-        for(String optionalOption: RunScenarioCutter.OPTIONAL_ARGS) {
-            if(cmd.hasOption(optionalOption)) {
-                scenarioCutterArgs.add("--"+optionalOption);
-                scenarioCutterArgs.add(cmd.getOptionStrict(optionalOption));
-            }
-        }
-        scenarioCutterArgs.add("--skip-routing");
-        scenarioCutterArgs.add("true");
-
-        RunScenarioCutter.main(scenarioCutterArgs.toArray(String[]::new));
+        VehiclesValidator.validate(config);
 
-        String prefix = cmd.getOption("prefix").orElse("");
-
-        Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
-        eqasimConfigurator.configureScenario(scenario);
-        // We first load the population resulting from the legacy cutter and store the person ids
-        new PopulationReader(scenario).readFile(Paths.get(outputPath, prefix+"population.xml.gz").toString());
-        IdSet<Person> personIds = new IdSet<>(Person.class);
-        scenario.getPopulation().getPersons().values().stream().map(Person::getId).forEach(personIds::add);
-
-        // We now read the data from the original scenario
-        // Before we need to check if we are reading a file other than what's in the config
+        // Before loading, we need to check if we are reading a file other than what's in the config
         if (cmd.hasOption("plans-path")) {
             File plansFile = new File(cmd.getOptionStrict("plans-path"));
 
@@ -89,22 +82,47 @@ public class RunScenarioCutterV2 {
             }
         }
 
-        scenario = ScenarioUtils.createScenario(config);
+        // The original scenario is loaded only once, all following steps work on it in memory
+        Scenario scenario = ScenarioUtils.createScenario(config);
         eqasimConfigurator.configureScenario(scenario);
         ScenarioUtils.loadScenario(scenario);
+
+        new ScenarioValidator().checkScenario(scenario);
+
+        File extentPath = new File(cmd.getOptionStrict("extent-path"));
+        Optional<String> extentAttribute = cmd.getOption("extent-attribute");
+        Optional<String> extentValue = cmd.getOption("extent-value");
+        ScenarioExtent extent = new ShapeScenarioExtent.Builder(extentPath, extentAttribute, extentValue).buildPrepared();
+
+        // We select the persons that the legacy cutter would keep, without modifying their plans
+        RoadNetwork roadNetwork = new RoadNetwork(scenario.getNetwork());
+        Optional<RecordedTravelTime> travelTime = Optional.empty();
+
+        if (cmd.hasOption("events-path")) {
+            travelTime = Optional.of(RecordedTravelTime.readFromEvents( //
+                    new File(cmd.getOptionStrict("events-path")), roadNetwork, config));
+        }
+
+        Injector populationCutterInjector = new InjectorBuilder(scenario) //
+                .addOverridingModules(eqasimConfigurator.getModules(config).stream()
+                        .filter(module -> !(module instanceof AbstractEqasimExtension) && !(module instanceof DiscreteModeChoiceModule)).toList()) //
+                .addOverridingModule(
+                        new PopulationCutterModule(extent, numberOfThreads, 40, cmd.getOption("events-path"))) //
+                .addOverridingModule(new CutterTravelTimeModule(travelTime)) //
+                .addOverridingModule(new TimeInterpretationModule()) //
+                .build();
+
+        PopulationCutter populationCutter = populationCutterInjector.getInstance(PopulationCutter.class);
+        IdSet<Person> personIds = populationCutter.select(scenario.getPopulation());
+
         eqasimConfigurator.adjustScenario(scenario);
 
-        // We remove from the original population, the persons that do not appear in the one resulting from the legacy cutter
+        // We remove from the original population the persons that would not remain after cutting
         IdSet<Person> personsToRemove = new IdSet<>(Person.class);
         scenario.getPopulation().getPersons().values().stream().map(Person::getId).filter(personId -> !personIds.contains(personId)).forEach(personsToRemove::add);
         personsToRemove.forEach(scenario.getPopulation()::removePerson);
 
         // Now we process the network
-        File extentPath = new File(cmd.getOptionStrict("extent-path"));
-        Optional<String> extentAttribute = cmd.getOption("extent-attribute");
-        Optional<String> extentValue = cmd.getOption("extent-value");
-        ScenarioExtent extent = new ShapeScenarioExtent.Builder(extentPath, extentAttribute, extentValue).build();
-
         Set<String> insideModes = new HashSet<>();
         if(Boolean.parseBoolean(cmd.getOption("flag-area-link-modes").orElse("false"))) {
             scenario.getNetwork().getLinks().values()
@@ -142,7 +160,7 @@ public class RunScenarioCutterV2 {
         // We also set the VDF config to use the vdf.bin file for initial travel times
         vdfConfigGroup.setInputFile("vdf.bin");
 
-        new ScenarioWriter(config, scenario, prefix).run(new File(outputPath).getAbsoluteFile());
+        new ScenarioWriter(config, scenario, prefix).run(outputDirectory);
 
         FileUtils.copyFile(new File(cmd.getOptionStrict("vdf-travel-times-path")), new File(outputPath, "vdf.bin"));
     }
@@ -0,0 +1,161 @@
+package org.eqasim.core.scenario.cutter.extent;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.eqasim.core.misc.ParallelProgress;
+import org.locationtech.jts.algorithm.locate.IndexedPointInAreaLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdSet;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Variant of the ShapeScenarioExtent that answers point queries through an
+ * indexed point-in-area locator instead of allocating a point and testing it
+ * against the raw polygon. Additionally, the classification of network nodes
+ * is cached by node index, so repeated queries for the same node (for instance
+ * for all links that are connected to it) are answered by an array lookup.
+ *
+ * The results are identical to the ShapeScenarioExtent: only points in the
+ * interior of the polygon are considered inside.
+ */
+public class PreparedShapeScenarioExtent extends ShapeScenarioExtent {
+	private final static byte UNKNOWN = 0;
+	private final static byte INSIDE = 1;
+	private final static byte OUTSIDE = 2;
+
+	private final GeometryFactory factory = new GeometryFactory();
+
+	private final IndexedPointInAreaLocator locator;
+	private final PreparedGeometry preparedBoundary;
+
+	private volatile byte[] nodeCache = new byte[0];
+
+	public PreparedShapeScenarioExtent(Polygon polygon) {
+		super(polygon);
+
+		this.locator = new IndexedPointInAreaLocator(polygon);
+		this.preparedBoundary = PreparedGeometryFactory.prepare(polygon.getExteriorRing());
+	}
+
+	@Override
+	public boolean isInside(Coord coord) {
+		return locator.locate(new Coordinate(coord.getX(), coord.getY())) == Location.INTERIOR;
+	}
+
+	@Override
+	public boolean isInside(Node node) {
+		int index = node.getId().index();
+		byte[] cache = nodeCache;
+
+		if (index < cache.length) {
+			byte state = cache[index];
+
+			if (state != UNKNOWN) {
+				return state == INSIDE;
+			}
+		} else {
+			cache = growCache(index);
+		}
+
+		// Concurrent writes are harmless as every thread computes the same value
+		boolean inside = isInside(node.getCoord());
+		cache[index] = inside ? INSIDE : OUTSIDE;
+		return inside;
+	}
+
+	private synchronized byte[] growCache(int index) {
+		if (index >= nodeCache.length) {
+			nodeCache = Arrays.copyOf(nodeCache, Math.max(index + 1, Id.getNumberOfIds(Node.class)));
+		}
+
+		return nodeCache;
+	}
+
+	@Override
+	public List<Coord> computeEuclideanIntersections(Coord from, Coord to) {
+		if (from.equals(to)) {
+			return Collections.emptyList();
+		}
+
+		LineString line = factory.createLineString(new Coordinate[] { //
+				new Coordinate(from.getX(), from.getY()), //
+				new Coordinate(to.getX(), to.getY()) //
+		});
+
+		if (!preparedBoundary.intersects(line)) {
+			return Collections.emptyList();
+		}
+
+		return super.computeEuclideanIntersections(from, to);
+	}
+
+	/**
+	 * Classifies the given nodes in parallel, fills the node cache and returns
+	 * the identifiers of all nodes that are inside of the extent.
+	 */
+	public IdSet<Node> classify(Collection<? extends Node> nodes, int numberOfThreads, int batchSize)
+			throws InterruptedException {
+		growCache(Id.getNumberOfIds(Node.class) - 1);
+
+		Iterator<? extends Node> nodeIterator = nodes.iterator();
+		IdSet<Node> insideIds = new IdSet<>(Node.class);
+
+		ParallelProgress progress = new ParallelProgress("Classifying nodes ...", nodes.size());
+		progress.start();
+
+		List<Thread> threads = new LinkedList<>();
+
+		for (int i = 0; i < numberOfThreads; i++) {
+			Thread thread = new Thread(() -> {
+				List<Node> localTasks = new LinkedList<>();
+				List<Id<Node>> localInsideIds = new LinkedList<>();
+
+				do {
+					localTasks.clear();
+
+					synchronized (nodeIterator) {
+						while (nodeIterator.hasNext() && localTasks.size() < batchSize) {
+							localTasks.add(nodeIterator.next());
+						}
+					}
+
+					for (Node node : localTasks) {
+						if (isInside(node)) {
+							localInsideIds.add(node.getId());
+						}
+					}
+
+					progress.update(localTasks.size());
+				} while (localTasks.size() > 0);
+
+				synchronized (insideIds) {
+					insideIds.addAll(localInsideIds);
+				}
+			});
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		progress.close();
+
+		return insideIds;
+	}
+}
@@ -0,0 +1,119 @@
+package org.eqasim.core.scenario.cutter.extent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.locationtech.jts.geom.Envelope;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdSet;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.CommandLine;
+import org.matsim.core.config.CommandLine.ConfigurationException;
+import org.matsim.core.network.NetworkUtils;
+
+/**
+ * Compares the ShapeScenarioExtent with the PreparedShapeScenarioExtent on
+ * random points in the bounding box of a shape, for instance
+ * gis/paris_20km.shp. Every node is queried twice to mimic the access pattern
+ * of the network cutter.
+ */
+public class RunScenarioExtentBenchmark {
+	private final static Logger logger = LogManager.getLogger(RunScenarioExtentBenchmark.class);
+
+	static public void main(String[] args) throws ConfigurationException, IOException, InterruptedException {
+		CommandLine cmd = new CommandLine.Builder(args) //
+				.requireOptions("extent-path") //
+				.allowOptions("extent-attribute", "extent-value", "samples", "threads", "seed") //
+				.build();
+
+		File extentPath = new File(cmd.getOptionStrict("extent-path"));
+		Optional<String> extentAttribute = cmd.getOption("extent-attribute");
+		Optional<String> extentValue = cmd.getOption("extent-value");
+
+		int samples = cmd.getOption("samples").map(Integer::parseInt).orElse(1000000);
+		int numberOfThreads = cmd.getOption("threads").map(Integer::parseInt)
+				.orElse(Runtime.getRuntime().availableProcessors());
+		long seed = cmd.getOption("seed").map(Long::parseLong).orElse(0L);
+
+		ShapeScenarioExtent.Builder builder = new ShapeScenarioExtent.Builder(extentPath, extentAttribute,
+				extentValue);
+		ShapeScenarioExtent shapeExtent = builder.build();
+		PreparedShapeScenarioExtent preparedExtent = builder.buildPrepared();
+
+		// Sample nodes in the bounding box of the extent
+		Envelope envelope = shapeExtent.getPolygon().getEnvelopeInternal();
+		Random random = new Random(seed);
+
+		NetworkFactory factory = NetworkUtils.createNetwork().getFactory();
+		List<Node> nodes = new ArrayList<>(samples);
+
+		for (int i = 0; i < samples; i++) {
+			Coord coord = new Coord( //
+					envelope.getMinX() + random.nextDouble() * envelope.getWidth(), //
+					envelope.getMinY() + random.nextDouble() * envelope.getHeight());
+
+			nodes.add(factory.createNode(Id.createNodeId("benchmark:" + i), coord));
+		}
+
+		// Shape extent
+		long startTime = System.nanoTime();
+		int shapeInside = 0;
+
+		for (int k = 0; k < 2; k++) {
+			for (Node node : nodes) {
+				shapeInside += shapeExtent.isInside(node) ? 1 : 0;
+			}
+		}
+
+		double shapeRuntime = 1e-9 * (System.nanoTime() - startTime);
+
+		// Prepared extent without node cache
+		startTime = System.nanoTime();
+		int preparedInside = 0;
+
+		for (int k = 0; k < 2; k++) {
+			for (Node node : nodes) {
+				preparedInside += preparedExtent.isInside(node.getCoord()) ? 1 : 0;
+			}
+		}
+
+		double preparedRuntime = 1e-9 * (System.nanoTime() - startTime);
+
+		// Prepared extent with node cache
+		startTime = System.nanoTime();
+		int cachedInside = 0;
+
+		for (int k = 0; k < 2; k++) {
+			for (Node node : nodes) {
+				cachedInside += preparedExtent.isInside(node) ? 1 : 0;
+			}
+		}
+
+		double cachedRuntime = 1e-9 * (System.nanoTime() - startTime);
+
+		// Bulk classification on a fresh extent
+		PreparedShapeScenarioExtent bulkExtent = builder.buildPrepared();
+
+		startTime = System.nanoTime();
+		IdSet<Node> bulkInside = bulkExtent.classify(nodes, numberOfThreads, 10000);
+		double bulkRuntime = 1e-9 * (System.nanoTime() - startTime);
+
+		if (shapeInside != preparedInside || shapeInside != cachedInside || shapeInside != 2 * bulkInside.size()) {
+			throw new IllegalStateException("Extent implementations do not agree");
+		}
+
+		logger.info(String.format("Queries: %d, inside: %d", 2 * samples, shapeInside));
+		logger.info(String.format("  Shape extent:           %.3fs", shapeRuntime));
+		logger.info(String.format("  Prepared extent:        %.3fs", preparedRuntime));
+		logger.info(String.format("  Prepared + node cache:  %.3fs", cachedRuntime));
+		logger.info(String.format("  Bulk (%d threads, 1x):  %.3fs", numberOfThreads, bulkRuntime));
+	}
+}
@@ -3,10 +3,15 @@ package org.eqasim.core.scenario.cutter.extent;
 import java.util.List;
 
 import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Node;
 
 public interface ScenarioExtent {
 	boolean isInside(Coord coord);
 
+	default boolean isInside(Node node) {
+		return isInside(node.getCoord());
+	}
+
 	List<Coord> computeEuclideanIntersections(Coord from, Coord to);
 
 	Coord getInteriorPoint();
@@ -70,6 +70,10 @@ public class ShapeScenarioExtent implements ScenarioExtent {
 		return new Coord(coordinate.x, coordinate.y);
 	}
 
+	public Polygon getPolygon() {
+		return polygon;
+	}
+
 	static public class Builder {
 		private final File path;
 		private final Optional<String> attribute;
@@ -174,5 +178,9 @@ public class ShapeScenarioExtent implements ScenarioExtent {
 				return buildFromShapefile();
 			}
 		}
+
+		public PreparedShapeScenarioExtent buildPrepared() throws IOException {
+			return new PreparedShapeScenarioExtent(build().getPolygon());
+		}
 	}
 }
@@ -33,7 +33,7 @@ public class RunNetworkCutter {
 		File extentPath = new File(cmd.getOptionStrict("extent-path"));
 		Optional<String> extentAttribute = cmd.getOption("extent-attribute");
 		Optional<String> extentValue = cmd.getOption("extent-value");
-		ScenarioExtent extent = new ShapeScenarioExtent.Builder(extentPath, extentAttribute, extentValue).build();
+		ScenarioExtent extent = new ShapeScenarioExtent.Builder(extentPath, extentAttribute, extentValue).buildPrepared();
 
 		// Load network
 		Network fullNetwork = NetworkUtils.createNetwork();
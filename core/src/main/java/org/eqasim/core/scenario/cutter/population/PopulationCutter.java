@@ -4,9 +4,11 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 import org.eqasim.core.misc.Constants;
 import org.eqasim.core.misc.ParallelProgress;
+import org.matsim.api.core.v01.IdSet;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
@@ -17,6 +19,11 @@ import org.matsim.api.core.v01.population.PopulationFactory;
 
 import com.google.inject.Provider;
 
+/**
+ * Cuts the plans of a population to the scenario extent. Alternatively, the
+ * persons that would remain after cutting can be selected without modifying
+ * the population.
+ */
 public class PopulationCutter {
 	private final Provider<PlanCutter> planCutterProvider;
 	private final PopulationFactory populationFactory;
@@ -32,17 +39,79 @@ public class PopulationCutter {
 	}
 
 	public void run(Population population) throws InterruptedException {
+		process(population, "Cutting population ...", this::cutPerson);
+	}
+
+	/**
+	 * Returns the persons that keep at least one non-empty plan after cutting,
+	 * which are exactly the persons that remain after running the cutter followed
+	 * by {@link RemoveEmptyPlans}. The population itself is not modified.
+	 */
+	public IdSet<Person> select(Population population) throws InterruptedException {
+		IdSet<Person> selection = new IdSet<>(Person.class);
+
+		process(population, "Selecting persons ...", (planCutter, person) -> {
+			for (Plan plan : person.getPlans()) {
+				if (planCutter.processPlan(person.getId(), plan.getPlanElements()).size() > 0) {
+					synchronized (selection) {
+						selection.add(person.getId());
+					}
+
+					break;
+				}
+			}
+		});
+
+		return selection;
+	}
+
+	private void cutPerson(PlanCutter planCutter, Person person) {
+		boolean isPersonOutside = false;
+
+		List<Plan> newPlans = new LinkedList<>();
+		List<Plan> oldPlans = new LinkedList<>();
+
+		for (Plan oldPlan : person.getPlans()) {
+			List<PlanElement> newPlanElements = planCutter.processPlan(person.getId(), oldPlan.getPlanElements());
+
+			Plan newPlan = populationFactory.createPlan();
+
+			for (int k = 0; k < newPlanElements.size(); k++) {
+				if (k % 2 == 0) {
+					Activity activity = (Activity) newPlanElements.get(k);
+					newPlan.addActivity(activity);
+
+					if (activity.getType().equals(Constants.OUTSIDE_ACTIVITY_TYPE)) {
+						isPersonOutside = true;
+					}
+				} else {
+					newPlan.addLeg((Leg) newPlanElements.get(k));
+				}
+			}
+
+			newPlans.add(newPlan);
+			oldPlans.add(oldPlan);
+		}
+
+		oldPlans.forEach(person::removePlan);
+		newPlans.forEach(person::addPlan);
+
+		person.getAttributes().putAttribute(Constants.OUTSIDE_AGENT_ATTRIBUTE, isPersonOutside);
+	}
+
+	private void process(Population population, String description, BiConsumer<PlanCutter, Person> task)
+			throws InterruptedException {
 		Iterator<? extends Person> personIterator = population.getPersons().values().iterator();
 
 		List<Thread> threads = new LinkedList<>();
 
-		ParallelProgress progress = new ParallelProgress("Cutting population ...", population.getPersons().size());
+		ParallelProgress progress = new ParallelProgress(description, population.getPersons().size());
 		progress.start();
 
 		AtomicBoolean errorsOccured = new AtomicBoolean(false);
 
 		for (int i = 0; i < numberOfThreads; i++) {
-			Thread thread = new Thread(new Worker(personIterator, progress, planCutterProvider));
+			Thread thread = new Thread(new Worker(personIterator, progress, planCutterProvider, task));
 			thread.setUncaughtExceptionHandler((t, e) -> {
 				e.printStackTrace();
 				errorsOccured.set(true);
@@ -67,12 +136,14 @@ public class PopulationCutter {
 		private final Iterator<? extends Person> personIterator;
 		private final ParallelProgress progress;
 		private final Provider<PlanCutter> planCutterProvider;
+		private final BiConsumer<PlanCutter, Person> task;
 
 		Worker(Iterator<? extends Person> personIterator, ParallelProgress progress,
-				Provider<PlanCutter> planCutterProvider) {
+				Provider<PlanCutter> planCutterProvider, BiConsumer<PlanCutter, Person> task) {
 			this.progress = progress;
 			this.personIterator = personIterator;
 			this.planCutterProvider = planCutterProvider;
+			this.task = task;
 		}
 
 		@Override
@@ -90,38 +161,7 @@ public class PopulationCutter {
 				}
 
 				for (Person person : localTasks) {
-					boolean isPersonOutside = false;
-
-					List<Plan> newPlans = new LinkedList<>();
-					List<Plan> oldPlans = new LinkedList<>();
-
-					for (Plan oldPlan : person.getPlans()) {
-						List<PlanElement> newPlanElements = planCutter.processPlan(person.getId(),
-								oldPlan.getPlanElements());
-
-						Plan newPlan = populationFactory.createPlan();
-
-						for (int k = 0; k < newPlanElements.size(); k++) {
-							if (k % 2 == 0) {
-								Activity activity = (Activity) newPlanElements.get(k);
-								newPlan.addActivity(activity);
-
-								if (activity.getType().equals(Constants.OUTSIDE_ACTIVITY_TYPE)) {
-									isPersonOutside = true;
-								}
-							} else {
-								newPlan.addLeg((Leg) newPlanElements.get(k));
-							}
-						}
-
-						newPlans.add(newPlan);
-						oldPlans.add(oldPlan);
-					}
-
-					oldPlans.forEach(person::removePlan);
-					newPlans.forEach(person::addPlan);
-
-					person.getAttributes().putAttribute(Constants.OUTSIDE_AGENT_ATTRIBUTE, isPersonOutside);
+					task.accept(planCutter, person);
 				}
 
 				progress.update(localTasks.size());
@@ -56,8 +56,8 @@ public class DefaultNetworkRouteCrossingPointFinder implements NetworkRouteCross
 			enterTime = leaveTime;
 			leaveTime = enterTime + travelTime.getLinkTravelTime(link, enterTime, null, null);
 
-			boolean fromIsInside = extent.isInside(link.getFromNode().getCoord());
-			boolean toIsInside = extent.isInside(link.getToNode().getCoord());
+			boolean fromIsInside = extent.isInside(link.getFromNode());
+			boolean toIsInside = extent.isInside(link.getToNode());
 
 			if (fromIsInside != toIsInside) {
 				Optional<LinkTimingData> timingData = timingRegistry.getTimingData(personId, legIndex, linkId);
@@ -87,11 +87,11 @@ public class DefaultNetworkRouteCrossingPointFinder implements NetworkRouteCross
 		for (Id<Link> linkId : fullRoute) {
 			Link link = network.getLinks().get(linkId);
 
-			if (!extent.isInside(link.getFromNode().getCoord())) {
+			if (!extent.isInside(link.getFromNode())) {
 				return false;
 			}
 
-			if (!extent.isInside(link.getToNode().getCoord())) {
+			if (!extent.isInside(link.getToNode())) {
 				return false;
 			}
 		}
@@ -55,7 +55,7 @@ public class LinkTimingRegistryHandler implements PersonDepartureEventHandler, V
 	public void handleEvent(LinkEnterEvent event) {
 		Link link = network.getLinks().get(event.getLinkId());
 
-		if (extent.isInside(link.getFromNode().getCoord()) ^ extent.isInside(link.getToNode().getCoord())) {
+		if (extent.isInside(link.getFromNode()) ^ extent.isInside(link.getToNode())) {
 			enterEvents.put(driverRegistry.get(event.getVehicleId()), event);
 		}
 	}
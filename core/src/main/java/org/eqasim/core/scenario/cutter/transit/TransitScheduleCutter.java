@@ -1,14 +1,20 @@
 package org.eqasim.core.scenario.cutter.transit;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.eqasim.core.misc.ParallelProgress;
 import org.eqasim.core.scenario.cutter.extent.ScenarioExtent;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
@@ -31,9 +37,17 @@ public class TransitScheduleCutter {
 	private final ScenarioExtent extent;
 	private final StopSequenceCrossingPointFinder crossingPointFinder;
 
+	private final int numberOfThreads;
+
 	public TransitScheduleCutter(ScenarioExtent extent, StopSequenceCrossingPointFinder crossingPointFinder) {
+		this(extent, crossingPointFinder, Runtime.getRuntime().availableProcessors());
+	}
+
+	public TransitScheduleCutter(ScenarioExtent extent, StopSequenceCrossingPointFinder crossingPointFinder,
+			int numberOfThreads) {
 		this.extent = extent;
 		this.crossingPointFinder = crossingPointFinder;
+		this.numberOfThreads = numberOfThreads;
 	}
 
 	private List<TransitRouteStop> reduceStopSequence(List<TransitRouteStop> originalSequence) {
@@ -60,22 +74,43 @@ public class TransitScheduleCutter {
 	}
 
 	private NetworkRoute reduceNetworkRoute(NetworkRoute originalRoute, Id<Link> startLinkId, Id<Link> endLinkId) {
-		List<Id<Link>> originalLinkIds = new LinkedList<>(originalRoute.getLinkIds());
-		originalLinkIds.add(0, originalRoute.getStartLinkId());
-		originalLinkIds.add(originalRoute.getEndLinkId());
+		List<Id<Link>> routeLinkIds = originalRoute.getLinkIds();
+
+		// Full link sequence including start and end link, with the link indices
+		// precomputed so that the searches below only compare integers
+		int numberOfLinks = routeLinkIds.size() + 2;
+
+		@SuppressWarnings("unchecked")
+		Id<Link>[] originalLinkIds = new Id[numberOfLinks];
+		originalLinkIds[0] = originalRoute.getStartLinkId();
+		originalLinkIds[numberOfLinks - 1] = originalRoute.getEndLinkId();
+
+		int k = 1;
+		for (Id<Link> linkId : routeLinkIds) {
+			originalLinkIds[k++] = linkId;
+		}
+
+		int[] linkIndices = new int[numberOfLinks];
+
+		for (int i = 0; i < numberOfLinks; i++) {
+			linkIndices[i] = originalLinkIds[i].index();
+		}
+
+		int startLinkIndex = startLinkId.index();
+		int endLinkIndex = endLinkId.index();
 
 		int startIndex = -1;
 		int endIndex = -1;
 
-		for (int i = 0; i < originalLinkIds.size(); i++) {
-			if (originalLinkIds.get(i).equals(startLinkId)) {
+		for (int i = 0; i < numberOfLinks; i++) {
+			if (linkIndices[i] == startLinkIndex) {
 				startIndex = i;
 				break;
 			}
 		}
 
-		for (int i = originalLinkIds.size() - 1; i >= 0; i--) {
-			if (originalLinkIds.get(i).equals(endLinkId)) {
+		for (int i = numberOfLinks - 1; i >= 0; i--) {
+			if (linkIndices[i] == endLinkIndex) {
 				endIndex = i;
 				break;
 			}
@@ -85,10 +120,10 @@ public class TransitScheduleCutter {
 			throw new IllegalStateException();
 		}
 
-		Id<Link> reducedStartLinkId = originalLinkIds.get(startIndex);
-		Id<Link> reducedEndLinkId = originalLinkIds.get(endIndex);
-		List<Id<Link>> reducedLinkIds = startIndex == endIndex ? new LinkedList<>()
-				: originalLinkIds.subList(startIndex + 1, endIndex);
+		Id<Link> reducedStartLinkId = originalLinkIds[startIndex];
+		Id<Link> reducedEndLinkId = originalLinkIds[endIndex];
+		List<Id<Link>> reducedLinkIds = startIndex == endIndex ? Collections.emptyList()
+				: Arrays.asList(originalLinkIds).subList(startIndex + 1, endIndex);
 
 		NetworkRoute reducedRoute = (NetworkRoute) new LinkNetworkRouteFactory().createRoute(reducedStartLinkId,
 				reducedEndLinkId);
@@ -142,25 +177,64 @@ public class TransitScheduleCutter {
 		return reducedLine.getRoutes().size() == 0 ? null : reducedLine;
 	}
 
-	public void run(TransitSchedule schedule) {
+	public void run(TransitSchedule schedule) throws InterruptedException {
 		log.info("Cutting transit schedule ...");
 		ScheduleInfo originalInfo = getInfo(schedule);
 
 		TransitScheduleFactory factory = schedule.getFactory();
 
-		List<TransitLine> originalLines = new LinkedList<>(schedule.getTransitLines().values());
+		List<TransitLine> originalLines = new ArrayList<>(schedule.getTransitLines().values());
 		originalLines.forEach(schedule::removeTransitLine);
 
-		for (TransitLine originalLine : originalLines) {
-			TransitLine reducedLine = reduceLine(originalLine, factory);
+		// Lines are reduced in parallel, the results are added back in the original
+		// order so the output does not depend on the number of threads
+		TransitLine[] reducedLines = new TransitLine[originalLines.size()];
+
+		List<Thread> threads = new LinkedList<>();
+
+		ParallelProgress progress = new ParallelProgress("Cutting transit lines ...", originalLines.size());
+		progress.start();
+
+		AtomicInteger nextLine = new AtomicInteger(0);
+		AtomicBoolean errorsOccured = new AtomicBoolean(false);
+
+		for (int i = 0; i < numberOfThreads; i++) {
+			Thread thread = new Thread(() -> {
+				int lineIndex;
+
+				while ((lineIndex = nextLine.getAndIncrement()) < reducedLines.length) {
+					reducedLines[lineIndex] = reduceLine(originalLines.get(lineIndex), factory);
+					progress.update();
+				}
+			});
+
+			thread.setUncaughtExceptionHandler((t, e) -> {
+				e.printStackTrace();
+				errorsOccured.set(true);
+			});
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		progress.close();
+
+		if (errorsOccured.get()) {
+			throw new RuntimeException("Errors occured while cutting the transit schedule.");
+		}
 
+		for (TransitLine reducedLine : reducedLines) {
 			if (reducedLine != null) {
 				schedule.addTransitLine(reducedLine);
 			}
 		}
 
 		List<TransitStopFacility> originalFacilities = new LinkedList<>(schedule.getFacilities().values());
-		Set<TransitStopFacility> reducedFacilities = new HashSet<>();
+		Set<TransitStopFacility> reducedFacilities = new LinkedHashSet<>();
 
 		for (TransitLine line : schedule.getTransitLines().values()) {
 			for (TransitRoute route : line.getRoutes().values()) {
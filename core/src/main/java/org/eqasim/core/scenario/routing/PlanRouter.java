@@ -22,11 +22,17 @@ import com.google.inject.Inject;
 public class PlanRouter {
 	private final ActivityFacilities facilities;
 	private final TripRouter tripRouter;
+	private final RoutingCache cache;
 
 	@Inject
 	public PlanRouter(ActivityFacilities facilities, TripRouter tripRouter) {
+		this(facilities, tripRouter, null);
+	}
+
+	public PlanRouter(ActivityFacilities facilities, TripRouter tripRouter, RoutingCache cache) {
 		this.tripRouter = tripRouter;
 		this.facilities = facilities;
+		this.cache = cache;
 	}
 
 	public void run(Plan plan, boolean replaceExistingRoutes, Set<String> modes) {
@@ -55,12 +61,16 @@ public class PlanRouter {
 					Facility fromFacility = FacilitiesUtils.toFacility(trip.getOriginActivity(), facilities);
 					Facility toFacility = FacilitiesUtils.toFacility(trip.getDestinationActivity(), facilities);
 
-					List<? extends PlanElement> newElements = tripRouter.calcRoute(mainMode, fromFacility, toFacility,
-							departureTime.seconds(), plan.getPerson(), trip.getTripAttributes());
+					List<? extends PlanElement> newElements;
 
-					// Fix in case we have a transit trip that is only walk
-					newElements = fixOnlyWalk(mainMode, fromFacility, toFacility, departureTime.seconds(),
-							plan.getPerson(), newElements, trip.getTripAttributes());
+					if (cache == null) {
+						newElements = route(mainMode, fromFacility, toFacility, departureTime.seconds(),
+								plan.getPerson(), trip.getTripAttributes());
+					} else {
+						newElements = cache.getOrRoute(mainMode, fromFacility, toFacility, departureTime.seconds(),
+								plan.getPerson(), trip.getTripAttributes(), () -> route(mainMode, fromFacility,
+										toFacility, departureTime.seconds(), plan.getPerson(), trip.getTripAttributes()));
+					}
 
 					TripRouter.insertTrip(plan, trip.getOriginActivity(), newElements, trip.getDestinationActivity());
 				}
@@ -68,6 +78,15 @@ public class PlanRouter {
 		}
 	}
 
+	private List<? extends PlanElement> route(String mainMode, Facility fromFacility, Facility toFacility,
+			double departureTime, Person person, Attributes attributes) {
+		List<? extends PlanElement> elements = tripRouter.calcRoute(mainMode, fromFacility, toFacility,
+				departureTime, person, attributes);
+
+		// Fix in case we have a transit trip that is only walk
+		return fixOnlyWalk(mainMode, fromFacility, toFacility, departureTime, person, elements, attributes);
+	}
+
 	private List<? extends PlanElement> fixOnlyWalk(String mainMode, Facility fromFacility, Facility toFacility,
 			double departureTime, Person person, List<? extends PlanElement> elements, Attributes attributes) {
 		// No need to fix if already walk
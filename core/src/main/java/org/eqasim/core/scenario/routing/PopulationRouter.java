@@ -19,9 +19,16 @@ public class PopulationRouter {
 	private final boolean replaceExistingRoutes;
 	private final Provider<PlanRouter> routerProvider;
 	private final Set<String> modes;
+	private final RoutingCache cache;
 
 	public PopulationRouter(int numberOfThreads, int batchSize, boolean replaceExistingRoutes, Set<String> modes,
 			Provider<PlanRouter> routerProvider) {
+		this(numberOfThreads, batchSize, replaceExistingRoutes, modes, routerProvider, null);
+	}
+
+	public PopulationRouter(int numberOfThreads, int batchSize, boolean replaceExistingRoutes, Set<String> modes,
+			Provider<PlanRouter> routerProvider, RoutingCache cache) {
+		this.cache = cache;
 		this.numberOfThreads = numberOfThreads;
 		this.batchSize = batchSize;
 		this.routerProvider = routerProvider;
@@ -57,6 +64,10 @@ public class PopulationRouter {
 
 		progress.close();
 
+		if (cache != null) {
+			cache.printStatistics();
+		}
+
 		if (errorOccured.get()) {
 			throw new RuntimeException("Found errors in routing threads");
 		}
@@ -4,6 +4,8 @@ import java.util.Collections;
 import java.util.Set;
 
 import org.matsim.core.controler.AbstractModule;
+import org.matsim.core.router.TripRouter;
+import org.matsim.facilities.ActivityFacilities;
 
 import com.google.inject.Provider;
 import com.google.inject.Provides;
@@ -14,6 +16,8 @@ public class PopulationRouterModule extends AbstractModule {
 	private final boolean replaceExistingRoutes;
 	private final Set<String> modes;
 
+	private RoutingCache cache = null;
+
 	public PopulationRouterModule(int numberOfThreads, int batchSize, boolean replaceExistingRoute) {
 		this(numberOfThreads, batchSize, replaceExistingRoute, Collections.emptySet());
 	}
@@ -26,13 +30,25 @@ public class PopulationRouterModule extends AbstractModule {
 		this.modes = modes;
 	}
 
+	/**
+	 * Enables a routing cache that is shared by all routing threads.
+	 */
+	public PopulationRouterModule withCache(RoutingCache cache) {
+		this.cache = cache;
+		return this;
+	}
+
 	@Override
 	public void install() {
-		bind(PlanRouter.class);
+	}
+
+	@Provides
+	public PlanRouter providePlanRouter(ActivityFacilities facilities, TripRouter tripRouter) {
+		return new PlanRouter(facilities, tripRouter, cache);
 	}
 
 	@Provides
 	public PopulationRouter providePopulationRouter(Provider<PlanRouter> routerProvider) {
-		return new PopulationRouter(numberOfThreads, batchSize, replaceExistingRoutes, modes, routerProvider);
+		return new PopulationRouter(numberOfThreads, batchSize, replaceExistingRoutes, modes, routerProvider, cache);
 	}
 }
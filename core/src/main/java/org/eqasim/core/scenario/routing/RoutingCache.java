@@ -0,0 +1,260 @@
+package org.eqasim.core.scenario.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.CommandLine;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.GenericRouteImpl;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.Facility;
+import org.matsim.pt.routes.DefaultTransitPassengerRoute;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.VehicleUtils;
+
+/**
+ * Memoizes routed trips across plans and persons. Trips are identified by their
+ * mode, origin and destination (facility or link and coordinate), the departure
+ * time bin and a configurable set of person attributes plus the trip
+ * attributes. A cached trip is copied and shifted in time to the actual
+ * departure time when it is reused, so the bin size trades accuracy for hits.
+ * Network routes of a reused trip are assigned the vehicle of the requesting
+ * person, and the boarding times of transit routes are shifted along with the
+ * departure. Only trips that consist of network, teleported and transit
+ * routes are cached, trips with other routes are always routed.
+ *
+ * The cache is shared by all routing threads. It is split into segments that
+ * are each bounded by LRU eviction to keep memory under control.
+ */
+public class RoutingCache {
+	private final static Logger logger = LogManager.getLogger(RoutingCache.class);
+
+	private final static int NUMBER_OF_SEGMENTS = 64;
+
+	private final double interval;
+	private final Set<String> modes;
+	private final Collection<String> personAttributes;
+
+	private final List<Map<Key, Entry>> segments = new ArrayList<>(NUMBER_OF_SEGMENTS);
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param maximumSize      Maximum number of cached trips
+	 * @param interval         Size of the departure time bins in seconds
+	 * @param modes            Modes for which trips are cached, all if empty
+	 * @param personAttributes Person attributes that distinguish routes
+	 */
+	public RoutingCache(int maximumSize, double interval, Set<String> modes, Collection<String> personAttributes) {
+		if (interval <= 0.0) {
+			throw new IllegalArgumentException("Routing cache interval must be positive");
+		}
+
+		this.interval = interval;
+		this.modes = modes;
+		this.personAttributes = personAttributes;
+
+		int segmentSize = Math.max(1, maximumSize / NUMBER_OF_SEGMENTS);
+
+		for (int i = 0; i < NUMBER_OF_SEGMENTS; i++) {
+			segments.add(Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+					return size() > segmentSize;
+				}
+			}));
+		}
+	}
+
+	/**
+	 * Creates a cache if the routing-cache-size option is given. Further options
+	 * are routing-cache-interval (seconds, default 300), routing-cache-modes and
+	 * routing-cache-attributes (comma-separated).
+	 */
+	static public Optional<RoutingCache> create(CommandLine cmd) {
+		if (!cmd.hasOption("routing-cache-size")) {
+			return Optional.empty();
+		}
+
+		int maximumSize = cmd.getOption("routing-cache-size").map(Integer::parseInt).get();
+		double interval = cmd.getOption("routing-cache-interval").map(Double::parseDouble).orElse(300.0);
+
+		Set<String> modes = new HashSet<>();
+		cmd.getOption("routing-cache-modes").ifPresent(value -> {
+			Arrays.asList(value.split(",")).forEach(mode -> modes.add(mode.trim()));
+		});
+
+		List<String> attributes = new ArrayList<>();
+		cmd.getOption("routing-cache-attributes").ifPresent(value -> {
+			Arrays.asList(value.split(",")).forEach(attribute -> attributes.add(attribute.trim()));
+		});
+
+		return Optional.of(new RoutingCache(maximumSize, interval, modes, attributes));
+	}
+
+	public List<? extends PlanElement> getOrRoute(String mode, Facility fromFacility, Facility toFacility,
+			double departureTime, Person person, Attributes tripAttributes,
+			Supplier<List<? extends PlanElement>> router) {
+		if (modes.size() > 0 && !modes.contains(mode)) {
+			return router.get();
+		}
+
+		Key key = new Key(mode, createLocationKey(fromFacility), createLocationKey(toFacility),
+				(long) Math.floor(departureTime / interval), createAttributesKey(person, tripAttributes));
+
+		Map<Key, Entry> segment = segments.get(Math.floorMod(key.hashCode(), NUMBER_OF_SEGMENTS));
+		Entry entry = segment.get(key);
+
+		if (entry != null) {
+			hits.incrementAndGet();
+			return copy(entry.elements, departureTime - entry.departureTime, person);
+		}
+
+		misses.incrementAndGet();
+
+		List<? extends PlanElement> elements = router.get();
+
+		if (isCacheable(elements)) {
+			segment.put(key, new Entry(departureTime, copy(elements, 0.0, null)));
+		}
+
+		return elements;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public void printStatistics() {
+		long hits = this.hits.get();
+		long total = hits + misses.get();
+
+		logger.info(String.format("Routing cache: %d/%d trips served from cache (%.2f%%)", hits, total,
+				total == 0 ? 0.0 : 100.0 * hits / total));
+	}
+
+	private Object createLocationKey(Facility facility) {
+		if (facility instanceof ActivityFacility activityFacility) {
+			return activityFacility.getId();
+		}
+
+		return new LocationKey(facility.getLinkId(), facility.getCoord());
+	}
+
+	private Object createAttributesKey(Person person, Attributes tripAttributes) {
+		Map<String, Object> values = new TreeMap<>();
+
+		if (tripAttributes != null) {
+			for (Map.Entry<String, Object> entry : tripAttributes.getAsMap().entrySet()) {
+				values.put("trip:" + entry.getKey(), entry.getValue());
+			}
+		}
+
+		for (String attribute : personAttributes) {
+			values.put("person:" + attribute, person.getAttributes().getAttribute(attribute));
+		}
+
+		return values.size() == 0 ? Collections.emptyMap() : values;
+	}
+
+	/**
+	 * Trips can only be shifted in time if all absolute times in their routes are
+	 * known, which holds for network, teleported and transit routes.
+	 */
+	static boolean isCacheable(List<? extends PlanElement> elements) {
+		for (PlanElement element : elements) {
+			if (element instanceof Leg leg) {
+				Route route = leg.getRoute();
+
+				if (route != null && !(route instanceof NetworkRoute) && !(route instanceof GenericRouteImpl)
+						&& !(route instanceof DefaultTransitPassengerRoute)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copies the trip and shifts its times by the offset. Routes are cloned, so
+	 * the cached trip is never modified. If a person is given, network routes
+	 * that have a vehicle are assigned the vehicle of that person.
+	 */
+	static private List<PlanElement> copy(List<? extends PlanElement> elements, double offset, Person person) {
+		List<PlanElement> copy = new ArrayList<>(elements.size());
+
+		for (PlanElement element : elements) {
+			if (element instanceof Activity activity) {
+				Activity copiedActivity = PopulationUtils.createActivity(activity);
+
+				activity.getStartTime().ifDefined(time -> copiedActivity.setStartTime(time + offset));
+				activity.getEndTime().ifDefined(time -> copiedActivity.setEndTime(time + offset));
+
+				copy.add(copiedActivity);
+			} else {
+				Leg leg = (Leg) element;
+
+				Leg copiedLeg = PopulationUtils.createLeg(leg.getMode());
+				PopulationUtils.copyFromTo(leg, copiedLeg);
+
+				if (leg.getRoute() != null) {
+					copiedLeg.setRoute(leg.getRoute().clone());
+				}
+
+				leg.getDepartureTime().ifDefined(time -> copiedLeg.setDepartureTime(time + offset));
+
+				if (copiedLeg.getRoute() instanceof DefaultTransitPassengerRoute transitRoute) {
+					transitRoute.getBoardingTime().ifDefined(time -> transitRoute.setBoardingTime(time + offset));
+				}
+
+				if (person != null && copiedLeg.getRoute() instanceof NetworkRoute networkRoute
+						&& networkRoute.getVehicleId() != null) {
+					networkRoute.setVehicleId(VehicleUtils.getVehicleId(person, copiedLeg.getMode()));
+				}
+
+				copy.add(copiedLeg);
+			}
+		}
+
+		return copy;
+	}
+
+	private record LocationKey(Id<Link> linkId, Coord coord) {
+	}
+
+	private record Key(String mode, Object from, Object to, long bin, Object attributes) {
+	}
+
+	private record Entry(double departureTime, List<PlanElement> elements) {
+	}
+}
@@ -25,7 +25,8 @@ public class RunPopulationRouting {
 	static public void main(String[] args) throws ConfigurationException, InterruptedException {
 		CommandLine cmd = new CommandLine.Builder(args) //
 				.requireOptions("config-path", "output-path") //
-				.allowOptions("threads", "batch-size", "modes") //
+				.allowOptions("threads", "batch-size", "modes", "routing-cache-size", "routing-cache-interval",
+						"routing-cache-modes", "routing-cache-attributes") //
 				.build();
 
 		EqasimConfigurator configurator = new EqasimConfigurator();
@@ -58,11 +59,14 @@ public class RunPopulationRouting {
 			}
 		}
 
+		PopulationRouterModule routerModule = new PopulationRouterModule(numberOfThreads, batchSize, true, modes);
+		RoutingCache.create(cmd).ifPresent(routerModule::withCache);
+
 		Injector injector = new InjectorBuilder(scenario) //
 				.addOverridingModules(configurator.getModules(config).stream()
 						.filter(module -> !(module instanceof AbstractEqasimExtension)) //
 						.filter(module -> !(module instanceof DiscreteModeChoiceModule)).toList()) //
-				.addOverridingModule(new PopulationRouterModule(numberOfThreads, batchSize, true, modes)) //
+				.addOverridingModule(routerModule) //
 				.addOverridingModule(new TimeInterpretationModule()).build();
 
 		PopulationRouter populationRouter = injector.getInstance(PopulationRouter.class);
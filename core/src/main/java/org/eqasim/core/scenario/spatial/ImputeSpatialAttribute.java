@@ -1,10 +1,22 @@
 package org.eqasim.core.scenario.spatial;
 
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.eqasim.core.misc.ParallelProgress;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Activity;
@@ -13,53 +25,161 @@ import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.router.TripStructureUtils.StageActivityHandling;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributable;
 
+/**
+ * Marks activities, facilities and links that lie within a geometry with a
+ * boolean attribute.
+ *
+ * The parts of the geometry are prepared and stored in an STRtree, so every
+ * point is only tested against the parts whose envelope contains it, and the
+ * test itself uses the indexed point locator of the prepared geometry. The
+ * objects are collected in a fixed order and split into batches that are
+ * processed by a pool of workers. Workers only fill a result array, and the
+ * attributes are written afterwards in the original order, so the outcome does
+ * not depend on the number of threads.
+ *
+ * As before, activities and facilities need to be in the interior of the
+ * geometry while links are also marked if they lie on its boundary.
+ */
 public class ImputeSpatialAttribute {
-	private final Geometry geometry;
 	private final GeometryFactory factory = new GeometryFactory();
+	private final STRtree index = new STRtree();
 	private final String attribute;
 
+	private final int numberOfThreads;
+	private final int batchSize;
+
 	public ImputeSpatialAttribute(Geometry geometry, String attribute) {
-		this.geometry = geometry;
+		this(geometry, attribute, Runtime.getRuntime().availableProcessors(), 1000);
+	}
+
+	public ImputeSpatialAttribute(Geometry geometry, String attribute, int numberOfThreads, int batchSize) {
 		this.attribute = attribute;
+		this.numberOfThreads = numberOfThreads;
+		this.batchSize = batchSize;
+
+		if (geometry instanceof MultiPolygon) {
+			// Parts of a valid multi polygon only touch in points, so testing them one by
+			// one gives the same result as testing the whole geometry
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				Geometry part = geometry.getGeometryN(i);
+				index.insert(part.getEnvelopeInternal(), PreparedGeometryFactory.prepare(part));
+			}
+		} else {
+			index.insert(geometry.getEnvelopeInternal(), PreparedGeometryFactory.prepare(geometry));
+		}
+
+		index.build();
 	}
 
 	public void run(Population population) throws InterruptedException {
-		ParallelProgress progress = new ParallelProgress("Imputing spatial population attributes ...",
-				population.getPersons().size());
+		List<Activity> activities = new ArrayList<>();
 
 		for (Person person : population.getPersons().values()) {
 			for (Plan plan : person.getPlans()) {
-				for (Activity activity : TripStructureUtils.getActivities(plan, StageActivityHandling.ExcludeStageActivities)) {
-					Point point = factory
-							.createPoint(new Coordinate(activity.getCoord().getX(), activity.getCoord().getY()));
-
-					if (geometry.contains(point)) {
-						activity.getAttributes().putAttribute(attribute, true);
-					}
-				}
+				activities.addAll(TripStructureUtils.getActivities(plan, StageActivityHandling.ExcludeStageActivities));
 			}
-
-			progress.update();
 		}
 
-		progress.close();
+		List<Coord> coords = new ArrayList<>(activities.size());
+		activities.forEach(activity -> coords.add(activity.getCoord()));
+
+		apply(activities, locate("Imputing spatial population attributes ...", coords, false));
+	}
+
+	public void run(ActivityFacilities facilities) throws InterruptedException {
+		List<ActivityFacility> items = new ArrayList<>(facilities.getFacilities().values());
+
+		List<Coord> coords = new ArrayList<>(items.size());
+		items.forEach(facility -> coords.add(facility.getCoord()));
+
+		apply(items, locate("Imputing spatial facility attributes ...", coords, false));
 	}
 
 	public void run(Network network) throws InterruptedException {
-		ParallelProgress progress = new ParallelProgress("Imputing spatial network attributes ...",
-				network.getLinks().size());
+		List<Link> links = new ArrayList<>(network.getLinks().values());
 
-		for (Link link : network.getLinks().values()) {
-			Point point = factory.createPoint(new Coordinate(link.getCoord().getX(), link.getCoord().getY()));
+		List<Coord> coords = new ArrayList<>(links.size());
+		links.forEach(link -> coords.add(link.getCoord()));
 
-			if (geometry.covers(point)) {
-				link.getAttributes().putAttribute(attribute, true);
+		apply(links, locate("Imputing spatial network attributes ...", coords, true));
+	}
+
+	private void apply(List<? extends Attributable> items, boolean[] inside) {
+		for (int i = 0; i < inside.length; i++) {
+			if (inside[i]) {
+				items.get(i).getAttributes().putAttribute(attribute, true);
 			}
+		}
+	}
+
+	/**
+	 * Tests whether the given coordinates lie within the geometry. If covers is
+	 * set, points on the boundary are considered inside as well.
+	 */
+	boolean isInside(Coord coord, boolean covers) {
+		Coordinate coordinate = new Coordinate(coord.getX(), coord.getY());
+		Point point = factory.createPoint(coordinate);
 
-			progress.update();
+		for (Object candidate : index.query(new Envelope(coordinate))) {
+			PreparedGeometry geometry = (PreparedGeometry) candidate;
+
+			if (covers ? geometry.covers(point) : geometry.contains(point)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean[] locate(String description, List<Coord> coords, boolean covers) throws InterruptedException {
+		boolean[] inside = new boolean[coords.size()];
+
+		ParallelProgress progress = new ParallelProgress(description, coords.size());
+		progress.start();
+
+		AtomicInteger nextIndex = new AtomicInteger(0);
+		AtomicBoolean errorsOccured = new AtomicBoolean(false);
+
+		List<Thread> threads = new LinkedList<>();
+
+		for (int i = 0; i < numberOfThreads; i++) {
+			Thread thread = new Thread(() -> {
+				int startIndex;
+
+				while ((startIndex = nextIndex.getAndAdd(batchSize)) < coords.size()) {
+					int endIndex = Math.min(startIndex + batchSize, coords.size());
+
+					for (int k = startIndex; k < endIndex; k++) {
+						inside[k] = isInside(coords.get(k), covers);
+					}
+
+					progress.update(endIndex - startIndex);
+				}
+			});
+
+			thread.setUncaughtExceptionHandler((t, e) -> {
+				e.printStackTrace();
+				errorsOccured.set(true);
+			});
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
 		}
 
 		progress.close();
+
+		if (errorsOccured.get()) {
+			throw new RuntimeException("Errors occured while imputing spatial attributes.");
+		}
+
+		return inside;
 	}
 }
@@ -0,0 +1,481 @@
+package org.eqasim.core.scenario.spatial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eqasim.core.misc.ParallelProgress;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Link;
+
+/**
+ * Snaps coordinates to the closest link, measured by the exact distance
+ * between the coordinate and the straight segment from the from node to the
+ * to node of the link.
+ *
+ * The segments are stored in a packed R-tree that is built bottom-up. The
+ * leaves are ordered with the Sort-Tile-Recursive algorithm, using alternating
+ * directions in neighbouring slices, and every level groups consecutive nodes
+ * of the level below. All nodes of a level are kept in flat arrays, and the
+ * children of node i are the entries i * capacity to (i + 1) * capacity - 1 of
+ * the level below, so no child pointers are needed. Queries descend the
+ * tree best-first by the distance to the node envelopes. If several links have
+ * exactly the same distance, for instance both directions of a road, the one
+ * with the smallest id index is returned, so the result does not depend on the
+ * construction of the tree.
+ *
+ * For bulk requests, the coordinates are sorted along a Z-order curve and split
+ * into batches of neighbouring coordinates that are processed by a pool of
+ * workers. The index is immutable after construction and can be shared between
+ * threads.
+ */
+public class LinkSnapper {
+	static public final int DEFAULT_NODE_CAPACITY = 16;
+
+	private final int capacity;
+
+	// Leaf entries in packed order
+	private final Link[] links;
+	private final int[] linkIndices;
+	private final double[] segments;
+
+	// Envelopes by level, from the leaves (level 0) to the root
+	private final double[][] envelopes;
+	private final int[] levelSizes;
+
+	public LinkSnapper(Collection<? extends Link> links) {
+		this(links, DEFAULT_NODE_CAPACITY);
+	}
+
+	public LinkSnapper(Collection<? extends Link> links, int capacity) {
+		if (links.isEmpty()) {
+			throw new IllegalArgumentException("Cannot snap to an empty set of links");
+		}
+
+		if (capacity < 2) {
+			throw new IllegalArgumentException("Node capacity must be at least 2");
+		}
+
+		this.capacity = capacity;
+
+		int numberOfLinks = links.size();
+		Link[] originalLinks = links.toArray(new Link[numberOfLinks]);
+
+		double[] leafEnvelopes = new double[4 * numberOfLinks];
+
+		for (int i = 0; i < numberOfLinks; i++) {
+			Coord from = originalLinks[i].getFromNode().getCoord();
+			Coord to = originalLinks[i].getToNode().getCoord();
+
+			leafEnvelopes[4 * i] = Math.min(from.getX(), to.getX());
+			leafEnvelopes[4 * i + 1] = Math.min(from.getY(), to.getY());
+			leafEnvelopes[4 * i + 2] = Math.max(from.getX(), to.getX());
+			leafEnvelopes[4 * i + 3] = Math.max(from.getY(), to.getY());
+		}
+
+		// Pack the leaves and reorder the links accordingly
+		int[] order = computePackingOrder(leafEnvelopes, numberOfLinks);
+
+		this.links = new Link[numberOfLinks];
+		this.linkIndices = new int[numberOfLinks];
+		this.segments = new double[4 * numberOfLinks];
+
+		for (int i = 0; i < numberOfLinks; i++) {
+			Link link = originalLinks[order[i]];
+			Coord from = link.getFromNode().getCoord();
+			Coord to = link.getToNode().getCoord();
+
+			this.links[i] = link;
+			this.linkIndices[i] = link.getId().index();
+
+			segments[4 * i] = from.getX();
+			segments[4 * i + 1] = from.getY();
+			segments[4 * i + 2] = to.getX();
+			segments[4 * i + 3] = to.getY();
+		}
+
+		List<double[]> levels = new ArrayList<>();
+		List<Integer> sizes = new ArrayList<>();
+
+		double[] currentEnvelopes = reorder(leafEnvelopes, order);
+		int currentSize = numberOfLinks;
+
+		levels.add(currentEnvelopes);
+		sizes.add(currentSize);
+
+		// Build the upper levels until there is a single root node
+		while (currentSize > 1) {
+			int parentSize = (currentSize + capacity - 1) / capacity;
+			double[] parentEnvelopes = new double[4 * parentSize];
+
+			for (int p = 0; p < parentSize; p++) {
+				double minX = Double.POSITIVE_INFINITY;
+				double minY = Double.POSITIVE_INFINITY;
+				double maxX = Double.NEGATIVE_INFINITY;
+				double maxY = Double.NEGATIVE_INFINITY;
+
+				int end = Math.min((p + 1) * capacity, currentSize);
+
+				for (int c = p * capacity; c < end; c++) {
+					minX = Math.min(minX, currentEnvelopes[4 * c]);
+					minY = Math.min(minY, currentEnvelopes[4 * c + 1]);
+					maxX = Math.max(maxX, currentEnvelopes[4 * c + 2]);
+					maxY = Math.max(maxY, currentEnvelopes[4 * c + 3]);
+				}
+
+				parentEnvelopes[4 * p] = minX;
+				parentEnvelopes[4 * p + 1] = minY;
+				parentEnvelopes[4 * p + 2] = maxX;
+				parentEnvelopes[4 * p + 3] = maxY;
+			}
+
+			currentEnvelopes = parentEnvelopes;
+			currentSize = parentSize;
+
+			levels.add(currentEnvelopes);
+			sizes.add(currentSize);
+		}
+
+		this.envelopes = levels.toArray(new double[levels.size()][]);
+		this.levelSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Sort-Tile-Recursive ordering: entries are sorted by the x coordinate of
+	 * their center, split into vertical slices and sorted by y within each slice,
+	 * upwards and downwards in turns so that consecutive nodes stay close.
+	 */
+	private int[] computePackingOrder(double[] envelopes, int size) {
+		long numberOfNodes = (size + capacity - 1) / capacity;
+		int numberOfSlices = (int) Math.ceil(Math.sqrt(numberOfNodes));
+		int sliceSize = (int) Math.ceil((double) size / numberOfSlices);
+
+		// Round slices to full nodes, so that nodes do not span two slices
+		sliceSize = Math.max(capacity, ((sliceSize + capacity - 1) / capacity) * capacity);
+
+		Integer[] order = new Integer[size];
+
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+
+		Arrays.sort(order, (a, b) -> Double.compare(envelopes[4 * a] + envelopes[4 * a + 2],
+				envelopes[4 * b] + envelopes[4 * b + 2]));
+
+		Comparator<Integer> byY = (a, b) -> Double.compare(envelopes[4 * a + 1] + envelopes[4 * a + 3],
+				envelopes[4 * b + 1] + envelopes[4 * b + 3]);
+
+		for (int start = 0, slice = 0; start < size; start += sliceSize, slice++) {
+			Arrays.sort(order, start, Math.min(start + sliceSize, size), slice % 2 == 0 ? byY : byY.reversed());
+		}
+
+		int[] result = new int[size];
+
+		for (int i = 0; i < size; i++) {
+			result[i] = order[i];
+		}
+
+		return result;
+	}
+
+	static private double[] reorder(double[] envelopes, int[] order) {
+		double[] result = new double[envelopes.length];
+
+		for (int i = 0; i < order.length; i++) {
+			System.arraycopy(envelopes, 4 * order[i], result, 4 * i, 4);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the link that is closest to the given coordinate.
+	 */
+	public Link snap(Coord coord) {
+		return snap(coord.getX(), coord.getY(), new Search());
+	}
+
+	/**
+	 * Returns the exact distance between the coordinate and the segment of the
+	 * link.
+	 */
+	static public double calculateDistance(Link link, Coord coord) {
+		Coord from = link.getFromNode().getCoord();
+		Coord to = link.getToNode().getCoord();
+
+		return Math.sqrt(calculateSquaredDistance(coord.getX(), coord.getY(), from.getX(), from.getY(), to.getX(),
+				to.getY()));
+	}
+
+	/**
+	 * Snaps all coordinates and returns the links in the order of the input.
+	 */
+	public Link[] snap(List<Coord> coords, int numberOfThreads, int batchSize) throws InterruptedException {
+		int numberOfCoords = coords.size();
+		Link[] result = new Link[numberOfCoords];
+
+		if (numberOfCoords == 0) {
+			return result;
+		}
+
+		double[] xy = new double[2 * numberOfCoords];
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+
+		int k = 0;
+		for (Coord coord : coords) {
+			xy[2 * k] = coord.getX();
+			xy[2 * k + 1] = coord.getY();
+
+			minX = Math.min(minX, xy[2 * k]);
+			minY = Math.min(minY, xy[2 * k + 1]);
+			maxX = Math.max(maxX, xy[2 * k]);
+			maxY = Math.max(maxY, xy[2 * k + 1]);
+
+			k++;
+		}
+
+		// Sort along a Z-order curve so that every batch covers a compact area
+		double scaleX = maxX > minX ? 65535.0 / (maxX - minX) : 0.0;
+		double scaleY = maxY > minY ? 65535.0 / (maxY - minY) : 0.0;
+
+		long[] keys = new long[numberOfCoords];
+
+		for (int i = 0; i < numberOfCoords; i++) {
+			int cellX = (int) ((xy[2 * i] - minX) * scaleX);
+			int cellY = (int) ((xy[2 * i + 1] - minY) * scaleY);
+			keys[i] = (interleave(cellX, cellY) << 32) | i;
+		}
+
+		Arrays.sort(keys);
+
+		int numberOfBatches = (numberOfCoords + batchSize - 1) / batchSize;
+
+		ParallelProgress progress = new ParallelProgress("Snapping coordinates to links ...", numberOfCoords);
+		progress.start();
+
+		AtomicInteger nextBatch = new AtomicInteger(0);
+		AtomicBoolean errorsOccured = new AtomicBoolean(false);
+
+		List<Thread> threads = new LinkedList<>();
+
+		for (int t = 0; t < numberOfThreads; t++) {
+			Thread thread = new Thread(() -> {
+				Search search = new Search();
+				int batchIndex;
+
+				while ((batchIndex = nextBatch.getAndIncrement()) < numberOfBatches) {
+					int startIndex = batchIndex * batchSize;
+					int endIndex = Math.min(startIndex + batchSize, numberOfCoords);
+
+					for (int i = startIndex; i < endIndex; i++) {
+						int index = (int) keys[i];
+						result[index] = snap(xy[2 * index], xy[2 * index + 1], search);
+					}
+
+					progress.update(endIndex - startIndex);
+				}
+			});
+
+			thread.setUncaughtExceptionHandler((th, e) -> {
+				e.printStackTrace();
+				errorsOccured.set(true);
+			});
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		progress.close();
+
+		if (errorsOccured.get()) {
+			throw new RuntimeException("Errors occured while snapping coordinates to links.");
+		}
+
+		return result;
+	}
+
+	static private long interleave(int x, int y) {
+		long result = 0;
+
+		for (int bit = 0; bit < 16; bit++) {
+			result |= ((long) ((x >> bit) & 1)) << (2 * bit);
+			result |= ((long) ((y >> bit) & 1)) << (2 * bit + 1);
+		}
+
+		return result;
+	}
+
+	private Link snap(double x, double y, Search search) {
+		search.clear();
+
+		int rootLevel = envelopes.length - 1;
+		search.push(calculateSquaredEnvelopeDistance(x, y, envelopes[rootLevel], 0), rootLevel, 0);
+
+		int bestEntry = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+
+		while (search.size > 0 && search.peekDistance() <= bestDistance) {
+			double distance = search.peekDistance();
+			int level = search.peekLevel();
+			int index = search.peekIndex();
+			search.pop();
+
+			if (level == 0) {
+				// Entries are popped in order of their exact distance, so only ties remain
+				if (distance < bestDistance || linkIndices[index] < linkIndices[bestEntry]) {
+					bestDistance = distance;
+					bestEntry = index;
+				}
+			} else {
+				int childLevel = level - 1;
+				int end = Math.min((index + 1) * capacity, levelSizes[childLevel]);
+
+				for (int c = index * capacity; c < end; c++) {
+					double childDistance = childLevel == 0
+							? calculateSquaredDistance(x, y, segments[4 * c], segments[4 * c + 1],
+									segments[4 * c + 2], segments[4 * c + 3])
+							: calculateSquaredEnvelopeDistance(x, y, envelopes[childLevel], c);
+
+					if (childDistance <= bestDistance) {
+						search.push(childDistance, childLevel, c);
+					}
+				}
+			}
+		}
+
+		return links[bestEntry];
+	}
+
+	static private double calculateSquaredEnvelopeDistance(double x, double y, double[] envelopes, int index) {
+		double dx = Math.max(Math.max(envelopes[4 * index] - x, 0.0), x - envelopes[4 * index + 2]);
+		double dy = Math.max(Math.max(envelopes[4 * index + 1] - y, 0.0), y - envelopes[4 * index + 3]);
+		return dx * dx + dy * dy;
+	}
+
+	static private double calculateSquaredDistance(double x, double y, double fromX, double fromY, double toX,
+			double toY) {
+		double segmentX = toX - fromX;
+		double segmentY = toY - fromY;
+		double squaredLength = segmentX * segmentX + segmentY * segmentY;
+
+		double projection = 0.0;
+
+		if (squaredLength > 0.0) {
+			projection = ((x - fromX) * segmentX + (y - fromY) * segmentY) / squaredLength;
+			projection = Math.max(0.0, Math.min(1.0, projection));
+		}
+
+		double dx = fromX + projection * segmentX - x;
+		double dy = fromY + projection * segmentY - y;
+
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * Binary min-heap of tree entries by distance, reused across queries of one
+	 * worker.
+	 */
+	static private class Search {
+		private double[] distances = new double[64];
+		private int[] levels = new int[64];
+		private int[] indices = new int[64];
+		private int size = 0;
+
+		void clear() {
+			size = 0;
+		}
+
+		double peekDistance() {
+			return distances[0];
+		}
+
+		int peekLevel() {
+			return levels[0];
+		}
+
+		int peekIndex() {
+			return indices[0];
+		}
+
+		void push(double distance, int level, int index) {
+			if (size == distances.length) {
+				distances = Arrays.copyOf(distances, 2 * size);
+				levels = Arrays.copyOf(levels, 2 * size);
+				indices = Arrays.copyOf(indices, 2 * size);
+			}
+
+			int i = size++;
+
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+
+				if (distances[parent] <= distance) {
+					break;
+				}
+
+				set(i, parent);
+				i = parent;
+			}
+
+			distances[i] = distance;
+			levels[i] = level;
+			indices[i] = index;
+		}
+
+		void pop() {
+			size--;
+
+			if (size == 0) {
+				return;
+			}
+
+			double distance = distances[size];
+			int level = levels[size];
+			int index = indices[size];
+
+			int i = 0;
+
+			while (true) {
+				int child = 2 * i + 1;
+
+				if (child >= size) {
+					break;
+				}
+
+				if (child + 1 < size && distances[child + 1] < distances[child]) {
+					child++;
+				}
+
+				if (distances[child] >= distance) {
+					break;
+				}
+
+				set(i, child);
+				i = child;
+			}
+
+			distances[i] = distance;
+			levels[i] = level;
+			indices[i] = index;
+		}
+
+		private void set(int target, int source) {
+			distances[target] = distances[source];
+			levels[target] = levels[source];
+			indices[target] = indices[source];
+		}
+	}
+}
@@ -18,13 +18,16 @@ import org.matsim.core.network.io.NetworkWriter;
 import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.population.io.PopulationWriter;
 import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.facilities.FacilitiesWriter;
+import org.matsim.facilities.MatsimFacilitiesReader;
 
 public class RunImputeSpatialAttribute {
 	static public void main(String[] args)
 			throws ConfigurationException, MalformedURLException, IOException, InterruptedException {
 		CommandLine cmd = new CommandLine.Builder(args) //
 				.allowOptions("input-population-path", "input-network-path", "output-population-path",
-						"output-network-path") //
+						"output-network-path", "input-facilities-path", "output-facilities-path", "threads",
+						"batch-size") //
 				.requireOptions("shape-path", "shape-attribute", "shape-value", "attribute") //
 				.build();
 
@@ -36,6 +39,14 @@ public class RunImputeSpatialAttribute {
 			throw new IllegalStateException("Both input and output path must be given for the network.");
 		}
 
+		if (cmd.hasOption("input-facilities-path") ^ cmd.hasOption("output-facilities-path")) {
+			throw new IllegalStateException("Both input and output path must be given for the facilities.");
+		}
+
+		int numberOfThreads = cmd.getOption("threads").map(Integer::parseInt)
+				.orElse(Runtime.getRuntime().availableProcessors());
+		int batchSize = cmd.getOption("batch-size").map(Integer::parseInt).orElse(1000);
+
 		// Load shape
 		String shapeAttribute = cmd.getOptionStrict("shape-attribute");
 		String shapeValue = cmd.getOptionStrict("shape-value");
@@ -51,7 +62,8 @@ public class RunImputeSpatialAttribute {
 		configurator.configureScenario(scenario);
 
 		String attribute = cmd.getOptionStrict("attribute");
-		ImputeSpatialAttribute algorithm = new ImputeSpatialAttribute(shape, attribute);
+		ImputeSpatialAttribute algorithm = new ImputeSpatialAttribute(shape, attribute, numberOfThreads,
+				batchSize);
 
 		// Load network
 		if (cmd.hasOption("input-network-path")) {
@@ -61,6 +73,14 @@ public class RunImputeSpatialAttribute {
 			new NetworkWriter(scenario.getNetwork()).write(cmd.getOptionStrict("output-network-path"));
 		}
 
+		// Load facilities
+		if (cmd.hasOption("input-facilities-path")) {
+			File facilitiesPath = new File(cmd.getOptionStrict("input-facilities-path"));
+			new MatsimFacilitiesReader(scenario).readFile(facilitiesPath.toString());
+			algorithm.run(scenario.getActivityFacilities());
+			new FacilitiesWriter(scenario.getActivityFacilities()).write(cmd.getOptionStrict("output-facilities-path"));
+		}
+
 		// Load population
 		if (cmd.hasOption("input-population-path")) {
 			File populationPath = new File(cmd.getOptionStrict("input-population-path"));
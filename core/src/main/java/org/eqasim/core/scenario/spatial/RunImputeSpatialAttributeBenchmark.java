@@ -0,0 +1,151 @@
+package org.eqasim.core.scenario.spatial;
+
+import java.util.Random;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.CommandLine;
+import org.matsim.core.config.CommandLine.ConfigurationException;
+import org.matsim.core.network.NetworkUtils;
+
+/**
+ * Compares the serial imputation against the raw geometry with the prepared,
+ * indexed and parallel imputation on a synthetic grid network. The geometry is
+ * a multi polygon of irregular blobs with many vertices each, scattered over
+ * the grid. Both approaches must mark exactly the same links.
+ */
+public class RunImputeSpatialAttributeBenchmark {
+	private final static Logger logger = LogManager.getLogger(RunImputeSpatialAttributeBenchmark.class);
+
+	static public void main(String[] args) throws ConfigurationException, InterruptedException {
+		CommandLine cmd = new CommandLine.Builder(args) //
+				.allowOptions("grid-size", "grid-spacing", "polygons", "vertices", "threads", "batch-size", "seed") //
+				.build();
+
+		int gridSize = cmd.getOption("grid-size").map(Integer::parseInt).orElse(500);
+		double gridSpacing = cmd.getOption("grid-spacing").map(Double::parseDouble).orElse(100.0);
+		int numberOfPolygons = cmd.getOption("polygons").map(Integer::parseInt).orElse(50);
+		int numberOfVertices = cmd.getOption("vertices").map(Integer::parseInt).orElse(2000);
+		int numberOfThreads = cmd.getOption("threads").map(Integer::parseInt)
+				.orElse(Runtime.getRuntime().availableProcessors());
+		int batchSize = cmd.getOption("batch-size").map(Integer::parseInt).orElse(1000);
+		long seed = cmd.getOption("seed").map(Long::parseLong).orElse(0L);
+
+		Random random = new Random(seed);
+		double extent = gridSize * gridSpacing;
+
+		Network network = createGrid(gridSize, gridSpacing);
+		Geometry geometry = createGeometry(random, numberOfPolygons, numberOfVertices, extent);
+
+		// Serial imputation with the raw geometry
+		long startTime = System.nanoTime();
+
+		GeometryFactory factory = new GeometryFactory();
+		int serialCount = 0;
+
+		for (Link link : network.getLinks().values()) {
+			if (geometry.covers(factory.createPoint(new Coordinate(link.getCoord().getX(), link.getCoord().getY())))) {
+				link.getAttributes().putAttribute("serial", true);
+				serialCount++;
+			}
+		}
+
+		double serialRuntime = 1e-9 * (System.nanoTime() - startTime);
+
+		// Prepared, indexed and parallel imputation
+		startTime = System.nanoTime();
+		new ImputeSpatialAttribute(geometry, "parallel", numberOfThreads, batchSize).run(network);
+		double parallelRuntime = 1e-9 * (System.nanoTime() - startTime);
+
+		int parallelCount = 0;
+
+		for (Link link : network.getLinks().values()) {
+			boolean serial = link.getAttributes().getAttribute("serial") != null;
+			boolean parallel = link.getAttributes().getAttribute("parallel") != null;
+
+			if (serial != parallel) {
+				throw new IllegalStateException("Imputations do not agree for link " + link.getId());
+			}
+
+			if (parallel) {
+				parallelCount++;
+			}
+		}
+
+		logger.info(String.format("Links: %d, polygons: %d with %d vertices, marked: %d",
+				network.getLinks().size(), numberOfPolygons, numberOfVertices, parallelCount));
+		logger.info(String.format("  Serial, raw geometry:         %.3fs (%d marked)", serialRuntime, serialCount));
+		logger.info(String.format("  Parallel, prepared + STRtree: %.3fs (%d threads)", parallelRuntime,
+				numberOfThreads));
+	}
+
+	static public Network createGrid(int gridSize, double gridSpacing) {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory factory = network.getFactory();
+
+		Node[][] nodes = new Node[gridSize][gridSize];
+
+		for (int i = 0; i < gridSize; i++) {
+			for (int j = 0; j < gridSize; j++) {
+				nodes[i][j] = factory.createNode(Id.createNodeId(i + ":" + j),
+						new Coord(i * gridSpacing, j * gridSpacing));
+				network.addNode(nodes[i][j]);
+			}
+		}
+
+		for (int i = 0; i < gridSize; i++) {
+			for (int j = 0; j < gridSize; j++) {
+				if (i + 1 < gridSize) {
+					network.addLink(factory.createLink(Id.createLinkId(i + ":" + j + "h"), nodes[i][j],
+							nodes[i + 1][j]));
+				}
+
+				if (j + 1 < gridSize) {
+					network.addLink(factory.createLink(Id.createLinkId(i + ":" + j + "v"), nodes[i][j],
+							nodes[i][j + 1]));
+				}
+			}
+		}
+
+		return network;
+	}
+
+	static public Geometry createGeometry(Random random, int numberOfPolygons, int numberOfVertices, double extent) {
+		GeometryFactory factory = new GeometryFactory();
+		Polygon[] polygons = new Polygon[numberOfPolygons];
+
+		// Blobs are placed in disjoint cells, so the multi polygon is valid
+		int cells = (int) Math.ceil(Math.sqrt(numberOfPolygons));
+		double cellSize = extent / cells;
+
+		for (int k = 0; k < numberOfPolygons; k++) {
+			double centerX = ((k % cells) + 0.5) * cellSize;
+			double centerY = ((k / cells) + 0.5) * cellSize;
+
+			Coordinate[] coordinates = new Coordinate[numberOfVertices + 1];
+
+			for (int v = 0; v < numberOfVertices; v++) {
+				double angle = 2.0 * Math.PI * v / numberOfVertices;
+				double radius = cellSize * (0.25 + 0.2 * random.nextDouble());
+
+				coordinates[v] = new Coordinate(centerX + radius * Math.cos(angle),
+						centerY + radius * Math.sin(angle));
+			}
+
+			coordinates[numberOfVertices] = coordinates[0];
+			polygons[k] = factory.createPolygon(coordinates);
+		}
+
+		return factory.createMultiPolygon(polygons);
+	}
+}
@@ -11,12 +11,27 @@ public class RunScenarioValidator {
 	public static void main(String[] args) throws ConfigurationException {
 		CommandLine cmd = new CommandLine.Builder(args) //
 				.requireOptions("config-path") //
+				.allowOptions("threads", "batch-size", "maximum-messages", "report-path", "strict") //
 				.build();
 
+		int numberOfThreads = cmd.getOption("threads").map(Integer::parseInt)
+				.orElse(Runtime.getRuntime().availableProcessors());
+		int batchSize = cmd.getOption("batch-size").map(Integer::parseInt).orElse(1000);
+		int maximumMessages = cmd.getOption("maximum-messages").map(Integer::parseInt).orElse(100);
+		boolean strict = cmd.getOption("strict").map(Boolean::parseBoolean).orElse(false);
+
 		Config config = ConfigUtils.loadConfig(cmd.getOptionStrict("config-path"));
 		Scenario scenario = ScenarioUtils.loadScenario(config);
 
-		ScenarioValidator scenarioValidator = new ScenarioValidator();
-		scenarioValidator.checkScenario(scenario);
+		ScenarioValidator scenarioValidator = new ScenarioValidator(numberOfThreads, batchSize, maximumMessages,
+				strict);
+
+		ValidationReport report = scenarioValidator.validate(scenario);
+
+		if (cmd.hasOption("report-path")) {
+			report.write(cmd.getOptionStrict("report-path"));
+		}
+
+		scenarioValidator.checkReport(report);
 	}
 }
@@ -1,202 +1,208 @@
 package org.eqasim.core.scenario.validation;
 
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.matsim.api.core.v01.Coord;
+import org.eqasim.core.misc.ParallelProgress;
+import org.eqasim.core.scenario.validation.ValidationReport.RuleResult;
+import org.eqasim.core.scenario.validation.rules.ActivityLocationRule;
+import org.eqasim.core.scenario.validation.rules.FacilityLocationRule;
+import org.eqasim.core.scenario.validation.rules.LinkAttributesRule;
+import org.eqasim.core.scenario.validation.rules.RouteLinkRule;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.network.Link;
-import org.matsim.api.core.v01.population.Activity;
-import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
-import org.matsim.api.core.v01.population.Plan;
-import org.matsim.api.core.v01.population.PlanElement;
-import org.matsim.api.core.v01.population.Population;
-import org.matsim.api.core.v01.population.Route;
-import org.matsim.core.router.TripStructureUtils;
 import org.matsim.facilities.ActivityFacility;
 
+/**
+ * Validates a scenario by applying a set of rules to all persons, facilities
+ * and links. The elements of each kind are split into batches that are
+ * processed by a pool of workers. All rules are applied to every batch and
+ * their findings are merged in the original order of the elements, so the
+ * report does not depend on the number of threads. The runtime of each rule is
+ * measured and included in the report.
+ */
 public class ScenarioValidator {
 	private final static Logger logger = LogManager.getLogger(ScenarioValidator.class);
 
-	public boolean checkSpatialConsistency(Scenario scenario) {
-		boolean errorsFound = false;
+	private final int numberOfThreads;
+	private final int batchSize;
+	private final int maximumMessagesPerRule;
 
-		for (ActivityFacility facility : scenario.getActivityFacilities().getFacilities().values()) {
-			if (facility.getLinkId() == null) {
-				logger.error(String.format("Facility %s has no link", facility.getId().toString()));
-				errorsFound = true;
-			} else {
-				Link link = scenario.getNetwork().getLinks().get(facility.getLinkId());
+	private final List<ValidationRule<Person>> personRules = new ArrayList<>();
+	private final List<ValidationRule<ActivityFacility>> facilityRules = new ArrayList<>();
+	private final List<ValidationRule<Link>> linkRules = new ArrayList<>();
 
-				if (link == null) {
-					logger.error(String.format("Link %s of facility %s does not exist", facility.getLinkId().toString(),
-							facility.getId().toString()));
-					errorsFound = true;
-				}
-			}
+	public ScenarioValidator() {
+		this(Runtime.getRuntime().availableProcessors(), 1000, 100);
+	}
 
-			if (facility.getCoord() == null) {
-				logger.error(String.format("Facility %s has no coordinate", facility.getId().toString()));
-				errorsFound = true;
-			}
+	public ScenarioValidator(int numberOfThreads, int batchSize, int maximumMessagesPerRule) {
+		this(numberOfThreads, batchSize, maximumMessagesPerRule, false);
+	}
+
+	/**
+	 * Creates a validator with the default rules. In strict mode, the end links of
+	 * routes and the attributes of all links are checked as well, which existing
+	 * scenarios may not pass.
+	 */
+	public ScenarioValidator(int numberOfThreads, int batchSize, int maximumMessagesPerRule, boolean strict) {
+		this.numberOfThreads = numberOfThreads;
+		this.batchSize = batchSize;
+		this.maximumMessagesPerRule = maximumMessagesPerRule;
+
+		addFacilityRule(new FacilityLocationRule());
+		addPersonRule(new ActivityLocationRule());
+		addPersonRule(new RouteLinkRule(strict));
+
+		if (strict) {
+			addLinkRule(new LinkAttributesRule());
 		}
+	}
 
-		for (Person person : scenario.getPopulation().getPersons().values()) {
-			for (Plan plan : person.getPlans()) {
-				for (PlanElement element : plan.getPlanElements()) {
-					if (element instanceof Activity) {
-						Activity activity = (Activity) element;
+	public ScenarioValidator addPersonRule(ValidationRule<Person> rule) {
+		personRules.add(rule);
+		return this;
+	}
 
-						boolean hasCoord = activity.getCoord() != null;
-						boolean hasLink = activity.getLinkId() != null;
-						boolean hasFacility = activity.getFacilityId() != null;
+	public ScenarioValidator addFacilityRule(ValidationRule<ActivityFacility> rule) {
+		facilityRules.add(rule);
+		return this;
+	}
 
-						if (!hasCoord) {
-							logger.error(String.format("Person %s has %s activity without coordinate",
-									person.getId().toString(), activity.getType()));
-							errorsFound = true;
-						}
+	public ScenarioValidator addLinkRule(ValidationRule<Link> rule) {
+		linkRules.add(rule);
+		return this;
+	}
 
-						if (!hasLink) {
-							logger.error(String.format("Person %s has %s activity without link",
-									person.getId().toString(), activity.getType()));
-							errorsFound = true;
-						}
+	public ValidationReport validate(Scenario scenario) {
+		ValidationReport report = new ValidationReport();
+
+		try {
+			validate(scenario, "facilities",
+					new ArrayList<>(scenario.getActivityFacilities().getFacilities().values()), facilityRules,
+					report);
+			validate(scenario, "persons", new ArrayList<>(scenario.getPopulation().getPersons().values()),
+					personRules, report);
+			validate(scenario, "links", new ArrayList<>(scenario.getNetwork().getLinks().values()), linkRules,
+					report);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
 
-						if (!hasFacility && !TripStructureUtils.isStageActivityType(activity.getType())) {
-							logger.error(String.format("Person %s has %s activity without facility",
-									person.getId().toString(), activity.getType()));
-							errorsFound = true;
-						}
+		return report;
+	}
 
-						if (hasCoord && hasFacility) {
-							Coord activityCoord = activity.getCoord();
-							Link link = scenario.getNetwork().getLinks().get(activity.getLinkId());
-							ActivityFacility facility = scenario.getActivityFacilities().getFacilities()
-									.get(activity.getFacilityId());
-
-							if (link == null) {
-								logger.error(String.format("Link %s in %s activity for person %s does not exist",
-										activity.getLinkId(), activity.getType(), person.getId().toString()));
-								errorsFound = true;
-							}
-
-							if (facility == null) {
-								logger.error(String.format("Facility %s in %s activity for person %s does not exist",
-										activity.getFacilityId(), activity.getType(), person.getId().toString()));
-								errorsFound = true;
-							} else {
-								Coord facilityCoord = facility.getCoord();
-
-								if (!activityCoord.equals(facilityCoord)) {
-									logger.error(String.format(
-											"Facility %s and %s activity for person %s do not have same coordinates",
-											activity.getFacilityId(), activity.getType(), person.getId().toString()));
-									errorsFound = true;
-								}
-							}
-
-							if (link != null && facility != null) {
-								if (!link.getId().equals(facility.getLinkId())) {
-									logger.error(String.format(
-											"Facility %s and %s activity for person %s do not have same link",
-											activity.getLinkId(), activity.getType(), person.getId().toString()));
-									errorsFound = true;
-								}
-							}
-						}
+	public void checkScenario(Scenario scenario) {
+		checkReport(validate(scenario));
+	}
+
+	public void checkReport(ValidationReport report) {
+		report.log(logger);
+
+		if (report.hasFindings()) {
+			throw new IllegalStateException("Found errors while checking population");
+		} else {
+			logger.info("Scenario is valid!");
+		}
+	}
+
+	private <T> void validate(Scenario scenario, String elementType, List<T> elements, List<ValidationRule<T>> rules,
+			ValidationReport report) throws InterruptedException {
+		if (rules.isEmpty()) {
+			return;
+		}
+
+		int numberOfBatches = (elements.size() + batchSize - 1) / batchSize;
+
+		// Findings by batch and rule, merged in batch order afterwards
+		ValidationFindings[][] findings = new ValidationFindings[numberOfBatches][rules.size()];
 
-						if (!TripStructureUtils.isStageActivityType(activity.getType())) {
-							Link link = scenario.getNetwork().getLinks().get(activity.getLinkId());
+		// Runtime by worker and rule
+		long[][] runtimes = new long[numberOfThreads][rules.size()];
 
-							if (link != null) {
-								if (!link.getAllowedModes().contains("car")) {
-									logger.error(String.format("Person %s has %s activity attached to non-car link %s",
-											person.getId().toString(), activity.getType(), link.getId().toString()));
-									errorsFound = true;
-								}
-							}
+		ParallelProgress progress = new ParallelProgress("Validating " + elementType + " ...", elements.size());
+		progress.start();
+
+		AtomicInteger nextBatch = new AtomicInteger(0);
+		AtomicBoolean errorsOccured = new AtomicBoolean(false);
+
+		List<Thread> threads = new LinkedList<>();
+
+		for (int i = 0; i < numberOfThreads; i++) {
+			long[] workerRuntimes = runtimes[i];
+
+			Thread thread = new Thread(() -> {
+				int batchIndex;
+
+				while ((batchIndex = nextBatch.getAndIncrement()) < numberOfBatches) {
+					int startIndex = batchIndex * batchSize;
+					int endIndex = Math.min(startIndex + batchSize, elements.size());
+
+					for (int r = 0; r < rules.size(); r++) {
+						ValidationRule<T> rule = rules.get(r);
+						ValidationFindings batchFindings = new ValidationFindings(maximumMessagesPerRule);
+
+						long startTime = System.nanoTime();
+
+						for (int k = startIndex; k < endIndex; k++) {
+							rule.check(scenario, elements.get(k), batchFindings);
 						}
+
+						workerRuntimes[r] += System.nanoTime() - startTime;
+						findings[batchIndex][r] = batchFindings;
 					}
+
+					progress.update(endIndex - startIndex);
 				}
-			}
+			});
+
+			thread.setUncaughtExceptionHandler((t, e) -> {
+				e.printStackTrace();
+				errorsOccured.set(true);
+			});
+
+			thread.start();
+			threads.add(thread);
 		}
 
-		return errorsFound;
-	}
+		for (Thread thread : threads) {
+			thread.join();
+		}
 
-	public boolean checkRouting(Population population) {
-		boolean errorsFound = false;
-
-		for (Person person : population.getPersons().values()) {
-			for (Plan plan : person.getPlans()) {
-				for (int i = 0; i < plan.getPlanElements().size(); i++) {
-					PlanElement element = plan.getPlanElements().get(i);
-
-					if (element instanceof Leg) {
-						Leg leg = (Leg) element;
-
-						if (leg.getRoute() == null) {
-							logger.error(String.format("Person %s has %s leg without a route",
-									person.getId().toString(), leg.getMode()));
-							errorsFound = true;
-						} else {
-							Route route = leg.getRoute();
-
-							if (route.getStartLinkId() == null) {
-								logger.error(String.format("Person %s has route without a start link",
-										person.getId().toString()));
-								errorsFound = true;
-							} else {
-								Activity preceedingActivity = (Activity) plan.getPlanElements().get(i - 1);
-
-								if (!TripStructureUtils.isStageActivityType(preceedingActivity.getType())) {
-									if (!preceedingActivity.getLinkId().equals(route.getStartLinkId())) {
-										logger.error(String.format(
-												"Person %s has route with a different start link (%s) than previous activity (%s)",
-												person.getId().toString(), route.getStartLinkId().toString(),
-												preceedingActivity.getLinkId().toString()));
-										errorsFound = true;
-									}
-								}
-							}
-
-							if (route.getEndLinkId() == null) {
-								logger.error(String.format("Person %s has route without an end link",
-										person.getId().toString()));
-								errorsFound = true;
-							} else {
-								Activity followingActivity = (Activity) plan.getPlanElements().get(i - 1);
-
-								if (!TripStructureUtils.isStageActivityType(followingActivity.getType())) {
-									if (!followingActivity.getLinkId().equals(route.getStartLinkId())) {
-										logger.error(String.format(
-												"Person %s has route with a different end link (%s) than following activity (%s)",
-												person.getId().toString(), route.getStartLinkId().toString(),
-												followingActivity.getLinkId().toString()));
-										errorsFound = true;
-									}
-								}
-							}
-						}
+		progress.close();
+
+		if (errorsOccured.get()) {
+			throw new RuntimeException("Errors occured while validating " + elementType + ".");
+		}
+
+		for (int r = 0; r < rules.size(); r++) {
+			long numberOfFindings = 0;
+			List<String> messages = new ArrayList<>();
+
+			for (int b = 0; b < numberOfBatches; b++) {
+				numberOfFindings += findings[b][r].getNumberOfFindings();
+
+				for (String message : findings[b][r].getMessages()) {
+					if (messages.size() < maximumMessagesPerRule) {
+						messages.add(message);
 					}
 				}
 			}
-		}
 
-		return errorsFound;
-	}
-
-	public void checkScenario(Scenario scenario) {
-		boolean errorsFound = false;
+			long runtime = 0;
 
-		errorsFound |= checkSpatialConsistency(scenario);
-		errorsFound |= checkRouting(scenario.getPopulation());
+			for (int i = 0; i < numberOfThreads; i++) {
+				runtime += runtimes[i][r];
+			}
 
-		if (errorsFound) {
-			throw new IllegalStateException("Found errors while checking population");
-		} else {
-			logger.info("Scenario is valid!");
+			report.add(new RuleResult(rules.get(r).getName(), elementType, elements.size(), numberOfFindings,
+					messages, 1e-9 * runtime));
 		}
 	}
 }
@@ -0,0 +1,43 @@
+package org.eqasim.core.scenario.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the issues found by one rule in one batch of elements. Only the
+ * first messages up to the given maximum are kept, the others are only
+ * counted.
+ */
+public class ValidationFindings {
+	private final int maximumMessages;
+	private final List<String> messages = new ArrayList<>();
+	private long numberOfFindings = 0;
+
+	ValidationFindings(int maximumMessages) {
+		this.maximumMessages = maximumMessages;
+	}
+
+	public void report(String message) {
+		if (messages.size() < maximumMessages) {
+			messages.add(message);
+		}
+
+		numberOfFindings++;
+	}
+
+	public void report(String format, Object... arguments) {
+		if (messages.size() < maximumMessages) {
+			messages.add(String.format(format, arguments));
+		}
+
+		numberOfFindings++;
+	}
+
+	List<String> getMessages() {
+		return messages;
+	}
+
+	long getNumberOfFindings() {
+		return numberOfFindings;
+	}
+}
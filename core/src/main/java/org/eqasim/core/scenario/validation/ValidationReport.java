@@ -0,0 +1,98 @@
+package org.eqasim.core.scenario.validation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.utils.io.IOUtils;
+
+/**
+ * Aggregated outcome of a validation run: the number of findings, a limited
+ * number of messages and the runtime for every rule.
+ */
+public class ValidationReport {
+	private final List<RuleResult> results = new ArrayList<>();
+
+	void add(RuleResult result) {
+		results.add(result);
+	}
+
+	public List<RuleResult> getResults() {
+		return Collections.unmodifiableList(results);
+	}
+
+	public boolean hasFindings() {
+		return results.stream().anyMatch(result -> result.numberOfFindings > 0);
+	}
+
+	public long getNumberOfFindings() {
+		return results.stream().mapToLong(result -> result.numberOfFindings).sum();
+	}
+
+	public void log(Logger logger) {
+		for (RuleResult result : results) {
+			for (String message : result.messages) {
+				logger.error(message);
+			}
+
+			if (result.numberOfFindings > result.messages.size()) {
+				logger.error(String.format("... and %d more findings of rule %s",
+						result.numberOfFindings - result.messages.size(), result.name));
+			}
+		}
+
+		logger.info("Validation report:");
+
+		for (RuleResult result : results) {
+			logger.info(String.format("  %s (%s): %d elements, %d findings, %.3fs", result.name, result.elementType,
+					result.numberOfElements, result.numberOfFindings, result.runtime));
+		}
+	}
+
+	public void write(String path) {
+		try {
+			BufferedWriter writer = IOUtils.getBufferedWriter(path);
+
+			writer.write(String.join(";", new String[] { "rule", "element_type", "elements", "findings", "runtime" })
+					+ "\n");
+
+			for (RuleResult result : results) {
+				writer.write(String.join(";", new String[] { //
+						result.name, //
+						result.elementType, //
+						String.valueOf(result.numberOfElements), //
+						String.valueOf(result.numberOfFindings), //
+						String.valueOf(result.runtime) //
+				}) + "\n");
+			}
+
+			writer.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static public class RuleResult {
+		public final String name;
+		public final String elementType;
+		public final long numberOfElements;
+		public final long numberOfFindings;
+		public final List<String> messages;
+
+		// Runtime in seconds, summed over all workers
+		public final double runtime;
+
+		RuleResult(String name, String elementType, long numberOfElements, long numberOfFindings,
+				List<String> messages, double runtime) {
+			this.name = name;
+			this.elementType = elementType;
+			this.numberOfElements = numberOfElements;
+			this.numberOfFindings = numberOfFindings;
+			this.messages = messages;
+			this.runtime = runtime;
+		}
+	}
+}
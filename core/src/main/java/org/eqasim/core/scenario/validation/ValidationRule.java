@@ -0,0 +1,14 @@
+package org.eqasim.core.scenario.validation;
+
+import org.matsim.api.core.v01.Scenario;
+
+/**
+ * A check that is applied to every element of one kind (persons, facilities or
+ * links) of a scenario. Rules are called concurrently for different elements,
+ * so they must not keep mutable state.
+ */
+public interface ValidationRule<T> {
+	String getName();
+
+	void check(Scenario scenario, T element, ValidationFindings findings);
+}
@@ -0,0 +1,90 @@
+package org.eqasim.core.scenario.validation.rules;
+
+import org.eqasim.core.scenario.validation.ValidationFindings;
+import org.eqasim.core.scenario.validation.ValidationRule;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.facilities.ActivityFacility;
+
+/**
+ * Checks that activities have a coordinate, a link and a facility, that these
+ * are consistent with each other and that main activities are attached to car
+ * links.
+ */
+public class ActivityLocationRule implements ValidationRule<Person> {
+	@Override
+	public String getName() {
+		return "activity_location";
+	}
+
+	@Override
+	public void check(Scenario scenario, Person person, ValidationFindings findings) {
+		for (Plan plan : person.getPlans()) {
+			for (PlanElement element : plan.getPlanElements()) {
+				if (element instanceof Activity) {
+					checkActivity(scenario, person, (Activity) element, findings);
+				}
+			}
+		}
+	}
+
+	private void checkActivity(Scenario scenario, Person person, Activity activity, ValidationFindings findings) {
+		boolean hasCoord = activity.getCoord() != null;
+		boolean hasLink = activity.getLinkId() != null;
+		boolean hasFacility = activity.getFacilityId() != null;
+		boolean isStageActivity = TripStructureUtils.isStageActivityType(activity.getType());
+
+		if (!hasCoord) {
+			findings.report("Person %s has %s activity without coordinate", person.getId().toString(),
+					activity.getType());
+		}
+
+		if (!hasLink) {
+			findings.report("Person %s has %s activity without link", person.getId().toString(), activity.getType());
+		}
+
+		if (!hasFacility && !isStageActivity) {
+			findings.report("Person %s has %s activity without facility", person.getId().toString(),
+					activity.getType());
+		}
+
+		if (hasCoord && hasFacility) {
+			Coord activityCoord = activity.getCoord();
+			Link link = scenario.getNetwork().getLinks().get(activity.getLinkId());
+			ActivityFacility facility = scenario.getActivityFacilities().getFacilities().get(activity.getFacilityId());
+
+			if (link == null) {
+				findings.report("Link %s in %s activity for person %s does not exist", activity.getLinkId(),
+						activity.getType(), person.getId().toString());
+			}
+
+			if (facility == null) {
+				findings.report("Facility %s in %s activity for person %s does not exist", activity.getFacilityId(),
+						activity.getType(), person.getId().toString());
+			} else if (!activityCoord.equals(facility.getCoord())) {
+				findings.report("Facility %s and %s activity for person %s do not have same coordinates",
+						activity.getFacilityId(), activity.getType(), person.getId().toString());
+			}
+
+			if (link != null && facility != null && !link.getId().equals(facility.getLinkId())) {
+				findings.report("Facility %s and %s activity for person %s do not have same link",
+						activity.getLinkId(), activity.getType(), person.getId().toString());
+			}
+		}
+
+		if (!isStageActivity && hasLink) {
+			Link link = scenario.getNetwork().getLinks().get(activity.getLinkId());
+
+			if (link != null && !link.getAllowedModes().contains("car")) {
+				findings.report("Person %s has %s activity attached to non-car link %s", person.getId().toString(),
+						activity.getType(), link.getId().toString());
+			}
+		}
+	}
+}
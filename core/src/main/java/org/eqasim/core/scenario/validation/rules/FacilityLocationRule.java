@@ -0,0 +1,30 @@
+package org.eqasim.core.scenario.validation.rules;
+
+import org.eqasim.core.scenario.validation.ValidationFindings;
+import org.eqasim.core.scenario.validation.ValidationRule;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.facilities.ActivityFacility;
+
+/**
+ * Checks that every facility has a coordinate and an existing link.
+ */
+public class FacilityLocationRule implements ValidationRule<ActivityFacility> {
+	@Override
+	public String getName() {
+		return "facility_location";
+	}
+
+	@Override
+	public void check(Scenario scenario, ActivityFacility facility, ValidationFindings findings) {
+		if (facility.getLinkId() == null) {
+			findings.report("Facility %s has no link", facility.getId().toString());
+		} else if (!scenario.getNetwork().getLinks().containsKey(facility.getLinkId())) {
+			findings.report("Link %s of facility %s does not exist", facility.getLinkId().toString(),
+					facility.getId().toString());
+		}
+
+		if (facility.getCoord() == null) {
+			findings.report("Facility %s has no coordinate", facility.getId().toString());
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package org.eqasim.core.scenario.validation.rules;
+
+import org.eqasim.core.scenario.validation.ValidationFindings;
+import org.eqasim.core.scenario.validation.ValidationRule;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+
+/**
+ * Checks that links connect existing nodes, have a finite non-negative length,
+ * a positive free speed and at least one allowed mode.
+ */
+public class LinkAttributesRule implements ValidationRule<Link> {
+	@Override
+	public String getName() {
+		return "link_attributes";
+	}
+
+	@Override
+	public void check(Scenario scenario, Link link, ValidationFindings findings) {
+		if (link.getFromNode() == null || !scenario.getNetwork().getNodes().containsKey(link.getFromNode().getId())) {
+			findings.report("Link %s has no valid start node", link.getId().toString());
+		}
+
+		if (link.getToNode() == null || !scenario.getNetwork().getNodes().containsKey(link.getToNode().getId())) {
+			findings.report("Link %s has no valid end node", link.getId().toString());
+		}
+
+		if (!Double.isFinite(link.getLength()) || link.getLength() < 0.0) {
+			findings.report("Link %s has invalid length %f", link.getId().toString(), link.getLength());
+		}
+
+		if (!(link.getFreespeed() > 0.0)) {
+			findings.report("Link %s has invalid free speed %f", link.getId().toString(), link.getFreespeed());
+		}
+
+		if (link.getAllowedModes().isEmpty()) {
+			findings.report("Link %s has no allowed modes", link.getId().toString());
+		}
+	}
+}
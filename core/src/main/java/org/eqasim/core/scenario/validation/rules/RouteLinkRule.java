@@ -0,0 +1,77 @@
+package org.eqasim.core.scenario.validation.rules;
+
+import java.util.List;
+
+import org.eqasim.core.scenario.validation.ValidationFindings;
+import org.eqasim.core.scenario.validation.ValidationRule;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.router.TripStructureUtils;
+
+/**
+ * Checks that every leg has a route and that the start link of the route
+ * corresponds to the link of the preceding main activity. Optionally, the end
+ * link is compared with the link of the following main activity, which was not
+ * checked by earlier versions of the validator.
+ */
+public class RouteLinkRule implements ValidationRule<Person> {
+	private final boolean checkEndLinks;
+
+	public RouteLinkRule() {
+		this(false);
+	}
+
+	public RouteLinkRule(boolean checkEndLinks) {
+		this.checkEndLinks = checkEndLinks;
+	}
+
+	@Override
+	public String getName() {
+		return "route_links";
+	}
+
+	@Override
+	public void check(Scenario scenario, Person person, ValidationFindings findings) {
+		for (Plan plan : person.getPlans()) {
+			List<PlanElement> elements = plan.getPlanElements();
+
+			for (int i = 0; i < elements.size(); i++) {
+				if (elements.get(i) instanceof Leg) {
+					checkLeg(person, (Leg) elements.get(i), (Activity) elements.get(i - 1),
+							(Activity) elements.get(i + 1), findings);
+				}
+			}
+		}
+	}
+
+	private void checkLeg(Person person, Leg leg, Activity preceedingActivity, Activity followingActivity,
+			ValidationFindings findings) {
+		Route route = leg.getRoute();
+
+		if (route == null) {
+			findings.report("Person %s has %s leg without a route", person.getId().toString(), leg.getMode());
+			return;
+		}
+
+		if (route.getStartLinkId() == null) {
+			findings.report("Person %s has route without a start link", person.getId().toString());
+		} else if (!TripStructureUtils.isStageActivityType(preceedingActivity.getType())
+				&& !route.getStartLinkId().equals(preceedingActivity.getLinkId())) {
+			findings.report("Person %s has route with a different start link (%s) than previous activity (%s)",
+					person.getId().toString(), route.getStartLinkId().toString(), preceedingActivity.getLinkId());
+		}
+
+		if (route.getEndLinkId() == null) {
+			findings.report("Person %s has route without an end link", person.getId().toString());
+		} else if (checkEndLinks && !TripStructureUtils.isStageActivityType(followingActivity.getType())
+				&& !route.getEndLinkId().equals(followingActivity.getLinkId())) {
+			findings.report("Person %s has route with a different end link (%s) than following activity (%s)",
+					person.getId().toString(), route.getEndLinkId().toString(), followingActivity.getLinkId());
+		}
+	}
+}
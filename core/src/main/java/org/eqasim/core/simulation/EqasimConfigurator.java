@@ -16,6 +16,8 @@ import org.eqasim.core.simulation.mode_choice.EqasimModeChoiceModule;
 import org.eqasim.core.simulation.mode_choice.constraints.leg_time.LegTimeConstraintConfigGroup;
 import org.eqasim.core.simulation.mode_choice.constraints.leg_time.LegTimeConstraintModule;
 import org.eqasim.core.simulation.mode_choice.epsilon.EpsilonModule;
+import org.eqasim.core.simulation.modes.drt.mode_choice.estimation.DrtTimeEstimationConfigGroup;
+import org.eqasim.core.simulation.modes.drt.mode_choice.estimation.DrtTimeEstimationModule;
 import org.eqasim.core.simulation.modes.feeder_drt.MultiModeFeederDrtModule;
 import org.eqasim.core.simulation.modes.feeder_drt.config.MultiModeFeederDrtConfigGroup;
 import org.eqasim.core.simulation.modes.feeder_drt.mode_choice.EqasimFeederDrtModeChoiceModule;
@@ -95,6 +97,9 @@ public class EqasimConfigurator {
 			DvrpQSimComponents.activateAllModes(configGroup).configure(components);
 		}, MultiModeDrtConfigGroup.GROUP_NAME);
 
+		registerConfigGroup(new DrtTimeEstimationConfigGroup(), true);
+		registerModule(new DrtTimeEstimationModule(), DrtTimeEstimationConfigGroup.GROUP_NAME);
+
 		// Feeder functionality
 		registerConfigGroup(new MultiModeFeederDrtConfigGroup(), true);
 
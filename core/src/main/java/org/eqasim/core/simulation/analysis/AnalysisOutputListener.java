@@ -3,14 +3,22 @@ package org.eqasim.core.simulation.analysis;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Collections;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.eqasim.core.analysis.DistanceUnit;
+import org.eqasim.core.analysis.StreamingItemWriter;
+import org.eqasim.core.analysis.activities.ActivityItem;
 import org.eqasim.core.analysis.activities.ActivityListener;
 import org.eqasim.core.analysis.activities.ActivityWriter;
+import org.eqasim.core.analysis.legs.LegItem;
 import org.eqasim.core.analysis.legs.LegListener;
 import org.eqasim.core.analysis.legs.LegWriter;
+import org.eqasim.core.analysis.pt.PublicTransportLegItem;
 import org.eqasim.core.analysis.pt.PublicTransportLegListener;
 import org.eqasim.core.analysis.pt.PublicTransportLegWriter;
+import org.eqasim.core.analysis.trips.TripItem;
 import org.eqasim.core.analysis.trips.TripListener;
 import org.eqasim.core.analysis.trips.TripWriter;
 import org.eqasim.core.components.config.EqasimConfigGroup;
@@ -29,12 +37,16 @@ import com.google.inject.Singleton;
 
 @Singleton
 public class AnalysisOutputListener implements IterationStartsListener, IterationEndsListener, ShutdownListener {
+	private final static Logger logger = LogManager.getLogger(AnalysisOutputListener.class);
+
 	private static final String TRIPS_FILE_NAME = "eqasim_trips.csv";
 	private static final String LEGS_FILE_NAME = "eqasim_legs.csv";
 	private static final String PT_FILE_NAME = "eqasim_pt.csv";
 	private static final String ACTIVITIES_FILE_NAME = "eqasim_activities.csv";
 	private static final String TRAVEL_TIMES_FILE_NAME = "eqasim_travel_times.bin";
 
+	private static final int STREAMING_QUEUE_SIZE = 100000;
+
 	private final OutputDirectoryHierarchy outputDirectory;
 
 	private final TripListener tripAnalysisListener;
@@ -52,6 +64,14 @@ public class AnalysisOutputListener implements IterationStartsListener, Iteratio
 	private final DistanceUnit scenarioDistanceUnit;
 	private final DistanceUnit analysisDistanceUnit;
 
+	private final boolean streamOutput;
+	private final String outputSuffix;
+
+	private StreamingItemWriter<TripItem> tripStreamingWriter;
+	private StreamingItemWriter<LegItem> legStreamingWriter;
+	private StreamingItemWriter<PublicTransportLegItem> ptStreamingWriter;
+	private StreamingItemWriter<ActivityItem> activityStreamingWriter;
+
 	@Inject
 	public AnalysisOutputListener(EqasimConfigGroup config, OutputDirectoryHierarchy outputDirectory,
 			TripListener tripListener, LegListener legListener, PublicTransportLegListener ptListener,
@@ -64,6 +84,9 @@ public class AnalysisOutputListener implements IterationStartsListener, Iteratio
 		this.analysisInterval = config.getAnalysisInterval();
 		this.travelTimeInterval = config.getTravelTimeRecordingInterval();
 
+		this.streamOutput = config.getStreamAnalysisOutput();
+		this.outputSuffix = streamOutput && config.getCompressAnalysisOutput() ? ".gz" : "";
+
 		this.tripAnalysisListener = tripListener;
 		this.legAnalysisListener = legListener;
 		this.ptAnalysisListener = ptListener;
@@ -82,6 +105,10 @@ public class AnalysisOutputListener implements IterationStartsListener, Iteratio
 				event.getServices().getEvents().addHandler(tripAnalysisListener);
 				event.getServices().getEvents().addHandler(legAnalysisListener);
 				event.getServices().getEvents().addHandler(ptAnalysisListener);
+
+				if (streamOutput) {
+					startStreaming(event.getIteration());
+				}
 			}
 		}
 
@@ -102,17 +129,21 @@ public class AnalysisOutputListener implements IterationStartsListener, Iteratio
 				event.getServices().getEvents().removeHandler(ptAnalysisListener);
 				event.getServices().getEvents().removeHandler(activityAnalysisListener);
 
-				new TripWriter(tripAnalysisListener.getTripItems(), scenarioDistanceUnit, analysisDistanceUnit)
-						.write(outputDirectory.getIterationFilename(event.getIteration(), TRIPS_FILE_NAME));
+				if (streamOutput) {
+					finishStreaming();
+				} else {
+					new TripWriter(tripAnalysisListener.getTripItems(), scenarioDistanceUnit, analysisDistanceUnit)
+							.write(outputDirectory.getIterationFilename(event.getIteration(), TRIPS_FILE_NAME));
 
-				new LegWriter(legAnalysisListener.getLegItems(), scenarioDistanceUnit, analysisDistanceUnit)
-						.write(outputDirectory.getIterationFilename(event.getIteration(), LEGS_FILE_NAME));
+					new LegWriter(legAnalysisListener.getLegItems(), scenarioDistanceUnit, analysisDistanceUnit)
+							.write(outputDirectory.getIterationFilename(event.getIteration(), LEGS_FILE_NAME));
 
-				new ActivityWriter(activityAnalysisListener.getActivityItems())
-						.write(outputDirectory.getIterationFilename(event.getIteration(), ACTIVITIES_FILE_NAME));
+					new ActivityWriter(activityAnalysisListener.getActivityItems())
+							.write(outputDirectory.getIterationFilename(event.getIteration(), ACTIVITIES_FILE_NAME));
 
-				new PublicTransportLegWriter(ptAnalysisListener.getTripItems())
-						.write(outputDirectory.getIterationFilename(event.getIteration(), PT_FILE_NAME));
+					new PublicTransportLegWriter(ptAnalysisListener.getTripItems())
+							.write(outputDirectory.getIterationFilename(event.getIteration(), PT_FILE_NAME));
+				}
 			}
 
 			if (isTravelTimeActive) {
@@ -127,18 +158,87 @@ public class AnalysisOutputListener implements IterationStartsListener, Iteratio
 		}
 	}
 
+	private void startStreaming(int iteration) {
+		try {
+			TripWriter tripWriter = new TripWriter(Collections.emptyList(), scenarioDistanceUnit, analysisDistanceUnit);
+			tripStreamingWriter = new StreamingItemWriter<>(
+					outputDirectory.getIterationFilename(iteration, TRIPS_FILE_NAME + outputSuffix),
+					tripWriter.formatHeader(), tripWriter::formatTrip, STREAMING_QUEUE_SIZE);
+			tripAnalysisListener.setItemConsumer(tripStreamingWriter);
+
+			LegWriter legWriter = new LegWriter(Collections.emptyList(), scenarioDistanceUnit, analysisDistanceUnit);
+			legStreamingWriter = new StreamingItemWriter<>(
+					outputDirectory.getIterationFilename(iteration, LEGS_FILE_NAME + outputSuffix),
+					legWriter.formatHeader(), legWriter::formatLeg, STREAMING_QUEUE_SIZE);
+			legAnalysisListener.setItemConsumer(legStreamingWriter);
+
+			PublicTransportLegWriter ptWriter = new PublicTransportLegWriter(Collections.emptyList());
+			ptStreamingWriter = new StreamingItemWriter<>(
+					outputDirectory.getIterationFilename(iteration, PT_FILE_NAME + outputSuffix),
+					ptWriter.formatHeader(), ptWriter::formatTrip, STREAMING_QUEUE_SIZE);
+			ptAnalysisListener.setItemConsumer(ptStreamingWriter);
+
+			ActivityWriter activityWriter = new ActivityWriter(Collections.emptyList());
+			activityStreamingWriter = new StreamingItemWriter<>(
+					outputDirectory.getIterationFilename(iteration, ACTIVITIES_FILE_NAME + outputSuffix),
+					activityWriter.formatHeader(), activityWriter::formatActivity, STREAMING_QUEUE_SIZE);
+			activityAnalysisListener.setItemConsumer(activityStreamingWriter);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void finishStreaming() throws IOException, InterruptedException {
+		activityAnalysisListener.flushOngoing();
+
+		tripAnalysisListener.setItemConsumer(null);
+		legAnalysisListener.setItemConsumer(null);
+		ptAnalysisListener.setItemConsumer(null);
+		activityAnalysisListener.setItemConsumer(null);
+
+		closeStreaming();
+	}
+
+	private void closeStreaming() throws IOException, InterruptedException {
+		// All writers are closed, even if one of them fails
+		try (AutoCloseable tripCloser = tripStreamingWriter::close;
+				AutoCloseable legCloser = legStreamingWriter::close;
+				AutoCloseable ptCloser = ptStreamingWriter::close;
+				AutoCloseable activityCloser = activityStreamingWriter::close) {
+		} catch (IOException | InterruptedException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			tripStreamingWriter = null;
+			legStreamingWriter = null;
+			ptStreamingWriter = null;
+			activityStreamingWriter = null;
+		}
+	}
+
 	@Override
 	public void notifyShutdown(ShutdownEvent event) {
+		if (tripStreamingWriter != null) {
+			// The last iteration did not end regularly, still release the files
+			try {
+				closeStreaming();
+			} catch (IOException | InterruptedException | RuntimeException e) {
+				// The iteration files may be incomplete, so they are not copied as output
+				logger.error("Could not close the streamed analysis output, skipping the final output files", e);
+				return;
+			}
+		}
+
 		try {
-			Files.copy(new File(outputDirectory.getIterationFilename(event.getIteration(), TRIPS_FILE_NAME)).toPath(),
-					new File(outputDirectory.getOutputFilename(TRIPS_FILE_NAME)).toPath());
-			Files.copy(new File(outputDirectory.getIterationFilename(event.getIteration(), LEGS_FILE_NAME)).toPath(),
-					new File(outputDirectory.getOutputFilename(LEGS_FILE_NAME)).toPath());
-			Files.copy(new File(outputDirectory.getIterationFilename(event.getIteration(), PT_FILE_NAME)).toPath(),
-					new File(outputDirectory.getOutputFilename(PT_FILE_NAME)).toPath());
-			Files.copy(
-					new File(outputDirectory.getIterationFilename(event.getIteration(), ACTIVITIES_FILE_NAME)).toPath(),
-					new File(outputDirectory.getOutputFilename(ACTIVITIES_FILE_NAME)).toPath());
+			for (String fileName : new String[] { TRIPS_FILE_NAME, LEGS_FILE_NAME, PT_FILE_NAME,
+					ACTIVITIES_FILE_NAME }) {
+				Files.copy(
+						new File(outputDirectory.getIterationFilename(event.getIteration(), fileName + outputSuffix))
+								.toPath(),
+						new File(outputDirectory.getOutputFilename(fileName + outputSuffix)).toPath());
+			}
+
 			Files.copy(new File(outputDirectory.getIterationFilename(event.getIteration(), TRAVEL_TIMES_FILE_NAME))
 					.toPath(), new File(outputDirectory.getOutputFilename(TRAVEL_TIMES_FILE_NAME)).toPath());
 		} catch (IOException e) {
@@ -3,6 +3,7 @@ package org.eqasim.core.simulation.mode_choice;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.eqasim.core.components.config.EqasimConfigGroup;
@@ -26,6 +27,7 @@ import org.eqasim.core.simulation.mode_choice.utilities.predictors.PersonPredict
 import org.eqasim.core.simulation.mode_choice.utilities.predictors.PtPredictor;
 import org.eqasim.core.simulation.mode_choice.utilities.predictors.WalkPredictor;
 import org.eqasim.core.simulation.modes.drt.mode_choice.constraints.DrtWalkConstraint;
+import org.eqasim.core.simulation.modes.drt.mode_choice.estimation.DrtTimeEstimator;
 import org.eqasim.core.simulation.modes.drt.mode_choice.predictors.DefaultDrtPredictor;
 import org.eqasim.core.simulation.modes.drt.mode_choice.predictors.DrtPredictor;
 import org.eqasim.core.simulation.modes.drt.mode_choice.utilities.estimators.DrtUtilityEstimator;
@@ -41,6 +43,7 @@ import org.matsim.facilities.ActivityFacilities;
 import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.inject.name.Named;
 
 public class EqasimModeChoiceModule extends AbstractEqasimExtension {
@@ -81,6 +84,7 @@ public class EqasimModeChoiceModule extends AbstractEqasimExtension {
 		bind(WalkPredictor.class);
 		bind(PersonPredictor.class);
 		bind(DrtPredictor.class).to(DefaultDrtPredictor.class);
+		OptionalBinder.newOptionalBinder(binder(), DrtTimeEstimator.class);
 
 		bindUtilityEstimator(ZERO_ESTIMATOR_NAME).to(ZeroUtilityEstimator.class);
 		bindUtilityEstimator(CAR_ESTIMATOR_NAME).to(CarUtilityEstimator.class);
@@ -137,12 +141,13 @@ public class EqasimModeChoiceModule extends AbstractEqasimExtension {
 	}
 
 	@Provides
-	public DefaultDrtPredictor provideDefaultDrtPredictor(Config config, Map<String, Provider<CostModel>> factory) {
+	public DefaultDrtPredictor provideDefaultDrtPredictor(Config config, Map<String, Provider<CostModel>> factory,
+			Optional<DrtTimeEstimator> timeEstimator) {
 		if(!config.getModules().containsKey(MultiModeDrtConfigGroup.GROUP_NAME)) {
 			throw new IllegalStateException(String.format("%s module not found", MultiModeDrtConfigGroup.GROUP_NAME));
 		}
 		EqasimConfigGroup eqasimConfigGroup = (EqasimConfigGroup) config.getModules().get(EqasimConfigGroup.GROUP_NAME);
 		MultiModeDrtConfigGroup multiModeDrtConfigGroup = (MultiModeDrtConfigGroup) config.getModules().get(MultiModeDrtConfigGroup.GROUP_NAME);
-		return new DefaultDrtPredictor(multiModeDrtConfigGroup.modes().collect(Collectors.toMap(mode -> mode, mode -> getCostModel(factory, eqasimConfigGroup, mode))));
+		return new DefaultDrtPredictor(multiModeDrtConfigGroup.modes().collect(Collectors.toMap(mode -> mode, mode -> getCostModel(factory, eqasimConfigGroup, mode))), timeEstimator.orElse(null));
 	}
 }
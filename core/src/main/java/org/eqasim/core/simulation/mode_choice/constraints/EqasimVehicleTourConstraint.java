@@ -1,12 +1,13 @@
 package org.eqasim.core.simulation.mode_choice.constraints;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
+import org.eqasim.core.simulation.mode_choice.constraints.vehicle_tour.VehicleTourConstraintEngine;
 import org.matsim.api.core.v01.BasicLocation;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
-import org.matsim.contribs.discrete_mode_choice.components.utils.LocationUtils;
 import org.matsim.contribs.discrete_mode_choice.components.utils.home_finder.HomeFinder;
 import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
 import org.matsim.contribs.discrete_mode_choice.model.tour_based.TourCandidate;
@@ -39,92 +40,26 @@ import org.matsim.contribs.discrete_mode_choice.model.tour_based.TourConstraintF
  * @author sebhoerl
  */
 public class EqasimVehicleTourConstraint implements TourConstraint {
-	private final Collection<String> restrictedModes;
+	private final VehicleTourConstraintEngine engine;
 	private final Id<? extends BasicLocation> vehicleLocationId;
 
+	private VehicleTourConstraintEngine.PreparedTour prepared = null;
+
 	public EqasimVehicleTourConstraint(Collection<String> restrictedModes,
 			Id<? extends BasicLocation> vehicleLocationId) {
-		this.restrictedModes = restrictedModes;
+		this.engine = new VehicleTourConstraintEngine(restrictedModes, Collections.emptySet(), true);
 		this.vehicleLocationId = vehicleLocationId;
 	}
 
-	private int getFirstIndex(String mode, List<String> modes) {
-		for (int i = 0; i < modes.size(); i++) {
-			if (modes.get(i).equals(mode)) {
-				return i;
-			}
-		}
-
-		return -1;
-	}
-
-	private int getLastIndex(String mode, List<String> modes) {
-		for (int i = modes.size() - 1; i >= 0; i--) {
-			if (modes.get(i).equals(mode)) {
-				return i;
-			}
-		}
-
-		return -1;
-	}
-
 	@Override
 	public boolean validateBeforeEstimation(List<DiscreteModeChoiceTrip> tour, List<String> modes,
 			List<List<String>> previousModes) {
-		for (String restrictedMode : restrictedModes) {
-			if (modes.contains(restrictedMode)) {
-				// I) Make sure vehicle is picked up and dropped off at its predetermined home
-				// base. If the chain does not start at the vehicle base, the vehicle may also
-				// be picked up at the first activity. If the chain does not end at the vehicle
-				// base, the vehicle may still be dropped off at the last activity.
-
-				int firstIndex = getFirstIndex(restrictedMode, modes);
-				int lastIndex = getLastIndex(restrictedMode, modes);
-
-				Id<? extends BasicLocation> startLocationId = LocationUtils
-						.getLocationId(tour.get(firstIndex).getOriginActivity());
-				Id<? extends BasicLocation> endLocationId = LocationUtils
-						.getLocationId(tour.get(lastIndex).getDestinationActivity());
-
-				if (!startLocationId.equals(vehicleLocationId)) {
-					// Vehicle does not depart at the depot
-
-					if (firstIndex > 0) {
-						// If vehicle starts at very first activity, we still allow this tour!
-						return false;
-					}
-				}
-
-				if (!endLocationId.equals(vehicleLocationId)) {
-					// Vehicle does not end at the depot
-
-					if (lastIndex < modes.size() - 1) {
-						// If vehicle ends at the very last activity, we still allow this tour!
-						return false;
-					}
-				}
-
-				// II) Make sure that in between the vehicle is only picked up at the location
-				// where it has been moved previously
-
-				Id<? extends BasicLocation> currentLocationId = LocationUtils
-						.getLocationId(tour.get(firstIndex).getDestinationActivity());
-
-				for (int index = firstIndex + 1; index <= lastIndex; index++) {
-					if (modes.get(index).equals(restrictedMode)) {
-						DiscreteModeChoiceTrip trip = tour.get(index);
-
-						if (!currentLocationId.equals(LocationUtils.getLocationId(trip.getOriginActivity()))) {
-							return false;
-						}
-
-						currentLocationId = LocationUtils.getLocationId(trip.getDestinationActivity());
-					}
-				}
-			}
+		// The same tour is validated for many mode chains in a row
+		if (prepared == null || !prepared.isPreparedFor(tour)) {
+			prepared = engine.prepare(tour, vehicleLocationId);
 		}
 
-		return true;
+		return prepared.validate(modes);
 	}
 
 	@Override
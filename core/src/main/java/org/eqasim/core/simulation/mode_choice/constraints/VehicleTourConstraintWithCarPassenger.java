@@ -0,0 +1,81 @@
+package org.eqasim.core.simulation.mode_choice.constraints;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.eqasim.core.simulation.mode_choice.constraints.vehicle_tour.VehicleTourConstraintEngine;
+import org.matsim.api.core.v01.BasicLocation;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.contribs.discrete_mode_choice.components.utils.home_finder.HomeFinder;
+import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
+import org.matsim.contribs.discrete_mode_choice.model.tour_based.TourCandidate;
+import org.matsim.contribs.discrete_mode_choice.model.tour_based.TourConstraint;
+import org.matsim.contribs.discrete_mode_choice.model.tour_based.TourConstraintFactory;
+
+/**
+ * This constraint makes sure that trips are continuous in the sense that
+ * vehicles get not dumped somewhere in the network:
+ * 
+ * <ul>
+ * <li>Vehicles can only be used where they have been moved to before.</li>
+ * <li>Within one tour, vehicles must depart first from the home location.</li>
+ * <li>Within one tour, vehicles must be brought back to the home location.</li>
+ * </ul>
+ *
+ * If a home location cannot be found, a mode must start and end at the first
+ * and last location in the tour. Tours that contain a car_passenger trip are
+ * not restricted. This variant is used by the São Paulo, Los Angeles and San
+ * Francisco scenarios.
+ * 
+ * @author sebhoerl
+ */
+public class VehicleTourConstraintWithCarPassenger implements TourConstraint {
+	static public final String CAR_PASSENGER_MODE = "car_passenger";
+
+	private final VehicleTourConstraintEngine engine;
+	private final Id<? extends BasicLocation> homeLocationId;
+
+	private VehicleTourConstraintEngine.PreparedTour prepared = null;
+
+	public VehicleTourConstraintWithCarPassenger(Collection<String> restrictedModes,
+			Id<? extends BasicLocation> homeLocationId) {
+		this.engine = new VehicleTourConstraintEngine(restrictedModes, Collections.singleton(CAR_PASSENGER_MODE),
+				false);
+		this.homeLocationId = homeLocationId;
+	}
+
+	@Override
+	public boolean validateBeforeEstimation(List<DiscreteModeChoiceTrip> tour, List<String> modes,
+			List<List<String>> previousModes) {
+		// The same tour is validated for many mode chains in a row
+		if (prepared == null || !prepared.isPreparedFor(tour)) {
+			prepared = engine.prepare(tour, homeLocationId);
+		}
+
+		return prepared.validate(modes);
+	}
+
+	@Override
+	public boolean validateAfterEstimation(List<DiscreteModeChoiceTrip> tour, TourCandidate candidate,
+			List<TourCandidate> previousCandidates) {
+		return true;
+	}
+
+	public static class Factory implements TourConstraintFactory {
+		private final Collection<String> restrictedModes;
+		private final HomeFinder homeFinder;
+
+		public Factory(Collection<String> restrictedModes, HomeFinder homeFinder) {
+			this.restrictedModes = restrictedModes;
+			this.homeFinder = homeFinder;
+		}
+
+		@Override
+		public TourConstraint createConstraint(Person person, List<DiscreteModeChoiceTrip> planTrips,
+				Collection<String> availableModes) {
+			return new VehicleTourConstraintWithCarPassenger(restrictedModes, homeFinder.getHomeLocationId(planTrips));
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package org.eqasim.core.simulation.mode_choice.constraints.leg_time;
+
+import org.eqasim.core.simulation.mode_choice.constraints.leg_time.LegTimeConstraintSingleLegConfigGroup.TimeSlotConfigGroup;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.PlanElement;
+
+import java.util.*;
+
+/**
+ * Compiled form of the leg time constraint definitions. For every combination
+ * of main mode and leg mode, the time slots are sorted by begin time and
+ * combined with the running maximum of their end times. A leg fits into one of
+ * the slots if the last slot that begins before its departure has a running
+ * maximum end time after its arrival, which is found by binary search.
+ */
+public class LegTimeIntervalIndex {
+    private final Map<String, Map<String, Slots>> slotsByMainModeByLegMode;
+
+    private LegTimeIntervalIndex(Map<String, Map<String, Slots>> slotsByMainModeByLegMode) {
+        this.slotsByMainModeByLegMode = slotsByMainModeByLegMode;
+    }
+
+    public static LegTimeIntervalIndex compile(Map<String, Map<String, LegTimeConstraintSingleLegConfigGroup>> singleLegParameterSetByMainModeByLegMode) {
+        Map<String, Map<String, Slots>> slotsByMainModeByLegMode = new HashMap<>();
+
+        for (Map.Entry<String, Map<String, LegTimeConstraintSingleLegConfigGroup>> mainModeEntry : singleLegParameterSetByMainModeByLegMode.entrySet()) {
+            Map<String, Slots> slotsByLegMode = new HashMap<>();
+
+            for (Map.Entry<String, LegTimeConstraintSingleLegConfigGroup> legModeEntry : mainModeEntry.getValue().entrySet()) {
+                LegTimeConstraintSingleLegConfigGroup definition = legModeEntry.getValue();
+                slotsByLegMode.put(legModeEntry.getKey(), new Slots(definition.getTimeSlotsParameterSets(), definition.checkBothDepartureAndArrivalTimes));
+            }
+
+            slotsByMainModeByLegMode.put(mainModeEntry.getKey(), slotsByLegMode);
+        }
+
+        return new LegTimeIntervalIndex(slotsByMainModeByLegMode);
+    }
+
+    public boolean isRestricted(String mainMode) {
+        return slotsByMainModeByLegMode.containsKey(mainMode);
+    }
+
+    /**
+     * Checks the legs of one trip performed with the given main mode.
+     */
+    public boolean validate(String mainMode, List<? extends PlanElement> elements) {
+        Map<String, Slots> slotsByLegMode = slotsByMainModeByLegMode.get(mainMode);
+
+        if (slotsByLegMode == null) {
+            return true;
+        }
+
+        for (PlanElement element : elements) {
+            if (element instanceof Leg leg) {
+                Slots slots = slotsByLegMode.get(leg.getMode());
+
+                if (slots != null && !slots.contains(leg.getDepartureTime().seconds(), leg.getTravelTime().orElse(0.0))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks all legs of a tour in one call. Legs are given as flat arrays of leg
+     * modes, departure times and travel times, together with the index of the
+     * trip each leg belongs to and the main mode per trip. Returns the index of
+     * the first trip that violates a time slot or -1 if the tour is valid.
+     */
+    public int validateTour(String[] mainModes, int[] tripIndices, String[] legModes, double[] departureTimes, double[] travelTimes, int numberOfLegs) {
+        Map<String, Slots> slotsByLegMode = null;
+        int currentTripIndex = -1;
+
+        for (int i = 0; i < numberOfLegs; i++) {
+            if (tripIndices[i] != currentTripIndex) {
+                currentTripIndex = tripIndices[i];
+                slotsByLegMode = slotsByMainModeByLegMode.get(mainModes[currentTripIndex]);
+            }
+
+            if (slotsByLegMode != null) {
+                Slots slots = slotsByLegMode.get(legModes[i]);
+
+                if (slots != null && !slots.contains(departureTimes[i], travelTimes[i])) {
+                    return currentTripIndex;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    static private class Slots {
+        private final double[] beginTimes;
+        private final double[] maximumEndTimes;
+        private final boolean checkArrival;
+
+        Slots(List<TimeSlotConfigGroup> timeSlots, boolean checkArrival) {
+            List<TimeSlotConfigGroup> sorted = new ArrayList<>(timeSlots);
+            sorted.sort(Comparator.comparingDouble(slot -> slot.beginTime));
+
+            this.beginTimes = new double[sorted.size()];
+            this.maximumEndTimes = new double[sorted.size()];
+            this.checkArrival = checkArrival;
+
+            double maximumEndTime = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < sorted.size(); i++) {
+                maximumEndTime = Math.max(maximumEndTime, sorted.get(i).endTime);
+
+                beginTimes[i] = sorted.get(i).beginTime;
+                maximumEndTimes[i] = maximumEndTime;
+            }
+        }
+
+        boolean contains(double departureTime, double travelTime) {
+            double arrivalTime = departureTime + (checkArrival ? travelTime : 0.0);
+
+            // Last slot with beginTime <= departureTime
+            int low = 0;
+            int high = beginTimes.length - 1;
+            int index = -1;
+
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+
+                if (beginTimes[middle] <= departureTime) {
+                    index = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            return index >= 0 && maximumEndTimes[index] >= arrivalTime;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.eqasim.core.simulation.mode_choice.constraints.vehicle_tour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eqasim.core.simulation.mode_choice.constraints.EqasimVehicleTourConstraint;
+import org.matsim.api.core.v01.BasicLocation;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
+import org.matsim.core.config.CommandLine;
+import org.matsim.core.config.CommandLine.ConfigurationException;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.utils.objectattributes.attributable.AttributesImpl;
+
+/**
+ * Compares the exhaustive enumeration of mode chains with validation of every
+ * full chain (as performed by the discrete mode choice model) with the
+ * enumeration of the constraint engine that prunes infeasible prefixes. Random
+ * tours of 8 to 12 trips over a small set of locations are used, the first
+ * location being home.
+ */
+public class RunVehicleTourConstraintBenchmark {
+	private final static Logger logger = LogManager.getLogger(RunVehicleTourConstraintBenchmark.class);
+
+	static public void main(String[] args) throws ConfigurationException {
+		CommandLine cmd = new CommandLine.Builder(args) //
+				.allowOptions("tours", "minimum-trips", "maximum-trips", "locations", "modes", "restricted-modes",
+						"seed") //
+				.build();
+
+		int numberOfTours = cmd.getOption("tours").map(Integer::parseInt).orElse(20);
+		int minimumTrips = cmd.getOption("minimum-trips").map(Integer::parseInt).orElse(8);
+		int maximumTrips = cmd.getOption("maximum-trips").map(Integer::parseInt).orElse(12);
+		int numberOfLocations = cmd.getOption("locations").map(Integer::parseInt).orElse(4);
+		long seed = cmd.getOption("seed").map(Long::parseLong).orElse(0L);
+
+		List<String> modes = Arrays.asList(cmd.getOption("modes").orElse("car,pt,bike,walk").split(","));
+		List<String> restrictedModes = Arrays.asList(cmd.getOption("restricted-modes").orElse("car,bike").split(","));
+
+		Random random = new Random(seed);
+		VehicleTourConstraintEngine engine = new VehicleTourConstraintEngine(restrictedModes, Collections.emptySet(),
+				true);
+
+		double exhaustiveRuntime = 0.0;
+		double prunedRuntime = 0.0;
+
+		long exhaustiveChains = 0;
+		long prunedChains = 0;
+
+		for (int k = 0; k < numberOfTours; k++) {
+			int numberOfTrips = minimumTrips + random.nextInt(maximumTrips - minimumTrips + 1);
+			List<DiscreteModeChoiceTrip> tour = createTour(random, numberOfTrips, numberOfLocations);
+			Id<? extends BasicLocation> homeLocationId = Id.createLinkId("L0");
+
+			List<List<String>> candidates = Collections.nCopies(numberOfTrips, modes);
+
+			// Exhaustive enumeration with validation of complete chains
+			long startTime = System.nanoTime();
+
+			EqasimVehicleTourConstraint constraint = new EqasimVehicleTourConstraint(restrictedModes,
+					homeLocationId);
+			long[] counter = new long[1];
+
+			enumerateExhaustively(numberOfTrips, modes, new String[numberOfTrips], 0, chain -> {
+				if (constraint.validateBeforeEstimation(tour, chain, Collections.emptyList())) {
+					counter[0]++;
+				}
+			});
+
+			exhaustiveRuntime += 1e-9 * (System.nanoTime() - startTime);
+			exhaustiveChains += counter[0];
+
+			// Enumeration with prefix pruning
+			startTime = System.nanoTime();
+			long[] prunedCounter = new long[1];
+
+			engine.prepare(tour, homeLocationId).enumerate(candidates, chain -> prunedCounter[0]++);
+
+			prunedRuntime += 1e-9 * (System.nanoTime() - startTime);
+			prunedChains += prunedCounter[0];
+		}
+
+		if (exhaustiveChains != prunedChains) {
+			throw new IllegalStateException("Enumerations do not agree");
+		}
+
+		logger.info(String.format("Tours: %d with %d-%d trips, valid chains: %d", numberOfTours, minimumTrips,
+				maximumTrips, prunedChains));
+		logger.info(String.format("  Exhaustive + validation: %.3fs", exhaustiveRuntime));
+		logger.info(String.format("  Prefix pruning:          %.3fs", prunedRuntime));
+	}
+
+	static private void enumerateExhaustively(int numberOfTrips, List<String> modes, String[] chain, int index,
+			Consumer<List<String>> consumer) {
+		if (index == numberOfTrips) {
+			consumer.accept(Arrays.asList(chain));
+			return;
+		}
+
+		for (String mode : modes) {
+			chain[index] = mode;
+			enumerateExhaustively(numberOfTrips, modes, chain, index + 1, consumer);
+		}
+	}
+
+	static private List<DiscreteModeChoiceTrip> createTour(Random random, int numberOfTrips, int numberOfLocations) {
+		List<DiscreteModeChoiceTrip> tour = new ArrayList<>(numberOfTrips);
+		String location = "L0";
+
+		for (int i = 0; i < numberOfTrips; i++) {
+			String nextLocation = i == numberOfTrips - 1 ? "L0" : "L" + random.nextInt(numberOfLocations);
+
+			Activity originActivity = PopulationUtils.createActivityFromLinkId("activity", Id.createLinkId(location));
+			Activity destinationActivity = PopulationUtils.createActivityFromLinkId("activity",
+					Id.createLinkId(nextLocation));
+
+			tour.add(new DiscreteModeChoiceTrip(originActivity, destinationActivity, "walk", Collections.emptyList(),
+					0, i, i, new AttributesImpl()));
+
+			location = nextLocation;
+		}
+
+		return tour;
+	}
+}
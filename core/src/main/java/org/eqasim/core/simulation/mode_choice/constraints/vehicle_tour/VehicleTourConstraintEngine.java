@@ -0,0 +1,277 @@
+package org.eqasim.core.simulation.mode_choice.constraints.vehicle_tour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.matsim.api.core.v01.BasicLocation;
+import org.matsim.api.core.v01.Id;
+import org.matsim.contribs.discrete_mode_choice.components.utils.LocationUtils;
+import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
+
+/**
+ * Shared logic of the vehicle tour constraints. For every restricted mode, the
+ * vehicle must be picked up at its home location, can only be used where it has
+ * been left before and must be brought back home at the end of the tour.
+ *
+ * The engine works on a prepared tour in which all locations are replaced by
+ * integer indices, so a mode chain is validated in one pass without any
+ * lookups. Since the start and continuity conditions only depend on the part of
+ * the chain that has already been decided, violations are detected on
+ * prefixes. This is used by {@link PreparedTour#enumerate} to skip whole
+ * branches of the chain enumeration.
+ *
+ * Two variants exist in the scenarios:
+ * <ul>
+ * <li>With edge exceptions (EqasimVehicleTourConstraint), a vehicle may also
+ * be picked up at the first activity or dropped off at the last activity of
+ * the tour if those are not the home location.</li>
+ * <li>Without edge exceptions (VehicleTourConstraintWithCarPassenger), pickup
+ * and drop-off must happen at home. Only if no home is known, the vehicle must
+ * be used for the first and last trip of the tour.</li>
+ * </ul>
+ * Additionally, exempt modes can be defined. A chain that contains one of them
+ * is always valid.
+ */
+public class VehicleTourConstraintEngine {
+	private final static int UNUSED = -1;
+	private final static int NO_LOCATION = -2;
+
+	private final String[] restrictedModes;
+	private final String[] exemptModes;
+	private final boolean allowEdgeExceptions;
+
+	public VehicleTourConstraintEngine(Collection<String> restrictedModes, Collection<String> exemptModes,
+			boolean allowEdgeExceptions) {
+		this.restrictedModes = restrictedModes.toArray(new String[0]);
+		this.exemptModes = exemptModes.toArray(new String[0]);
+		this.allowEdgeExceptions = allowEdgeExceptions;
+	}
+
+	public PreparedTour prepare(List<DiscreteModeChoiceTrip> tour, Id<? extends BasicLocation> homeLocationId) {
+		Map<Id<? extends BasicLocation>, Integer> indices = new HashMap<>();
+
+		int[] origins = new int[tour.size()];
+		int[] destinations = new int[tour.size()];
+
+		for (int i = 0; i < tour.size(); i++) {
+			DiscreteModeChoiceTrip trip = tour.get(i);
+
+			origins[i] = indices.computeIfAbsent(LocationUtils.getLocationId(trip.getOriginActivity()),
+					id -> indices.size());
+			destinations[i] = indices.computeIfAbsent(LocationUtils.getLocationId(trip.getDestinationActivity()),
+					id -> indices.size());
+		}
+
+		int home = homeLocationId == null ? NO_LOCATION : indices.getOrDefault(homeLocationId, NO_LOCATION);
+		return new PreparedTour(tour.toArray(new DiscreteModeChoiceTrip[0]), origins, destinations, home,
+				homeLocationId == null);
+	}
+
+	private int getRestrictedIndex(String mode) {
+		for (int r = 0; r < restrictedModes.length; r++) {
+			if (restrictedModes[r].equals(mode)) {
+				return r;
+			}
+		}
+
+		return -1;
+	}
+
+	private boolean isExempt(String mode) {
+		for (String exemptMode : exemptModes) {
+			if (exemptMode.equals(mode)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public class PreparedTour {
+		private final DiscreteModeChoiceTrip[] trips;
+		private final int numberOfTrips;
+
+		private final int[] origins;
+		private final int[] destinations;
+		private final int home;
+
+		private final boolean requireEdges;
+
+		PreparedTour(DiscreteModeChoiceTrip[] trips, int[] origins, int[] destinations, int home,
+				boolean isHomeUnknown) {
+			this.trips = trips;
+			this.numberOfTrips = origins.length;
+			this.origins = origins;
+			this.destinations = destinations;
+			this.home = home;
+
+			// Without a home location, vehicles must be used at the edges of the tour
+			this.requireEdges = isHomeUnknown;
+		}
+
+		public int getNumberOfTrips() {
+			return numberOfTrips;
+		}
+
+		/**
+		 * Checks whether the tour consists of the same trips as the one that has been
+		 * prepared, regardless of the list instance that holds them.
+		 */
+		public boolean isPreparedFor(List<DiscreteModeChoiceTrip> tour) {
+			if (tour.size() != numberOfTrips) {
+				return false;
+			}
+
+			for (int i = 0; i < numberOfTrips; i++) {
+				if (tour.get(i) != trips[i]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private boolean isValidStart(int index) {
+			return (!requireEdges && origins[index] == home)
+					|| ((allowEdgeExceptions || requireEdges) && index == 0);
+		}
+
+		private boolean isValidEnd(int index) {
+			return (!requireEdges && destinations[index] == home)
+					|| ((allowEdgeExceptions || requireEdges) && index == numberOfTrips - 1);
+		}
+
+		/**
+		 * Validates a complete mode chain.
+		 */
+		public boolean validate(List<String> modes) {
+			for (String mode : modes) {
+				if (isExempt(mode)) {
+					return true;
+				}
+			}
+
+			int[] locations = new int[restrictedModes.length];
+			int[] lastIndices = new int[restrictedModes.length];
+			Arrays.fill(locations, UNUSED);
+
+			for (int index = 0; index < numberOfTrips; index++) {
+				int r = getRestrictedIndex(modes.get(index));
+
+				if (r >= 0) {
+					if (locations[r] == UNUSED) {
+						if (!isValidStart(index)) {
+							return false;
+						}
+					} else if (locations[r] != origins[index]) {
+						return false;
+					}
+
+					locations[r] = destinations[index];
+					lastIndices[r] = index;
+				}
+			}
+
+			for (int r = 0; r < restrictedModes.length; r++) {
+				if (locations[r] != UNUSED && !isValidEnd(lastIndices[r])) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Enumerates all valid mode chains given the candidate modes per trip. Chains
+		 * are produced in lexicographic order of the candidate lists. Branches are
+		 * abandoned as soon as the decided prefix violates a start or continuity
+		 * condition and no exempt mode can follow anymore.
+		 */
+		public void enumerate(List<? extends List<String>> candidateModes, Consumer<List<String>> consumer) {
+			if (candidateModes.size() != numberOfTrips) {
+				throw new IllegalArgumentException("Candidate modes must be given for every trip");
+			}
+
+			// exemptPossible[i] indicates whether any trip from i on can use an exempt mode
+			boolean[] exemptPossible = new boolean[numberOfTrips + 1];
+
+			for (int index = numberOfTrips - 1; index >= 0; index--) {
+				exemptPossible[index] = exemptPossible[index + 1];
+
+				for (String mode : candidateModes.get(index)) {
+					exemptPossible[index] |= isExempt(mode);
+				}
+			}
+
+			int[] locations = new int[restrictedModes.length];
+			int[] lastIndices = new int[restrictedModes.length];
+			Arrays.fill(locations, UNUSED);
+
+			String[] chain = new String[numberOfTrips];
+			enumerate(0, false, false, candidateModes, exemptPossible, locations, lastIndices, chain, consumer);
+		}
+
+		private void enumerate(int index, boolean isExempt, boolean isViolated,
+				List<? extends List<String>> candidateModes, boolean[] exemptPossible, int[] locations,
+				int[] lastIndices, String[] chain, Consumer<List<String>> consumer) {
+			if (index == numberOfTrips) {
+				if (!isExempt) {
+					if (isViolated) {
+						return;
+					}
+
+					for (int r = 0; r < restrictedModes.length; r++) {
+						if (locations[r] != UNUSED && !isValidEnd(lastIndices[r])) {
+							return;
+						}
+					}
+				}
+
+				consumer.accept(new ArrayList<>(Arrays.asList(chain)));
+				return;
+			}
+
+			for (String mode : candidateModes.get(index)) {
+				chain[index] = mode;
+
+				if (isExempt || isExempt(mode)) {
+					// Everything that follows is valid
+					enumerate(index + 1, true, isViolated, candidateModes, exemptPossible, locations, lastIndices,
+							chain, consumer);
+					continue;
+				}
+
+				int r = getRestrictedIndex(mode);
+
+				if (r < 0) {
+					enumerate(index + 1, false, isViolated, candidateModes, exemptPossible, locations, lastIndices,
+							chain, consumer);
+					continue;
+				}
+
+				boolean isValid = locations[r] == UNUSED ? isValidStart(index) : locations[r] == origins[index];
+
+				if (!isValid && !exemptPossible[index + 1]) {
+					continue; // Prune the branch
+				}
+
+				int previousLocation = locations[r];
+				int previousLastIndex = lastIndices[r];
+
+				locations[r] = destinations[index];
+				lastIndices[r] = index;
+
+				enumerate(index + 1, false, isViolated || !isValid, candidateModes, exemptPossible, locations,
+						lastIndices, chain, consumer);
+
+				locations[r] = previousLocation;
+				lastIndices[r] = previousLastIndex;
+			}
+		}
+	}
+}
@@ -6,6 +6,7 @@ import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleAnalys
 import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleAnalysisWriter;
 import org.eqasim.core.simulation.modes.drt.analysis.passengers.PassengerAnalysisListener;
 import org.eqasim.core.simulation.modes.drt.analysis.passengers.PassengerAnalysisWriter;
+import org.eqasim.core.simulation.modes.drt.analysis.passengers.PassengerRideItem;
 import org.eqasim.core.simulation.modes.drt.analysis.utils.LinkFinder;
 import org.eqasim.core.simulation.modes.drt.analysis.utils.VehicleRegistry;
 import org.matsim.api.core.v01.network.Network;
@@ -22,6 +23,10 @@ import org.matsim.core.controler.listener.ShutdownListener;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Singleton
@@ -34,6 +39,9 @@ public class DrtAnalysisListener implements IterationStartsListener, IterationEn
 
 	private final int analysisInterval;
 	private boolean isActive = false;
+	private boolean isRecordingRides = false;
+
+	private final List<Consumer<Collection<PassengerRideItem>>> rideConsumers = new LinkedList<>();
 
 	private final PassengerAnalysisListener passengerAnalysisListener;
 	private final VehicleAnalysisListener vehicleAnalysisListener;
@@ -58,18 +66,37 @@ public class DrtAnalysisListener implements IterationStartsListener, IterationEn
 			isActive = event.getIteration() % analysisInterval == 0 || event.isLastIteration();
 		}
 
-		if (isActive) {
+		isRecordingRides = isActive || rideConsumers.size() > 0;
+
+		if (isRecordingRides) {
 			event.getServices().getEvents().addHandler(passengerAnalysisListener);
+		}
+
+		if (isActive) {
 			event.getServices().getEvents().addHandler(vehicleAnalysisListener);
 		}
 	}
 
+	/**
+	 * Registers a consumer that obtains the passenger rides at the end of every
+	 * iteration, independent of the analysis interval.
+	 */
+	public void addRideConsumer(Consumer<Collection<PassengerRideItem>> consumer) {
+		rideConsumers.add(consumer);
+	}
+
 	@Override
 	public void notifyIterationEnds(IterationEndsEvent event) {
+		if (isRecordingRides) {
+			event.getServices().getEvents().removeHandler(passengerAnalysisListener);
+
+			for (Consumer<Collection<PassengerRideItem>> consumer : rideConsumers) {
+				consumer.accept(passengerAnalysisListener.getRides());
+			}
+		}
+
 		try {
 			if (isActive) {
-				event.getServices().getEvents().removeHandler(passengerAnalysisListener);
-
 				String path = outputDirectory.getIterationFilename(event.getIteration(), PASSENGER_RIDES_FILE_NAME);
 				new PassengerAnalysisWriter(passengerAnalysisListener).writeRides(new File(path));
 
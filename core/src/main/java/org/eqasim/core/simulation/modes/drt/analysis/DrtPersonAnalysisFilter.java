@@ -17,7 +17,7 @@ public class DrtPersonAnalysisFilter extends DefaultPersonAnalysisFilter {
 
     @Override
     public boolean analyzePerson(Id<Person> personId) {
-        if(this.vehicleRegistry.isFleet(personId)) {
+        if(this.vehicleRegistry.isFleetPerson(personId)) {
             return false;
         }
         return super.analyzePerson(personId);
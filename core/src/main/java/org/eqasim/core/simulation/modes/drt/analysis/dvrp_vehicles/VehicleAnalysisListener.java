@@ -6,67 +6,101 @@ import org.eqasim.core.simulation.modes.drt.analysis.utils.VehicleRegistry;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.*;
 import org.matsim.api.core.v01.events.handler.*;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.contrib.dvrp.vrpagent.VrpAgentLogic;
-import org.matsim.vehicles.Vehicle;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Records the movements and activities of fleet vehicles in a
+ * {@link VehicleTraceRecorder}. Optionally, a sink can be set to which the
+ * completed rows are written while events are processed, so that the recorder
+ * only holds the rows that are still open.
+ */
 public class VehicleAnalysisListener implements PersonDepartureEventHandler, PersonArrivalEventHandler, ActivityStartEventHandler, ActivityEndEventHandler, LinkEnterEventHandler,
         PersonEntersVehicleEventHandler, PersonLeavesVehicleEventHandler {
     private final LinkFinder linkFinder;
     private final VehicleRegistry vehicleRegistry;
     private final PassengerTracker passengers = new PassengerTracker();
+    private final VehicleTraceRecorder recorder;
 
-    private final List<VehicleMovementItem> movements = new LinkedList<>();
-    private final List<VehicleActivityItem> activities = new LinkedList<>();
-
-    private final Map<Id<Vehicle>, VehicleMovementItem> currentMovements = new HashMap<>();
-    private final Map<Id<Vehicle>, VehicleActivityItem> currentActivities = new HashMap<>();
+    private VehicleTraceSink sink = null;
+    private int flushThreshold = 0;
+    private int nextFlush = 0;
 
     public VehicleAnalysisListener(LinkFinder linkFinder, VehicleRegistry vehicleRegistry) {
         this.linkFinder = linkFinder;
         this.vehicleRegistry = vehicleRegistry;
+        this.recorder = new VehicleTraceRecorder(linkFinder);
     }
 
-    @Override
-    public void handleEvent(PersonDepartureEvent event) {
-        if (vehicleRegistry.isFleet(event.getPersonId())) {
-            String mode = vehicleRegistry.getMode(event.getPersonId());
-            Id<Vehicle> vehicleId = Id.createVehicleId(event.getPersonId());
+    /**
+     * Completed rows are written to the sink whenever at least the given number
+     * of new rows has been recorded. Remaining rows are written with
+     * {@link #flush()}.
+     */
+    public void setSink(VehicleTraceSink sink, int flushThreshold) {
+        this.sink = sink;
+        this.flushThreshold = flushThreshold;
+        this.nextFlush = recorder.getNumberOfMovements() + recorder.getNumberOfActivities() + flushThreshold;
+    }
 
-            VehicleMovementItem movement = new VehicleMovementItem();
-            movements.add(movement);
+    private void checkFlush() {
+        if (sink != null) {
+            int numberOfRows = recorder.getNumberOfMovements() + recorder.getNumberOfActivities();
 
-            movement.mode = mode;
-            movement.vehicleId = vehicleId;
+            if (numberOfRows >= nextFlush) {
+                try {
+                    recorder.flush(sink, false);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
 
-            movement.originLink = linkFinder.getLink(event.getLinkId());
-            movement.departureTime = event.getTime();
+                // Only open rows are left, so the next flush scans them and the new rows
+                nextFlush = recorder.getNumberOfMovements() + recorder.getNumberOfActivities() + flushThreshold;
+            }
+        }
+    }
 
-            currentMovements.put(vehicleId, movement);
+    /**
+     * Writes all remaining rows, including open ones, to the sink.
+     */
+    public void flush() throws IOException {
+        if (sink == null) {
+            throw new IllegalStateException("No sink has been set");
         }
+
+        recorder.flush(sink, true);
+        nextFlush = flushThreshold;
+    }
+
+    private boolean isFleetActivity(Id<Person> personId, String activityType) {
+        return vehicleRegistry.isFleetPerson(personId) && !VrpAgentLogic.BEFORE_SCHEDULE_ACTIVITY_TYPE.equals(activityType) && !VrpAgentLogic.AFTER_SCHEDULE_ACTIVITY_TYPE.equals(activityType);
     }
 
     @Override
-    public void handleEvent(LinkEnterEvent event) {
-        if (vehicleRegistry.isFleet(event.getVehicleId())) {
-            VehicleMovementItem movement = currentMovements.get(event.getVehicleId());
+    public void handleEvent(PersonDepartureEvent event) {
+        if (vehicleRegistry.isFleetPerson(event.getPersonId())) {
+            String mode = vehicleRegistry.getModeByPerson(event.getPersonId());
+            int vehicleIndex = vehicleRegistry.getVehicleIndexByPerson(event.getPersonId());
 
-            if (movement == null) {
-                throw new IllegalStateException("Found link enter event without departure");
-            }
+            recorder.startMovement(vehicleIndex, mode, event.getLinkId(), event.getTime());
+        }
+    }
 
-            movement.distance += linkFinder.getDistance(event.getLinkId());
+    @Override
+    public void handleEvent(LinkEnterEvent event) {
+        if (vehicleRegistry.isFleetVehicle(event.getVehicleId())) {
+            recorder.addDistance(event.getVehicleId().index(), linkFinder.getDistance(event.getLinkId()));
         }
     }
 
     @Override
     public void handleEvent(PersonEntersVehicleEvent event) {
-        if (!vehicleRegistry.isFleet(event.getPersonId())) {
-            if (vehicleRegistry.isFleet(event.getVehicleId())) {
+        if (!vehicleRegistry.isFleetPerson(event.getPersonId())) {
+            if (vehicleRegistry.isFleetVehicle(event.getVehicleId())) {
                 passengers.addPassenger(event.getVehicleId(), event.getPersonId());
             }
         }
@@ -74,8 +108,8 @@ public class VehicleAnalysisListener implements PersonDepartureEventHandler, Per
 
     @Override
     public void handleEvent(PersonLeavesVehicleEvent event) {
-        if (!vehicleRegistry.isFleet(event.getPersonId())) {
-            if (vehicleRegistry.isFleet(event.getVehicleId())) {
+        if (!vehicleRegistry.isFleetPerson(event.getPersonId())) {
+            if (vehicleRegistry.isFleetVehicle(event.getVehicleId())) {
                 passengers.removePassenger(event.getVehicleId(), event.getPersonId());
             }
         }
@@ -83,83 +117,96 @@ public class VehicleAnalysisListener implements PersonDepartureEventHandler, Per
 
     @Override
     public void handleEvent(PersonArrivalEvent event) {
-        if (vehicleRegistry.isFleet(event.getPersonId())) {
-            Id<Vehicle> vehicleId = Id.createVehicleId(event.getPersonId());
-
-            VehicleMovementItem movement = currentMovements.remove(vehicleId);
+        if (vehicleRegistry.isFleetPerson(event.getPersonId())) {
+            int vehicleIndex = vehicleRegistry.getVehicleIndexByPerson(event.getPersonId());
 
-            if (movement == null) {
-                throw new IllegalStateException("Found arrival without departure");
-            }
+            recorder.endMovement(vehicleIndex, event.getLinkId(), event.getTime(),
+                    passengers.getNumberOfPassengers(vehicleIndex));
 
-            movement.destinationLink = linkFinder.getLink(event.getLinkId());
-            movement.arrivalTime = event.getTime();
-
-            movement.numberOfPassengers = passengers.getNumberOfPassengers(vehicleId);
+            checkFlush();
         }
     }
 
     @Override
     public void handleEvent(ActivityStartEvent event) {
-        if (this.vehicleRegistry.isFleet(event.getPersonId()) && !VrpAgentLogic.BEFORE_SCHEDULE_ACTIVITY_TYPE.equals(event.getActType()) && !VrpAgentLogic.AFTER_SCHEDULE_ACTIVITY_TYPE.equals(event.getActType())) {
-            String mode = vehicleRegistry.getMode(event.getPersonId());
-            Id<Vehicle> vehicleId = Id.createVehicleId(event.getPersonId());
-
-            VehicleActivityItem activity = new VehicleActivityItem();
-            activities.add(activity);
-
-            activity.mode = mode;
-            activity.vehicleId = vehicleId;
+        if (isFleetActivity(event.getPersonId(), event.getActType())) {
+            String mode = vehicleRegistry.getModeByPerson(event.getPersonId());
+            int vehicleIndex = vehicleRegistry.getVehicleIndexByPerson(event.getPersonId());
 
-            activity.link = linkFinder.getLink(event.getLinkId());
-            activity.type = event.getActType();
-
-            activity.startTime = event.getTime();
-
-            currentActivities.put(vehicleId, activity);
+            recorder.startActivity(vehicleIndex, mode, event.getLinkId(), event.getActType(), event.getTime());
         }
     }
 
     @Override
     public void handleEvent(ActivityEndEvent event) {
-        if (this.vehicleRegistry.isFleet(event.getPersonId()) && !VrpAgentLogic.BEFORE_SCHEDULE_ACTIVITY_TYPE.equals(event.getActType()) && !VrpAgentLogic.AFTER_SCHEDULE_ACTIVITY_TYPE.equals(event.getActType())) {
-            String mode = vehicleRegistry.getMode(event.getPersonId());
-            Id<Vehicle> vehicleId = Id.createVehicleId(event.getPersonId());
-
-            VehicleActivityItem activity = currentActivities.remove(vehicleId);
-            boolean isStarted = activity != null;
+        if (isFleetActivity(event.getPersonId(), event.getActType())) {
+            String mode = vehicleRegistry.getModeByPerson(event.getPersonId());
+            int vehicleIndex = vehicleRegistry.getVehicleIndexByPerson(event.getPersonId());
 
-            if (!isStarted) {
-                activity = new VehicleActivityItem();
-                activities.add(activity);
-            }
-
-            activity.mode = mode;
-            activity.vehicleId = vehicleId;
-
-            activity.link = linkFinder.getLink(event.getLinkId());
-            activity.type = event.getActType();
+            recorder.endActivity(vehicleIndex, mode, event.getLinkId(), event.getActType(), event.getTime());
 
-            activity.endTime = event.getTime();
+            checkFlush();
         }
     }
 
     @Override
     public void reset(int iteration) {
         passengers.clear();
+        recorder.clear();
+        nextFlush = flushThreshold;
+    }
 
-        currentActivities.clear();
-        currentMovements.clear();
+    public VehicleTraceRecorder getRecorder() {
+        return recorder;
+    }
 
-        activities.clear();
-        movements.clear();
+    public int getNumberOfMovements() {
+        return recorder.getNumberOfMovements();
     }
 
+    public int getNumberOfActivities() {
+        return recorder.getNumberOfActivities();
+    }
+
+    /**
+     * Creates items for the activities that are currently held by the recorder.
+     */
     public List<VehicleActivityItem> getActivities() {
+        List<VehicleActivityItem> activities = new ArrayList<>(recorder.getNumberOfActivities());
+
+        for (int row = 0; row < recorder.getNumberOfActivities(); row++) {
+            VehicleActivityItem activity = new VehicleActivityItem();
+            activity.mode = recorder.getActivityMode(row);
+            activity.vehicleId = recorder.getActivityVehicleId(row);
+            activity.link = recorder.getActivityLink(row);
+            activity.startTime = recorder.getStartTime(row);
+            activity.endTime = recorder.getEndTime(row);
+            activity.type = recorder.getActivityType(row);
+            activities.add(activity);
+        }
+
         return activities;
     }
 
+    /**
+     * Creates items for the movements that are currently held by the recorder.
+     */
     public List<VehicleMovementItem> getMovements() {
+        List<VehicleMovementItem> movements = new ArrayList<>(recorder.getNumberOfMovements());
+
+        for (int row = 0; row < recorder.getNumberOfMovements(); row++) {
+            VehicleMovementItem movement = new VehicleMovementItem();
+            movement.mode = recorder.getMovementMode(row);
+            movement.vehicleId = recorder.getMovementVehicleId(row);
+            movement.originLink = recorder.getOriginLink(row);
+            movement.destinationLink = recorder.getDestinationLink(row);
+            movement.departureTime = recorder.getDepartureTime(row);
+            movement.arrivalTime = recorder.getArrivalTime(row);
+            movement.distance = recorder.getDistance(row);
+            movement.numberOfPassengers = recorder.getNumberOfPassengers(row);
+            movements.add(movement);
+        }
+
         return movements;
     }
 }
@@ -1,5 +1,7 @@
 package org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles;
 
+import org.matsim.api.core.v01.network.Link;
+
 import java.io.*;
 
 public class VehicleAnalysisWriter {
@@ -12,6 +14,26 @@ public class VehicleAnalysisWriter {
     public void writeMovements(File path) throws IOException {
         BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path)));
 
+        writeMovementsHeader(writer);
+
+        VehicleTraceRecorder recorder = listener.getRecorder();
+        writeMovements(writer, recorder, 0, recorder.getNumberOfMovements());
+
+        writer.close();
+    }
+
+    public void writeActivities(File path) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path)));
+
+        writeActivitiesHeader(writer);
+
+        VehicleTraceRecorder recorder = listener.getRecorder();
+        writeActivities(writer, recorder, 0, recorder.getNumberOfActivities());
+
+        writer.close();
+    }
+
+    static void writeMovementsHeader(BufferedWriter writer) throws IOException {
         writer.write(String.join(";", new String[] { //
                 "operator_id", //
                 "vehicle_id", //
@@ -30,34 +52,36 @@ public class VehicleAnalysisWriter {
                 "distance", //
                 "number_of_passengers" //
         }) + "\n");
+    }
+
+    static void writeMovements(BufferedWriter writer, VehicleTraceRecorder recorder, int fromRow, int toRow)
+            throws IOException {
+        for (int row = fromRow; row < toRow; row++) {
+            Link originLink = recorder.getOriginLink(row);
+            Link destinationLink = recorder.getDestinationLink(row);
 
-        for (VehicleMovementItem movement : listener.getMovements()) {
             writer.write(String.join(";", new String[] { //
-                    String.valueOf(movement.mode), //
-                    String.valueOf(movement.vehicleId), //
+                    String.valueOf(recorder.getMovementMode(row)), //
+                    String.valueOf(recorder.getMovementVehicleId(row)), //
 
-                    String.valueOf(movement.originLink.getId()), //
-                    String.valueOf(movement.originLink.getCoord().getX()), //
-                    String.valueOf(movement.originLink.getCoord().getY()), //
+                    String.valueOf(originLink.getId()), //
+                    String.valueOf(originLink.getCoord().getX()), //
+                    String.valueOf(originLink.getCoord().getY()), //
 
-                    movement.destinationLink == null ? "null" : String.valueOf(movement.destinationLink.getId()), //
-                    movement.destinationLink == null ? "NaN" : String.valueOf(movement.destinationLink.getCoord().getX()), //
-                    movement.destinationLink == null ? "NaN" : String.valueOf(movement.destinationLink.getCoord().getY()), //
+                    destinationLink == null ? "null" : String.valueOf(destinationLink.getId()), //
+                    destinationLink == null ? "NaN" : String.valueOf(destinationLink.getCoord().getX()), //
+                    destinationLink == null ? "NaN" : String.valueOf(destinationLink.getCoord().getY()), //
 
-                    String.valueOf(movement.departureTime), //
-                    String.valueOf(movement.arrivalTime), //
+                    String.valueOf(recorder.getDepartureTime(row)), //
+                    String.valueOf(recorder.getArrivalTime(row)), //
 
-                    String.valueOf(movement.distance), //
-                    String.valueOf(movement.numberOfPassengers) //
+                    String.valueOf(recorder.getDistance(row)), //
+                    String.valueOf(recorder.getNumberOfPassengers(row)) //
             }) + "\n");
         }
-
-        writer.close();
     }
 
-    public void writeActivities(File path) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path)));
-
+    static void writeActivitiesHeader(BufferedWriter writer) throws IOException {
         writer.write(String.join(";", new String[] { //
                 "operator_id", //
                 "vehicle_id", //
@@ -71,23 +95,26 @@ public class VehicleAnalysisWriter {
 
                 "type" //
         }) + "\n");
+    }
+
+    static void writeActivities(BufferedWriter writer, VehicleTraceRecorder recorder, int fromRow, int toRow)
+            throws IOException {
+        for (int row = fromRow; row < toRow; row++) {
+            Link link = recorder.getActivityLink(row);
 
-        for (VehicleActivityItem activity : listener.getActivities()) {
             writer.write(String.join(";", new String[] { //
-                    String.valueOf(activity.mode), //
-                    String.valueOf(activity.vehicleId), //
+                    String.valueOf(recorder.getActivityMode(row)), //
+                    String.valueOf(recorder.getActivityVehicleId(row)), //
 
-                    String.valueOf(activity.link.getId()), //
-                    String.valueOf(activity.link.getCoord().getX()), //
-                    String.valueOf(activity.link.getCoord().getY()), //
+                    String.valueOf(link.getId()), //
+                    String.valueOf(link.getCoord().getX()), //
+                    String.valueOf(link.getCoord().getY()), //
 
-                    String.valueOf(activity.startTime), //
-                    String.valueOf(activity.endTime), //
+                    String.valueOf(recorder.getStartTime(row)), //
+                    String.valueOf(recorder.getEndTime(row)), //
 
-                    activity.type //
+                    recorder.getActivityType(row) //
             }) + "\n");
         }
-
-        writer.close();
     }
 }
@@ -0,0 +1,107 @@
+package org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles;
+
+import org.eqasim.core.simulation.modes.drt.analysis.utils.LinkFinder;
+import org.matsim.api.core.v01.Id;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the files written by {@link VehicleTraceBinaryWriter}.
+ */
+public class VehicleTraceBinaryReader {
+    private final LinkFinder linkFinder;
+
+    public VehicleTraceBinaryReader(LinkFinder linkFinder) {
+        this.linkFinder = linkFinder;
+    }
+
+    static private DataInputStream open(File path, byte expectedKind) throws IOException {
+        DataInputStream stream = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(path), 1 << 16)));
+
+        if (stream.readInt() != VehicleTraceBinaryWriter.MAGIC) {
+            stream.close();
+            throw new IOException("Not a vehicle trace file: " + path);
+        }
+
+        int version = stream.readInt();
+
+        if (version != VehicleTraceBinaryWriter.VERSION) {
+            stream.close();
+            throw new IOException("Unsupported vehicle trace version " + version + " in " + path);
+        }
+
+        if (stream.readByte() != expectedKind) {
+            stream.close();
+            throw new IOException("Unexpected content in vehicle trace file: " + path);
+        }
+
+        return stream;
+    }
+
+    static private String readString(DataInputStream stream, List<String> dictionary) throws IOException {
+        int code = stream.readInt();
+
+        if (code < 0) {
+            return null;
+        } else if (code == dictionary.size()) {
+            dictionary.add(stream.readUTF());
+        }
+
+        return dictionary.get(code);
+    }
+
+    public List<VehicleMovementItem> readMovements(File path) throws IOException {
+        List<VehicleMovementItem> movements = new ArrayList<>();
+        List<String> dictionary = new ArrayList<>();
+
+        try (DataInputStream stream = open(path, VehicleTraceBinaryWriter.MOVEMENTS)) {
+            while (stream.readByte() == VehicleTraceBinaryWriter.RECORD) {
+                VehicleMovementItem movement = new VehicleMovementItem();
+
+                movement.mode = readString(stream, dictionary);
+                movement.vehicleId = Id.createVehicleId(readString(stream, dictionary));
+                movement.originLink = linkFinder.getLink(Id.createLinkId(readString(stream, dictionary)));
+
+                String destinationLinkId = readString(stream, dictionary);
+                movement.destinationLink = destinationLinkId == null ? null
+                        : linkFinder.getLink(Id.createLinkId(destinationLinkId));
+
+                movement.departureTime = stream.readDouble();
+                movement.arrivalTime = stream.readDouble();
+                movement.distance = stream.readDouble();
+                movement.numberOfPassengers = stream.readInt();
+
+                movements.add(movement);
+            }
+        }
+
+        return movements;
+    }
+
+    public List<VehicleActivityItem> readActivities(File path) throws IOException {
+        List<VehicleActivityItem> activities = new ArrayList<>();
+        List<String> dictionary = new ArrayList<>();
+
+        try (DataInputStream stream = open(path, VehicleTraceBinaryWriter.ACTIVITIES)) {
+            while (stream.readByte() == VehicleTraceBinaryWriter.RECORD) {
+                VehicleActivityItem activity = new VehicleActivityItem();
+
+                activity.mode = readString(stream, dictionary);
+                activity.vehicleId = Id.createVehicleId(readString(stream, dictionary));
+                activity.link = linkFinder.getLink(Id.createLinkId(readString(stream, dictionary)));
+                activity.type = readString(stream, dictionary);
+
+                activity.startTime = stream.readDouble();
+                activity.endTime = stream.readDouble();
+
+                activities.add(activity);
+            }
+        }
+
+        return activities;
+    }
+}
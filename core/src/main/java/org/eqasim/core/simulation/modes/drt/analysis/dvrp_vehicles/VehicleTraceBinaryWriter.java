@@ -0,0 +1,110 @@
+package org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the rows of a {@link VehicleTraceRecorder} incrementally to a compact
+ * binary format, one file for movements and one for activities. Operators,
+ * vehicles, links and activity types are dictionary-encoded: a string is
+ * written once, together with its code, when it first appears, and only its
+ * code afterwards. Times, distances and passenger counts are written as
+ * primitives. The files are compressed and can be read with
+ * {@link VehicleTraceBinaryReader}.
+ */
+public class VehicleTraceBinaryWriter implements VehicleTraceSink {
+    static final int MAGIC = 0x45445654;
+    static final int VERSION = 1;
+
+    static final byte MOVEMENTS = 0;
+    static final byte ACTIVITIES = 1;
+
+    static final byte RECORD = 1;
+    static final byte END = 0;
+
+    private final DataOutputStream movementsStream;
+    private final DataOutputStream activitiesStream;
+
+    private final Map<String, Integer> movementsDictionary = new HashMap<>();
+    private final Map<String, Integer> activitiesDictionary = new HashMap<>();
+
+    public VehicleTraceBinaryWriter(File movementsPath, File activitiesPath) throws IOException {
+        this.movementsStream = open(movementsPath, MOVEMENTS);
+        this.activitiesStream = open(activitiesPath, ACTIVITIES);
+    }
+
+    static private DataOutputStream open(File path, byte kind) throws IOException {
+        DataOutputStream stream = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(path), 1 << 16)));
+
+        stream.writeInt(MAGIC);
+        stream.writeInt(VERSION);
+        stream.writeByte(kind);
+
+        return stream;
+    }
+
+    static private void writeString(DataOutputStream stream, Map<String, Integer> dictionary, String value)
+            throws IOException {
+        if (value == null) {
+            stream.writeInt(-1);
+            return;
+        }
+
+        Integer code = dictionary.get(value);
+
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.put(value, code);
+
+            stream.writeInt(code);
+            stream.writeUTF(value);
+        } else {
+            stream.writeInt(code);
+        }
+    }
+
+    @Override
+    public void writeMovements(VehicleTraceRecorder recorder, int fromRow, int toRow) throws IOException {
+        for (int row = fromRow; row < toRow; row++) {
+            movementsStream.writeByte(RECORD);
+
+            writeString(movementsStream, movementsDictionary, recorder.getMovementMode(row));
+            writeString(movementsStream, movementsDictionary, recorder.getMovementVehicleId(row).toString());
+            writeString(movementsStream, movementsDictionary, recorder.getOriginLink(row).getId().toString());
+            writeString(movementsStream, movementsDictionary, recorder.getDestinationLink(row) == null ? null
+                    : recorder.getDestinationLink(row).getId().toString());
+
+            movementsStream.writeDouble(recorder.getDepartureTime(row));
+            movementsStream.writeDouble(recorder.getArrivalTime(row));
+            movementsStream.writeDouble(recorder.getDistance(row));
+            movementsStream.writeInt(recorder.getNumberOfPassengers(row));
+        }
+    }
+
+    @Override
+    public void writeActivities(VehicleTraceRecorder recorder, int fromRow, int toRow) throws IOException {
+        for (int row = fromRow; row < toRow; row++) {
+            activitiesStream.writeByte(RECORD);
+
+            writeString(activitiesStream, activitiesDictionary, recorder.getActivityMode(row));
+            writeString(activitiesStream, activitiesDictionary, recorder.getActivityVehicleId(row).toString());
+            writeString(activitiesStream, activitiesDictionary, recorder.getActivityLink(row).getId().toString());
+            writeString(activitiesStream, activitiesDictionary, recorder.getActivityType(row));
+
+            activitiesStream.writeDouble(recorder.getStartTime(row));
+            activitiesStream.writeDouble(recorder.getEndTime(row));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        movementsStream.writeByte(END);
+        movementsStream.close();
+
+        activitiesStream.writeByte(END);
+        activitiesStream.close();
+    }
+}
@@ -0,0 +1,37 @@
+package org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles;
+
+import java.io.*;
+
+/**
+ * Writes the rows of a {@link VehicleTraceRecorder} incrementally to the
+ * movements and activities CSV files produced by
+ * {@link VehicleAnalysisWriter}.
+ */
+public class VehicleTraceCsvWriter implements VehicleTraceSink {
+    private final BufferedWriter movementsWriter;
+    private final BufferedWriter activitiesWriter;
+
+    public VehicleTraceCsvWriter(File movementsPath, File activitiesPath) throws IOException {
+        this.movementsWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(movementsPath)));
+        this.activitiesWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(activitiesPath)));
+
+        VehicleAnalysisWriter.writeMovementsHeader(movementsWriter);
+        VehicleAnalysisWriter.writeActivitiesHeader(activitiesWriter);
+    }
+
+    @Override
+    public void writeMovements(VehicleTraceRecorder recorder, int fromRow, int toRow) throws IOException {
+        VehicleAnalysisWriter.writeMovements(movementsWriter, recorder, fromRow, toRow);
+    }
+
+    @Override
+    public void writeActivities(VehicleTraceRecorder recorder, int fromRow, int toRow) throws IOException {
+        VehicleAnalysisWriter.writeActivities(activitiesWriter, recorder, fromRow, toRow);
+    }
+
+    @Override
+    public void close() throws IOException {
+        movementsWriter.close();
+        activitiesWriter.close();
+    }
+}
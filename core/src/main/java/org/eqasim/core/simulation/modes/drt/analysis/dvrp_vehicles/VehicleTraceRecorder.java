@@ -0,0 +1,392 @@
+package org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles;
+
+import org.eqasim.core.simulation.modes.drt.analysis.utils.LinkFinder;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.vehicles.Vehicle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the movements and activities of fleet vehicles in growable primitive
+ * columns. Vehicles and links are stored by their id index, and modes and
+ * activity types are interned. The rows that are currently open are tracked in
+ * arrays by vehicle index.
+ *
+ * Rows are kept in the order in which they are created. A row is open as long
+ * as it is the current row of its vehicle. Completed rows can be passed to a
+ * {@link VehicleTraceSink} and are then removed, while the open rows are moved
+ * to the front, so at most one movement and one activity per vehicle remain in
+ * memory between flushes. Hence, rows arrive at the sink in creation order per
+ * flush, but a row that stays open across a flush is written later than rows
+ * created after it. Row numbers passed to the getters are relative to the rows
+ * currently held.
+ */
+public class VehicleTraceRecorder {
+    private final static int INITIAL_CAPACITY = 1024;
+
+    private final LinkFinder linkFinder;
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+
+    // Movements
+    private int numberOfMovements = 0;
+
+    private int[] movementModes = new int[INITIAL_CAPACITY];
+    private int[] movementVehicles = new int[INITIAL_CAPACITY];
+    private int[] originLinks = new int[INITIAL_CAPACITY];
+    private int[] destinationLinks = new int[INITIAL_CAPACITY];
+    private double[] departureTimes = new double[INITIAL_CAPACITY];
+    private double[] arrivalTimes = new double[INITIAL_CAPACITY];
+    private double[] distances = new double[INITIAL_CAPACITY];
+    private int[] numberOfPassengers = new int[INITIAL_CAPACITY];
+
+    // Activities
+    private int numberOfActivities = 0;
+
+    private int[] activityModes = new int[INITIAL_CAPACITY];
+    private int[] activityVehicles = new int[INITIAL_CAPACITY];
+    private int[] activityLinks = new int[INITIAL_CAPACITY];
+    private int[] activityTypes = new int[INITIAL_CAPACITY];
+    private double[] startTimes = new double[INITIAL_CAPACITY];
+    private double[] endTimes = new double[INITIAL_CAPACITY];
+
+    // Open rows by vehicle index, -1 if none
+    private int[] openMovements = new int[0];
+    private int[] openActivities = new int[0];
+
+    public VehicleTraceRecorder(LinkFinder linkFinder) {
+        this.linkFinder = linkFinder;
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+
+        Integer index = stringIndices.get(value);
+
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            stringIndices.put(value, index);
+        }
+
+        return index;
+    }
+
+    private String getString(int index) {
+        return index < 0 ? null : strings.get(index);
+    }
+
+    private int[] ensureOpenCapacity(int[] open, int vehicleIndex) {
+        if (vehicleIndex >= open.length) {
+            int previousSize = open.length;
+            open = Arrays.copyOf(open, Math.max(vehicleIndex + 1, Math.max(16, 2 * previousSize)));
+            Arrays.fill(open, previousSize, open.length, -1);
+        }
+
+        return open;
+    }
+
+    private void ensureMovementCapacity() {
+        if (numberOfMovements == movementModes.length) {
+            int size = 2 * numberOfMovements;
+
+            movementModes = Arrays.copyOf(movementModes, size);
+            movementVehicles = Arrays.copyOf(movementVehicles, size);
+            originLinks = Arrays.copyOf(originLinks, size);
+            destinationLinks = Arrays.copyOf(destinationLinks, size);
+            departureTimes = Arrays.copyOf(departureTimes, size);
+            arrivalTimes = Arrays.copyOf(arrivalTimes, size);
+            distances = Arrays.copyOf(distances, size);
+            numberOfPassengers = Arrays.copyOf(numberOfPassengers, size);
+        }
+    }
+
+    private void ensureActivityCapacity() {
+        if (numberOfActivities == activityModes.length) {
+            int size = 2 * numberOfActivities;
+
+            activityModes = Arrays.copyOf(activityModes, size);
+            activityVehicles = Arrays.copyOf(activityVehicles, size);
+            activityLinks = Arrays.copyOf(activityLinks, size);
+            activityTypes = Arrays.copyOf(activityTypes, size);
+            startTimes = Arrays.copyOf(startTimes, size);
+            endTimes = Arrays.copyOf(endTimes, size);
+        }
+    }
+
+    public void startMovement(int vehicleIndex, String mode, Id<Link> originLinkId, double departureTime) {
+        int originLink = linkFinder.getLink(originLinkId).getId().index();
+
+        ensureMovementCapacity();
+        int row = numberOfMovements++;
+
+        movementModes[row] = intern(mode);
+        movementVehicles[row] = vehicleIndex;
+        originLinks[row] = originLink;
+        destinationLinks[row] = -1;
+        departureTimes[row] = departureTime;
+        arrivalTimes[row] = Double.NaN;
+        distances[row] = 0.0;
+        numberOfPassengers[row] = 0;
+
+        openMovements = ensureOpenCapacity(openMovements, vehicleIndex);
+        openMovements[vehicleIndex] = row;
+    }
+
+    private int getOpenMovement(int vehicleIndex) {
+        return vehicleIndex < openMovements.length ? openMovements[vehicleIndex] : -1;
+    }
+
+    public void addDistance(int vehicleIndex, double distance) {
+        int row = getOpenMovement(vehicleIndex);
+
+        if (row < 0) {
+            throw new IllegalStateException("Found link enter event without departure");
+        }
+
+        distances[row] += distance;
+    }
+
+    public void endMovement(int vehicleIndex, Id<Link> destinationLinkId, double arrivalTime, int passengers) {
+        int row = getOpenMovement(vehicleIndex);
+
+        if (row < 0) {
+            throw new IllegalStateException("Found arrival without departure");
+        }
+
+        int destinationLink = linkFinder.getLink(destinationLinkId).getId().index();
+        openMovements[vehicleIndex] = -1;
+
+        destinationLinks[row] = destinationLink;
+        arrivalTimes[row] = arrivalTime;
+        numberOfPassengers[row] = passengers;
+    }
+
+    public void startActivity(int vehicleIndex, String mode, Id<Link> linkId, String type, double startTime) {
+        int link = linkFinder.getLink(linkId).getId().index();
+
+        ensureActivityCapacity();
+        int row = numberOfActivities++;
+
+        activityModes[row] = intern(mode);
+        activityVehicles[row] = vehicleIndex;
+        activityLinks[row] = link;
+        activityTypes[row] = intern(type);
+        startTimes[row] = startTime;
+        endTimes[row] = Double.NaN;
+
+        openActivities = ensureOpenCapacity(openActivities, vehicleIndex);
+        openActivities[vehicleIndex] = row;
+    }
+
+    /**
+     * Ends the open activity of the vehicle, or records an activity that has
+     * only an end time if none was started.
+     */
+    public void endActivity(int vehicleIndex, String mode, Id<Link> linkId, String type, double endTime) {
+        int link = linkFinder.getLink(linkId).getId().index();
+        openActivities = ensureOpenCapacity(openActivities, vehicleIndex);
+        int row = openActivities[vehicleIndex];
+
+        if (row >= 0) {
+            openActivities[vehicleIndex] = -1;
+        } else {
+            ensureActivityCapacity();
+            row = numberOfActivities++;
+            startTimes[row] = Double.NaN;
+        }
+
+        activityModes[row] = intern(mode);
+        activityVehicles[row] = vehicleIndex;
+        activityLinks[row] = link;
+        activityTypes[row] = intern(type);
+        endTimes[row] = endTime;
+    }
+
+    public int getNumberOfMovements() {
+        return numberOfMovements;
+    }
+
+    public int getNumberOfActivities() {
+        return numberOfActivities;
+    }
+
+    public String getMovementMode(int row) {
+        return getString(movementModes[row]);
+    }
+
+    public Id<Vehicle> getMovementVehicleId(int row) {
+        return Id.get(movementVehicles[row], Vehicle.class);
+    }
+
+    public Link getOriginLink(int row) {
+        return linkFinder.getLink(Id.get(originLinks[row], Link.class));
+    }
+
+    public Link getDestinationLink(int row) {
+        return destinationLinks[row] < 0 ? null : linkFinder.getLink(Id.get(destinationLinks[row], Link.class));
+    }
+
+    public double getDepartureTime(int row) {
+        return departureTimes[row];
+    }
+
+    public double getArrivalTime(int row) {
+        return arrivalTimes[row];
+    }
+
+    public double getDistance(int row) {
+        return distances[row];
+    }
+
+    public int getNumberOfPassengers(int row) {
+        return numberOfPassengers[row];
+    }
+
+    public String getActivityMode(int row) {
+        return getString(activityModes[row]);
+    }
+
+    public Id<Vehicle> getActivityVehicleId(int row) {
+        return Id.get(activityVehicles[row], Vehicle.class);
+    }
+
+    public Link getActivityLink(int row) {
+        return linkFinder.getLink(Id.get(activityLinks[row], Link.class));
+    }
+
+    public String getActivityType(int row) {
+        return getString(activityTypes[row]);
+    }
+
+    public double getStartTime(int row) {
+        return startTimes[row];
+    }
+
+    public double getEndTime(int row) {
+        return endTimes[row];
+    }
+
+    private boolean isOpenMovement(int row) {
+        return openMovements[movementVehicles[row]] == row;
+    }
+
+    private boolean isOpenActivity(int row) {
+        return openActivities[activityVehicles[row]] == row;
+    }
+
+    /**
+     * Passes rows to the sink and removes them. Without force, only the completed
+     * rows are passed, in runs between the open rows, and the open rows are kept.
+     * With force, all rows are passed and open rows cannot be updated anymore.
+     */
+    public void flush(VehicleTraceSink sink, boolean force) throws IOException {
+        if (force) {
+            if (numberOfMovements > 0) {
+                sink.writeMovements(this, 0, numberOfMovements);
+            }
+
+            if (numberOfActivities > 0) {
+                sink.writeActivities(this, 0, numberOfActivities);
+            }
+
+            clear();
+            return;
+        }
+
+        flushMovements(sink);
+        flushActivities(sink);
+    }
+
+    private void flushMovements(VehicleTraceSink sink) throws IOException {
+        int runStart = 0;
+
+        for (int row = 0; row < numberOfMovements; row++) {
+            if (isOpenMovement(row)) {
+                if (runStart < row) {
+                    sink.writeMovements(this, runStart, row);
+                }
+
+                runStart = row + 1;
+            }
+        }
+
+        if (runStart < numberOfMovements) {
+            sink.writeMovements(this, runStart, numberOfMovements);
+        }
+
+        // Move the open rows to the front, the target row is never behind the source
+        int remaining = 0;
+
+        for (int row = 0; row < numberOfMovements; row++) {
+            if (isOpenMovement(row)) {
+                movementModes[remaining] = movementModes[row];
+                movementVehicles[remaining] = movementVehicles[row];
+                originLinks[remaining] = originLinks[row];
+                destinationLinks[remaining] = destinationLinks[row];
+                departureTimes[remaining] = departureTimes[row];
+                arrivalTimes[remaining] = arrivalTimes[row];
+                distances[remaining] = distances[row];
+                numberOfPassengers[remaining] = numberOfPassengers[row];
+
+                openMovements[movementVehicles[row]] = remaining;
+                remaining++;
+            }
+        }
+
+        numberOfMovements = remaining;
+    }
+
+    private void flushActivities(VehicleTraceSink sink) throws IOException {
+        int runStart = 0;
+
+        for (int row = 0; row < numberOfActivities; row++) {
+            if (isOpenActivity(row)) {
+                if (runStart < row) {
+                    sink.writeActivities(this, runStart, row);
+                }
+
+                runStart = row + 1;
+            }
+        }
+
+        if (runStart < numberOfActivities) {
+            sink.writeActivities(this, runStart, numberOfActivities);
+        }
+
+        int remaining = 0;
+
+        for (int row = 0; row < numberOfActivities; row++) {
+            if (isOpenActivity(row)) {
+                activityModes[remaining] = activityModes[row];
+                activityVehicles[remaining] = activityVehicles[row];
+                activityLinks[remaining] = activityLinks[row];
+                activityTypes[remaining] = activityTypes[row];
+                startTimes[remaining] = startTimes[row];
+                endTimes[remaining] = endTimes[row];
+
+                openActivities[activityVehicles[row]] = remaining;
+                remaining++;
+            }
+        }
+
+        numberOfActivities = remaining;
+    }
+
+    public void clear() {
+        numberOfMovements = 0;
+        numberOfActivities = 0;
+
+        Arrays.fill(openMovements, -1);
+        Arrays.fill(openActivities, -1);
+    }
+}
@@ -0,0 +1,14 @@
+package org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives rows from a {@link VehicleTraceRecorder} before they are removed.
+ * The rows are given as a range of the rows currently held by the recorder.
+ */
+public interface VehicleTraceSink extends Closeable {
+    void writeMovements(VehicleTraceRecorder recorder, int fromRow, int toRow) throws IOException;
+
+    void writeActivities(VehicleTraceRecorder recorder, int fromRow, int toRow) throws IOException;
+}
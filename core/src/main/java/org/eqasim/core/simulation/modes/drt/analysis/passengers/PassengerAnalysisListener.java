@@ -18,7 +18,7 @@ public class PassengerAnalysisListener implements PersonDepartureEventHandler, P
 	private final PassengerTracker passengers = new PassengerTracker();
 
 	private final List<PassengerRideItem> rides = new LinkedList<>();
-	private final Map<Id<Person>, PassengerRideItem> currentRides = new HashMap<>();
+	private PassengerRideItem[] currentRides = new PassengerRideItem[0];
 
 	public PassengerAnalysisListener(Collection<String> modes, LinkFinder linkFinder, VehicleRegistry vehicleRegistry) {
 		this.linkFinder = linkFinder;
@@ -26,9 +26,13 @@ public class PassengerAnalysisListener implements PersonDepartureEventHandler, P
 		this.vehicleRegistry = vehicleRegistry;
 	}
 
+	private PassengerRideItem getCurrentRide(int personIndex) {
+		return personIndex < currentRides.length ? currentRides[personIndex] : null;
+	}
+
 	@Override
 	public void handleEvent(PersonDepartureEvent event) {
-		if (!vehicleRegistry.isFleet(event.getPersonId())) {
+		if (!vehicleRegistry.isFleetPerson(event.getPersonId())) {
 			if (modes.contains(event.getLegMode())) {
 				PassengerRideItem ride = new PassengerRideItem();
 				rides.add(ride);
@@ -40,18 +44,32 @@ public class PassengerAnalysisListener implements PersonDepartureEventHandler, P
 				ride.departureTime = event.getTime();
 				ride.originLink = linkFinder.getLink(event.getLinkId());
 
-				currentRides.put(event.getPersonId(), ride);
+				int personIndex = event.getPersonId().index();
+
+				if (personIndex >= currentRides.length) {
+					currentRides = Arrays.copyOf(currentRides, Math.max(personIndex + 1,
+							Math.max(Id.getNumberOfIds(Person.class), 2 * currentRides.length)));
+				}
+
+				currentRides[personIndex] = ride;
 			}
 		}
 	}
 
 	@Override
 	public void handleEvent(LinkEnterEvent event) {
-		if (vehicleRegistry.isFleet(event.getVehicleId())) {
+		if (vehicleRegistry.isFleetVehicle(event.getVehicleId())) {
+			int vehicleIndex = event.getVehicleId().index();
+			int numberOfPassengers = passengers.getNumberOfPassengers(vehicleIndex);
+
+			if (numberOfPassengers == 0) {
+				return;
+			}
+
 			double distance = linkFinder.getDistance(event.getLinkId());
 
-			for (Id<Person> passengerId : passengers.getPassengerIds(event.getVehicleId())) {
-				PassengerRideItem ride = currentRides.get(passengerId);
+			for (int i = 0; i < numberOfPassengers; i++) {
+				PassengerRideItem ride = getCurrentRide(passengers.getPassengerIndex(vehicleIndex, i));
 
 				if (ride == null) {
 					throw new IllegalStateException("Found vehicle enter link without departure");
@@ -64,9 +82,9 @@ public class PassengerAnalysisListener implements PersonDepartureEventHandler, P
 
 	@Override
 	public void handleEvent(PersonEntersVehicleEvent event) {
-		if (!vehicleRegistry.isFleet(event.getPersonId())) {
-			if (vehicleRegistry.isFleet(event.getVehicleId())) {
-				PassengerRideItem ride = currentRides.get(event.getPersonId());
+		if (!vehicleRegistry.isFleetPerson(event.getPersonId())) {
+			if (vehicleRegistry.isFleetVehicle(event.getVehicleId())) {
+				PassengerRideItem ride = getCurrentRide(event.getPersonId().index());
 
 				if (ride == null) {
 					throw new IllegalStateException("Found vehicle enter event without departure");
@@ -82,8 +100,8 @@ public class PassengerAnalysisListener implements PersonDepartureEventHandler, P
 
 	@Override
 	public void handleEvent(PersonLeavesVehicleEvent event) {
-		if (!vehicleRegistry.isFleet(event.getPersonId())) {
-			if (vehicleRegistry.isFleet(event.getVehicleId())) {
+		if (!vehicleRegistry.isFleetPerson(event.getPersonId())) {
+			if (vehicleRegistry.isFleetVehicle(event.getVehicleId())) {
 				passengers.removePassenger(event.getVehicleId(), event.getPersonId());
 			}
 		}
@@ -91,10 +109,13 @@ public class PassengerAnalysisListener implements PersonDepartureEventHandler, P
 
 	@Override
 	public void handleEvent(PersonArrivalEvent event) {
-		if (!vehicleRegistry.isFleet(event.getPersonId())) {
-			PassengerRideItem ride = currentRides.remove(event.getPersonId());
+		if (!vehicleRegistry.isFleetPerson(event.getPersonId())) {
+			int personIndex = event.getPersonId().index();
+			PassengerRideItem ride = getCurrentRide(personIndex);
 
 			if (ride != null) {
+				currentRides[personIndex] = null;
+
 				ride.arrivalTime = event.getTime();
 				ride.destinationLink = linkFinder.getLink(event.getLinkId());
 			}
@@ -105,7 +126,7 @@ public class PassengerAnalysisListener implements PersonDepartureEventHandler, P
 	public void reset(int iteration) {
 		passengers.clear();
 		rides.clear();
-		currentRides.clear();
+		Arrays.fill(currentRides, null);
 	}
 
 	public List<PassengerRideItem> getRides() {
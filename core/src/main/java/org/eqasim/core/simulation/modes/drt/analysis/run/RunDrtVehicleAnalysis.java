@@ -1,7 +1,9 @@
 package org.eqasim.core.simulation.modes.drt.analysis.run;
 
 import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleAnalysisListener;
-import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleAnalysisWriter;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleTraceBinaryWriter;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleTraceCsvWriter;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleTraceSink;
 import org.eqasim.core.simulation.modes.drt.analysis.utils.LinkFinder;
 import org.eqasim.core.simulation.modes.drt.analysis.utils.VehicleRegistry;
 import org.matsim.api.core.v01.network.Network;
@@ -21,12 +23,15 @@ public class RunDrtVehicleAnalysis {
 	static public void main(String[] args) throws ConfigurationException, IOException {
 		CommandLine cmd = new CommandLine.Builder(args) //
 				.requireOptions("events-path", "network-path", "movements-output-path", "activities-output-path") //
+				.allowOptions("format", "flush-threshold") //
 				.build();
 
 		String eventsPath = cmd.getOptionStrict("events-path");
 		String networkPath = cmd.getOptionStrict("network-path");
 		String movementsOutputPath = cmd.getOptionStrict("movements-output-path");
 		String activitiesOutputPath = cmd.getOptionStrict("activities-output-path");
+		String format = cmd.getOption("format").orElse("csv");
+		int flushThreshold = cmd.getOption("flush-threshold").map(Integer::parseInt).orElse(10000);
 
 		Network network = NetworkUtils.createNetwork();
 		new MatsimNetworkReader(network).readFile(networkPath);
@@ -35,6 +40,22 @@ public class RunDrtVehicleAnalysis {
 		VehicleRegistry vehicleRegistry = new VehicleRegistry();
 		VehicleAnalysisListener listener = new VehicleAnalysisListener(linkFinder, vehicleRegistry);
 
+		// Completed rows are written while the events are read
+		VehicleTraceSink sink;
+
+		switch (format) {
+		case "csv":
+			sink = new VehicleTraceCsvWriter(new File(movementsOutputPath), new File(activitiesOutputPath));
+			break;
+		case "binary":
+			sink = new VehicleTraceBinaryWriter(new File(movementsOutputPath), new File(activitiesOutputPath));
+			break;
+		default:
+			throw new IllegalStateException("Unknown format: " + format);
+		}
+
+		listener.setSink(sink, flushThreshold);
+
 		EventsManager eventsManager = EventsUtils.createEventsManager();
 		eventsManager.addHandler(vehicleRegistry);
 		eventsManager.addHandler(listener);
@@ -43,7 +64,7 @@ public class RunDrtVehicleAnalysis {
 		DrtEventsReaders.createEventsReader(eventsManager).readFile(eventsPath);
 		eventsManager.finishProcessing();
 
-		new VehicleAnalysisWriter(listener).writeMovements(new File(movementsOutputPath));
-		new VehicleAnalysisWriter(listener).writeActivities(new File(activitiesOutputPath));
+		listener.flush();
+		sink.close();
 	}
 }
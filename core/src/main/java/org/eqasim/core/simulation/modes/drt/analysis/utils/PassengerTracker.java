@@ -6,49 +6,110 @@ import org.matsim.vehicles.Vehicle;
 
 import java.util.*;
 
+/**
+ * Tracks the passengers of each vehicle. Occupancy counts and the person
+ * indices of the passengers are kept in primitive arrays by vehicle index, so
+ * no collections are created while events are handled.
+ */
 public class PassengerTracker {
-    private final Map<Id<Vehicle>, Set<Id<Person>>> passengers = new HashMap<>();
+    private final static int[] EMPTY = new int[0];
 
-    private void ensurePassengers(Id<Vehicle> vehicleId) {
-        if (!passengers.containsKey(vehicleId)) {
-            passengers.put(vehicleId, new HashSet<>());
+    private int[][] passengers = new int[0][];
+    private int[] counts = new int[0];
+
+    private void ensureCapacity(int vehicleIndex) {
+        if (vehicleIndex >= counts.length) {
+            int size = Math.max(vehicleIndex + 1, Math.max(16, 2 * counts.length));
+            int previousSize = counts.length;
+
+            counts = Arrays.copyOf(counts, size);
+            passengers = Arrays.copyOf(passengers, size);
+
+            Arrays.fill(passengers, previousSize, size, EMPTY);
+        }
+    }
+
+    private int findPassenger(int vehicleIndex, int personIndex) {
+        int count = getNumberOfPassengers(vehicleIndex);
+        int[] vehiclePassengers = count > 0 ? passengers[vehicleIndex] : EMPTY;
+
+        for (int i = 0; i < count; i++) {
+            if (vehiclePassengers[i] == personIndex) {
+                return i;
+            }
         }
+
+        return -1;
     }
 
     public boolean hasPassenger(Id<Vehicle> vehicleId, Id<Person> passengerId) {
-        ensurePassengers(vehicleId);
-        return passengers.get(vehicleId).contains(passengerId);
+        return findPassenger(vehicleId.index(), passengerId.index()) >= 0;
     }
 
     public void addPassenger(Id<Vehicle> vehicleId, Id<Person> passengerId) {
-        ensurePassengers(vehicleId);
+        int vehicleIndex = vehicleId.index();
+        int personIndex = passengerId.index();
 
-        if (!passengers.get(vehicleId).add(passengerId)) {
+        if (findPassenger(vehicleIndex, personIndex) >= 0) {
             throw new IllegalStateException(String.format("Passenger '%s' is already in vehicle '%s'", passengerId, vehicleId));
         }
+
+        ensureCapacity(vehicleIndex);
+
+        int[] vehiclePassengers = passengers[vehicleIndex];
+        int count = counts[vehicleIndex];
+
+        if (count == vehiclePassengers.length) {
+            vehiclePassengers = Arrays.copyOf(vehiclePassengers, Math.max(4, 2 * count));
+            passengers[vehicleIndex] = vehiclePassengers;
+        }
+
+        vehiclePassengers[count] = personIndex;
+        counts[vehicleIndex] = count + 1;
     }
 
     public void removePassenger(Id<Vehicle> vehicleId, Id<Person> passengerId) {
-        ensurePassengers(vehicleId);
+        int vehicleIndex = vehicleId.index();
+        int position = findPassenger(vehicleIndex, passengerId.index());
 
-        if (!passengers.get(vehicleId).remove(passengerId)) {
+        if (position < 0) {
             throw new IllegalStateException(String.format("Passenger '%s' is not in vehicle '%s'", passengerId, vehicleId));
         }
+
+        int last = counts[vehicleIndex] - 1;
+        passengers[vehicleIndex][position] = passengers[vehicleIndex][last];
+        counts[vehicleIndex] = last;
     }
 
     public int getNumberOfPassengers(Id<Vehicle> vehicleId) {
-        ensurePassengers(vehicleId);
-        return passengers.get(vehicleId).size();
+        return getNumberOfPassengers(vehicleId.index());
+    }
+
+    public int getNumberOfPassengers(int vehicleIndex) {
+        return vehicleIndex < counts.length ? counts[vehicleIndex] : 0;
+    }
+
+    /**
+     * Returns the person index of the i-th passenger of a vehicle.
+     */
+    public int getPassengerIndex(int vehicleIndex, int i) {
+        return passengers[vehicleIndex][i];
     }
 
     public Collection<Id<Person>> getPassengerIds(Id<Vehicle> vehicleId) {
-        ensurePassengers(vehicleId);
-        return passengers.get(vehicleId);
+        int vehicleIndex = vehicleId.index();
+        int count = getNumberOfPassengers(vehicleIndex);
+
+        List<Id<Person>> passengerIds = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            passengerIds.add(Id.get(passengers[vehicleIndex][i], Person.class));
+        }
+
+        return passengerIds;
     }
 
     public void clear() {
-        for (Set<Id<Person>> passengerList : passengers.values()) {
-            passengerList.clear();
-        }
+        Arrays.fill(counts, 0);
     }
 }
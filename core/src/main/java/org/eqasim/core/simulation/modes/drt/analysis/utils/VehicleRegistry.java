@@ -1,24 +1,79 @@
 package org.eqasim.core.simulation.modes.drt.analysis.utils;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.vrpagent.TaskStartedEvent;
 import org.matsim.contrib.dvrp.vrpagent.TaskStartedEventHandler;
+import org.matsim.vehicles.Vehicle;
 
+/**
+ * Keeps track of the DVRP fleet vehicles and their modes. Since DVRP vehicles
+ * act as persons (drivers) and vehicles with the same identifier, the fleet is
+ * additionally indexed by person and vehicle index once a vehicle is seen for
+ * the first time. The typed lookups then avoid creating or looking up an Id for
+ * every event.
+ */
 public class VehicleRegistry implements TaskStartedEventHandler {
 	private final IdMap<DvrpVehicle, String> vehicleModes = new IdMap<>(DvrpVehicle.class);
 
+	private final BitSet fleetPersons = new BitSet();
+	private final BitSet fleetVehicles = new BitSet();
+	private String[] personModes = new String[0];
+	private int[] personVehicles = new int[0];
+
 	@Override
 	public void handleEvent(TaskStartedEvent event) {
-		vehicleModes.computeIfAbsent(event.getDvrpVehicleId(), id -> event.getDvrpMode());
+		if (!vehicleModes.containsKey(event.getDvrpVehicleId())) {
+			vehicleModes.put(event.getDvrpVehicleId(), event.getDvrpMode());
+
+			int personIndex = Id.createPersonId(event.getDvrpVehicleId()).index();
+			int vehicleIndex = Id.createVehicleId(event.getDvrpVehicleId()).index();
+
+			if (personIndex >= personModes.length) {
+				int size = Math.max(personIndex + 1, 2 * personModes.length);
+				personModes = Arrays.copyOf(personModes, size);
+				personVehicles = Arrays.copyOf(personVehicles, size);
+			}
+
+			personModes[personIndex] = event.getDvrpMode();
+			personVehicles[personIndex] = vehicleIndex;
+
+			fleetPersons.set(personIndex);
+			fleetVehicles.set(vehicleIndex);
+		}
 	}
 
 	public boolean isFleet(Id<?> id) {
 		return vehicleModes.containsKey(Id.create(id, DvrpVehicle.class));
 	}
 
+	public boolean isFleetPerson(Id<Person> personId) {
+		return fleetPersons.get(personId.index());
+	}
+
+	public boolean isFleetVehicle(Id<Vehicle> vehicleId) {
+		return fleetVehicles.get(vehicleId.index());
+	}
+
 	public String getMode(Id<?> id) {
 		return vehicleModes.get(Id.create(id, DvrpVehicle.class));
 	}
+
+	public String getModeByPerson(Id<Person> personId) {
+		int personIndex = personId.index();
+		return personIndex < personModes.length ? personModes[personIndex] : null;
+	}
+
+	/**
+	 * Returns the vehicle index of a fleet person, which must have been checked
+	 * with {@link #isFleetPerson(Id)} before.
+	 */
+	public int getVehicleIndexByPerson(Id<Person> personId) {
+		return personVehicles[personId.index()];
+	}
 }
@@ -0,0 +1,82 @@
+package org.eqasim.core.simulation.modes.drt.mode_choice.estimation;
+
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ReflectiveConfigGroup;
+
+public class DrtTimeEstimationConfigGroup extends ReflectiveConfigGroup {
+	static public final String GROUP_NAME = "eqasim:drtTimeEstimation";
+
+	public DrtTimeEstimationConfigGroup() {
+		super(GROUP_NAME);
+	}
+
+	static private final String ZONE_SIZE = "zoneSize";
+	static private final String INTERVAL = "interval";
+	static private final String END_TIME = "endTime";
+	static private final String SMOOTHING = "smoothing";
+	static private final String MINIMUM_OBSERVATIONS = "minimumObservations";
+
+	private double zoneSize = 1000.0;
+	private double interval = 900.0;
+	private double endTime = 30.0 * 3600.0;
+	private double smoothing = 0.3;
+	private int minimumObservations = 5;
+
+	@StringGetter(ZONE_SIZE)
+	public double getZoneSize() {
+		return zoneSize;
+	}
+
+	@StringSetter(ZONE_SIZE)
+	public void setZoneSize(double value) {
+		this.zoneSize = value;
+	}
+
+	@StringGetter(INTERVAL)
+	public double getInterval() {
+		return interval;
+	}
+
+	@StringSetter(INTERVAL)
+	public void setInterval(double value) {
+		this.interval = value;
+	}
+
+	@StringGetter(END_TIME)
+	public double getEndTime() {
+		return endTime;
+	}
+
+	@StringSetter(END_TIME)
+	public void setEndTime(double value) {
+		this.endTime = value;
+	}
+
+	@StringGetter(SMOOTHING)
+	public double getSmoothing() {
+		return smoothing;
+	}
+
+	@StringSetter(SMOOTHING)
+	public void setSmoothing(double value) {
+		this.smoothing = value;
+	}
+
+	@StringGetter(MINIMUM_OBSERVATIONS)
+	public int getMinimumObservations() {
+		return minimumObservations;
+	}
+
+	@StringSetter(MINIMUM_OBSERVATIONS)
+	public void setMinimumObservations(int value) {
+		this.minimumObservations = value;
+	}
+
+	static public DrtTimeEstimationConfigGroup getOrCreate(Config config) {
+		if (!config.getModules().containsKey(GROUP_NAME)) {
+			config.addModule(new DrtTimeEstimationConfigGroup());
+		}
+
+		return (DrtTimeEstimationConfigGroup) config.getModules().get(GROUP_NAME);
+	}
+}
@@ -0,0 +1,41 @@
+package org.eqasim.core.simulation.modes.drt.mode_choice.estimation;
+
+import org.eqasim.core.simulation.modes.drt.analysis.DrtAnalysisListener;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.Config;
+import org.matsim.core.controler.AbstractModule;
+
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+
+/**
+ * Provides the DrtTimeEstimator to the DefaultDrtPredictor (see
+ * EqasimModeChoiceModule) and feeds it with the rides recorded by the
+ * DrtAnalysisListener. Active if the eqasim:drtTimeEstimation config group is
+ * present.
+ */
+public class DrtTimeEstimationModule extends AbstractModule {
+	static public final String ESTIMATOR_NAME = "eqasim:drtTimeEstimator";
+
+	@Override
+	public void install() {
+		Key<DrtTimeEstimator> key = Key.get(DrtTimeEstimator.class, Names.named(ESTIMATOR_NAME));
+
+		OptionalBinder.newOptionalBinder(binder(), DrtTimeEstimator.class).setBinding().to(key);
+		addControlerListenerBinding().to(key);
+	}
+
+	@Provides
+	@Singleton
+	@Named(ESTIMATOR_NAME)
+	public DrtTimeEstimator provideDrtTimeEstimator(Config config, Network network,
+			DrtAnalysisListener analysisListener) {
+		DrtTimeEstimator estimator = DrtTimeEstimator.create(network, DrtTimeEstimationConfigGroup.getOrCreate(config));
+		analysisListener.addRideConsumer(estimator::addObservations);
+		return estimator;
+	}
+}
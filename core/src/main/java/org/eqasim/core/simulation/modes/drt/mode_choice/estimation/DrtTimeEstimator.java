@@ -0,0 +1,264 @@
+package org.eqasim.core.simulation.modes.drt.mode_choice.estimation;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eqasim.core.simulation.modes.drt.analysis.passengers.PassengerRideItem;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.utils.geometry.CoordUtils;
+
+/**
+ * Estimates DRT waiting times and ride times from the rides that have been
+ * observed in previous iterations. Observations are aggregated by origin zone
+ * (a regular square grid over the network) and departure time bin. At the
+ * start of every iteration, the observations of the last iteration are blended
+ * into the estimates using exponential smoothing.
+ *
+ * Ride times are estimated as a pace (seconds per meter of Euclidean distance
+ * between origin and destination) to be independent of the trip length. Next
+ * to the zones, every time bin has an area-wide cell that is used if a zone has
+ * not seen enough rides. The methods return NaN if no estimate is available.
+ *
+ * Only cells in which rides have been observed are allocated, so memory grows
+ * with the number of visited zone-time cells rather than with the extent of
+ * the network.
+ */
+public class DrtTimeEstimator implements IterationStartsListener {
+	private final static Logger logger = LogManager.getLogger(DrtTimeEstimator.class);
+
+	private final static double MINIMUM_DISTANCE = 1.0;
+
+	private final double minX;
+	private final double minY;
+	private final double zoneSize;
+
+	private final int numberOfColumns;
+	private final int numberOfRows;
+	private final int numberOfZones;
+
+	private final double interval;
+	private final int numberOfBins;
+
+	private final double smoothing;
+	private final int minimumObservations;
+
+	private final Map<String, Table> tables = new HashMap<>();
+
+	public DrtTimeEstimator(double minX, double minY, double maxX, double maxY, double zoneSize, double interval,
+			double endTime, double smoothing, int minimumObservations) {
+		if (zoneSize <= 0.0 || interval <= 0.0) {
+			throw new IllegalArgumentException("Zone size and interval must be positive");
+		}
+
+		if (smoothing <= 0.0 || smoothing > 1.0) {
+			throw new IllegalArgumentException("Smoothing must be in (0, 1]");
+		}
+
+		this.minX = minX;
+		this.minY = minY;
+		this.zoneSize = zoneSize;
+
+		long numberOfColumns = Math.max(1, (long) Math.ceil((maxX - minX) / zoneSize));
+		long numberOfRows = Math.max(1, (long) Math.ceil((maxY - minY) / zoneSize));
+
+		if (numberOfColumns * numberOfRows >= Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(String.format(
+					"Zone size of %f results in %d x %d zones for the network extent, please choose a larger one",
+					zoneSize, numberOfColumns, numberOfRows));
+		}
+
+		this.numberOfColumns = (int) numberOfColumns;
+		this.numberOfRows = (int) numberOfRows;
+
+		// The last zone covers the whole area
+		this.numberOfZones = this.numberOfColumns * this.numberOfRows + 1;
+
+		this.interval = interval;
+		this.numberOfBins = Math.max(1, (int) Math.ceil(endTime / interval));
+
+		this.smoothing = smoothing;
+		this.minimumObservations = minimumObservations;
+	}
+
+	static public DrtTimeEstimator create(Network network, DrtTimeEstimationConfigGroup config) {
+		double[] bounds = NetworkUtils.getBoundingBox(network.getNodes().values());
+
+		return new DrtTimeEstimator(bounds[0], bounds[1], bounds[2], bounds[3], config.getZoneSize(),
+				config.getInterval(), config.getEndTime(), config.getSmoothing(), config.getMinimumObservations());
+	}
+
+	private int getZoneIndex(Coord coord) {
+		int column = (int) Math.floor((coord.getX() - minX) / zoneSize);
+		int row = (int) Math.floor((coord.getY() - minY) / zoneSize);
+
+		column = Math.min(Math.max(column, 0), numberOfColumns - 1);
+		row = Math.min(Math.max(row, 0), numberOfRows - 1);
+
+		return row * numberOfColumns + column;
+	}
+
+	private int getBinIndex(double time) {
+		return Math.min(Math.max((int) Math.floor(time / interval), 0), numberOfBins - 1);
+	}
+
+	private long getZoneCell(int binIndex, Coord coord) {
+		return (long) binIndex * numberOfZones + getZoneIndex(coord);
+	}
+
+	private long getAreaCell(int binIndex) {
+		return (long) binIndex * numberOfZones + numberOfZones - 1;
+	}
+
+	private Cell getEstimateCell(Table table, Coord origin, double departureTime, boolean ridePace) {
+		int binIndex = getBinIndex(departureTime);
+		Cell cell = table.cells.get(getZoneCell(binIndex, origin));
+
+		if (cell == null || Double.isNaN(ridePace ? cell.ridePace : cell.waitingTime)) {
+			cell = table.cells.get(getAreaCell(binIndex));
+		}
+
+		return cell;
+	}
+
+	/**
+	 * Returns the estimated waiting time in seconds or NaN.
+	 */
+	public double getWaitingTime(String mode, Coord origin, double departureTime) {
+		Table table = tables.get(mode);
+
+		if (table == null) {
+			return Double.NaN;
+		}
+
+		Cell cell = getEstimateCell(table, origin, departureTime, false);
+		return cell == null ? Double.NaN : cell.waitingTime;
+	}
+
+	/**
+	 * Returns the estimated in-vehicle time in seconds or NaN.
+	 */
+	public double getRideTime(String mode, Coord origin, Coord destination, double departureTime) {
+		Table table = tables.get(mode);
+
+		if (table == null) {
+			return Double.NaN;
+		}
+
+		Cell cell = getEstimateCell(table, origin, departureTime, true);
+		return cell == null ? Double.NaN : cell.ridePace * CoordUtils.calcEuclideanDistance(origin, destination);
+	}
+
+	/**
+	 * Collects the finished rides of one iteration. They are taken into account in
+	 * the estimates with the next call to {@link #update()}.
+	 */
+	public void addObservations(Collection<PassengerRideItem> rides) {
+		for (PassengerRideItem ride : rides) {
+			if (ride.vehicleId == null || Double.isNaN(ride.waitingTime) || Double.isNaN(ride.arrivalTime)) {
+				continue; // Ride has not been performed
+			}
+
+			Table table = tables.computeIfAbsent(ride.mode, mode -> new Table());
+
+			Coord origin = ride.originLink.getCoord();
+			int binIndex = getBinIndex(ride.departureTime);
+
+			Cell zoneCell = table.getOrCreate(getZoneCell(binIndex, origin));
+			Cell areaCell = table.getOrCreate(getAreaCell(binIndex));
+
+			zoneCell.addWaitingTime(ride.waitingTime);
+			areaCell.addWaitingTime(ride.waitingTime);
+
+			double distance = CoordUtils.calcEuclideanDistance(origin, ride.destinationLink.getCoord());
+
+			if (distance >= MINIMUM_DISTANCE) {
+				double pace = (ride.arrivalTime - ride.departureTime - ride.waitingTime) / distance;
+
+				zoneCell.addRidePace(pace);
+				areaCell.addRidePace(pace);
+			}
+		}
+	}
+
+	/**
+	 * Blends the collected observations into the estimates and resets them.
+	 */
+	public void update() {
+		for (Map.Entry<String, Table> entry : tables.entrySet()) {
+			int estimatedCells = 0;
+
+			for (Cell cell : entry.getValue().cells.values()) {
+				cell.waitingTime = update(cell.waitingTime, cell.waitingTimeSum, cell.waitingTimeObservations);
+				cell.ridePace = update(cell.ridePace, cell.ridePaceSum, cell.ridePaceObservations);
+
+				cell.waitingTimeSum = 0.0;
+				cell.ridePaceSum = 0.0;
+				cell.waitingTimeObservations = 0;
+				cell.ridePaceObservations = 0;
+
+				if (!Double.isNaN(cell.waitingTime)) {
+					estimatedCells++;
+				}
+			}
+
+			logger.info(String.format("DRT time estimates for mode %s cover %d of %d zone-time cells", entry.getKey(),
+					estimatedCells, (long) numberOfBins * numberOfZones));
+		}
+	}
+
+	private double update(double estimate, double sum, int observations) {
+		if (observations >= minimumObservations && observations > 0) {
+			double mean = sum / observations;
+
+			if (Double.isNaN(estimate)) {
+				return mean;
+			} else {
+				return (1.0 - smoothing) * estimate + smoothing * mean;
+			}
+		}
+
+		return estimate;
+	}
+
+	@Override
+	public void notifyIterationStarts(IterationStartsEvent event) {
+		update();
+	}
+
+	private static class Table {
+		// Cells by bin index * number of zones + zone index
+		final Map<Long, Cell> cells = new HashMap<>();
+
+		Cell getOrCreate(long index) {
+			return cells.computeIfAbsent(index, i -> new Cell());
+		}
+	}
+
+	private static class Cell {
+		double waitingTime = Double.NaN;
+		double ridePace = Double.NaN;
+
+		double waitingTimeSum;
+		double ridePaceSum;
+
+		int waitingTimeObservations;
+		int ridePaceObservations;
+
+		void addWaitingTime(double value) {
+			waitingTimeSum += value;
+			waitingTimeObservations++;
+		}
+
+		void addRidePace(double value) {
+			ridePaceSum += value;
+			ridePaceObservations++;
+		}
+	}
+}
@@ -2,7 +2,9 @@ package org.eqasim.core.simulation.modes.drt.mode_choice.predictors;
 
 import org.eqasim.core.simulation.mode_choice.cost.CostModel;
 import org.eqasim.core.simulation.mode_choice.utilities.predictors.PredictorUtils;
+import org.eqasim.core.simulation.modes.drt.mode_choice.estimation.DrtTimeEstimator;
 import org.eqasim.core.simulation.modes.drt.mode_choice.variables.DrtVariables;
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
@@ -16,9 +18,20 @@ import java.util.Map;
 
 public class DefaultDrtPredictor implements DrtPredictor {
     private Map<String, CostModel> costModels;
+    private final DrtTimeEstimator timeEstimator;
 
     public DefaultDrtPredictor(Map<String, CostModel> costModels) {
+        this(costModels, null);
+    }
+
+    /**
+     * @param timeEstimator If given, waiting and ride times are taken from the
+     *                      estimates observed in previous iterations where
+     *                      available instead of the worst case of the route.
+     */
+    public DefaultDrtPredictor(Map<String, CostModel> costModels, DrtTimeEstimator timeEstimator) {
         this.costModels = costModels;
+        this.timeEstimator = timeEstimator;
     }
 
 
@@ -37,6 +50,23 @@ public class DefaultDrtPredictor implements DrtPredictor {
                 travelTime_min = route.getMaxTravelTime() / 60.0;
                 waitingTime_min = route.getMaxWaitTime() / 60.0;
 
+                if (timeEstimator != null) {
+                    Coord origin = trip.getOriginActivity().getCoord();
+                    Coord destination = trip.getDestinationActivity().getCoord();
+                    double departureTime = leg.getDepartureTime().orElse(trip.getDepartureTime());
+
+                    double waitingTime = timeEstimator.getWaitingTime(leg.getMode(), origin, departureTime);
+                    double rideTime = timeEstimator.getRideTime(leg.getMode(), origin, destination, departureTime);
+
+                    if (!Double.isNaN(waitingTime)) {
+                        waitingTime_min = waitingTime / 60.0;
+                    }
+
+                    if (!Double.isNaN(rideTime)) {
+                        travelTime_min = rideTime / 60.0;
+                    }
+                }
+
                 cost_MU = costModels.get(leg.getMode()).calculateCost_MU(person, trip, elements);
 
             } else if (leg.getMode().equals(TransportMode.walk)) {
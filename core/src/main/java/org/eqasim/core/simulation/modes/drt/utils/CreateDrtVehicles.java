@@ -42,8 +42,8 @@ public class CreateDrtVehicles {
         new MatsimNetworkReader(network).readFile(cmd.getOptionStrict("network-path"));
         Stream<? extends Link> linkStream = network.getLinks().values().stream();
         if(serviceArea != null) {
-            ScenarioExtent extent = new ShapeScenarioExtent.Builder(new File(serviceArea), Optional.empty(), Optional.empty()).build();
-            linkStream = linkStream.filter(link -> extent.isInside(link.getFromNode().getCoord()) || extent.isInside(link.getToNode().getCoord()));
+            ScenarioExtent extent = new ShapeScenarioExtent.Builder(new File(serviceArea), Optional.empty(), Optional.empty()).buildPrepared();
+            linkStream = linkStream.filter(link -> extent.isInside(link.getFromNode()) || extent.isInside(link.getToNode()));
         }
         List<Id<Link>> linksIds = linkStream.filter(link -> link.getAllowedModes().stream().anyMatch(networkModes::contains)).map(Link::getId).toList();
         if(linksIds.size() == 0) {
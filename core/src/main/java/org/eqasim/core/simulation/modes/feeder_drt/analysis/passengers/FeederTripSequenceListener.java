@@ -5,89 +5,192 @@ import org.eqasim.core.components.transit.events.PublicTransitEventMapper;
 import org.eqasim.core.simulation.modes.drt.analysis.utils.VehicleRegistry;
 import org.eqasim.core.simulation.modes.feeder_drt.config.FeederDrtConfigGroup;
 import org.matsim.api.core.v01.Id;
-import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.events.*;
 import org.matsim.api.core.v01.events.handler.*;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.vehicles.Vehicle;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Reconstructs feeder trips from the events. Routing modes, leg modes and
+ * activity types are interned once into integer codes, and the state of every
+ * person is kept in arrays by person index: the feeder trip that is currently
+ * built, the origin link of the last main activity, the last fleet vehicle and
+ * a bit mask of the feeder interaction activities that have been performed
+ * since the last main activity. Every event is hence processed in constant
+ * time.
+ */
 public class FeederTripSequenceListener implements PersonDepartureEventHandler, PersonArrivalEventHandler,
         PersonEntersVehicleEventHandler, ActivityEndEventHandler, GenericEventHandler, ActivityStartEventHandler {
+    private final static String INTERACTION_SUFFIX = " interaction";
+
+    private final static int MAIN_ACTIVITY = -1;
+    private final static int OTHER_INTERACTION = -2;
+    private final static int OTHER_MODE = -1;
 
     private final PublicTransitEventMapper publicTransitEventMapper = new PublicTransitEventMapper();
     private final VehicleRegistry vehicleRegistry;
     private final Network network;
-    private final IdMap<Person, FeederTripSequenceItem> currentItems = new IdMap<>(Person.class);
-    private final IdMap<Person, ActivityEndEvent> lastNonInteractionActivity = new IdMap<>(Person.class);
-    private final IdMap<Person, List<String>> interactionActivitiesSequences = new IdMap<>(Person.class);
-    private final IdMap<Person, Id<Vehicle>> lastPersonVehicles = new IdMap<>(Person.class);
     private final List<FeederTripSequenceItem> itemsList = new ArrayList<>();
-    private final Map<String, FeederDrtConfigGroup> modeConfigs;
 
+    // Interned feeder modes, the code of a feeder mode is its index
+    private final Map<String, Integer> operatorCodes = new HashMap<>();
+    private final String[] operators;
+    private final int[] accessEgressModes;
+    private final int[] ptModes;
+
+    private final Map<String, Integer> legModeCodes = new HashMap<>();
+    private final Map<String, Integer> activityCodes = new HashMap<>();
+
+    // State by person index
+    private FeederTripSequenceItem[] currentItems = new FeederTripSequenceItem[0];
+    private int[] currentOperators = new int[0];
+    private long[] interactionMasks = new long[0];
+    private int[] originLinks = new int[0];
+    private int[] lastPersonVehicles = new int[0];
+    private final BitSet startedSequences = new BitSet();
 
     public FeederTripSequenceListener(Map<String, FeederDrtConfigGroup> modeConfigs, VehicleRegistry vehicleRegistry, Network network) {
         this.vehicleRegistry = vehicleRegistry;
         this.network = network;
-        this.modeConfigs = modeConfigs;
+
+        if (modeConfigs.size() > Long.SIZE) {
+            throw new IllegalStateException(String.format("At most %d feeder modes can be analyzed", Long.SIZE));
+        }
+
+        this.operators = new String[modeConfigs.size()];
+        this.accessEgressModes = new int[modeConfigs.size()];
+        this.ptModes = new int[modeConfigs.size()];
+
+        int operator = 0;
+        for (Map.Entry<String, FeederDrtConfigGroup> entry : modeConfigs.entrySet()) {
+            operators[operator] = entry.getKey();
+            operatorCodes.put(entry.getKey(), operator);
+            accessEgressModes[operator] = internLegMode(entry.getValue().accessEgressModeName);
+            ptModes[operator] = internLegMode(entry.getValue().ptModeName);
+            activityCodes.put(entry.getValue().mode + INTERACTION_SUFFIX, operator);
+            operator++;
+        }
+    }
+
+    private int internLegMode(String mode) {
+        return legModeCodes.computeIfAbsent(mode, m -> legModeCodes.size());
+    }
+
+    private int getLegModeCode(String mode) {
+        Integer code = legModeCodes.get(mode);
+        return code == null ? OTHER_MODE : code;
+    }
+
+    private int getActivityCode(String activityType) {
+        Integer code = activityCodes.get(activityType);
+
+        if (code == null) {
+            code = activityType.endsWith(INTERACTION_SUFFIX) ? OTHER_INTERACTION : MAIN_ACTIVITY;
+            activityCodes.put(activityType, code);
+        }
+
+        return code;
+    }
+
+    private void ensureCapacity(int personIndex) {
+        if (personIndex >= currentItems.length) {
+            int previousSize = currentItems.length;
+            int size = Math.max(personIndex + 1, 2 * previousSize);
+
+            currentItems = Arrays.copyOf(currentItems, size);
+            currentOperators = Arrays.copyOf(currentOperators, size);
+            interactionMasks = Arrays.copyOf(interactionMasks, size);
+
+            originLinks = Arrays.copyOf(originLinks, size);
+            Arrays.fill(originLinks, previousSize, size, -1);
+
+            lastPersonVehicles = Arrays.copyOf(lastPersonVehicles, size);
+            Arrays.fill(lastPersonVehicles, previousSize, size, -1);
+        }
+    }
+
+    private boolean hasInteraction(int personIndex, int operator) {
+        return (interactionMasks[personIndex] & (1L << operator)) != 0;
+    }
+
+    private FeederTripSequenceItem startItem(Id<Person> personId, int operator) {
+        int personIndex = personId.index();
+        int originLink = originLinks[personIndex];
+
+        if (originLink < 0) {
+            throw new IllegalStateException(String.format("Found a feeder trip for person %s without a preceding activity", personId));
+        }
+
+        FeederTripSequenceItem item = new FeederTripSequenceItem();
+        item.personId = personId;
+        item.originLink = network.getLinks().get(Id.get(originLink, Link.class));
+        item.operator = operators[operator];
+
+        currentItems[personIndex] = item;
+        currentOperators[personIndex] = operator;
+
+        return item;
     }
 
     @Override
     public void handleEvent(ActivityEndEvent event) {
-        List<String> personInteractionActivitiesSequence = interactionActivitiesSequences.get(event.getPersonId());
-        if(personInteractionActivitiesSequence == null) {
-            personInteractionActivitiesSequence = new ArrayList<>();
-            interactionActivitiesSequences.put(event.getPersonId(), personInteractionActivitiesSequence);
-        }
-        if(event.getActType().endsWith(" interaction")) {
-            personInteractionActivitiesSequence.add(event.getActType());
-        } else {
-            personInteractionActivitiesSequence.clear();
-            lastNonInteractionActivity.put(event.getPersonId(), event);
+        int personIndex = event.getPersonId().index();
+        ensureCapacity(personIndex);
+        startedSequences.set(personIndex);
+
+        int activityCode = getActivityCode(event.getActType());
+
+        if (activityCode >= 0) {
+            interactionMasks[personIndex] |= 1L << activityCode;
+        } else if (activityCode == MAIN_ACTIVITY) {
+            interactionMasks[personIndex] = 0L;
+            originLinks[personIndex] = event.getLinkId().index();
         }
     }
 
     @Override
     public void handleEvent(PersonDepartureEvent event) {
-        String routingMode = event.getRoutingMode();
-        if(!this.modeConfigs.containsKey(routingMode)) {
+        Integer operatorCode = operatorCodes.get(event.getRoutingMode());
+        if (operatorCode == null) {
             return;
         }
-        FeederDrtConfigGroup currentModeConfig = this.modeConfigs.get(routingMode);
-        FeederTripSequenceItem currentPersonItem = currentItems.get(event.getPersonId());
-        String stageActivityType = currentModeConfig.mode + " interaction";
-        if(event.getLegMode().equals(currentModeConfig.accessEgressModeName)) {
-            if(currentPersonItem != null) {
-                if(!interactionActivitiesSequences.get(event.getPersonId()).contains(stageActivityType)) {
+
+        int operator = operatorCode;
+        int personIndex = event.getPersonId().index();
+        ensureCapacity(personIndex);
+
+        FeederTripSequenceItem currentPersonItem = currentItems[personIndex];
+        int legMode = getLegModeCode(event.getLegMode());
+
+        if (legMode == accessEgressModes[operator]) {
+            if (currentPersonItem != null) {
+                if (!hasInteraction(personIndex, operator)) {
                     throw new IllegalStateException(String.format("Found a drt trip for person %s with an existing trip before but no feeder interaction activity", event.getPersonId()));
                 }
-                if(currentPersonItem.egressTransitLineId == null) {
+                if (currentPersonItem.egressTransitLineId == null) {
                     throw new IllegalStateException(String.format("Found a drt trip for person %s with an existing trip but without pt info. This means that two drt sub-trips appear one after the other", event.getPersonId()));
                 }
                 // So this drt trip will be considered to be the egress one
                 currentPersonItem.egressDepartureTime = event.getTime();
             } else {
-                currentPersonItem = new FeederTripSequenceItem();
-                currentPersonItem.personId = event.getPersonId();
+                currentPersonItem = startItem(event.getPersonId(), operator);
                 currentPersonItem.accessDepartureTime = event.getTime();
-                currentPersonItem.originLink = network.getLinks().get(this.lastNonInteractionActivity.get(event.getPersonId()).getLinkId());
-                currentPersonItem.operator = routingMode;
-                currentItems.put(event.getPersonId(), currentPersonItem);
             }
-        } else if (event.getLegMode().equals(currentModeConfig.ptModeName)) {
-            if(interactionActivitiesSequences.get(event.getPersonId()).contains(stageActivityType) && currentPersonItem == null) {
+        } else if (legMode == ptModes[operator]) {
+            if (hasInteraction(personIndex, operator) && currentPersonItem == null) {
                 throw new IllegalStateException(String.format("Found a pt trip following a feeder interaction activity but without a drt trip before for person %s", event.getPersonId()));
             }
-            if(currentPersonItem == null) {
-                currentPersonItem = new FeederTripSequenceItem();
-                currentPersonItem.personId = event.getPersonId();
-                currentPersonItem.originLink = network.getLinks().get(this.lastNonInteractionActivity.get(event.getPersonId()).getLinkId());
-                currentPersonItem.operator = routingMode;
-                currentItems.put(event.getPersonId(), currentPersonItem);
+            if (currentPersonItem == null) {
+                currentPersonItem = startItem(event.getPersonId(), operator);
             }
             currentPersonItem.ptDepartureTime = event.getTime();
         }
@@ -95,49 +198,58 @@ public class FeederTripSequenceListener implements PersonDepartureEventHandler,
 
     @Override
     public void handleEvent(PersonArrivalEvent event) {
-        FeederTripSequenceItem currentPersonItem = currentItems.get(event.getPersonId());
-        if(currentPersonItem == null) {
+        int personIndex = event.getPersonId().index();
+        if (personIndex >= currentItems.length) {
+            return;
+        }
+        FeederTripSequenceItem currentPersonItem = currentItems[personIndex];
+        if (currentPersonItem == null) {
             return;
         }
-        FeederDrtConfigGroup currentModeConfig = this.modeConfigs.get(currentPersonItem.operator);
-        if(event.getLegMode().equals(currentModeConfig.ptModeName)) {
+        int operator = currentOperators[personIndex];
+        int legMode = getLegModeCode(event.getLegMode());
+
+        if (legMode == ptModes[operator]) {
             currentPersonItem.ptArrivalTime = event.getTime();
-        } else if(event.getLegMode().equals(currentModeConfig.accessEgressModeName)) {
-            Id<Vehicle> lastPersonVehicle = this.lastPersonVehicles.get(event.getPersonId());
-            if(lastPersonVehicle == null) {
+        } else if (legMode == accessEgressModes[operator]) {
+            int lastPersonVehicle = lastPersonVehicles[personIndex];
+            if (lastPersonVehicle < 0) {
                 throw new IllegalStateException(String.format("A DRT trip ended and no drt vehicle recorded for person %s", event.getPersonId()));
             }
-            if(Double.isNaN(currentPersonItem.accessDepartureTime) && Double.isNaN(currentPersonItem.egressDepartureTime)) {
+            if (Double.isNaN(currentPersonItem.accessDepartureTime) && Double.isNaN(currentPersonItem.egressDepartureTime)) {
                 throw new IllegalStateException(String.format("Drt trip end detected while no access or egress departure time is set for person %s", event.getPersonId()));
             }
-            if(!Double.isNaN(currentPersonItem.egressDepartureTime)) {
+            if (!Double.isNaN(currentPersonItem.egressDepartureTime)) {
                 currentPersonItem.egressArrivalTime = event.getTime();
-                currentPersonItem.egressVehicleId = lastPersonVehicle;
+                currentPersonItem.egressVehicleId = Id.get(lastPersonVehicle, Vehicle.class);
             }
-            else if(!Double.isNaN(currentPersonItem.accessDepartureTime)) {
+            else if (!Double.isNaN(currentPersonItem.accessDepartureTime)) {
                 currentPersonItem.accessArrivalTime = event.getTime();
-                currentPersonItem.accessVehicleId = lastPersonVehicle;
+                currentPersonItem.accessVehicleId = Id.get(lastPersonVehicle, Vehicle.class);
             }
         }
     }
 
-
     @Override
     public void handleEvent(PersonEntersVehicleEvent event) {
-        if(vehicleRegistry.isFleet(event.getVehicleId())) {
-            this.lastPersonVehicles.put(event.getPersonId(), event.getVehicleId());
+        if (vehicleRegistry.isFleetVehicle(event.getVehicleId())) {
+            int personIndex = event.getPersonId().index();
+            ensureCapacity(personIndex);
+            lastPersonVehicles[personIndex] = event.getVehicleId().index();
         }
     }
 
     @Override
     public void handleEvent(GenericEvent event) {
-        if(!event.getEventType().equals(PublicTransitEvent.TYPE)) {
+        if (!event.getEventType().equals(PublicTransitEvent.TYPE)) {
             return;
         }
-        PublicTransitEvent transitEvent = this.publicTransitEventMapper.apply(event);
-        FeederTripSequenceItem personItem = this.currentItems.get(transitEvent.getPersonId());
-        if(personItem != null) {
-            if(personItem.accessTransitStopId == null) {
+        PublicTransitEvent transitEvent = event instanceof PublicTransitEvent ? (PublicTransitEvent) event
+                : this.publicTransitEventMapper.apply(event);
+        int personIndex = transitEvent.getPersonId().index();
+        FeederTripSequenceItem personItem = personIndex < currentItems.length ? currentItems[personIndex] : null;
+        if (personItem != null) {
+            if (personItem.accessTransitStopId == null) {
                 personItem.accessTransitStopId = transitEvent.getAccessStopId();
                 personItem.accessTransitRouteId = transitEvent.getTransitRouteId();
                 personItem.accessTransitLineId = transitEvent.getTransitLineId();
@@ -146,20 +258,23 @@ public class FeederTripSequenceListener implements PersonDepartureEventHandler,
             personItem.egressTransitRouteId = transitEvent.getTransitRouteId();
             personItem.egressTransitLineId = transitEvent.getTransitLineId();
         }
-
     }
 
     @Override
     public void handleEvent(ActivityStartEvent event) {
-        if(event.getActType().endsWith(" interaction")) {
+        if (getActivityCode(event.getActType()) != MAIN_ACTIVITY) {
+            return;
+        }
+        int personIndex = event.getPersonId().index();
+        if (personIndex >= currentItems.length) {
             return;
         }
-        Id<Person> personId = event.getPersonId();
-        FeederTripSequenceItem item = currentItems.remove(personId);
-        if(item == null) {
+        FeederTripSequenceItem item = currentItems[personIndex];
+        if (item == null) {
             return;
         }
-        if(interactionActivitiesSequences.containsKey(personId) && !interactionActivitiesSequences.get(personId).contains(item.operator + " interaction")) {
+        currentItems[personIndex] = null;
+        if (startedSequences.get(personIndex) && !hasInteraction(personIndex, currentOperators[personIndex])) {
             return;
         }
         if (Double.isNaN(item.accessDepartureTime) && Double.isNaN(item.egressDepartureTime)) {
@@ -167,19 +282,20 @@ public class FeederTripSequenceListener implements PersonDepartureEventHandler,
         }
         item.destinationLink = network.getLinks().get(event.getLinkId());
         //There seems to be a bug with two drt trips following each other with no PT in the middle
-        if(item.egressTransitLineId != null) {
+        if (item.egressTransitLineId != null) {
             itemsList.add(item);
         }
-
     }
 
     @Override
     public void reset(int iteration) {
-        this.currentItems.clear();
         this.itemsList.clear();
-        this.interactionActivitiesSequences.clear();
-        this.lastPersonVehicles.clear();
-        this.lastNonInteractionActivity.clear();
+        this.startedSequences.clear();
+
+        Arrays.fill(currentItems, null);
+        Arrays.fill(interactionMasks, 0L);
+        Arrays.fill(originLinks, -1);
+        Arrays.fill(lastPersonVehicles, -1);
     }
 
     public List<FeederTripSequenceItem> getItemsList() {
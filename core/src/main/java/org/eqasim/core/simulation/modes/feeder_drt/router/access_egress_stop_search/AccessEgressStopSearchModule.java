@@ -56,7 +56,7 @@ public class AccessEgressStopSearchModule extends AbstractDvrpModeModule {
                     throw new RuntimeException(e);
                 }
                 try {
-                    serviceAreaExtent = new ShapeScenarioExtent.Builder(new File(extentPath), Optional.empty(), Optional.empty()).build();
+                    serviceAreaExtent = new ShapeScenarioExtent.Builder(new File(extentPath), Optional.empty(), Optional.empty()).buildPrepared();
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
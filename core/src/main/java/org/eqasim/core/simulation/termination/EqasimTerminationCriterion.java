@@ -1,6 +1,6 @@
 package org.eqasim.core.simulation.termination;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -13,7 +13,7 @@ public class EqasimTerminationCriterion implements TerminationCriterion {
 	private final Map<String, TerminationIndicatorSupplier> indicators;
 	private final Map<String, TerminationCriterionCalculator> criteria;
 
-	private final List<TerminationData> history = new LinkedList<>();
+	private final List<TerminationData> history = new ArrayList<>();
 
 	private final int firstIteration;
 	private final int lastIteration;
@@ -43,7 +43,7 @@ public class EqasimTerminationCriterion implements TerminationCriterion {
 			// check if we may terminate
 			TerminationData terminationData = prepareTerminationData(iteration);
 			history.add(terminationData);
-			writer.write(history);
+			writer.append(terminationData);
 
 			mayTerminate = terminationData.criteria.values().stream().mapToDouble(d -> d).sum() == 0.0;
 		}
@@ -72,7 +72,7 @@ public class EqasimTerminationCriterion implements TerminationCriterion {
 			// add information for last iteration and write it (since we won't call
 			// mayTerminate again)
 			history.add(terminationData);
-			writer.write(history);
+			writer.append(terminationData);
 		}
 
 		return doTerminate;
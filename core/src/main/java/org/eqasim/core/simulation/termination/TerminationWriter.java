@@ -1,19 +1,25 @@
 package org.eqasim.core.simulation.termination;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.matsim.core.utils.io.IOUtils;
-
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+/**
+ * Writes the termination history. The CSV file is append-only: the header is
+ * written once and every call to {@link #append(TerminationData)} adds one row
+ * that is synced to disk before returning, so the history survives a crash of
+ * the simulation. The HTML report is updated in place: the template is read
+ * once, and every new row is written at the end of the data array, followed by
+ * the remainder of the template.
+ */
 public class TerminationWriter {
 	private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -23,6 +29,13 @@ public class TerminationWriter {
 	private final List<String> indicators;
 	private final List<String> criteria;
 
+	private boolean isInitialized = false;
+
+	// Template parts around the data array and end offset of the data in the file
+	private byte[] htmlPrefix;
+	private byte[] htmlSuffix;
+	private long htmlDataEnd;
+
 	public TerminationWriter(String outputCsvPath, String outputHtmlPath, List<String> indicators,
 			List<String> criteria) {
 		this.outputCsvPath = outputCsvPath;
@@ -31,10 +44,10 @@ public class TerminationWriter {
 		this.criteria = criteria;
 	}
 
-	public void write(List<TerminationData> data) {
-		try {
-			BufferedWriter writer = IOUtils.getBufferedWriter(outputCsvPath);
+	public void append(TerminationData item) {
+		StringBuilder builder = new StringBuilder();
 
+		if (!isInitialized) {
 			List<String> header = new LinkedList<>();
 			header.add("iteration");
 
@@ -46,51 +59,84 @@ public class TerminationWriter {
 				header.add("criterion:" + criterion);
 			}
 
-			writer.write(String.join(";", header) + "\n");
+			builder.append(String.join(";", header)).append("\n");
+		}
 
-			for (TerminationData item : data) {
-				List<String> row = new LinkedList<>();
-				row.add(String.valueOf(item.iteration));
+		List<String> row = new LinkedList<>();
+		row.add(String.valueOf(item.iteration));
 
-				for (String indicator : indicators) {
-					row.add(String.valueOf(item.indicators.get(indicator)));
-				}
+		for (String indicator : indicators) {
+			row.add(String.valueOf(item.indicators.get(indicator)));
+		}
 
-				for (String criterion : criteria) {
-					row.add(String.valueOf(item.criteria.get(criterion)));
-				}
+		for (String criterion : criteria) {
+			row.add(String.valueOf(item.criteria.get(criterion)));
+		}
 
-				writer.write(String.join(";", row) + "\n");
-			}
+		builder.append(String.join(";", row)).append("\n");
 
-			writer.close();
+		// The file is truncated when the first row is written
+		try (FileOutputStream outputStream = new FileOutputStream(new File(outputCsvPath), isInitialized)) {
+			outputStream.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+			outputStream.flush();
+			outputStream.getFD().sync();
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 
 		try {
-			BufferedReader reader = new BufferedReader(
-					new InputStreamReader(TerminationWriter.class.getResourceAsStream("termination.html")));
+			appendHtml(objectMapper.writeValueAsString(item), !isInitialized);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 
-			BufferedWriter writer = new BufferedWriter(
-					new OutputStreamWriter(new FileOutputStream(new File(outputHtmlPath))));
+		isInitialized = true;
+	}
+
+	private void readTemplate() throws IOException {
+		StringBuilder prefix = new StringBuilder();
+		StringBuilder suffix = new StringBuilder();
+		StringBuilder current = prefix;
 
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				TerminationWriter.class.getResourceAsStream("termination.html"), StandardCharsets.UTF_8))) {
 			String line = null;
 			while ((line = reader.readLine()) != null) {
 				if (line.indexOf("const data = {};") >= 0) {
-					String jsonData = objectMapper.writeValueAsString(data);
-					writer.write("const data = ");
-					writer.write(jsonData);
-					writer.write(";\n");
+					prefix.append("const data = [");
+					current = suffix;
 				} else {
-					writer.write(line + "\n");
+					current.append(line).append("\n");
 				}
 			}
+		}
 
-			writer.close();
-			reader.close();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
+		htmlPrefix = prefix.toString().getBytes(StandardCharsets.UTF_8);
+		htmlSuffix = ("];\n" + suffix).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void appendHtml(String jsonRow, boolean isFirst) throws IOException {
+		if (htmlPrefix == null) {
+			readTemplate();
+		}
+
+		try (RandomAccessFile file = new RandomAccessFile(new File(outputHtmlPath), "rw")) {
+			if (isFirst) {
+				file.setLength(0);
+				file.write(htmlPrefix);
+				htmlDataEnd = htmlPrefix.length;
+			} else {
+				jsonRow = "," + jsonRow;
+			}
+
+			byte[] row = jsonRow.getBytes(StandardCharsets.UTF_8);
+
+			file.seek(htmlDataEnd);
+			file.write(row);
+			htmlDataEnd += row.length;
+
+			file.write(htmlSuffix);
+			file.setLength(file.getFilePointer());
 		}
 	}
 }
@@ -18,6 +18,8 @@ public class ModeShareCriterion implements TerminationCriterionCalculator {
 	private final int smoothing;
 	private final int horizon;
 
+	private final ModeShareHistory values;
+
 	public ModeShareCriterion(String mode, int horizon, int smoothing, double threshold) {
 		Preconditions.checkArgument(horizon % 2 == 0);
 		Preconditions.checkArgument(smoothing % 2 == 0);
@@ -26,6 +28,7 @@ public class ModeShareCriterion implements TerminationCriterionCalculator {
 		this.threshold = threshold;
 		this.horizon = horizon;
 		this.smoothing = smoothing;
+		this.values = new ModeShareHistory(horizon + smoothing + 1);
 	}
 
 	@Override
@@ -36,15 +39,21 @@ public class ModeShareCriterion implements TerminationCriterionCalculator {
 		 *            -h-s   -h-s/2  -h         -s   -s/2    0
 		 */
 
+		// Only history items that have not been seen before are added to the buffer
+		if (values.size() > history.size()) {
+			values.clear();
+		}
+
+		for (int k = (int) values.size(); k < history.size(); k++) {
+			values.add(history.get(k).indicators.get(ModeShareIndicator.PREFIX + mode));
+		}
+
 		if (history.size() - smoothing - horizon - 1 < 0) {
 			return Double.NaN;
 		}
 
-		double first = history.subList(history.size() - horizon - smoothing - 1, history.size() - horizon).stream()
-				.mapToDouble(item -> item.indicators.get(ModeShareIndicator.PREFIX + mode)).average().getAsDouble();
-
-		double second = history.subList(history.size() - smoothing - 1, history.size()).stream()
-				.mapToDouble(item -> item.indicators.get(ModeShareIndicator.PREFIX + mode)).average().getAsDouble();
+		double first = values.average(horizon, smoothing + 1);
+		double second = values.average(0, smoothing + 1);
 
 		double difference = Math.abs(second - first);
 		return Math.max(0.0, difference - threshold);
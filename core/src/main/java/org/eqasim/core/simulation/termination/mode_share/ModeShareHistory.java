@@ -0,0 +1,55 @@
+package org.eqasim.core.simulation.termination.mode_share;
+
+/**
+ * Fixed-size ring buffer of the most recent mode share values. Only as many
+ * values as are needed to compare the smoothed shares across the convergence
+ * horizon are kept, so memory and averaging cost do not depend on the number of
+ * iterations.
+ */
+class ModeShareHistory {
+	private final double[] values;
+
+	private int next = 0;
+	private long size = 0;
+
+	ModeShareHistory(int capacity) {
+		this.values = new double[capacity];
+	}
+
+	void add(double value) {
+		values[next] = value;
+		next = (next + 1) % values.length;
+		size++;
+	}
+
+	/**
+	 * Total number of values that have been added, including those that have
+	 * already been overwritten.
+	 */
+	long size() {
+		return size;
+	}
+
+	/**
+	 * Average of the given number of values, ending lag values before the most
+	 * recent one.
+	 */
+	double average(int lag, int length) {
+		if (lag + length > values.length || lag + length > size) {
+			throw new IllegalArgumentException("Not enough values in the history");
+		}
+
+		double sum = 0.0;
+
+		for (int k = lag; k < lag + length; k++) {
+			sum += values[Math.floorMod(next - 1 - k, values.length)];
+		}
+
+		return sum / length;
+	}
+
+	void clear() {
+		next = 0;
+		size = 0;
+	}
+}
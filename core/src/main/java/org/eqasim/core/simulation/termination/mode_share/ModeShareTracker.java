@@ -1,52 +1,64 @@
 package org.eqasim.core.simulation.termination.mode_share;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.matsim.api.core.v01.events.PersonDepartureEvent;
 import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
 import org.matsim.core.controler.events.IterationEndsEvent;
 import org.matsim.core.controler.listener.IterationEndsListener;
 
-import com.google.common.util.concurrent.AtomicDouble;
-
 public class ModeShareTracker implements PersonDepartureEventHandler, IterationEndsListener {
-	private final List<String> modes;
+	private final String[] modes;
 
-	private final Map<String, Double> shares = new HashMap<>();
-	private final Map<String, AtomicDouble> counts = new HashMap<>();
+	private final double[] shares;
+	private final long[] counts;
 
 	ModeShareTracker(List<String> modes) {
-		this.modes = modes;
+		this.modes = modes.toArray(new String[0]);
+		this.shares = new double[this.modes.length];
+		this.counts = new long[this.modes.length];
+	}
 
-		for (String mode : modes) {
-			counts.put(mode, new AtomicDouble(0.0));
-			shares.put(mode, 0.0);
+	private int getIndex(String mode) {
+		for (int i = 0; i < modes.length; i++) {
+			if (modes[i].equals(mode)) {
+				return i;
+			}
 		}
+
+		return -1;
 	}
 
 	@Override
 	public void handleEvent(PersonDepartureEvent event) {
-		AtomicDouble value = counts.get(event.getRoutingMode());
+		int index = getIndex(event.getRoutingMode());
 
-		if (value != null) {
-			value.addAndGet(1.0);
+		if (index >= 0) {
+			counts[index]++;
 		}
 	}
 
 	public double getModeShare(String mode) {
-		return shares.get(mode);
+		int index = getIndex(mode);
+
+		if (index < 0) {
+			throw new IllegalArgumentException("Mode is not tracked: " + mode);
+		}
+
+		return shares[index];
 	}
 
 	@Override
 	public void notifyIterationEnds(IterationEndsEvent event) {
-		double total = counts.values().stream().mapToDouble(AtomicDouble::get).sum();
+		double total = 0.0;
 
-		for (String mode : modes) {
-			shares.put(mode, counts.get(mode).get() / total);
+		for (long count : counts) {
+			total += count;
 		}
 
-		counts.values().forEach(v -> v.set(0.0));
+		for (int i = 0; i < modes.length; i++) {
+			shares[i] = counts[i] / total;
+			counts[i] = 0;
+		}
 	}
 }
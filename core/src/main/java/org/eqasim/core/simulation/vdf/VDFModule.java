@@ -74,7 +74,7 @@ public class VDFModule extends AbstractEqasimExtension {
 		ScenarioExtent updateExtent = config.getUpdateAreaShapefile() == null ? null
 				: new ShapeScenarioExtent.Builder(new File(ConfigGroup
 						.getInputFileURL(getConfig().getContext(), config.getUpdateAreaShapefile()).getPath()),
-						Optional.empty(), Optional.empty()).build();
+						Optional.empty(), Optional.empty()).buildPrepared();
 		return new VDFTravelTime(scope, config.getMinimumSpeed(), config.getCapacityFactor(),
 				eqasimConfig.getSampleSize(), network, vdf, eqasimConfig.getCrossingPenalty(), updateExtent);
 	}
@@ -87,7 +87,7 @@ public class VDFTravelTime implements TravelTime {
 			}
 
 			if(updateAreaExtent != null && !forceUpdateAllLinks) {
-				if(!updateAreaExtent.isInside(link.getFromNode().getCoord()) || !updateAreaExtent.isInside(link.getToNode().getCoord())) {
+				if(!updateAreaExtent.isInside(link.getFromNode()) || !updateAreaExtent.isInside(link.getToNode())) {
 					continue;
 				}
 			}
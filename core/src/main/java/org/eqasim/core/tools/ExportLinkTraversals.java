@@ -1,6 +1,7 @@
 package org.eqasim.core.tools;
 
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -14,6 +15,7 @@ import java.util.stream.Collectors;
 
 import org.eqasim.core.scenario.cutter.extent.ScenarioExtent;
 import org.eqasim.core.scenario.cutter.extent.ShapeScenarioExtent;
+import org.eqasim.core.tools.traversals.LinkTraversalWriter;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
@@ -47,7 +49,7 @@ public class ExportLinkTraversals {
 	static public void main(String[] args) throws ConfigurationException, MalformedURLException, IOException {
 		CommandLine cmd = new CommandLine.Builder(args) //
 				.requireOptions("events-path", "output-path") //
-				.allowOptions("network-path", "extent-path", "modes") //
+				.allowOptions("network-path", "extent-path", "modes", "format") //
 				.build();
 
 		ScenarioExtent extent = null;
@@ -60,7 +62,7 @@ public class ExportLinkTraversals {
 			new MatsimNetworkReader(network).readFile(cmd.getOptionStrict("network-path"));
 
 			extent = new ShapeScenarioExtent.Builder(new File(cmd.getOptionStrict("extent-path")), Optional.empty(),
-					Optional.empty()).build();
+					Optional.empty()).buildPrepared();
 		}
 
 		Set<String> modes = new HashSet<>();
@@ -69,18 +71,56 @@ public class ExportLinkTraversals {
 					.collect(Collectors.toSet());
 		}
 
-		BufferedWriter writer = IOUtils.getBufferedWriter(cmd.getOptionStrict("output-path"));
+		String format = cmd.getOption("format").orElse("csv");
+		String outputPath = cmd.getOptionStrict("output-path");
+
+		final TraversalSink sink;
+		final Closeable output;
+
+		if (format.equals("csv")) {
+			BufferedWriter writer = IOUtils.getBufferedWriter(outputPath);
+
+			writer.write(String.join(";", Arrays.asList( //
+					"person_id", "vehicle_id", "link_id", "enter_time", "leave_time", "trip_index", "leg_index",
+					"leg_mode")) + "\n");
+
+			sink = (personId, vehicleId, linkId, enterTime, leaveTime, tripIndex, legIndex, legMode) -> {
+				writer.write(String.join(";", new String[] { //
+						personId.toString(), //
+						vehicleId.toString(), //
+						linkId.toString(), //
+						String.valueOf(enterTime), //
+						String.valueOf(leaveTime), //
+						String.valueOf(tripIndex), //
+						String.valueOf(legIndex), //
+						String.valueOf(legMode) //
+				}) + "\n");
+			};
+
+			output = writer;
+		} else if (format.equals("binary")) {
+			LinkTraversalWriter writer = new LinkTraversalWriter(new File(outputPath));
+			sink = writer::write;
+			output = writer;
+		} else {
+			throw new IllegalStateException("Unknown format: " + format);
+		}
 
 		EventsManager eventsManager = EventsUtils.createEventsManager();
-		eventsManager.addHandler(new TraversalExporter(writer, extent, network, modes));
+		eventsManager.addHandler(new TraversalExporter(sink, extent, network, modes));
 		new MatsimEventsReader(eventsManager).readFile(cmd.getOptionStrict("events-path"));
 
-		writer.close();
+		output.close();
+	}
+
+	private interface TraversalSink {
+		void write(Id<Person> personId, Id<Vehicle> vehicleId, Id<Link> linkId, double enterTime, double leaveTime,
+				int tripIndex, int legIndex, String legMode) throws IOException;
 	}
 
 	private static class TraversalExporter implements VehicleEntersTrafficEventHandler,
 			VehicleLeavesTrafficEventHandler, LinkEnterEventHandler, LinkLeaveEventHandler, ActivityEndEventHandler {
-		private final BufferedWriter writer;
+		private final TraversalSink sink;
 		private final ScenarioExtent extent;
 		private final Network network;
 
@@ -91,19 +131,11 @@ public class ExportLinkTraversals {
 		private final Map<Id<Vehicle>, String> legMode = new HashMap<>();
 		private final Set<String> modes;
 
-		TraversalExporter(BufferedWriter writer, ScenarioExtent extent, Network network, Set<String> modes) {
-			this.writer = writer;
+		TraversalExporter(TraversalSink sink, ScenarioExtent extent, Network network, Set<String> modes) {
+			this.sink = sink;
 			this.extent = extent;
 			this.network = network;
 			this.modes = modes;
-
-			try {
-				writer.write(String.join(";", Arrays.asList( //
-						"person_id", "vehicle_id", "link_id", "enter_time", "leave_time", "trip_index", "leg_index", "leg_mode"))
-						+ "\n");
-			} catch (IOException e) {
-				throw new RuntimeException(e);
-			}
 		}
 
 		@Override
@@ -117,8 +149,8 @@ public class ExportLinkTraversals {
 		@Override
 		public void handleEvent(VehicleLeavesTrafficEvent event) {
 			if (drivers.remove(event.getVehicleId()) != null) {
-				legMode.remove(event.getVehicleId());
 				writeTraversal(event.getPersonId(), enterEvents.remove(event.getPersonId()), null);
+				legMode.remove(event.getVehicleId());
 			}
 		}
 
@@ -170,19 +202,11 @@ public class ExportLinkTraversals {
 
 			int localTripIndex = tripIndex.getOrDefault(personId, 0);
 			int localLegIndex = legIndex.getOrDefault(personId, 0);
-			String localLegMode = legMode.get(personId);
+			String localLegMode = legMode.get(vehicleId);
 
 			try {
-				writer.write(String.join(";", new String[] { //
-						personId.toString(), //
-						vehicleId.toString(), //
-						linkId.toString(), //
-						String.valueOf(enterTime), //
-						String.valueOf(leaveTime), //
-						String.valueOf(localTripIndex), //
-						String.valueOf(localLegIndex), //
-						String.valueOf(localLegMode) //
-				}) + "\n");
+				sink.write(personId, vehicleId, linkId, enterTime, leaveTime, localTripIndex, localLegIndex,
+						localLegMode);
 			} catch (IOException e) {
 				throw new RuntimeException(e);
 			}
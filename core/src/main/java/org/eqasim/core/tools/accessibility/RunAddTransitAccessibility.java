@@ -0,0 +1,99 @@
+package org.eqasim.core.tools.accessibility;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.core.config.CommandLine;
+import org.matsim.core.config.CommandLine.ConfigurationException;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.pt.transitSchedule.api.TransitScheduleReader;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * Adds the distance to the nearest transit stop, the number of stops within the
+ * given radii (comma-separated, in meters) and, if a threshold is given,
+ * whether a stop is closer than the threshold to every row of a CSV file. An
+ * empty column name omits the respective output column. Optionally, the stop
+ * coordinates are written to a separate CSV file.
+ */
+public class RunAddTransitAccessibility {
+	static public final double DEFAULT_CELL_SIZE = 500.0;
+
+	static public void main(String[] args) throws ConfigurationException, IOException, InterruptedException {
+		CommandLine cmd = new CommandLine.Builder(args) //
+				.requireOptions("schedule-path", "input-path", "output-path") //
+				.allowOptions("x-column", "y-column", "separator", "input-crs", "output-crs", //
+						"radii", "threshold", "threads", "batch-size", "cell-size", //
+						"transformed-x-column", "transformed-y-column", "distance-column", //
+						"count-column-prefix", "threshold-column", "stops-output-path") //
+				.build();
+
+		TransitAccessibilityAugmenter.Settings settings = new TransitAccessibilityAugmenter.Settings();
+		settings.xColumn = cmd.getOption("x-column").orElse(settings.xColumn);
+		settings.yColumn = cmd.getOption("y-column").orElse(settings.yColumn);
+		settings.separator = cmd.getOption("separator").orElse(String.valueOf(settings.separator)).charAt(0);
+		settings.inputCrs = cmd.getOption("input-crs").orElse(null);
+		settings.outputCrs = cmd.getOption("output-crs").orElse(null);
+		settings.transformedXColumn = getColumn(cmd, "transformed-x-column", null);
+		settings.transformedYColumn = getColumn(cmd, "transformed-y-column", null);
+		settings.distanceColumn = getColumn(cmd, "distance-column", settings.distanceColumn);
+		settings.countColumnPrefix = cmd.getOption("count-column-prefix").orElse(settings.countColumnPrefix);
+		settings.thresholdColumn = cmd.getOption("threshold-column").orElse(settings.thresholdColumn);
+
+		if (cmd.hasOption("radii")) {
+			settings.radii = Arrays.stream(cmd.getOptionStrict("radii").split(",")).map(String::trim)
+					.mapToDouble(Double::parseDouble).toArray();
+		}
+
+		if (cmd.hasOption("threshold")) {
+			settings.threshold = Double.parseDouble(cmd.getOptionStrict("threshold"));
+		}
+
+		settings.numberOfThreads = cmd.getOption("threads").map(Integer::parseInt).orElse(settings.numberOfThreads);
+		settings.batchSize = cmd.getOption("batch-size").map(Integer::parseInt).orElse(settings.batchSize);
+		double cellSize = cmd.getOption("cell-size").map(Double::parseDouble).orElse(DEFAULT_CELL_SIZE);
+
+		run(cmd.getOptionStrict("schedule-path"), cmd.getOptionStrict("input-path"),
+				cmd.getOptionStrict("output-path"), cmd.getOption("stops-output-path"), settings, cellSize);
+	}
+
+	/**
+	 * Runs the tool with the given settings, also used by the scenario-specific
+	 * entry points that predefine the coordinate systems and columns.
+	 */
+	static public void run(String schedulePath, String inputPath, String outputPath,
+			Optional<String> stopsOutputPath, TransitAccessibilityAugmenter.Settings settings, double cellSize)
+			throws IOException, InterruptedException {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		new TransitScheduleReader(scenario).readFile(schedulePath);
+
+		if (stopsOutputPath.isPresent()) {
+			try (BufferedWriter writer = IOUtils.getBufferedWriter(stopsOutputPath.get())) {
+				writer.write("xcoord,ycoord\n");
+
+				for (TransitStopFacility facility : scenario.getTransitSchedule().getFacilities().values()) {
+					writer.write(facility.getCoord().getX() + "," + facility.getCoord().getY() + "\n");
+				}
+			}
+		}
+
+		TransitStopIndex index = TransitStopIndex.create(scenario.getTransitSchedule(), cellSize);
+		TransitAccessibilityAugmenter augmenter = new TransitAccessibilityAugmenter(index, settings);
+
+		try (BufferedReader reader = IOUtils.getBufferedReader(inputPath);
+				BufferedWriter writer = IOUtils.getBufferedWriter(outputPath)) {
+			augmenter.process(reader, writer);
+		}
+	}
+
+	static private String getColumn(CommandLine cmd, String option, String defaultValue) {
+		Optional<String> value = cmd.getOption(option);
+		return value.isPresent() ? (value.get().isEmpty() ? null : value.get()) : defaultValue;
+	}
+}
@@ -0,0 +1,338 @@
+package org.eqasim.core.tools.accessibility;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+
+/**
+ * Appends transit accessibility attributes to every row of a CSV file, such as
+ * a list of persons or households with a home location. For every row, the
+ * distance to the nearest transit stop, the number of stops within a list of
+ * radii and whether a stop is closer than a threshold can be written.
+ *
+ * The input is streamed: rows are read in chunks, processed in parallel in
+ * batches and written in their original order before the next chunk is read.
+ * Rows are only split up to the coordinate columns, everything else is copied
+ * to the output as is.
+ */
+public class TransitAccessibilityAugmenter {
+	private final static Logger logger = LogManager.getLogger(TransitAccessibilityAugmenter.class);
+
+	static public class Settings {
+		// Coordinate columns, either by header name or by zero-based index
+		public String xColumn = "x";
+		public String yColumn = "y";
+
+		public char separator = ',';
+
+		// If both are set, coordinates are transformed before querying the stops
+		public String inputCrs = null;
+		public String outputCrs = null;
+
+		// Output columns, null to omit them
+		public String transformedXColumn = null;
+		public String transformedYColumn = null;
+		public String distanceColumn = "pt_stop_distance";
+
+		// Count columns are written in ascending order of the radii, whatever their
+		// order here
+		public double[] radii = new double[0];
+		public String countColumnPrefix = "pt_stops_within_";
+
+		public Double threshold = null;
+		public String thresholdColumn = "has_pt_stop";
+
+		public int numberOfThreads = Runtime.getRuntime().availableProcessors();
+		public int batchSize = 1000;
+	}
+
+	private final TransitStopIndex index;
+	private final Settings settings;
+	private final double[] radii;
+
+	public TransitAccessibilityAugmenter(TransitStopIndex index, Settings settings) {
+		this.index = index;
+		this.settings = settings;
+
+		this.radii = settings.radii.clone();
+		Arrays.sort(this.radii);
+	}
+
+	static private String formatRadius(double radius) {
+		return radius == Math.rint(radius) ? String.valueOf((long) radius) : String.valueOf(radius);
+	}
+
+	/**
+	 * Splits a row into its fields. Separators within double quotes are ignored,
+	 * and quotes around a field are removed.
+	 */
+	static List<String> splitFields(String line, char separator) {
+		List<String> fields = new ArrayList<>();
+		int start = 0;
+		boolean inQuotes = false;
+
+		for (int i = 0; i <= line.length(); i++) {
+			if (i == line.length() || (line.charAt(i) == separator && !inQuotes)) {
+				fields.add(unquote(line.substring(start, i)));
+				start = i + 1;
+			} else if (line.charAt(i) == '"') {
+				inQuotes = !inQuotes;
+			}
+		}
+
+		return fields;
+	}
+
+	static private String unquote(String field) {
+		field = field.trim();
+
+		if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")) {
+			return field.substring(1, field.length() - 1).replace("\"\"", "\"");
+		}
+
+		return field;
+	}
+
+	/**
+	 * Extracts the value of the columns with the given indices from a row without
+	 * splitting the remaining fields.
+	 */
+	static private void extractFields(String line, char separator, int firstColumn, int secondColumn,
+			String[] values) {
+		int lastColumn = Math.max(firstColumn, secondColumn);
+
+		int column = 0;
+		int start = 0;
+		boolean inQuotes = false;
+
+		for (int i = 0; i <= line.length() && column <= lastColumn; i++) {
+			if (i == line.length() || (line.charAt(i) == separator && !inQuotes)) {
+				if (column == firstColumn) {
+					values[0] = unquote(line.substring(start, i));
+				}
+
+				if (column == secondColumn) {
+					values[1] = unquote(line.substring(start, i));
+				}
+
+				column++;
+				start = i + 1;
+			} else if (line.charAt(i) == '"') {
+				inQuotes = !inQuotes;
+			}
+		}
+
+		if (column <= lastColumn) {
+			throw new IllegalStateException("Row has too few columns: " + line);
+		}
+	}
+
+	static private int findColumn(List<String> header, String column) {
+		int index = header.indexOf(column);
+
+		if (index == -1) {
+			try {
+				index = Integer.parseInt(column);
+			} catch (NumberFormatException e) {
+				throw new IllegalStateException("Column not found in header: " + column);
+			}
+		}
+
+		if (index < 0 || index >= header.size()) {
+			throw new IllegalStateException("Column index out of range: " + column);
+		}
+
+		return index;
+	}
+
+	private CoordinateTransformation createTransformation() {
+		if (settings.inputCrs == null || settings.outputCrs == null) {
+			return new IdentityTransformation();
+		}
+
+		return TransformationFactory.getCoordinateTransformation(settings.inputCrs, settings.outputCrs);
+	}
+
+	private String processLine(String line, int xIndex, int yIndex, CoordinateTransformation transformation,
+			String[] values, int[] counts) {
+		extractFields(line, settings.separator, xIndex, yIndex, values);
+
+		Coord coord = transformation.transform(new Coord(Double.parseDouble(values[0]), Double.parseDouble(values[1])));
+		double x = coord.getX();
+		double y = coord.getY();
+
+		StringBuilder builder = new StringBuilder(line.length() + 64);
+		builder.append(line);
+
+		if (settings.transformedXColumn != null) {
+			builder.append(settings.separator).append(x);
+		}
+
+		if (settings.transformedYColumn != null) {
+			builder.append(settings.separator).append(y);
+		}
+
+		if (settings.distanceColumn != null || settings.threshold != null) {
+			double distance = index.getNearestDistance(x, y);
+
+			if (settings.distanceColumn != null) {
+				builder.append(settings.separator).append(distance);
+			}
+
+			if (settings.threshold != null) {
+				builder.append(settings.separator).append(distance < settings.threshold);
+			}
+		}
+
+		if (radii.length > 0) {
+			Arrays.fill(counts, 0);
+			index.countWithin(x, y, radii, counts);
+
+			for (int count : counts) {
+				builder.append(settings.separator).append(count);
+			}
+		}
+
+		return builder.toString();
+	}
+
+	private String createHeader(String header) {
+		StringBuilder builder = new StringBuilder(header);
+
+		if (settings.transformedXColumn != null) {
+			builder.append(settings.separator).append(settings.transformedXColumn);
+		}
+
+		if (settings.transformedYColumn != null) {
+			builder.append(settings.separator).append(settings.transformedYColumn);
+		}
+
+		if (settings.distanceColumn != null) {
+			builder.append(settings.separator).append(settings.distanceColumn);
+		}
+
+		if (settings.threshold != null) {
+			builder.append(settings.separator).append(settings.thresholdColumn);
+		}
+
+		for (double radius : radii) {
+			builder.append(settings.separator).append(settings.countColumnPrefix).append(formatRadius(radius));
+		}
+
+		return builder.toString();
+	}
+
+	private void processChunk(List<String> lines, String[] output, int xIndex, int yIndex,
+			CoordinateTransformation[] transformations) throws InterruptedException {
+		int numberOfBatches = (lines.size() + settings.batchSize - 1) / settings.batchSize;
+
+		AtomicInteger nextBatch = new AtomicInteger(0);
+		AtomicBoolean errorsOccured = new AtomicBoolean(false);
+
+		List<Thread> threads = new LinkedList<>();
+
+		for (int i = 0; i < Math.min(settings.numberOfThreads, numberOfBatches); i++) {
+			CoordinateTransformation transformation = transformations[i];
+
+			Thread thread = new Thread(() -> {
+				String[] values = new String[2];
+				int[] counts = new int[radii.length];
+				int batchIndex;
+
+				while ((batchIndex = nextBatch.getAndIncrement()) < numberOfBatches) {
+					int start = batchIndex * settings.batchSize;
+					int end = Math.min(start + settings.batchSize, lines.size());
+
+					for (int k = start; k < end; k++) {
+						output[k] = processLine(lines.get(k), xIndex, yIndex, transformation, values, counts);
+					}
+				}
+			});
+
+			thread.setUncaughtExceptionHandler((t, e) -> {
+				e.printStackTrace();
+				errorsOccured.set(true);
+			});
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		if (errorsOccured.get()) {
+			throw new RuntimeException("Errors occured while calculating transit accessibility.");
+		}
+	}
+
+	/**
+	 * Reads the rows from the reader and writes them with the additional columns
+	 * to the writer. Empty rows are skipped. The writer is not closed.
+	 */
+	public void process(BufferedReader reader, BufferedWriter writer) throws IOException, InterruptedException {
+		String header = reader.readLine();
+
+		if (header == null) {
+			throw new IllegalStateException("Input is empty");
+		}
+
+		List<String> headerFields = splitFields(header, settings.separator);
+		int xIndex = findColumn(headerFields, settings.xColumn);
+		int yIndex = findColumn(headerFields, settings.yColumn);
+
+		writer.write(createHeader(header) + "\n");
+
+		// Transformations are not necessarily thread-safe, so every thread gets its own
+		CoordinateTransformation[] transformations = new CoordinateTransformation[settings.numberOfThreads];
+
+		for (int i = 0; i < settings.numberOfThreads; i++) {
+			transformations[i] = createTransformation();
+		}
+
+		int chunkSize = settings.batchSize * settings.numberOfThreads;
+		List<String> lines = new ArrayList<>(chunkSize);
+		String[] output = new String[chunkSize];
+
+		long numberOfRows = 0;
+		boolean finished = false;
+
+		while (!finished) {
+			lines.clear();
+			String line;
+
+			while (lines.size() < chunkSize && (line = reader.readLine()) != null) {
+				if (!line.isEmpty()) {
+					lines.add(line);
+				}
+			}
+
+			finished = lines.size() < chunkSize;
+			processChunk(lines, output, xIndex, yIndex, transformations);
+
+			for (int k = 0; k < lines.size(); k++) {
+				writer.write(output[k]);
+				writer.write("\n");
+			}
+
+			numberOfRows += lines.size();
+			logger.info(String.format("Processed %d rows", numberOfRows));
+		}
+
+		writer.flush();
+	}
+}
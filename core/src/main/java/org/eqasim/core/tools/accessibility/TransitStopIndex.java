@@ -0,0 +1,227 @@
+package org.eqasim.core.tools.accessibility;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * Uniform grid over the coordinates of transit stops. The stops are stored in
+ * flat coordinate arrays, sorted by grid cell, so that the nearest stop and the
+ * number of stops within a radius can be found by scanning only the cells
+ * around a location. The index is immutable and can be queried from multiple
+ * threads.
+ */
+public class TransitStopIndex {
+	private final double minX;
+	private final double minY;
+	private final double cellSize;
+
+	private final int numberOfColumns;
+	private final int numberOfRows;
+
+	private final int[] cellStarts;
+	private final double[] xs;
+	private final double[] ys;
+
+	private TransitStopIndex(double minX, double minY, double cellSize, int numberOfColumns, int numberOfRows,
+			int[] cellStarts, double[] xs, double[] ys) {
+		this.minX = minX;
+		this.minY = minY;
+		this.cellSize = cellSize;
+		this.numberOfColumns = numberOfColumns;
+		this.numberOfRows = numberOfRows;
+		this.cellStarts = cellStarts;
+		this.xs = xs;
+		this.ys = ys;
+	}
+
+	public int size() {
+		return xs.length;
+	}
+
+	private int getColumn(double x) {
+		return (int) Math.floor((x - minX) / cellSize);
+	}
+
+	private int getRow(double y) {
+		return (int) Math.floor((y - minY) / cellSize);
+	}
+
+	private double scanCell(int column, int row, double x, double y, double bestDistance2) {
+		int cell = row * numberOfColumns + column;
+
+		for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+			double dx = xs[i] - x;
+			double dy = ys[i] - y;
+			bestDistance2 = Math.min(bestDistance2, dx * dx + dy * dy);
+		}
+
+		return bestDistance2;
+	}
+
+	/**
+	 * Returns the Euclidean distance to the nearest stop, or positive infinity if
+	 * the index is empty.
+	 */
+	public double getNearestDistance(double x, double y) {
+		if (xs.length == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		// Locations outside of the grid are moved next to it, which keeps the ring
+		// bounds below valid and avoids overflows for far away locations
+		int centerColumn = Math.max(-1, Math.min(getColumn(x), numberOfColumns));
+		int centerRow = Math.max(-1, Math.min(getRow(y), numberOfRows));
+
+		double bestDistance2 = Double.POSITIVE_INFINITY;
+
+		for (int ring = 0;; ring++) {
+			if (ring > 0) {
+				// Every cell of this ring is at least (ring - 1) cells away from the location
+				double bound = (ring - 1) * cellSize;
+
+				if (bestDistance2 <= bound * bound) {
+					break;
+				}
+			}
+
+			int minColumn = centerColumn - ring;
+			int maxColumn = centerColumn + ring;
+			int minRow = centerRow - ring;
+			int maxRow = centerRow + ring;
+
+			for (int row = Math.max(minRow, 0); row <= Math.min(maxRow, numberOfRows - 1); row++) {
+				if (row == minRow || row == maxRow) {
+					for (int column = Math.max(minColumn, 0); column <= Math.min(maxColumn,
+							numberOfColumns - 1); column++) {
+						bestDistance2 = scanCell(column, row, x, y, bestDistance2);
+					}
+				} else {
+					if (minColumn >= 0 && minColumn < numberOfColumns) {
+						bestDistance2 = scanCell(minColumn, row, x, y, bestDistance2);
+					}
+
+					if (maxColumn >= 0 && maxColumn < numberOfColumns) {
+						bestDistance2 = scanCell(maxColumn, row, x, y, bestDistance2);
+					}
+				}
+			}
+
+			if (minColumn <= 0 && maxColumn >= numberOfColumns - 1 && minRow <= 0 && maxRow >= numberOfRows - 1) {
+				// The whole grid has been covered
+				break;
+			}
+		}
+
+		return Math.sqrt(bestDistance2);
+	}
+
+	/**
+	 * Counts the stops within each of the radii (inclusive) around the location.
+	 * The radii must be sorted in ascending order, counts are added to the given
+	 * array.
+	 */
+	public void countWithin(double x, double y, double[] radii, int[] counts) {
+		if (radii.length == 0 || xs.length == 0) {
+			return;
+		}
+
+		double maximumRadius = radii[radii.length - 1];
+
+		double[] radii2 = new double[radii.length];
+		for (int k = 0; k < radii.length; k++) {
+			radii2[k] = radii[k] * radii[k];
+		}
+
+		int minColumn = Math.max(getColumn(x - maximumRadius), 0);
+		int maxColumn = Math.min(getColumn(x + maximumRadius), numberOfColumns - 1);
+		int minRow = Math.max(getRow(y - maximumRadius), 0);
+		int maxRow = Math.min(getRow(y + maximumRadius), numberOfRows - 1);
+
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				int cell = row * numberOfColumns + column;
+
+				for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+					double dx = xs[i] - x;
+					double dy = ys[i] - y;
+					double distance2 = dx * dx + dy * dy;
+
+					for (int k = radii.length - 1; k >= 0 && distance2 <= radii2[k]; k--) {
+						counts[k]++;
+					}
+				}
+			}
+		}
+	}
+
+	static public TransitStopIndex create(TransitSchedule schedule, double cellSize) {
+		List<Coord> coords = new ArrayList<>(schedule.getFacilities().size());
+
+		for (TransitStopFacility facility : schedule.getFacilities().values()) {
+			coords.add(facility.getCoord());
+		}
+
+		return create(coords, cellSize);
+	}
+
+	static public TransitStopIndex create(Collection<Coord> coords, double cellSize) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+
+		for (Coord coord : coords) {
+			minX = Math.min(minX, coord.getX());
+			minY = Math.min(minY, coord.getY());
+			maxX = Math.max(maxX, coord.getX());
+			maxY = Math.max(maxY, coord.getY());
+		}
+
+		if (coords.isEmpty()) {
+			minX = minY = maxX = maxY = 0.0;
+		}
+
+		int numberOfColumns = (int) Math.floor((maxX - minX) / cellSize) + 1;
+		int numberOfRows = (int) Math.floor((maxY - minY) / cellSize) + 1;
+
+		if ((long) numberOfColumns * numberOfRows > Integer.MAX_VALUE - 1) {
+			throw new IllegalStateException("Cell size is too small for the extent of the stops");
+		}
+
+		int[] cells = new int[coords.size()];
+		int[] cellStarts = new int[numberOfColumns * numberOfRows + 1];
+
+		int i = 0;
+		for (Coord coord : coords) {
+			int column = (int) Math.floor((coord.getX() - minX) / cellSize);
+			int row = (int) Math.floor((coord.getY() - minY) / cellSize);
+
+			cells[i] = row * numberOfColumns + column;
+			cellStarts[cells[i] + 1]++;
+			i++;
+		}
+
+		for (int cell = 0; cell < numberOfColumns * numberOfRows; cell++) {
+			cellStarts[cell + 1] += cellStarts[cell];
+		}
+
+		double[] xs = new double[coords.size()];
+		double[] ys = new double[coords.size()];
+		int[] positions = cellStarts.clone();
+
+		i = 0;
+		for (Coord coord : coords) {
+			int position = positions[cells[i]]++;
+			xs[position] = coord.getX();
+			ys[position] = coord.getY();
+			i++;
+		}
+
+		return new TransitStopIndex(minX, minY, cellSize, numberOfColumns, numberOfRows, cellStarts, xs, ys);
+	}
+}
@@ -2,6 +2,7 @@ package org.eqasim.core.tools.routing;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URL;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -15,6 +16,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eqasim.core.components.headway.HeadwayCalculator;
 import org.eqasim.core.components.headway.HeadwayImputerModule;
+import org.eqasim.core.components.raptor.RaptorSnapshot;
 import org.eqasim.core.misc.InjectorBuilder;
 import org.eqasim.core.simulation.EqasimConfigurator;
 import org.eqasim.core.tools.routing.BatchPublicTransportRouter.LegInformation;
@@ -61,7 +63,7 @@ public class RunBatchPublicTransportRouter {
 						"transfer-utility", "waiting-utility", //
 						"direct-walk-factor", "maximum-transfer-distance", //
 						"walk-factor", "walk-speed", //
-						"output-trips-path", "output-legs-path", "output-config-path") //
+						"output-trips-path", "output-legs-path", "output-config-path", "snapshot-path") //
 				.allowPrefixes("travel-utility") //
 				.build();
 
@@ -121,10 +123,15 @@ public class RunBatchPublicTransportRouter {
 		configurator.configureScenario(scenario);
 
 		// We only load network, schedule and transit vehicles
-		new MatsimNetworkReader(scenario.getNetwork())
-				.readURL(ConfigGroup.getInputFileURL(config.getContext(), config.network().getInputFile()));
-		new TransitScheduleReader(scenario)
-				.readURL(ConfigGroup.getInputFileURL(config.getContext(), config.transit().getTransitScheduleFile()));
+		URL networkURL = ConfigGroup.getInputFileURL(config.getContext(), config.network().getInputFile());
+		URL scheduleURL = ConfigGroup.getInputFileURL(config.getContext(), config.transit().getTransitScheduleFile());
+
+		if (cmd.hasOption("snapshot-path")) {
+			RaptorSnapshot.load(scenario, networkURL, scheduleURL, new File(cmd.getOptionStrict("snapshot-path")));
+		} else {
+			new MatsimNetworkReader(scenario.getNetwork()).readURL(networkURL);
+			new TransitScheduleReader(scenario).readURL(scheduleURL);
+		}
 
 		if (config.transit().getVehiclesFile() != null) {
 			new MatsimVehicleReader(scenario.getTransitVehicles())
@@ -0,0 +1,90 @@
+package org.eqasim.core.tools.traversals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Columnar binary format for link traversals.
+ *
+ * The file starts with a magic number and the format version. It is followed
+ * by compressed blocks, each preceded by its uncompressed and compressed
+ * length, and terminated by a negative length. A block holds up to a fixed
+ * number of traversals and contains, in this order:
+ * <ul>
+ * <li>the number of traversals in the block</li>
+ * <li>the person, vehicle, link and mode identifiers that appear for the first
+ * time in the file, for each of the four dictionaries</li>
+ * <li>the columns of dictionary indices for persons, vehicles and links</li>
+ * <li>the enter times, delta-encoded against the previous enter time</li>
+ * <li>the leave times, delta-encoded against the enter time of the same
+ * traversal if it is known or against the previous leave time otherwise</li>
+ * <li>the columns of trip indices, leg indices and mode indices (shifted by one
+ * so that zero denotes an unknown mode)</li>
+ * </ul>
+ * All integers are written as variable-length integers. Times have a resolution
+ * of one millisecond. Unknown times are stored with a dedicated code and read
+ * back as NaN. Time deltas restart in every block.
+ */
+public class LinkTraversalFormat {
+	static public final int MAGIC = 0x45514c54; // EQLT
+	static public final int VERSION = 1;
+	static public final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+	// Time steps per second
+	static final double TIME_SCALE = 1000.0;
+	static final int END_OF_FILE = -1;
+	static final long MISSING_TIME = 0;
+
+	private LinkTraversalFormat() {
+	}
+
+	static void writeVarLong(OutputStream output, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			output.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		output.write((int) value);
+	}
+
+	static long readVarLong(InputStream input) throws IOException {
+		long value = 0;
+		int shift = 0;
+		int current;
+
+		do {
+			current = input.read();
+
+			if (current < 0) {
+				throw new IOException("Unexpected end of block");
+			}
+
+			value |= (long) (current & 0x7F) << shift;
+			shift += 7;
+		} while ((current & 0x80) != 0);
+
+		return value;
+	}
+
+	static long encodeTime(double time) {
+		return Math.round(time * TIME_SCALE);
+	}
+
+	static double decodeTime(long value) {
+		return value / TIME_SCALE;
+	}
+
+	/**
+	 * Encodes a time delta such that small positive and negative deltas and the
+	 * missing value are all short: zero is reserved for missing times.
+	 */
+	static long encodeDelta(long delta) {
+		return ((delta << 1) ^ (delta >> 63)) + 1;
+	}
+
+	static long decodeDelta(long code) {
+		long value = code - 1;
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,233 @@
+package org.eqasim.core.tools.traversals;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads link traversals written by {@link LinkTraversalWriter}. The file is
+ * scanned block by block. Each block is decoded into primitive columns that
+ * refer to the person, vehicle, link and mode dictionaries of the reader, so
+ * analyses can work on indices and only resolve the identifiers they need.
+ */
+public class LinkTraversalReader implements Closeable {
+	private final DataInputStream input;
+	private final Inflater inflater = new Inflater();
+
+	private final List<String> persons = new ArrayList<>();
+	private final List<String> vehicles = new ArrayList<>();
+	private final List<String> links = new ArrayList<>();
+	private final List<String> modes = new ArrayList<>();
+
+	private byte[] compressed = new byte[0];
+	private byte[] uncompressed = new byte[0];
+
+	private boolean isFinished = false;
+
+	public LinkTraversalReader(File path) throws IOException {
+		this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16));
+
+		if (input.readInt() != LinkTraversalFormat.MAGIC) {
+			throw new IOException("Not a link traversal file: " + path);
+		}
+
+		int version = input.readInt();
+
+		if (version != LinkTraversalFormat.VERSION) {
+			throw new IOException("Unsupported link traversal format version: " + version);
+		}
+
+		// The first entry of the modes is the unknown mode
+		modes.add(null);
+	}
+
+	/**
+	 * Reads the next block into the given block, which is resized if necessary.
+	 * Returns false if the end of the file has been reached.
+	 */
+	public boolean read(Block block) throws IOException {
+		if (isFinished) {
+			return false;
+		}
+
+		int uncompressedLength = input.readInt();
+
+		if (uncompressedLength == LinkTraversalFormat.END_OF_FILE) {
+			isFinished = true;
+			return false;
+		}
+
+		int compressedLength = input.readInt();
+
+		if (compressed.length < compressedLength) {
+			compressed = new byte[compressedLength];
+		}
+
+		if (uncompressed.length < uncompressedLength) {
+			uncompressed = new byte[uncompressedLength];
+		}
+
+		input.readFully(compressed, 0, compressedLength);
+
+		try {
+			inflater.reset();
+			inflater.setInput(compressed, 0, compressedLength);
+
+			int length = 0;
+
+			while (length < uncompressedLength) {
+				int inflated = inflater.inflate(uncompressed, length, uncompressedLength - length);
+
+				if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+					throw new IOException("Truncated block");
+				}
+
+				length += inflated;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		}
+
+		DataInputStream blockInput = new DataInputStream(new ByteArrayInputStream(uncompressed, 0, uncompressedLength));
+
+		int size = (int) LinkTraversalFormat.readVarLong(blockInput);
+		block.ensureCapacity(size);
+		block.size = size;
+
+		readEntries(blockInput, persons);
+		readEntries(blockInput, vehicles);
+		readEntries(blockInput, links);
+		readEntries(blockInput, modes);
+
+		readColumn(blockInput, block.personIndices, size);
+		readColumn(blockInput, block.vehicleIndices, size);
+		readColumn(blockInput, block.linkIndices, size);
+
+		long previousEnterTime = 0;
+
+		for (int i = 0; i < size; i++) {
+			long code = LinkTraversalFormat.readVarLong(blockInput);
+
+			if (code == LinkTraversalFormat.MISSING_TIME) {
+				block.enterTimes[i] = Double.NaN;
+			} else {
+				previousEnterTime += LinkTraversalFormat.decodeDelta(code);
+				block.enterTimes[i] = LinkTraversalFormat.decodeTime(previousEnterTime);
+			}
+		}
+
+		long previousLeaveTime = 0;
+
+		for (int i = 0; i < size; i++) {
+			long code = LinkTraversalFormat.readVarLong(blockInput);
+
+			if (code == LinkTraversalFormat.MISSING_TIME) {
+				block.leaveTimes[i] = Double.NaN;
+			} else {
+				long reference = Double.isNaN(block.enterTimes[i]) ? previousLeaveTime
+						: LinkTraversalFormat.encodeTime(block.enterTimes[i]);
+
+				previousLeaveTime = reference + LinkTraversalFormat.decodeDelta(code);
+				block.leaveTimes[i] = LinkTraversalFormat.decodeTime(previousLeaveTime);
+			}
+		}
+
+		readColumn(blockInput, block.tripIndices, size);
+		readColumn(blockInput, block.legIndices, size);
+		readColumn(blockInput, block.modeIndices, size);
+
+		return true;
+	}
+
+	private void readEntries(DataInputStream blockInput, List<String> dictionary) throws IOException {
+		int numberOfEntries = (int) LinkTraversalFormat.readVarLong(blockInput);
+
+		for (int i = 0; i < numberOfEntries; i++) {
+			dictionary.add(blockInput.readUTF());
+		}
+	}
+
+	private void readColumn(DataInputStream blockInput, int[] values, int size) throws IOException {
+		for (int i = 0; i < size; i++) {
+			values[i] = (int) LinkTraversalFormat.readVarLong(blockInput);
+		}
+	}
+
+	public String getPersonId(int index) {
+		return persons.get(index);
+	}
+
+	public String getVehicleId(int index) {
+		return vehicles.get(index);
+	}
+
+	public String getLinkId(int index) {
+		return links.get(index);
+	}
+
+	/**
+	 * Returns the mode for a mode index of a block, which is null if the mode was
+	 * unknown.
+	 */
+	public String getMode(int index) {
+		return modes.get(index);
+	}
+
+	/**
+	 * Number of persons, vehicles and links that have been seen so far.
+	 */
+	public int getNumberOfPersons() {
+		return persons.size();
+	}
+
+	public int getNumberOfVehicles() {
+		return vehicles.size();
+	}
+
+	public int getNumberOfLinks() {
+		return links.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		input.close();
+		inflater.end();
+	}
+
+	/**
+	 * Reusable columns of one block of traversals.
+	 */
+	static public class Block {
+		public int size = 0;
+
+		public int[] personIndices = new int[0];
+		public int[] vehicleIndices = new int[0];
+		public int[] linkIndices = new int[0];
+		public double[] enterTimes = new double[0];
+		public double[] leaveTimes = new double[0];
+		public int[] tripIndices = new int[0];
+		public int[] legIndices = new int[0];
+		public int[] modeIndices = new int[0];
+
+		void ensureCapacity(int capacity) {
+			if (personIndices.length < capacity) {
+				personIndices = new int[capacity];
+				vehicleIndices = new int[capacity];
+				linkIndices = new int[capacity];
+				enterTimes = new double[capacity];
+				leaveTimes = new double[capacity];
+				tripIndices = new int[capacity];
+				legIndices = new int[capacity];
+				modeIndices = new int[capacity];
+			}
+		}
+	}
+}
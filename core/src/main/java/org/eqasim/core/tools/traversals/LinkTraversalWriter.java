@@ -0,0 +1,245 @@
+package org.eqasim.core.tools.traversals;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Writes link traversals in the columnar binary format described in
+ * {@link LinkTraversalFormat}. Traversals are buffered in primitive columns and
+ * written as one compressed block whenever the block size is reached.
+ */
+public class LinkTraversalWriter implements Closeable {
+	private final DataOutputStream output;
+	private final int blockSize;
+
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final ByteArrayOutputStream blockBuffer = new ByteArrayOutputStream();
+	private byte[] compressionBuffer = new byte[1024];
+
+	private final Dictionary persons = new Dictionary();
+	private final Dictionary vehicles = new Dictionary();
+	private final Dictionary links = new Dictionary();
+	private final Map<String, Integer> modes = new HashMap<>();
+	private final List<String> newModes = new ArrayList<>();
+
+	private final int[] personIndices;
+	private final int[] vehicleIndices;
+	private final int[] linkIndices;
+	private final double[] enterTimes;
+	private final double[] leaveTimes;
+	private final int[] tripIndices;
+	private final int[] legIndices;
+	private final int[] modeIndices;
+
+	private int size = 0;
+
+	public LinkTraversalWriter(File path) throws IOException {
+		this(path, LinkTraversalFormat.DEFAULT_BLOCK_SIZE);
+	}
+
+	public LinkTraversalWriter(File path, int blockSize) throws IOException {
+		this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+		this.blockSize = blockSize;
+
+		this.personIndices = new int[blockSize];
+		this.vehicleIndices = new int[blockSize];
+		this.linkIndices = new int[blockSize];
+		this.enterTimes = new double[blockSize];
+		this.leaveTimes = new double[blockSize];
+		this.tripIndices = new int[blockSize];
+		this.legIndices = new int[blockSize];
+		this.modeIndices = new int[blockSize];
+
+		output.writeInt(LinkTraversalFormat.MAGIC);
+		output.writeInt(LinkTraversalFormat.VERSION);
+	}
+
+	public void write(Id<Person> personId, Id<Vehicle> vehicleId, Id<Link> linkId, double enterTime,
+			double leaveTime, int tripIndex, int legIndex, String mode) throws IOException {
+		personIndices[size] = persons.getIndex(personId);
+		vehicleIndices[size] = vehicles.getIndex(vehicleId);
+		linkIndices[size] = links.getIndex(linkId);
+		enterTimes[size] = enterTime;
+		leaveTimes[size] = leaveTime;
+		tripIndices[size] = tripIndex;
+		legIndices[size] = legIndex;
+		modeIndices[size] = getModeIndex(mode);
+		size++;
+
+		if (size == blockSize) {
+			flushBlock();
+		}
+	}
+
+	private int getModeIndex(String mode) {
+		if (mode == null) {
+			return 0;
+		}
+
+		Integer index = modes.get(mode);
+
+		if (index == null) {
+			index = modes.size() + 1;
+			modes.put(mode, index);
+			newModes.add(mode);
+		}
+
+		return index;
+	}
+
+	private void flushBlock() throws IOException {
+		if (size == 0) {
+			return;
+		}
+
+		blockBuffer.reset();
+		DataOutputStream blockOutput = new DataOutputStream(blockBuffer);
+
+		LinkTraversalFormat.writeVarLong(blockBuffer, size);
+
+		persons.writeNewEntries(blockOutput);
+		vehicles.writeNewEntries(blockOutput);
+		links.writeNewEntries(blockOutput);
+
+		LinkTraversalFormat.writeVarLong(blockBuffer, newModes.size());
+
+		for (String mode : newModes) {
+			blockOutput.writeUTF(mode);
+		}
+
+		newModes.clear();
+		blockOutput.flush();
+
+		writeColumn(personIndices);
+		writeColumn(vehicleIndices);
+		writeColumn(linkIndices);
+
+		long previousEnterTime = 0;
+
+		for (int i = 0; i < size; i++) {
+			if (Double.isNaN(enterTimes[i])) {
+				LinkTraversalFormat.writeVarLong(blockBuffer, LinkTraversalFormat.MISSING_TIME);
+			} else {
+				long encoded = LinkTraversalFormat.encodeTime(enterTimes[i]);
+				LinkTraversalFormat.writeVarLong(blockBuffer,
+						LinkTraversalFormat.encodeDelta(encoded - previousEnterTime));
+				previousEnterTime = encoded;
+			}
+		}
+
+		long previousLeaveTime = 0;
+
+		for (int i = 0; i < size; i++) {
+			if (Double.isNaN(leaveTimes[i])) {
+				LinkTraversalFormat.writeVarLong(blockBuffer, LinkTraversalFormat.MISSING_TIME);
+			} else {
+				long encoded = LinkTraversalFormat.encodeTime(leaveTimes[i]);
+				long reference = Double.isNaN(enterTimes[i]) ? previousLeaveTime
+						: LinkTraversalFormat.encodeTime(enterTimes[i]);
+
+				LinkTraversalFormat.writeVarLong(blockBuffer, LinkTraversalFormat.encodeDelta(encoded - reference));
+				previousLeaveTime = encoded;
+			}
+		}
+
+		writeColumn(tripIndices);
+		writeColumn(legIndices);
+		writeColumn(modeIndices);
+
+		// Compress the block
+		byte[] uncompressed = blockBuffer.toByteArray();
+
+		deflater.reset();
+		deflater.setInput(uncompressed);
+		deflater.finish();
+
+		int compressedLength = 0;
+
+		while (!deflater.finished()) {
+			if (compressedLength == compressionBuffer.length) {
+				compressionBuffer = Arrays.copyOf(compressionBuffer, compressionBuffer.length * 2);
+			}
+
+			compressedLength += deflater.deflate(compressionBuffer, compressedLength,
+					compressionBuffer.length - compressedLength);
+		}
+
+		output.writeInt(uncompressed.length);
+		output.writeInt(compressedLength);
+		output.write(compressionBuffer, 0, compressedLength);
+
+		size = 0;
+	}
+
+	private void writeColumn(int[] values) throws IOException {
+		for (int i = 0; i < size; i++) {
+			LinkTraversalFormat.writeVarLong(blockBuffer, values[i]);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		flushBlock();
+
+		output.writeInt(LinkTraversalFormat.END_OF_FILE);
+		output.close();
+
+		deflater.end();
+	}
+
+	/**
+	 * Maps identifiers to consecutive indices in the order of their first
+	 * appearance, using the index of the identifier for the lookup.
+	 */
+	static private class Dictionary {
+		private int[] indices = new int[0];
+		private final List<String> newEntries = new ArrayList<>();
+		private int size = 0;
+
+		int getIndex(Id<?> id) {
+			int idIndex = id.index();
+
+			if (idIndex >= indices.length) {
+				indices = Arrays.copyOf(indices, Math.max(idIndex + 1, indices.length * 2));
+			}
+
+			// Indices are stored with an offset of one, zero means unknown
+			int index = indices[idIndex] - 1;
+
+			if (index < 0) {
+				index = size++;
+				indices[idIndex] = index + 1;
+				newEntries.add(id.toString());
+			}
+
+			return index;
+		}
+
+		void writeNewEntries(DataOutputStream output) throws IOException {
+			output.flush();
+			LinkTraversalFormat.writeVarLong(output, newEntries.size());
+
+			for (String entry : newEntries) {
+				output.writeUTF(entry);
+			}
+
+			newEntries.clear();
+		}
+	}
+}
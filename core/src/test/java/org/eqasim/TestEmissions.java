@@ -21,6 +21,7 @@ import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.eqasim.core.components.emissions.RunComputeEmissionsEvents;
+import org.eqasim.core.components.emissions.RunComputeEmissionsGrid;
 import org.eqasim.core.components.emissions.RunExportEmissionsNetwork;
 import org.eqasim.core.simulation.EqasimConfigurator;
 import org.eqasim.core.simulation.analysis.EqasimAnalysisModule;
@@ -32,11 +33,16 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.analysis.spatial.Grid;
+import org.matsim.contrib.analysis.time.TimeBinMap;
+import org.matsim.contrib.emissions.Pollutant;
+import org.matsim.contrib.emissions.analysis.EmissionGridAnalyzer;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.CommandLine;
 import org.matsim.core.config.Config;
@@ -48,6 +54,7 @@ import org.matsim.core.events.MatsimEventsReader;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.core.utils.gis.ShapeFileReader;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.examples.ExamplesUtils;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 import org.matsim.vehicles.MatsimVehicleReader;
@@ -192,7 +199,62 @@ public class TestEmissions {
 		assertEquals(expectedNox, feature.getAttribute("NOx"));
 		assertEquals(expectedUnknown, feature.getAttribute("Unknown"));
 
-		// TODO : test RunComputeEmissionsGrid
+		runMelunEmissionsGrid();
+	}
+
+	private void runMelunEmissionsGrid() throws CommandLine.ConfigurationException, IOException {
+		RunComputeEmissionsGrid.main(new String[] { "--config-path", "melun_test/input/config.xml",
+				"--domain-shp-path", "melun_test/input/center.shp", "--grid-size", "100", "--smooth-radius", "200",
+				"--streaming", "true", "--tile-size", "8", "--threads", "4" });
+
+		Map<String, Double> streaming = new HashMap<>();
+
+		try (BufferedReader reader = IOUtils.getBufferedReader("melun_test/output/output_emissions_grid.csv")) {
+			String line = reader.readLine();
+
+			while ((line = reader.readLine()) != null) {
+				String[] row = line.split(";");
+				streaming.put(String.join(";", row[0], row[1], row[2], row[3]), Double.parseDouble(row[4]));
+			}
+		}
+
+		Assert.assertTrue(streaming.size() > 0);
+
+		Network network = NetworkUtils.readNetwork("melun_test/output/output_network.xml.gz");
+		Geometry bounds = (Geometry) ShapeFileReader.getAllFeatures("melun_test/input/center.shp").iterator().next()
+				.getDefaultGeometry();
+
+		TimeBinMap<Grid<Map<Pollutant, Double>>> reference = new EmissionGridAnalyzer.Builder() //
+				.withBounds(bounds) //
+				.withNetwork(network) //
+				.withGridSize(100) //
+				.withSmoothingRadius(200) //
+				.withTimeBinSize(3600) //
+				.withGridType(EmissionGridAnalyzer.GridType.Square) //
+				.build() //
+				.process("melun_test/output/output_emissions_events.xml.gz");
+
+		int numberOfReferenceValues = 0;
+
+		for (TimeBinMap.TimeBin<Grid<Map<Pollutant, Double>>> timeBin : reference.getTimeBins()) {
+			for (Grid.Cell<Map<Pollutant, Double>> cell : timeBin.getValue().getCells()) {
+				for (Map.Entry<Pollutant, Double> entry : cell.getValue().entrySet()) {
+					if (entry.getValue() != 0.0) {
+						String key = String.join(";", String.valueOf(timeBin.getStartTime()),
+								String.valueOf(cell.getCoordinate().x), String.valueOf(cell.getCoordinate().y),
+								entry.getKey().name());
+
+						Double value = streaming.get(key);
+						assertNotNull(key, value);
+						assertEquals(key, entry.getValue(), value, 1e-9 * Math.abs(entry.getValue()));
+
+						numberOfReferenceValues++;
+					}
+				}
+			}
+		}
+
+		assertEquals(numberOfReferenceValues, streaming.size());
 	}
 
 	@Test
@@ -3,6 +3,7 @@ package org.eqasim;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -16,6 +17,9 @@ import org.eqasim.core.analysis.run.RunTripAnalysis;
 import org.eqasim.core.components.config.EqasimConfigGroup;
 import org.eqasim.core.scenario.cutter.RunScenarioCutter;
 import org.eqasim.core.scenario.cutter.RunScenarioCutterV2;
+import org.eqasim.core.scenario.cutter.ScenarioWriter;
+import org.eqasim.core.scenario.cutter.extent.ScenarioExtent;
+import org.eqasim.core.scenario.cutter.extent.ShapeScenarioExtent;
 import org.eqasim.core.scenario.routing.RunPopulationRouting;
 import org.eqasim.core.simulation.EqasimConfigurator;
 import org.eqasim.core.simulation.analysis.EqasimAnalysisModule;
@@ -27,7 +31,11 @@ import org.eqasim.core.simulation.modes.drt.analysis.run.RunDrtPassengerAnalysis
 import org.eqasim.core.simulation.modes.drt.analysis.run.RunDrtVehicleAnalysis;
 import org.eqasim.core.simulation.modes.drt.utils.AdaptConfigForDrt;
 import org.eqasim.core.simulation.modes.drt.utils.CreateDrtVehicles;
+import org.eqasim.core.simulation.modes.drt.analysis.utils.VehicleRegistry;
+import org.eqasim.core.simulation.modes.feeder_drt.analysis.passengers.FeederTripSequenceItem;
+import org.eqasim.core.simulation.modes.feeder_drt.analysis.passengers.FeederTripSequenceListener;
 import org.eqasim.core.simulation.modes.feeder_drt.analysis.run.RunFeederDrtPassengerAnalysis;
+import org.eqasim.core.simulation.modes.feeder_drt.config.MultiModeFeederDrtConfigGroup;
 import org.eqasim.core.simulation.modes.feeder_drt.mode_choice.FeederDrtModeAvailabilityWrapper;
 import org.eqasim.core.simulation.modes.feeder_drt.utils.AdaptConfigForFeederDrt;
 import org.eqasim.core.simulation.modes.transit_with_abstract_access.mode_choice.TransitWithAbstractAccessModeAvailabilityWrapper;
@@ -42,20 +50,31 @@ import org.eqasim.core.tools.ExportNetworkToShapefile;
 import org.eqasim.core.tools.ExportPopulationToCSV;
 import org.eqasim.core.tools.ExportTransitLinesToShapefile;
 import org.eqasim.core.tools.ExportTransitStopsToShapefile;
+import org.eqasim.simulation.feeder.ReferenceFeederTripSequenceListener;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.contrib.drt.util.DrtEventsReaders;
 import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
 import org.matsim.contribs.discrete_mode_choice.model.mode_availability.ModeAvailability;
+import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.CommandLine;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.controler.AbstractModule;
 import org.matsim.core.controler.Controler;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.core.utils.misc.CRCChecksum;
 
@@ -254,6 +273,79 @@ public class TestSimulationPipeline {
         runMelunSimulation("melun_test/cutter_v2/center_config_drt.xml", "melun_test/output_cutter_v2_drt");
     }
 
+    /**
+     * The V2 cutter used to run the legacy cutter, read back the remaining person
+     * ids and then filter a freshly loaded original scenario. This pipeline is
+     * reproduced here, including the flagging of link modes inside the extent,
+     * and its output is compared with the single-load cutter.
+     */
+    public void compareCutterV2WithLegacyPipeline() throws Exception {
+        String[] commonArgs = new String[] {
+                "--config-path", "melun_test/input/config_vdf.xml",
+                "--events-path", "melun_test/output_vdf/output_events.xml.gz",
+                "--prefix", "center_",
+                "--extent-path", "melun_test/input/center.shp"
+        };
+
+        List<String> cutterArgs = new ArrayList<>(List.of(commonArgs));
+        cutterArgs.addAll(List.of("--output-path", "melun_test/cutter_v2_comparison", //
+                "--vdf-travel-times-path", "melun_test/output_vdf/vdf.bin", "--flag-area-link-modes", "true"));
+        RunScenarioCutterV2.main(cutterArgs.toArray(String[]::new));
+
+        // Legacy cutter, only used for the person ids
+        List<String> legacyArgs = new ArrayList<>(List.of(commonArgs));
+        legacyArgs.addAll(List.of("--output-path", "melun_test/cutter_v2_legacy", "--skip-routing", "true"));
+        RunScenarioCutter.main(legacyArgs.toArray(String[]::new));
+
+        Scenario legacyScenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+        new PopulationReader(legacyScenario).readFile("melun_test/cutter_v2_legacy/center_population.xml.gz");
+        Set<Id<Person>> personIds = new HashSet<>(legacyScenario.getPopulation().getPersons().keySet());
+
+        // Original scenario filtered by these persons
+        EqasimConfigurator eqasimConfigurator = new EqasimConfigurator();
+        Config config = ConfigUtils.loadConfig("melun_test/input/config_vdf.xml");
+        eqasimConfigurator.updateConfig(config);
+
+        Scenario scenario = ScenarioUtils.createScenario(config);
+        eqasimConfigurator.configureScenario(scenario);
+        ScenarioUtils.loadScenario(scenario);
+        eqasimConfigurator.adjustScenario(scenario);
+
+        List<Id<Person>> personsToRemove = scenario.getPopulation().getPersons().keySet().stream()
+                .filter(personId -> !personIds.contains(personId)).toList();
+        personsToRemove.forEach(scenario.getPopulation()::removePerson);
+
+        ScenarioExtent extent = new ShapeScenarioExtent.Builder(new File("melun_test/input/center.shp"),
+                Optional.empty(), Optional.empty()).build();
+
+        Set<String> insideModes = new HashSet<>();
+        for (Link link : scenario.getNetwork().getLinks().values()) {
+            if (extent.isInside(link.getFromNode().getCoord())) {
+                Set<String> linkModes = new HashSet<>(link.getAllowedModes());
+
+                for (String mode : link.getAllowedModes()) {
+                    insideModes.add("inside_" + mode);
+                    linkModes.add("inside_" + mode);
+                }
+
+                link.setAllowedModes(linkModes);
+            }
+        }
+
+        for (String mode : insideModes) {
+            RunScenarioCutterV2.findLargestFullyConnectedSubnetwork(scenario.getNetwork(), mode);
+        }
+
+        new ScenarioWriter(config, scenario, "center_").run(new File("melun_test/cutter_v2_reference"));
+
+        for (String fileName : new String[] { "population.xml.gz", "network.xml.gz", "transit_schedule.xml.gz",
+                "facilities.xml.gz" }) {
+            Assert.assertEquals("Cutter outputs differ: " + fileName,
+                    CRCChecksum.getCRCFromFile("melun_test/cutter_v2_reference/center_" + fileName),
+                    CRCChecksum.getCRCFromFile("melun_test/cutter_v2_comparison/center_" + fileName));
+        }
+    }
+
     @Test
     public void testDrt() throws IOException, CommandLine.ConfigurationException {
         CreateDrtVehicles.main(new String[]{
@@ -341,6 +433,60 @@ public class TestSimulationPipeline {
                 "--network-path", "melun_test/output_feeder/output_network.xml.gz",
                 "--output-path", "melun_test/output_feeder/eqasim_feeder_drt_trips_standalone.csv"
         });
+
+        Assert.assertEquals(CRCChecksum.getCRCFromFile("melun_test/output_feeder/eqasim_feeder_drt_trips.csv"),
+                CRCChecksum.getCRCFromFile("melun_test/output_feeder/eqasim_feeder_drt_trips_standalone.csv"));
+
+        compareFeederSequencesWithReference();
+    }
+
+    static private String formatFeederItem(FeederTripSequenceItem item) {
+        return String.join(";", String.valueOf(item.personId), item.operator, String.valueOf(item.originLink.getId()),
+                String.valueOf(item.destinationLink.getId()), String.valueOf(item.accessVehicleId),
+                String.valueOf(item.egressVehicleId), String.valueOf(item.accessDepartureTime),
+                String.valueOf(item.accessArrivalTime), String.valueOf(item.egressDepartureTime),
+                String.valueOf(item.egressArrivalTime), String.valueOf(item.ptDepartureTime),
+                String.valueOf(item.ptArrivalTime), String.valueOf(item.accessTransitStopId),
+                String.valueOf(item.egressTransitStopId), String.valueOf(item.accessTransitLineId),
+                String.valueOf(item.egressTransitLineId), String.valueOf(item.accessTransitRouteId),
+                String.valueOf(item.egressTransitRouteId));
+    }
+
+    /**
+     * Replays the events of the feeder simulation with the current listener and
+     * with the previous implementation, which must reconstruct the same sequences.
+     */
+    private void compareFeederSequencesWithReference() {
+        EqasimConfigurator eqasimConfigurator = new EqasimConfigurator();
+        Config config = ConfigUtils.loadConfig("melun_test/input/config_feeder.xml");
+        eqasimConfigurator.updateConfig(config);
+
+        MultiModeFeederDrtConfigGroup feederConfig = (MultiModeFeederDrtConfigGroup) config.getModules()
+                .get(MultiModeFeederDrtConfigGroup.GROUP_NAME);
+
+        Network network = NetworkUtils.createNetwork();
+        new MatsimNetworkReader(network).readFile("melun_test/output_feeder/output_network.xml.gz");
+
+        VehicleRegistry vehicleRegistry = new VehicleRegistry();
+        FeederTripSequenceListener listener = new FeederTripSequenceListener(feederConfig.getModeConfigs(),
+                vehicleRegistry, network);
+        ReferenceFeederTripSequenceListener referenceListener = new ReferenceFeederTripSequenceListener(
+                feederConfig.getModeConfigs(), vehicleRegistry, network);
+
+        EventsManager eventsManager = EventsUtils.createEventsManager();
+        eventsManager.addHandler(listener);
+        eventsManager.addHandler(referenceListener);
+        eventsManager.addHandler(vehicleRegistry);
+
+        eventsManager.initProcessing();
+        DrtEventsReaders.createEventsReader(eventsManager).readFile("melun_test/output_feeder/output_events.xml.gz");
+        eventsManager.finishProcessing();
+
+        List<String> items = listener.getItemsList().stream().map(TestSimulationPipeline::formatFeederItem).toList();
+        List<String> referenceItems = referenceListener.getItemsList().stream()
+                .map(TestSimulationPipeline::formatFeederItem).toList();
+
+        Assert.assertEquals(referenceItems, items);
     }
 
     @Test
@@ -422,6 +568,7 @@ public class TestSimulationPipeline {
         runExports();
         runCutter();
         runCutterV2();
+        compareCutterV2WithLegacyPipeline();
     }
 
     public void runPopulationRouting() throws CommandLine.ConfigurationException, IOException, InterruptedException {
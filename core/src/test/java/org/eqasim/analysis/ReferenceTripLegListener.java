@@ -0,0 +1,221 @@
+package org.eqasim.analysis;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+
+import org.eqasim.core.analysis.PersonAnalysisFilter;
+import org.eqasim.core.analysis.legs.LegItem;
+import org.eqasim.core.analysis.legs.LegListenerItem;
+import org.eqasim.core.analysis.trips.TripItem;
+import org.eqasim.core.analysis.trips.TripListenerItem;
+import org.eqasim.core.components.transit.events.PublicTransitEvent;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.handler.ActivityEndEventHandler;
+import org.matsim.api.core.v01.events.handler.ActivityStartEventHandler;
+import org.matsim.api.core.v01.events.handler.GenericEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonEntersVehicleEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonLeavesVehicleEventHandler;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.api.experimental.events.handler.TeleportationArrivalEventHandler;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Map-based reference for the TripListener and the LegListener as they were
+ * before person and vehicle state was indexed. Both item types are tracked in
+ * one listener that shares the passenger and index state. It is used to verify
+ * that the indexed listeners produce the same items and as a baseline for
+ * benchmarks.
+ */
+public class ReferenceTripLegListener implements ActivityStartEventHandler, ActivityEndEventHandler,
+		PersonDepartureEventHandler, PersonEntersVehicleEventHandler, PersonLeavesVehicleEventHandler,
+		LinkEnterEventHandler, TeleportationArrivalEventHandler, GenericEventHandler {
+	final private Network network;
+
+	final private Collection<TripItem> trips = new LinkedList<>();
+	final private Collection<LegItem> legs = new LinkedList<>();
+
+	final private Map<Id<Person>, TripListenerItem> ongoingTrips = new HashMap<>();
+	final private Map<Id<Person>, LegListenerItem> ongoingLegs = new HashMap<>();
+	final private Map<Id<Vehicle>, Collection<Id<Person>>> passengers = new HashMap<>();
+	final private Map<Id<Person>, Integer> tripIndex = new HashMap<>();
+	final private Map<Id<Person>, Integer> legIndex = new HashMap<>();
+
+	final private PersonAnalysisFilter personFilter;
+
+	public ReferenceTripLegListener(Network network, PersonAnalysisFilter personFilter) {
+		this.network = network;
+		this.personFilter = personFilter;
+	}
+
+	public Collection<TripItem> getTripItems() {
+		return trips;
+	}
+
+	public Collection<LegItem> getLegItems() {
+		return legs;
+	}
+
+	@Override
+	public void reset(int iteration) {
+		trips.clear();
+		legs.clear();
+		ongoingTrips.clear();
+		ongoingLegs.clear();
+		passengers.clear();
+		tripIndex.clear();
+		legIndex.clear();
+	}
+
+	@Override
+	public void handleEvent(ActivityEndEvent event) {
+		if (personFilter.analyzePerson(event.getPersonId())) {
+			Integer personTripIndex = tripIndex.get(event.getPersonId());
+			Integer personLegIndex = legIndex.get(event.getPersonId());
+
+			personLegIndex = personLegIndex == null ? 0 : personLegIndex + 1;
+
+			if (!TripStructureUtils.isStageActivityType(event.getActType())) {
+				personTripIndex = personTripIndex == null ? 0 : personTripIndex + 1;
+
+				ongoingTrips.put(event.getPersonId(), new TripListenerItem(event.getPersonId(), personTripIndex,
+						network.getLinks().get(event.getLinkId()).getCoord(), event.getTime(), event.getActType()));
+			}
+
+			ongoingLegs.put(event.getPersonId(), new LegListenerItem(event.getPersonId(), personTripIndex,
+					personLegIndex, network.getLinks().get(event.getLinkId()).getCoord()));
+
+			tripIndex.put(event.getPersonId(), personTripIndex);
+			legIndex.put(event.getPersonId(), personLegIndex);
+		}
+	}
+
+	@Override
+	public void handleEvent(PersonDepartureEvent event) {
+		if (personFilter.analyzePerson(event.getPersonId())) {
+			ongoingTrips.get(event.getPersonId()).mode = event.getRoutingMode();
+
+			LegListenerItem leg = ongoingLegs.get(event.getPersonId());
+			leg.mode = event.getLegMode();
+			leg.departureTime = event.getTime();
+		}
+	}
+
+	@Override
+	public void handleEvent(ActivityStartEvent event) {
+		if (personFilter.analyzePerson(event.getPersonId())) {
+			LegListenerItem leg = ongoingLegs.remove(event.getPersonId());
+
+			if (leg != null) {
+				leg.travelTime = event.getTime() - leg.departureTime;
+				leg.destination = network.getLinks().get(event.getLinkId()).getCoord();
+				leg.euclideanDistance = CoordUtils.calcEuclideanDistance(leg.origin, leg.destination);
+
+				legs.add(new LegItem(leg.personId, leg.personTripId, leg.legIndex, leg.origin, leg.destination,
+						leg.departureTime, leg.travelTime, leg.vehicleDistance, leg.routedDistance, leg.mode,
+						leg.euclideanDistance));
+			}
+
+			if (!TripStructureUtils.isStageActivityType(event.getActType())) {
+				TripListenerItem trip = ongoingTrips.remove(event.getPersonId());
+
+				if (trip != null) {
+					trip.returning = event.getActType().equals("home");
+					trip.followingPurpose = event.getActType();
+					trip.travelTime = event.getTime() - trip.departureTime;
+					trip.destination = network.getLinks().get(event.getLinkId()).getCoord();
+					trip.euclideanDistance = CoordUtils.calcEuclideanDistance(trip.origin, trip.destination);
+
+					trips.add(new TripItem(trip.personId, trip.personTripId, trip.origin, trip.destination,
+							trip.departureTime, trip.travelTime, trip.vehicleDistance, trip.routedDistance, trip.mode,
+							trip.precedingPurpose, trip.followingPurpose, trip.returning, trip.euclideanDistance));
+				}
+			}
+		}
+	}
+
+	@Override
+	public void handleEvent(PersonEntersVehicleEvent event) {
+		if (personFilter.analyzePerson(event.getPersonId())) {
+			passengers.computeIfAbsent(event.getVehicleId(), id -> new HashSet<>()).add(event.getPersonId());
+		}
+	}
+
+	@Override
+	public void handleEvent(PersonLeavesVehicleEvent event) {
+		if (personFilter.analyzePerson(event.getPersonId())) {
+			Collection<Id<Person>> personIds = passengers.get(event.getVehicleId());
+
+			if (personIds != null) {
+				personIds.remove(event.getPersonId());
+
+				if (personIds.isEmpty()) {
+					passengers.remove(event.getVehicleId());
+				}
+
+				// Last link is not traversed, so we should not count it!
+				TripListenerItem trip = ongoingTrips.get(event.getPersonId());
+				trip.routedDistance -= trip.lastAddedLinkDistance;
+				trip.vehicleDistance -= trip.lastAddedLinkDistance;
+
+				LegListenerItem leg = ongoingLegs.get(event.getPersonId());
+				leg.routedDistance -= leg.lastAddedLinkDistance;
+				leg.vehicleDistance -= leg.lastAddedLinkDistance;
+			}
+		}
+	}
+
+	@Override
+	public void handleEvent(LinkEnterEvent event) {
+		Collection<Id<Person>> personIds = passengers.get(event.getVehicleId());
+
+		if (personIds != null) {
+			double linkDistance = network.getLinks().get(event.getLinkId()).getLength();
+
+			for (Id<Person> personId : personIds) {
+				TripListenerItem trip = ongoingTrips.get(personId);
+				trip.routedDistance += linkDistance;
+				trip.vehicleDistance += linkDistance;
+				trip.lastAddedLinkDistance = linkDistance;
+
+				LegListenerItem leg = ongoingLegs.get(personId);
+				leg.routedDistance += linkDistance;
+				leg.vehicleDistance += linkDistance;
+				leg.lastAddedLinkDistance = linkDistance;
+			}
+		}
+	}
+
+	@Override
+	public void handleEvent(TeleportationArrivalEvent event) {
+		if (personFilter.analyzePerson(event.getPersonId())) {
+			ongoingTrips.get(event.getPersonId()).routedDistance += event.getDistance();
+			ongoingLegs.get(event.getPersonId()).routedDistance += event.getDistance();
+		}
+	}
+
+	@Override
+	public void handleEvent(GenericEvent event) {
+		if (event instanceof PublicTransitEvent transitEvent) {
+			if (personFilter.analyzePerson(transitEvent.getPersonId())) {
+				ongoingTrips.get(transitEvent.getPersonId()).vehicleDistance += transitEvent.getTravelDistance();
+				ongoingLegs.get(transitEvent.getPersonId()).vehicleDistance += transitEvent.getTravelDistance();
+			}
+		}
+	}
+}
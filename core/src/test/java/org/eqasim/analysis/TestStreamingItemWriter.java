@@ -0,0 +1,101 @@
+package org.eqasim.analysis;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eqasim.core.analysis.StreamingItemWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.matsim.core.utils.io.IOUtils;
+
+public class TestStreamingItemWriter {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	static private List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<>();
+
+		try (BufferedReader reader = IOUtils.getBufferedReader(file.toString())) {
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		}
+
+		return lines;
+	}
+
+	@Test
+	public void testOutput() throws IOException, InterruptedException {
+		for (String fileName : new String[] { "items.csv", "items.csv.gz" }) {
+			File file = new File(temporaryFolder.getRoot(), fileName);
+
+			// A small queue makes sure that the producer has to wait for the writer
+			StreamingItemWriter<Integer> writer = new StreamingItemWriter<>(file.toString(), "value;square",
+					value -> value + ";" + value * value, 4);
+
+			for (int value = 0; value < 1000; value++) {
+				writer.accept(value);
+			}
+
+			writer.close();
+			writer.close();
+
+			List<String> lines = readLines(file);
+			Assert.assertEquals(1001, lines.size());
+			Assert.assertEquals("value;square", lines.get(0));
+
+			for (int value = 0; value < 1000; value++) {
+				Assert.assertEquals(value + ";" + value * value, lines.get(value + 1));
+			}
+		}
+	}
+
+	@Test
+	public void testFailure() throws IOException, InterruptedException {
+		File file = new File(temporaryFolder.getRoot(), "items.csv");
+
+		StreamingItemWriter<Integer> writer = new StreamingItemWriter<>(file.toString(), "value", value -> {
+			if (value == 10) {
+				throw new IllegalArgumentException("Cannot format " + value);
+			}
+
+			return String.valueOf(value);
+		}, 4);
+
+		boolean acceptFailed = false;
+
+		// Producers never block after a failure, the next accept rethrows it
+		for (int value = 0; value < 100000 && !acceptFailed; value++) {
+			try {
+				writer.accept(value);
+			} catch (IllegalStateException e) {
+				Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+				acceptFailed = true;
+			}
+
+			if (value > 10) {
+				Thread.sleep(1);
+			}
+		}
+
+		Assert.assertTrue(acceptFailed);
+
+		try {
+			writer.close();
+			Assert.fail("Expected the failure to be rethrown on close");
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+
+		List<String> lines = readLines(file);
+		Assert.assertEquals(11, lines.size());
+		Assert.assertEquals("9", lines.get(10));
+	}
+}
@@ -0,0 +1,229 @@
+package org.eqasim.analysis;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.eqasim.core.analysis.DefaultPersonAnalysisFilter;
+import org.eqasim.core.analysis.legs.LegItem;
+import org.eqasim.core.analysis.legs.LegListener;
+import org.eqasim.core.analysis.trips.TripItem;
+import org.eqasim.core.analysis.trips.TripListener;
+import org.eqasim.core.components.transit.events.PublicTransitEvent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.vehicles.Vehicle;
+
+public class TestTripLegListeners {
+	private final static int NUMBER_OF_LINKS = 20;
+	private final static int NUMBER_OF_BUSES = 3;
+
+	static private Network createNetwork(Random random) {
+		Network network = NetworkUtils.createNetwork();
+		Node previous = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0.0, 0.0));
+
+		for (int i = 1; i <= NUMBER_OF_LINKS; i++) {
+			Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId(i),
+					new Coord(150.0 * i, 50.0 * random.nextDouble()));
+			NetworkUtils.createAndAddLink(network, Id.createLinkId(i), previous, node, 100.0 + random.nextInt(100),
+					10.0, 1000.0, 1.0);
+			previous = node;
+		}
+
+		return network;
+	}
+
+	private static class EventsBuilder {
+		final List<Event> events = new ArrayList<>();
+		final Random random;
+
+		EventsBuilder(Random random) {
+			this.random = random;
+		}
+
+		void activityStart(double time, Id<Person> personId, int link, String type) {
+			events.add(new ActivityStartEvent(time, personId, Id.createLinkId(link), null, type, null));
+		}
+
+		void activityEnd(double time, Id<Person> personId, int link, String type) {
+			events.add(new ActivityEndEvent(time, personId, Id.createLinkId(link), null, type, null));
+		}
+
+		double vehicleLeg(double time, Id<Person> personId, Id<Vehicle> vehicleId, int fromLink, int toLink,
+				String mode, String routingMode) {
+			events.add(new PersonDepartureEvent(time, personId, Id.createLinkId(fromLink), mode, routingMode));
+			events.add(new PersonEntersVehicleEvent(time, personId, vehicleId));
+
+			for (int i = fromLink + 1; i <= toLink; i++) {
+				time += 10.0;
+				events.add(new LinkEnterEvent(time, vehicleId, Id.createLinkId(i)));
+			}
+
+			time += 5.0;
+			events.add(new PersonLeavesVehicleEvent(time, personId, vehicleId));
+			events.add(new PersonArrivalEvent(time, personId, Id.createLinkId(toLink), mode));
+
+			return time;
+		}
+
+		double walkLeg(double time, Id<Person> personId, int fromLink, int toLink, String routingMode) {
+			double travelTime = 60.0 + 300.0 * random.nextDouble();
+
+			events.add(new PersonDepartureEvent(time, personId, Id.createLinkId(fromLink), TransportMode.walk,
+					routingMode));
+			events.add(new TeleportationArrivalEvent(time + travelTime, personId, travelTime * 1.3,
+					TransportMode.walk));
+			events.add(new PersonArrivalEvent(time + travelTime, personId, Id.createLinkId(toLink),
+					TransportMode.walk));
+
+			return time + travelTime;
+		}
+	}
+
+	static private List<Event> createEvents(Random random) {
+		EventsBuilder builder = new EventsBuilder(random);
+
+		for (int k = 0; k < 200; k++) {
+			Id<Person> personId = Id.createPersonId("person" + k);
+			Id<Vehicle> vehicleId = Id.createVehicleId("car" + k);
+
+			int homeLink = 1 + random.nextInt(5);
+			int workLink = 10 + random.nextInt(NUMBER_OF_LINKS - 10);
+
+			// Car trip to work, possibly with a passenger
+			double time = 6.0 * 3600.0 + random.nextDouble() * 3600.0;
+			builder.activityEnd(time, personId, homeLink, "home");
+
+			if (k % 3 == 0) {
+				Id<Person> passengerId = Id.createPersonId("passenger" + k);
+				builder.activityEnd(time, passengerId, homeLink, "home");
+				double arrivalTime = builder.vehicleLeg(time, passengerId, vehicleId, homeLink, workLink,
+						"car_passenger", "car_passenger");
+				builder.activityStart(arrivalTime, passengerId, workLink, "work");
+			}
+
+			time = builder.vehicleLeg(time, personId, vehicleId, homeLink, workLink, TransportMode.car,
+					TransportMode.car);
+			builder.activityStart(time, personId, workLink, "work");
+
+			// Transit trip back home with access and egress walks, the bus is moved over
+			// the links between the two stops
+			time += 8.0 * 3600.0 + random.nextDouble() * 3600.0;
+			builder.activityEnd(time, personId, workLink, "work");
+
+			int boardingLink = workLink - 1;
+			int alightingLink = homeLink + 1;
+
+			time = builder.walkLeg(time, personId, workLink, boardingLink, TransportMode.pt);
+			builder.activityStart(time, personId, boardingLink, "pt interaction");
+			builder.activityEnd(time, personId, boardingLink, "pt interaction");
+
+			Id<Vehicle> busId = Id.createVehicleId("bus" + (k % NUMBER_OF_BUSES));
+			double arrivalTime = builder.vehicleLeg(time, personId, busId, alightingLink, boardingLink,
+					TransportMode.pt, TransportMode.pt);
+
+			builder.events.add(new PublicTransitEvent(arrivalTime, personId, Id.create("line", TransitLine.class),
+					Id.create("route", TransitRoute.class), Id.create(boardingLink, TransitStopFacility.class),
+					Id.create(alightingLink, TransitStopFacility.class), time, 800.0 + random.nextDouble() * 500.0));
+
+			time = arrivalTime;
+			builder.activityStart(time, personId, alightingLink, "pt interaction");
+			builder.activityEnd(time, personId, alightingLink, "pt interaction");
+
+			time = builder.walkLeg(time, personId, alightingLink, homeLink, TransportMode.pt);
+			builder.activityStart(time, personId, homeLink, "home");
+		}
+
+		// Transit drivers are not analyzed, but their vehicles are
+		for (int i = 0; i < NUMBER_OF_BUSES; i++) {
+			builder.events.add(new PersonEntersVehicleEvent(0.0, Id.createPersonId("pt_driver" + i),
+					Id.createVehicleId("bus" + i)));
+		}
+
+		List<Event> events = builder.events;
+		events.sort(Comparator.comparingDouble(Event::getTime));
+		return events;
+	}
+
+	static private String format(TripItem item) {
+		return String.join(";", item.personId.toString(), String.valueOf(item.personTripId),
+				String.valueOf(item.origin), String.valueOf(item.destination), String.valueOf(item.departureTime),
+				String.valueOf(item.travelTime), String.valueOf(item.vehicleDistance),
+				String.valueOf(item.routedDistance), item.mode, item.precedingPurpose, item.followingPurpose,
+				String.valueOf(item.returning), String.valueOf(item.euclideanDistance));
+	}
+
+	static private String format(LegItem item) {
+		return String.join(";", item.personId.toString(), String.valueOf(item.personTripId),
+				String.valueOf(item.legIndex), String.valueOf(item.origin), String.valueOf(item.destination),
+				String.valueOf(item.departureTime), String.valueOf(item.travelTime),
+				String.valueOf(item.vehicleDistance), String.valueOf(item.routedDistance), item.mode,
+				String.valueOf(item.euclideanDistance));
+	}
+
+	@Test
+	public void testEquivalenceWithReference() {
+		Random random = new Random(0);
+		Network network = createNetwork(random);
+		List<Event> events = createEvents(random);
+
+		TripListener tripListener = new TripListener(network, new DefaultPersonAnalysisFilter());
+		LegListener legListener = new LegListener(network, new DefaultPersonAnalysisFilter());
+		ReferenceTripLegListener referenceListener = new ReferenceTripLegListener(network,
+				new DefaultPersonAnalysisFilter());
+
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler(tripListener);
+		eventsManager.addHandler(legListener);
+		eventsManager.addHandler(referenceListener);
+
+		// The second iteration makes sure that resetting clears all state
+		for (int iteration = 0; iteration < 2; iteration++) {
+			eventsManager.resetHandlers(iteration);
+			eventsManager.initProcessing();
+
+			for (Event event : events) {
+				eventsManager.processEvent(event);
+			}
+
+			eventsManager.finishProcessing();
+
+			List<String> trips = tripListener.getTripItems().stream().map(TestTripLegListeners::format).toList();
+			List<String> referenceTrips = referenceListener.getTripItems().stream()
+					.map(TestTripLegListeners::format).toList();
+
+			List<String> legs = legListener.getLegItems().stream().map(TestTripLegListeners::format).toList();
+			List<String> referenceLegs = referenceListener.getLegItems().stream()
+					.map(TestTripLegListeners::format).toList();
+
+			// Persons: 200 with two trips, 67 passengers with one trip
+			Assert.assertEquals(467, referenceTrips.size());
+			Assert.assertEquals(200 * 4 + 67, referenceLegs.size());
+
+			Assert.assertEquals(referenceTrips, trips);
+			Assert.assertEquals(referenceLegs, legs);
+		}
+	}
+}
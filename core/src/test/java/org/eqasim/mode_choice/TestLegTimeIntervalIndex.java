@@ -0,0 +1,107 @@
+package org.eqasim.mode_choice;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.eqasim.core.simulation.mode_choice.constraints.leg_time.LegTimeConstraintSingleLegConfigGroup;
+import org.eqasim.core.simulation.mode_choice.constraints.leg_time.LegTimeConstraintSingleLegConfigGroup.TimeSlotConfigGroup;
+import org.eqasim.core.simulation.mode_choice.constraints.leg_time.LegTimeIntervalIndex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.core.population.PopulationUtils;
+
+public class TestLegTimeIntervalIndex {
+	static private LegTimeConstraintSingleLegConfigGroup createDefinition(Random random, int numberOfSlots,
+			boolean checkArrival) {
+		LegTimeConstraintSingleLegConfigGroup definition = new LegTimeConstraintSingleLegConfigGroup();
+		definition.mainMode = "pt";
+		definition.legMode = "drt";
+		definition.checkBothDepartureAndArrivalTimes = checkArrival;
+
+		for (int i = 0; i < numberOfSlots; i++) {
+			TimeSlotConfigGroup slot = new TimeSlotConfigGroup();
+			slot.beginTime = random.nextDouble() * 24.0 * 3600.0;
+			slot.endTime = slot.beginTime + random.nextDouble() * 4.0 * 3600.0;
+			definition.addParameterSet(slot);
+		}
+
+		return definition;
+	}
+
+	static private boolean validateNaively(LegTimeConstraintSingleLegConfigGroup definition, double departureTime,
+			double travelTime) {
+		double arrivalTime = departureTime + (definition.checkBothDepartureAndArrivalTimes ? travelTime : 0.0);
+		return definition.getTimeSlotsParameterSets().stream()
+				.anyMatch(slot -> departureTime >= slot.beginTime && arrivalTime <= slot.endTime);
+	}
+
+	@Test
+	public void testEquivalence() {
+		Random random = new Random(0);
+
+		for (int k = 0; k < 100; k++) {
+			LegTimeConstraintSingleLegConfigGroup definition = createDefinition(random, random.nextInt(10),
+					random.nextBoolean());
+
+			Map<String, Map<String, LegTimeConstraintSingleLegConfigGroup>> definitions = new HashMap<>();
+			definitions.put("pt", Collections.singletonMap("drt", definition));
+
+			LegTimeIntervalIndex index = LegTimeIntervalIndex.compile(definitions);
+
+			for (int i = 0; i < 1000; i++) {
+				double departureTime = random.nextDouble() * 28.0 * 3600.0;
+				double travelTime = random.nextDouble() * 3600.0;
+
+				Leg leg = PopulationUtils.createLeg("drt");
+				leg.setDepartureTime(departureTime);
+				leg.setTravelTime(travelTime);
+
+				boolean expected = validateNaively(definition, departureTime, travelTime);
+
+				Assert.assertEquals(expected, index.validate("pt", Collections.singletonList(leg)));
+				Assert.assertEquals(expected ? -1 : 0, index.validateTour(new String[] { "pt" }, new int[] { 0 },
+						new String[] { "drt" }, new double[] { departureTime }, new double[] { travelTime }, 1));
+			}
+		}
+	}
+
+	@Test
+	public void testTour() {
+		LegTimeConstraintSingleLegConfigGroup definition = new LegTimeConstraintSingleLegConfigGroup();
+		definition.mainMode = "pt";
+		definition.legMode = "drt";
+		definition.checkBothDepartureAndArrivalTimes = true;
+
+		TimeSlotConfigGroup morning = new TimeSlotConfigGroup();
+		morning.beginTime = 6.0 * 3600.0;
+		morning.endTime = 9.0 * 3600.0;
+		definition.addParameterSet(morning);
+
+		TimeSlotConfigGroup evening = new TimeSlotConfigGroup();
+		evening.beginTime = 16.0 * 3600.0;
+		evening.endTime = 19.0 * 3600.0;
+		definition.addParameterSet(evening);
+
+		LegTimeIntervalIndex index = LegTimeIntervalIndex
+				.compile(Collections.singletonMap("pt", Collections.singletonMap("drt", definition)));
+
+		String[] mainModes = { "pt", "car", "pt" };
+		int[] tripIndices = { 0, 0, 1, 2, 2 };
+		String[] legModes = { "walk", "drt", "car", "drt", "walk" };
+		double[] travelTimes = { 300.0, 1200.0, 1800.0, 1200.0, 300.0 };
+
+		double[] valid = { 7.0 * 3600.0, 7.1 * 3600.0, 12.0 * 3600.0, 17.0 * 3600.0, 17.5 * 3600.0 };
+		Assert.assertEquals(-1, index.validateTour(mainModes, tripIndices, legModes, valid, travelTimes, 5));
+
+		// Second drt leg arrives after the end of the evening slot
+		double[] invalid = { 7.0 * 3600.0, 7.1 * 3600.0, 12.0 * 3600.0, 18.9 * 3600.0, 19.5 * 3600.0 };
+		Assert.assertEquals(2, index.validateTour(mainModes, tripIndices, legModes, invalid, travelTimes, 5));
+
+		// The car trip is not restricted, even at night
+		double[] night = { 7.0 * 3600.0, 7.1 * 3600.0, 23.0 * 3600.0, 17.0 * 3600.0, 17.5 * 3600.0 };
+		Assert.assertEquals(-1, index.validateTour(mainModes, tripIndices, legModes, night, travelTimes, 5));
+	}
+}
@@ -0,0 +1,274 @@
+package org.eqasim.mode_choice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.eqasim.core.simulation.mode_choice.constraints.EqasimVehicleTourConstraint;
+import org.eqasim.core.simulation.mode_choice.constraints.VehicleTourConstraintWithCarPassenger;
+import org.eqasim.core.simulation.mode_choice.constraints.vehicle_tour.VehicleTourConstraintEngine;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.BasicLocation;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.contribs.discrete_mode_choice.components.utils.LocationUtils;
+import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.utils.objectattributes.attributable.AttributesImpl;
+
+/**
+ * Compares the constraint engine with the previous implementations of the
+ * vehicle tour constraints on all mode chains of random tours.
+ */
+public class TestVehicleTourConstraintEngine {
+	static private final List<String> MODES = Arrays.asList("walk", "car", "bike", "car_passenger");
+	static private final List<String> RESTRICTED_MODES = Arrays.asList("car", "bike");
+
+	@Test
+	public void testEquivalence() {
+		Random random = new Random(0);
+
+		for (int k = 0; k < 200; k++) {
+			int numberOfTrips = 1 + random.nextInt(6);
+			int numberOfLocations = 1 + random.nextInt(4);
+
+			List<DiscreteModeChoiceTrip> tour = createTour(random, numberOfTrips, numberOfLocations);
+
+			List<Id<? extends BasicLocation>> homeLocations = Arrays.asList(null,
+					LocationUtils.getLocationId(tour.get(0).getOriginActivity()), Id.createLinkId("unknown"));
+
+			for (Id<? extends BasicLocation> homeLocationId : homeLocations) {
+				EqasimVehicleTourConstraint eqasimConstraint = new EqasimVehicleTourConstraint(RESTRICTED_MODES,
+						homeLocationId);
+				VehicleTourConstraintWithCarPassenger passengerConstraint = new VehicleTourConstraintWithCarPassenger(
+						RESTRICTED_MODES, homeLocationId);
+
+				Set<List<String>> eqasimValid = new HashSet<>();
+				Set<List<String>> passengerValid = new HashSet<>();
+
+				for (List<String> modes : createAllChains(numberOfTrips)) {
+					boolean eqasimExpected = validateEqasim(tour, modes, RESTRICTED_MODES, homeLocationId);
+					boolean passengerExpected = validateWithCarPassenger(tour, modes, RESTRICTED_MODES,
+							homeLocationId);
+
+					Assert.assertEquals(eqasimExpected,
+							eqasimConstraint.validateBeforeEstimation(tour, modes, Collections.emptyList()));
+					Assert.assertEquals(passengerExpected,
+							passengerConstraint.validateBeforeEstimation(tour, modes, Collections.emptyList()));
+
+					if (eqasimExpected) {
+						eqasimValid.add(modes);
+					}
+
+					if (passengerExpected) {
+						passengerValid.add(modes);
+					}
+				}
+
+				// Enumeration with prefix pruning finds exactly the valid chains
+				List<List<String>> candidates = Collections.nCopies(numberOfTrips, MODES);
+
+				Set<List<String>> eqasimEnumerated = new HashSet<>();
+				new VehicleTourConstraintEngine(RESTRICTED_MODES, Collections.emptySet(), true)
+						.prepare(tour, homeLocationId).enumerate(candidates, eqasimEnumerated::add);
+
+				Set<List<String>> passengerEnumerated = new HashSet<>();
+				new VehicleTourConstraintEngine(RESTRICTED_MODES, Collections.singleton("car_passenger"), false)
+						.prepare(tour, homeLocationId).enumerate(candidates, passengerEnumerated::add);
+
+				Assert.assertEquals(eqasimValid, eqasimEnumerated);
+				Assert.assertEquals(passengerValid, passengerEnumerated);
+			}
+		}
+	}
+
+	@Test
+	public void testCommuteTour() {
+		List<DiscreteModeChoiceTrip> tour = new ArrayList<>();
+		appendTrip(tour, "home", "A", "work", "B");
+		appendTrip(tour, "work", "B", "shop", "C");
+		appendTrip(tour, "shop", "C", "home", "A");
+
+		Id<? extends BasicLocation> homeLocationId = Id.createLinkId("A");
+		VehicleTourConstraintEngine.PreparedTour prepared = new VehicleTourConstraintEngine(
+				Collections.singleton("car"), Collections.emptySet(), true).prepare(tour, homeLocationId);
+
+		Assert.assertTrue(prepared.validate(Arrays.asList("car", "car", "car")));
+		Assert.assertTrue(prepared.validate(Arrays.asList("walk", "walk", "walk")));
+		Assert.assertFalse(prepared.validate(Arrays.asList("car", "walk", "car")));
+		Assert.assertFalse(prepared.validate(Arrays.asList("car", "car", "walk")));
+		Assert.assertFalse(prepared.validate(Arrays.asList("walk", "car", "car")));
+	}
+
+	@Test
+	public void testReusedTourList() {
+		List<DiscreteModeChoiceTrip> tour = new ArrayList<>();
+		appendTrip(tour, "home", "A", "work", "B");
+		appendTrip(tour, "work", "B", "home", "A");
+
+		// Without edge exceptions, the car must be brought back home
+		VehicleTourConstraintWithCarPassenger constraint = new VehicleTourConstraintWithCarPassenger(
+				Collections.singleton("car"), Id.createLinkId("A"));
+		Assert.assertTrue(constraint.validateBeforeEstimation(tour, Arrays.asList("car", "car"),
+				Collections.emptyList()));
+
+		// The same list instance with other trips of the same size must not reuse the
+		// prepared tour
+		tour.clear();
+		appendTrip(tour, "home", "A", "work", "B");
+		appendTrip(tour, "work", "B", "shop", "C");
+
+		Assert.assertFalse(constraint.validateBeforeEstimation(tour, Arrays.asList("car", "car"),
+				Collections.emptyList()));
+	}
+
+	static private List<List<String>> createAllChains(int numberOfTrips) {
+		List<List<String>> chains = new ArrayList<>();
+		chains.add(new ArrayList<>());
+
+		for (int i = 0; i < numberOfTrips; i++) {
+			List<List<String>> next = new ArrayList<>();
+
+			for (List<String> chain : chains) {
+				for (String mode : MODES) {
+					List<String> extended = new ArrayList<>(chain);
+					extended.add(mode);
+					next.add(extended);
+				}
+			}
+
+			chains = next;
+		}
+
+		return chains;
+	}
+
+	static private List<DiscreteModeChoiceTrip> createTour(Random random, int numberOfTrips, int numberOfLocations) {
+		List<DiscreteModeChoiceTrip> tour = new ArrayList<>();
+		String location = "L0";
+
+		for (int i = 0; i < numberOfTrips; i++) {
+			String nextLocation = "L" + random.nextInt(numberOfLocations);
+			appendTrip(tour, "activity", location, "activity", nextLocation);
+			location = nextLocation;
+		}
+
+		return tour;
+	}
+
+	static private void appendTrip(List<DiscreteModeChoiceTrip> trips, String precedingPurpose, String precedingLinkId,
+			String followingPurpose, String followingLinkId) {
+		Activity originActivity = PopulationUtils.createActivityFromLinkId(precedingPurpose,
+				Id.createLinkId(precedingLinkId));
+		Activity destinationActivity = PopulationUtils.createActivityFromLinkId(followingPurpose,
+				Id.createLinkId(followingLinkId));
+
+		DiscreteModeChoiceTrip trip = new DiscreteModeChoiceTrip(originActivity, destinationActivity, "walk",
+				Collections.emptyList(), 0, trips.size(), trips.size(), new AttributesImpl());
+		trips.add(trip);
+	}
+
+	/*
+	 * Previous implementations of the constraints
+	 */
+
+	static private int getFirstIndex(String mode, List<String> modes) {
+		return modes.indexOf(mode);
+	}
+
+	static private int getLastIndex(String mode, List<String> modes) {
+		return modes.lastIndexOf(mode);
+	}
+
+	static private boolean validateContinuity(List<DiscreteModeChoiceTrip> tour, List<String> modes,
+			String restrictedMode, int firstIndex, int lastIndex) {
+		Id<? extends BasicLocation> currentLocationId = LocationUtils
+				.getLocationId(tour.get(firstIndex).getDestinationActivity());
+
+		for (int index = firstIndex + 1; index <= lastIndex; index++) {
+			if (modes.get(index).equals(restrictedMode)) {
+				DiscreteModeChoiceTrip trip = tour.get(index);
+
+				if (!currentLocationId.equals(LocationUtils.getLocationId(trip.getOriginActivity()))) {
+					return false;
+				}
+
+				currentLocationId = LocationUtils.getLocationId(trip.getDestinationActivity());
+			}
+		}
+
+		return true;
+	}
+
+	static private boolean validateEqasim(List<DiscreteModeChoiceTrip> tour, List<String> modes,
+			Collection<String> restrictedModes, Id<? extends BasicLocation> vehicleLocationId) {
+		for (String restrictedMode : restrictedModes) {
+			if (modes.contains(restrictedMode)) {
+				int firstIndex = getFirstIndex(restrictedMode, modes);
+				int lastIndex = getLastIndex(restrictedMode, modes);
+
+				Id<? extends BasicLocation> startLocationId = LocationUtils
+						.getLocationId(tour.get(firstIndex).getOriginActivity());
+				Id<? extends BasicLocation> endLocationId = LocationUtils
+						.getLocationId(tour.get(lastIndex).getDestinationActivity());
+
+				if (!startLocationId.equals(vehicleLocationId) && firstIndex > 0) {
+					return false;
+				}
+
+				if (!endLocationId.equals(vehicleLocationId) && lastIndex < modes.size() - 1) {
+					return false;
+				}
+
+				if (!validateContinuity(tour, modes, restrictedMode, firstIndex, lastIndex)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	static private boolean validateWithCarPassenger(List<DiscreteModeChoiceTrip> tour, List<String> modes,
+			Collection<String> restrictedModes, Id<? extends BasicLocation> homeLocationId) {
+		if (modes.contains("car_passenger"))
+			return true;
+		for (String restrictedMode : restrictedModes) {
+			if (modes.contains(restrictedMode)) {
+				int firstIndex = getFirstIndex(restrictedMode, modes);
+				int lastIndex = getLastIndex(restrictedMode, modes);
+
+				if (homeLocationId != null) {
+					Id<? extends BasicLocation> startLocationId = LocationUtils
+							.getLocationId(tour.get(firstIndex).getOriginActivity());
+					Id<? extends BasicLocation> endLocationId = LocationUtils
+							.getLocationId(tour.get(lastIndex).getDestinationActivity());
+
+					if (!startLocationId.equals(homeLocationId)) {
+						return false;
+					}
+
+					if (!endLocationId.equals(homeLocationId)) {
+						return false;
+					}
+				} else {
+					if (firstIndex > 0 || lastIndex < modes.size() - 1) {
+						return false;
+					}
+				}
+
+				if (!validateContinuity(tour, modes, restrictedMode, firstIndex, lastIndex)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,169 @@
+package org.eqasim.scenario.cutter.transit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eqasim.core.scenario.cutter.extent.ScenarioExtent;
+import org.eqasim.core.scenario.cutter.transit.DefaultStopSequenceCrossingPointFinder;
+import org.eqasim.core.scenario.cutter.transit.TransitScheduleCutter;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.routes.LinkNetworkRouteFactory;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+public class TestTransitScheduleCutter {
+	final private static ScenarioExtent extentMock = new ScenarioExtent() {
+		@Override
+		public boolean isInside(Coord coord) {
+			return coord.getX() >= 3.0 && coord.getX() <= 6.0;
+		}
+
+		@Override
+		public List<Coord> computeEuclideanIntersections(Coord from, Coord to) {
+			throw new IllegalStateException();
+		}
+
+		@Override
+		public Coord getInteriorPoint() {
+			return null;
+		}
+	};
+
+	/**
+	 * Creates a schedule with a number of lines that all run along the same
+	 * corridor of nine stops, but each line starts at a different stop. Every stop
+	 * is served by its own link, and there are intermediate links between stops.
+	 */
+	static private TransitSchedule createSchedule(int numberOfLines) {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		TransitSchedule schedule = scenario.getTransitSchedule();
+		TransitScheduleFactory factory = schedule.getFactory();
+
+		List<TransitStopFacility> facilities = new ArrayList<>();
+
+		for (int i = 1; i <= 9; i++) {
+			TransitStopFacility facility = factory.createTransitStopFacility(Id.create("stop" + i, TransitStopFacility.class),
+					new Coord(i, 0.0), false);
+			facility.setLinkId(Id.createLinkId("stop" + i));
+			schedule.addStopFacility(facility);
+			facilities.add(facility);
+		}
+
+		for (int l = 0; l < numberOfLines; l++) {
+			int firstStop = l % 4;
+
+			List<TransitRouteStop> stops = new ArrayList<>();
+			List<Id<Link>> linkIds = new ArrayList<>();
+
+			for (int i = firstStop; i < facilities.size(); i++) {
+				stops.add(factory.createTransitRouteStop(facilities.get(i), 100.0 * (i - firstStop),
+						100.0 * (i - firstStop)));
+
+				if (i > firstStop) {
+					linkIds.add(Id.createLinkId("between" + i));
+					linkIds.add(facilities.get(i).getLinkId());
+				}
+			}
+
+			Id<Link> startLinkId = facilities.get(firstStop).getLinkId();
+			Id<Link> endLinkId = linkIds.remove(linkIds.size() - 1);
+
+			NetworkRoute networkRoute = (NetworkRoute) new LinkNetworkRouteFactory().createRoute(startLinkId,
+					endLinkId);
+			networkRoute.setLinkIds(startLinkId, linkIds, endLinkId);
+
+			TransitLine line = factory.createTransitLine(Id.create("line" + l, TransitLine.class));
+			TransitRoute route = factory.createTransitRoute(Id.create("route" + l, TransitRoute.class), networkRoute,
+					stops, "bus");
+
+			for (int d = 0; d < 3; d++) {
+				route.addDeparture(
+						factory.createDeparture(Id.create("dep" + l + ":" + d, Departure.class), 3600.0 * (d + 1)));
+			}
+
+			line.addRoute(route);
+			schedule.addTransitLine(line);
+		}
+
+		return schedule;
+	}
+
+	static private TransitSchedule cut(int numberOfLines, int numberOfThreads) throws InterruptedException {
+		TransitSchedule schedule = createSchedule(numberOfLines);
+		new TransitScheduleCutter(extentMock, new DefaultStopSequenceCrossingPointFinder(extentMock), numberOfThreads)
+				.run(schedule);
+		return schedule;
+	}
+
+	@Test
+	public void testReduceRoute() throws InterruptedException {
+		TransitSchedule schedule = cut(1, 1);
+
+		Assert.assertEquals(1, schedule.getTransitLines().size());
+		TransitRoute route = schedule.getTransitLines().get(Id.create("line0", TransitLine.class)).getRoutes()
+				.get(Id.create("route0", TransitRoute.class));
+
+		// The route now starts at the first stop inside
+		List<TransitRouteStop> stops = route.getStops();
+		Assert.assertEquals("stop3", stops.get(0).getStopFacility().getId().toString());
+
+		// ... and the network route is reduced to the links between the remaining stops
+		TransitRouteStop lastStop = stops.get(stops.size() - 1);
+		int lastStopIndex = Integer.parseInt(lastStop.getStopFacility().getId().toString().substring(4));
+
+		List<Id<Link>> expectedLinkIds = new ArrayList<>();
+
+		for (int i = 4; i <= lastStopIndex; i++) {
+			expectedLinkIds.add(Id.createLinkId("between" + i));
+
+			if (i < lastStopIndex) {
+				expectedLinkIds.add(Id.createLinkId("stop" + i));
+			}
+		}
+
+		NetworkRoute networkRoute = route.getRoute();
+		Assert.assertEquals(Id.createLinkId("stop3"), networkRoute.getStartLinkId());
+		Assert.assertEquals(lastStop.getStopFacility().getLinkId(), networkRoute.getEndLinkId());
+		Assert.assertEquals(expectedLinkIds, networkRoute.getLinkIds());
+
+		Assert.assertEquals(3, route.getDepartures().size());
+		Assert.assertEquals(stops.size(), schedule.getFacilities().size());
+	}
+
+	@Test
+	public void testParallelCutting() throws InterruptedException {
+		TransitSchedule serial = cut(200, 1);
+		TransitSchedule parallel = cut(200, 4);
+
+		Assert.assertEquals(new ArrayList<>(serial.getTransitLines().keySet()),
+				new ArrayList<>(parallel.getTransitLines().keySet()));
+		Assert.assertEquals(new ArrayList<>(serial.getFacilities().keySet()),
+				new ArrayList<>(parallel.getFacilities().keySet()));
+
+		for (TransitLine serialLine : serial.getTransitLines().values()) {
+			TransitLine parallelLine = parallel.getTransitLines().get(serialLine.getId());
+
+			for (TransitRoute serialRoute : serialLine.getRoutes().values()) {
+				TransitRoute parallelRoute = parallelLine.getRoutes().get(serialRoute.getId());
+
+				Assert.assertEquals(serialRoute.getRoute().getStartLinkId(), parallelRoute.getRoute().getStartLinkId());
+				Assert.assertEquals(serialRoute.getRoute().getLinkIds(), parallelRoute.getRoute().getLinkIds());
+				Assert.assertEquals(serialRoute.getRoute().getEndLinkId(), parallelRoute.getRoute().getEndLinkId());
+				Assert.assertEquals(serialRoute.getStops().size(), parallelRoute.getStops().size());
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package org.eqasim.scenario.routing;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eqasim.core.scenario.routing.RoutingCache;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.facilities.FacilitiesUtils;
+import org.matsim.facilities.Facility;
+import org.matsim.pt.routes.DefaultTransitPassengerRoute;
+import org.matsim.pt.routes.TransitPassengerRoute;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleUtils;
+
+public class TestRoutingCache {
+	private final Id<Link> fromLinkId = Id.createLinkId("from");
+	private final Id<Link> toLinkId = Id.createLinkId("to");
+
+	private final Facility fromFacility = FacilitiesUtils.wrapLinkAndCoord(fromLinkId, new Coord(0.0, 0.0));
+	private final Facility toFacility = FacilitiesUtils.wrapLinkAndCoord(toLinkId, new Coord(1000.0, 0.0));
+
+	static private Person createPerson(String id) {
+		Person person = PopulationUtils.getFactory().createPerson(Id.createPersonId(id));
+		VehicleUtils.insertVehicleIdsIntoPersonAttributes(person,
+				Map.of("car", Id.create(id + ":car", Vehicle.class)));
+		return person;
+	}
+
+	private List<? extends PlanElement> routeCar(Person person, double departureTime) {
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(fromLinkId, toLinkId);
+		route.setVehicleId(VehicleUtils.getVehicleId(person, "car"));
+		route.setTravelTime(120.0);
+
+		Leg leg = PopulationUtils.createLeg("car");
+		leg.setRoute(route);
+		leg.setDepartureTime(departureTime);
+		leg.setTravelTime(120.0);
+
+		return Collections.singletonList(leg);
+	}
+
+	private List<? extends PlanElement> routePt(double departureTime) {
+		DefaultTransitPassengerRoute route = new DefaultTransitPassengerRoute(fromLinkId, toLinkId);
+		route.setBoardingTime(departureTime + 60.0);
+
+		Leg leg = PopulationUtils.createLeg("pt");
+		leg.setRoute(route);
+		leg.setDepartureTime(departureTime);
+
+		return Collections.singletonList(leg);
+	}
+
+	@Test
+	public void testVehicleOfRequestingPerson() {
+		RoutingCache cache = new RoutingCache(100, 300.0, Collections.emptySet(), Collections.emptyList());
+		AtomicInteger calls = new AtomicInteger();
+
+		Person personA = createPerson("A");
+		Person personB = createPerson("B");
+
+		List<? extends PlanElement> tripA = cache.getOrRoute("car", fromFacility, toFacility, 3600.0, personA, null,
+				() -> {
+					calls.incrementAndGet();
+					return routeCar(personA, 3600.0);
+				});
+
+		List<? extends PlanElement> tripB = cache.getOrRoute("car", fromFacility, toFacility, 3700.0, personB, null,
+				() -> {
+					calls.incrementAndGet();
+					return routeCar(personB, 3700.0);
+				});
+
+		Assert.assertEquals(1, calls.get());
+		Assert.assertEquals(1, cache.getHits());
+
+		Leg legA = (Leg) tripA.get(0);
+		Leg legB = (Leg) tripB.get(0);
+
+		Assert.assertEquals(Id.create("A:car", Vehicle.class), ((NetworkRoute) legA.getRoute()).getVehicleId());
+		Assert.assertEquals(Id.create("B:car", Vehicle.class), ((NetworkRoute) legB.getRoute()).getVehicleId());
+		Assert.assertEquals(3700.0, legB.getDepartureTime().seconds(), 0.0);
+
+		// The cached trip is not modified by the vehicle assignment
+		List<? extends PlanElement> tripA2 = cache.getOrRoute("car", fromFacility, toFacility, 3600.0, personA, null,
+				() -> routeCar(personA, 3600.0));
+		Assert.assertEquals(Id.create("A:car", Vehicle.class),
+				((NetworkRoute) ((Leg) tripA2.get(0)).getRoute()).getVehicleId());
+	}
+
+	@Test
+	public void testTransitRoutesAreShifted() {
+		RoutingCache cache = new RoutingCache(100, 300.0, Collections.emptySet(), Collections.emptyList());
+		AtomicInteger calls = new AtomicInteger();
+
+		Person personA = createPerson("A");
+		Person personB = createPerson("B");
+
+		cache.getOrRoute("pt", fromFacility, toFacility, 3600.0, personA, null, () -> {
+			calls.incrementAndGet();
+			return routePt(3600.0);
+		});
+
+		List<? extends PlanElement> trip = cache.getOrRoute("pt", fromFacility, toFacility, 3700.0, personB, null,
+				() -> {
+					calls.incrementAndGet();
+					return routePt(3700.0);
+				});
+
+		Assert.assertEquals(1, calls.get());
+		Assert.assertEquals(1, cache.getHits());
+
+		// The boarding time keeps its distance to the actual departure
+		Leg leg = (Leg) trip.get(0);
+		Assert.assertEquals(3700.0, leg.getDepartureTime().seconds(), 0.0);
+		TransitPassengerRoute route = (TransitPassengerRoute) leg.getRoute();
+		Assert.assertEquals(3760.0, route.getBoardingTime().seconds(), 0.0);
+
+		// The cached trip is not modified by the shift
+		List<? extends PlanElement> trip2 = cache.getOrRoute("pt", fromFacility, toFacility, 3600.0, personA, null,
+				() -> routePt(3600.0));
+		TransitPassengerRoute route2 = (TransitPassengerRoute) ((Leg) trip2.get(0)).getRoute();
+		Assert.assertEquals(3660.0, route2.getBoardingTime().seconds(), 0.0);
+		Assert.assertNotSame(route, route2);
+	}
+}
@@ -0,0 +1,113 @@
+package org.eqasim.scenario.spatial;
+
+import java.util.Random;
+
+import org.eqasim.core.scenario.spatial.ImputeSpatialAttribute;
+import org.eqasim.core.scenario.spatial.RunImputeSpatialAttributeBenchmark;
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.core.router.TripStructureUtils.StageActivityHandling;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+
+public class TestImputeSpatialAttribute {
+	private final GeometryFactory factory = new GeometryFactory();
+
+	private boolean contains(Geometry geometry, Coord coord) {
+		return geometry.contains(factory.createPoint(new Coordinate(coord.getX(), coord.getY())));
+	}
+
+	private boolean covers(Geometry geometry, Coord coord) {
+		return geometry.covers(factory.createPoint(new Coordinate(coord.getX(), coord.getY())));
+	}
+
+	@Test
+	public void testNetwork() throws InterruptedException {
+		Random random = new Random(0);
+		Geometry geometry = RunImputeSpatialAttributeBenchmark.createGeometry(random, 9, 50, 3000.0);
+
+		for (int numberOfThreads : new int[] { 1, 4 }) {
+			Network network = RunImputeSpatialAttributeBenchmark.createGrid(30, 100.0);
+			new ImputeSpatialAttribute(geometry, "inside", numberOfThreads, 17).run(network);
+
+			int numberOfInside = 0;
+
+			for (Link link : network.getLinks().values()) {
+				boolean expected = covers(geometry, link.getCoord());
+				Assert.assertEquals(expected, link.getAttributes().getAttribute("inside") != null);
+
+				if (expected) {
+					numberOfInside++;
+				}
+			}
+
+			Assert.assertTrue(numberOfInside > 0);
+			Assert.assertTrue(numberOfInside < network.getLinks().size());
+		}
+	}
+
+	@Test
+	public void testPopulationAndFacilities() throws InterruptedException {
+		Random random = new Random(0);
+		Geometry geometry = RunImputeSpatialAttributeBenchmark.createGeometry(random, 4, 100, 1000.0);
+
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Population population = scenario.getPopulation();
+		ActivityFacilities facilities = scenario.getActivityFacilities();
+
+		for (int k = 0; k < 500; k++) {
+			Person person = population.getFactory().createPerson(Id.createPersonId(k));
+			Plan plan = population.getFactory().createPlan();
+
+			for (int i = 0; i < 3; i++) {
+				Coord coord = new Coord(random.nextDouble() * 1000.0, random.nextDouble() * 1000.0);
+
+				if (i > 0) {
+					plan.addLeg(PopulationUtils.createLeg("walk"));
+				}
+
+				plan.addActivity(PopulationUtils.createActivityFromCoord("activity", coord));
+
+				ActivityFacility facility = facilities.getFactory()
+						.createActivityFacility(Id.create(k + ":" + i, ActivityFacility.class), coord);
+				facilities.addActivityFacility(facility);
+			}
+
+			person.addPlan(plan);
+			population.addPerson(person);
+		}
+
+		ImputeSpatialAttribute algorithm = new ImputeSpatialAttribute(geometry, "inside", 3, 10);
+		algorithm.run(population);
+		algorithm.run(facilities);
+
+		for (Person person : population.getPersons().values()) {
+			for (Activity activity : TripStructureUtils.getActivities(person.getPlans().get(0),
+					StageActivityHandling.ExcludeStageActivities)) {
+				Assert.assertEquals(contains(geometry, activity.getCoord()),
+						activity.getAttributes().getAttribute("inside") != null);
+			}
+		}
+
+		for (ActivityFacility facility : facilities.getFacilities().values()) {
+			Assert.assertEquals(contains(geometry, facility.getCoord()),
+					facility.getAttributes().getAttribute("inside") != null);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package org.eqasim.scenario.spatial;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eqasim.core.scenario.spatial.LinkSnapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+public class TestLinkSnapper {
+	private Network createRandomNetwork(Random random, int numberOfLinks, double size) {
+		Network network = NetworkUtils.createNetwork();
+
+		for (int i = 0; i < numberOfLinks; i++) {
+			double x = random.nextDouble() * size;
+			double y = random.nextDouble() * size;
+			double length = random.nextDouble() * size * 0.1;
+			double angle = random.nextDouble() * 2.0 * Math.PI;
+
+			Node from = NetworkUtils.createAndAddNode(network, Id.createNodeId("from" + i), new Coord(x, y));
+			Node to = NetworkUtils.createAndAddNode(network, Id.createNodeId("to" + i),
+					new Coord(x + length * Math.cos(angle), y + length * Math.sin(angle)));
+
+			NetworkUtils.createAndAddLink(network, Id.createLinkId(i), from, to, length, 10.0, 1000.0, 1.0);
+		}
+
+		return network;
+	}
+
+	private Network createBidirectionalGrid(int gridSize, double gridSpacing) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[gridSize][gridSize];
+
+		for (int i = 0; i < gridSize; i++) {
+			for (int j = 0; j < gridSize; j++) {
+				nodes[i][j] = NetworkUtils.createAndAddNode(network, Id.createNodeId(i + ":" + j),
+						new Coord(i * gridSpacing, j * gridSpacing));
+			}
+		}
+
+		for (int i = 0; i < gridSize; i++) {
+			for (int j = 0; j < gridSize; j++) {
+				if (i + 1 < gridSize) {
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(i + ":" + j + "h"), nodes[i][j],
+							nodes[i + 1][j], gridSpacing, 10.0, 1000.0, 1.0);
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(i + ":" + j + "hr"), nodes[i + 1][j],
+							nodes[i][j], gridSpacing, 10.0, 1000.0, 1.0);
+				}
+
+				if (j + 1 < gridSize) {
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(i + ":" + j + "v"), nodes[i][j],
+							nodes[i][j + 1], gridSpacing, 10.0, 1000.0, 1.0);
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(i + ":" + j + "vr"), nodes[i][j + 1],
+							nodes[i][j], gridSpacing, 10.0, 1000.0, 1.0);
+				}
+			}
+		}
+
+		return network;
+	}
+
+	private double findClosestDistance(Network network, Coord coord) {
+		double minimumDistance = Double.POSITIVE_INFINITY;
+
+		for (Link link : network.getLinks().values()) {
+			minimumDistance = Math.min(minimumDistance, LinkSnapper.calculateDistance(link, coord));
+		}
+
+		return minimumDistance;
+	}
+
+	@Test
+	public void testDistance() {
+		Network network = NetworkUtils.createNetwork();
+		Node from = NetworkUtils.createAndAddNode(network, Id.createNodeId("a"), new Coord(0.0, 0.0));
+		Node to = NetworkUtils.createAndAddNode(network, Id.createNodeId("b"), new Coord(100.0, 0.0));
+		Link link = NetworkUtils.createAndAddLink(network, Id.createLinkId("ab"), from, to, 100.0, 10.0, 1000.0,
+				1.0);
+
+		Assert.assertEquals(5.0, LinkSnapper.calculateDistance(link, new Coord(30.0, 5.0)), 1e-9);
+		Assert.assertEquals(5.0, LinkSnapper.calculateDistance(link, new Coord(-3.0, 4.0)), 1e-9);
+		Assert.assertEquals(5.0, LinkSnapper.calculateDistance(link, new Coord(103.0, -4.0)), 1e-9);
+	}
+
+	@Test
+	public void testSegmentDistance() {
+		// A long link passes close to the point, while the center of a short link is
+		// closer than the center of the long link
+		Network network = NetworkUtils.createNetwork();
+		Node a = NetworkUtils.createAndAddNode(network, Id.createNodeId("a"), new Coord(-1000.0, 0.0));
+		Node b = NetworkUtils.createAndAddNode(network, Id.createNodeId("b"), new Coord(1000.0, 0.0));
+		Node c = NetworkUtils.createAndAddNode(network, Id.createNodeId("c"), new Coord(0.0, 100.0));
+		Node d = NetworkUtils.createAndAddNode(network, Id.createNodeId("d"), new Coord(0.0, 110.0));
+
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("long"), a, b, 2000.0, 10.0, 1000.0, 1.0);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("short"), c, d, 10.0, 10.0, 1000.0, 1.0);
+
+		LinkSnapper snapper = new LinkSnapper(network.getLinks().values());
+		Assert.assertEquals(Id.createLinkId("long"), snapper.snap(new Coord(500.0, 10.0)).getId());
+		Assert.assertEquals(Id.createLinkId("short"), snapper.snap(new Coord(0.0, 90.0)).getId());
+	}
+
+	@Test
+	public void testRandom() throws InterruptedException {
+		Random random = new Random(0);
+		Network network = createRandomNetwork(random, 2000, 10000.0);
+
+		List<Coord> coords = new ArrayList<>();
+
+		for (int i = 0; i < 1000; i++) {
+			coords.add(new Coord(random.nextDouble() * 12000.0 - 1000.0, random.nextDouble() * 12000.0 - 1000.0));
+		}
+
+		for (int capacity : new int[] { 2, 5, 16 }) {
+			LinkSnapper snapper = new LinkSnapper(network.getLinks().values(), capacity);
+
+			Link[] bulk = snapper.snap(coords, 4, 17);
+
+			for (int i = 0; i < coords.size(); i++) {
+				Coord coord = coords.get(i);
+				Link link = snapper.snap(coord);
+
+				Assert.assertEquals(findClosestDistance(network, coord), LinkSnapper.calculateDistance(link, coord),
+						1e-9);
+				Assert.assertSame(link, bulk[i]);
+			}
+		}
+	}
+
+	@Test
+	public void testTies() throws InterruptedException {
+		// Both directions of every road have the same distance, the one with the
+		// smallest index is chosen
+		Network network = createBidirectionalGrid(20, 100.0);
+
+		List<Coord> coords = new ArrayList<>();
+		Random random = new Random(0);
+
+		for (int i = 0; i < 500; i++) {
+			coords.add(new Coord(random.nextDouble() * 2000.0, random.nextDouble() * 2000.0));
+		}
+
+		Link[] reference = new LinkSnapper(network.getLinks().values(), 4).snap(coords, 1, 1000);
+
+		List<Link> reversedLinks = new ArrayList<>(network.getLinks().values());
+		Collections.reverse(reversedLinks);
+		Link[] reversed = new LinkSnapper(reversedLinks, 7).snap(coords, 3, 10);
+
+		for (int i = 0; i < coords.size(); i++) {
+			Assert.assertSame(reference[i], reversed[i]);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package org.eqasim.scenario.validation;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eqasim.core.scenario.validation.ScenarioValidator;
+import org.eqasim.core.scenario.validation.ValidationReport;
+import org.eqasim.core.scenario.validation.ValidationReport.RuleResult;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+
+public class TestScenarioValidator {
+	private Scenario createScenario(int numberOfPersons, int numberOfInvalidPersons) {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+
+		Network network = scenario.getNetwork();
+		Node nodeA = NetworkUtils.createAndAddNode(network, Id.createNodeId("A"), new Coord(0.0, 0.0));
+		Node nodeB = NetworkUtils.createAndAddNode(network, Id.createNodeId("B"), new Coord(1000.0, 0.0));
+
+		Link linkAB = NetworkUtils.createAndAddLink(network, Id.createLinkId("AB"), nodeA, nodeB, 1000.0, 10.0,
+				1000.0, 1.0);
+		Link linkBA = NetworkUtils.createAndAddLink(network, Id.createLinkId("BA"), nodeB, nodeA, 1000.0, 10.0,
+				1000.0, 1.0);
+
+		// Invalid link without free speed
+		Link invalidLink = NetworkUtils.createAndAddLink(network, Id.createLinkId("invalid"), nodeA, nodeB, 1000.0,
+				0.0, 1000.0, 1.0);
+
+		for (Link link : List.of(linkAB, linkBA, invalidLink)) {
+			link.setAllowedModes(Collections.singleton("car"));
+		}
+
+		ActivityFacilities facilities = scenario.getActivityFacilities();
+		ActivityFacility home = facilities.getFactory().createActivityFacility(Id.create("home", ActivityFacility.class),
+				linkAB.getCoord(), linkAB.getId());
+		ActivityFacility work = facilities.getFactory().createActivityFacility(Id.create("work", ActivityFacility.class),
+				linkBA.getCoord(), linkBA.getId());
+		facilities.addActivityFacility(home);
+		facilities.addActivityFacility(work);
+
+		Population population = scenario.getPopulation();
+
+		for (int i = 0; i < numberOfPersons; i++) {
+			Person person = population.getFactory().createPerson(Id.createPersonId(i));
+			Plan plan = population.getFactory().createPlan();
+
+			Activity homeActivity = PopulationUtils.createActivityFromCoordAndLinkId("home", home.getCoord(),
+					home.getLinkId());
+			homeActivity.setFacilityId(home.getId());
+
+			Activity workActivity = PopulationUtils.createActivityFromCoordAndLinkId("work", work.getCoord(),
+					work.getLinkId());
+			workActivity.setFacilityId(work.getId());
+
+			Leg leg = PopulationUtils.createLeg("car");
+			leg.setRoute(RouteUtils.createGenericRouteImpl(home.getLinkId(), work.getLinkId()));
+
+			if (i < numberOfInvalidPersons) {
+				// Route ends on the wrong link
+				leg.setRoute(RouteUtils.createGenericRouteImpl(home.getLinkId(), home.getLinkId()));
+			}
+
+			plan.addActivity(homeActivity);
+			plan.addLeg(leg);
+			plan.addActivity(workActivity);
+
+			person.addPlan(plan);
+			population.addPerson(person);
+		}
+
+		return scenario;
+	}
+
+	private RuleResult getResult(ValidationReport report, String name) {
+		return report.getResults().stream().filter(result -> result.name.equals(name)).findFirst().orElseThrow();
+	}
+
+	@Test
+	public void testFindings() {
+		Scenario scenario = createScenario(2500, 17);
+		ValidationReport report = new ScenarioValidator(4, 100, 10, true).validate(scenario);
+
+		Assert.assertEquals(0, getResult(report, "facility_location").numberOfFindings);
+		Assert.assertEquals(0, getResult(report, "activity_location").numberOfFindings);
+		Assert.assertEquals(17, getResult(report, "route_links").numberOfFindings);
+		Assert.assertEquals(1, getResult(report, "link_attributes").numberOfFindings);
+
+		Assert.assertEquals(2500, getResult(report, "route_links").numberOfElements);
+		Assert.assertEquals(10, getResult(report, "route_links").messages.size());
+		Assert.assertEquals("Person 0 has route with a different end link (AB) than following activity (BA)",
+				getResult(report, "route_links").messages.get(0));
+
+		for (RuleResult result : report.getResults()) {
+			Assert.assertTrue(result.runtime >= 0.0);
+		}
+
+		Assert.assertTrue(report.hasFindings());
+		Assert.assertEquals(18, report.getNumberOfFindings());
+	}
+
+	@Test
+	public void testDeterminism() {
+		Scenario scenario = createScenario(5000, 123);
+
+		ValidationReport serial = new ScenarioValidator(1, 5000, 1000, true).validate(scenario);
+		ValidationReport parallel = new ScenarioValidator(8, 7, 1000, true).validate(scenario);
+
+		Assert.assertEquals(serial.getResults().size(), parallel.getResults().size());
+
+		for (int i = 0; i < serial.getResults().size(); i++) {
+			Assert.assertEquals(serial.getResults().get(i).name, parallel.getResults().get(i).name);
+			Assert.assertEquals(serial.getResults().get(i).numberOfFindings,
+					parallel.getResults().get(i).numberOfFindings);
+			Assert.assertEquals(serial.getResults().get(i).messages, parallel.getResults().get(i).messages);
+		}
+	}
+
+	@Test
+	public void testDefaultRules() {
+		// End links and link attributes are only checked in strict mode
+		ValidationReport report = new ScenarioValidator(4, 100, 10).validate(createScenario(2500, 17));
+
+		Assert.assertFalse(report.hasFindings());
+		Assert.assertEquals(0, getResult(report, "route_links").numberOfFindings);
+		Assert.assertTrue(report.getResults().stream().noneMatch(result -> result.name.equals("link_attributes")));
+
+		new ScenarioValidator().checkScenario(createScenario(10, 1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCheckScenario() {
+		new ScenarioValidator(1, 100, 10, true).checkScenario(createScenario(10, 1));
+	}
+}
@@ -0,0 +1,137 @@
+package org.eqasim.simulation.drt;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.eqasim.core.simulation.modes.drt.analysis.passengers.PassengerRideItem;
+import org.eqasim.core.simulation.modes.drt.mode_choice.estimation.DrtTimeEstimator;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+public class TestDrtTimeEstimator {
+	private Link createLink(Network network, String id, Coord coord) {
+		NetworkFactory factory = network.getFactory();
+
+		Node node = factory.createNode(Id.createNodeId(id), coord);
+		network.addNode(node);
+
+		Link link = factory.createLink(Id.createLinkId(id), node, node);
+		network.addLink(link);
+
+		return link;
+	}
+
+	private PassengerRideItem createRide(Link origin, Link destination, double departureTime, double waitingTime,
+			double rideTime) {
+		PassengerRideItem ride = new PassengerRideItem();
+		ride.mode = "drt";
+		ride.vehicleId = Id.createVehicleId("vehicle");
+		ride.originLink = origin;
+		ride.destinationLink = destination;
+		ride.departureTime = departureTime;
+		ride.waitingTime = waitingTime;
+		ride.arrivalTime = departureTime + waitingTime + rideTime;
+		return ride;
+	}
+
+	@Test
+	public void testDrtTimeEstimator() {
+		Network network = NetworkUtils.createNetwork();
+
+		Link zoneA = createLink(network, "A", new Coord(500.0, 500.0));
+		Link zoneB = createLink(network, "B", new Coord(1500.0, 500.0));
+		Link farAway = createLink(network, "C", new Coord(500.0, 1500.0));
+
+		// 2x2 zones of 1km, 1h bins, full weight on new observations for the first
+		// update, then half
+		DrtTimeEstimator estimator = new DrtTimeEstimator(0.0, 0.0, 2000.0, 2000.0, 1000.0, 3600.0, 24.0 * 3600.0,
+				0.5, 2);
+
+		Assert.assertTrue(Double.isNaN(estimator.getWaitingTime("drt", zoneA.getCoord(), 8.0 * 3600.0)));
+
+		List<PassengerRideItem> rides = new LinkedList<>();
+
+		// Zone A at 8:00: enough observations, pace of 1 s/m
+		rides.add(createRide(zoneA, farAway, 8.0 * 3600.0, 100.0, 1000.0));
+		rides.add(createRide(zoneA, farAway, 8.0 * 3600.0 + 10.0, 300.0, 1000.0));
+
+		// Zone B at 8:00: not enough observations
+		rides.add(createRide(zoneB, farAway, 8.0 * 3600.0, 500.0, 2000.0));
+
+		// Unfinished ride is ignored
+		PassengerRideItem unfinished = createRide(zoneA, farAway, 8.0 * 3600.0, 1000.0, 1000.0);
+		unfinished.arrivalTime = Double.NaN;
+		rides.add(unfinished);
+
+		estimator.addObservations(rides);
+
+		// Observations only become active after the update
+		Assert.assertTrue(Double.isNaN(estimator.getWaitingTime("drt", zoneA.getCoord(), 8.0 * 3600.0)));
+
+		estimator.update();
+
+		Assert.assertEquals(200.0, estimator.getWaitingTime("drt", zoneA.getCoord(), 8.0 * 3600.0), 1e-6);
+		Assert.assertEquals(2000.0,
+				estimator.getRideTime("drt", zoneA.getCoord(), new Coord(500.0, 2500.0), 8.5 * 3600.0), 1e-6);
+
+		// Zone B falls back to the area-wide estimate of all three rides
+		Assert.assertEquals(300.0, estimator.getWaitingTime("drt", zoneB.getCoord(), 8.0 * 3600.0), 1e-6);
+
+		// Other time bins and modes have no estimates
+		Assert.assertTrue(Double.isNaN(estimator.getWaitingTime("drt", zoneA.getCoord(), 9.0 * 3600.0)));
+		Assert.assertTrue(Double.isNaN(estimator.getWaitingTime("taxi", zoneA.getCoord(), 8.0 * 3600.0)));
+
+		// Smoothing with the next iteration
+		rides.clear();
+		rides.add(createRide(zoneA, farAway, 8.0 * 3600.0, 400.0, 1000.0));
+		rides.add(createRide(zoneA, farAway, 8.0 * 3600.0, 400.0, 1000.0));
+
+		estimator.addObservations(rides);
+		estimator.update();
+
+		Assert.assertEquals(300.0, estimator.getWaitingTime("drt", zoneA.getCoord(), 8.0 * 3600.0), 1e-6);
+
+		// Iteration without observations keeps the estimates
+		estimator.update();
+		Assert.assertEquals(300.0, estimator.getWaitingTime("drt", zoneA.getCoord(), 8.0 * 3600.0), 1e-6);
+	}
+
+	@Test
+	public void testLargeExtent() {
+		Network network = NetworkUtils.createNetwork();
+
+		Link origin = createLink(network, "A", new Coord(250050.0, 750050.0));
+		Link destination = createLink(network, "B", new Coord(251050.0, 750050.0));
+
+		// National scale: 100m zones over 1000km x 1000km and 5min bins, cells are
+		// only allocated where rides are observed
+		DrtTimeEstimator estimator = new DrtTimeEstimator(0.0, 0.0, 1e6, 1e6, 100.0, 300.0, 24.0 * 3600.0, 1.0,
+				1);
+
+		List<PassengerRideItem> rides = new LinkedList<>();
+		rides.add(createRide(origin, destination, 8.0 * 3600.0, 120.0, 500.0));
+
+		estimator.addObservations(rides);
+		estimator.update();
+
+		Assert.assertEquals(120.0, estimator.getWaitingTime("drt", origin.getCoord(), 8.0 * 3600.0), 1e-6);
+		Assert.assertEquals(500.0,
+				estimator.getRideTime("drt", origin.getCoord(), destination.getCoord(), 8.0 * 3600.0), 1e-6);
+
+		// Other zones in the same bin fall back to the area-wide estimate
+		Assert.assertEquals(120.0, estimator.getWaitingTime("drt", new Coord(10.0, 10.0), 8.0 * 3600.0), 1e-6);
+		Assert.assertTrue(Double.isNaN(estimator.getWaitingTime("drt", origin.getCoord(), 9.0 * 3600.0)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooManyZones() {
+		new DrtTimeEstimator(0.0, 0.0, 1e7, 1e7, 1.0, 300.0, 24.0 * 3600.0, 1.0, 1);
+	}
+}
@@ -0,0 +1,287 @@
+package org.eqasim.simulation.drt;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleActivityItem;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleAnalysisListener;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleAnalysisWriter;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleMovementItem;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleTraceBinaryReader;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleTraceBinaryWriter;
+import org.eqasim.core.simulation.modes.drt.analysis.dvrp_vehicles.VehicleTraceCsvWriter;
+import org.eqasim.core.simulation.modes.drt.analysis.utils.LinkFinder;
+import org.eqasim.core.simulation.modes.drt.analysis.utils.VehicleRegistry;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.contrib.drt.schedule.DrtStayTask;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.vrpagent.TaskStartedEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class TestVehicleAnalysisListener {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	static private Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		Node previous = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0.0, 0.0));
+
+		for (int i = 1; i <= 10; i++) {
+			Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId(i), new Coord(100.0 * i, 0.0));
+			NetworkUtils.createAndAddLink(network, Id.createLinkId(i), previous, node, 100.0, 10.0, 1000.0, 1.0);
+			previous = node;
+		}
+
+		return network;
+	}
+
+	/**
+	 * The first vehicle stays idle for the whole day, while the second one
+	 * performs a number of drives with passengers, and a third one starts with an
+	 * activity that has no start event. The idle vehicle keeps an activity open
+	 * until the end, which must not hold back the other activities when writing
+	 * incrementally.
+	 */
+	static private List<Event> createEvents() {
+		List<Event> events = new ArrayList<>();
+
+		Id<Person> idleDriverId = Id.createPersonId("drt:idle");
+		Id<Person> driverId = Id.createPersonId("drt:busy");
+		Id<Vehicle> vehicleId = Id.createVehicleId("drt:busy");
+		Id<Person> lateDriverId = Id.createPersonId("drt:late");
+
+		events.add(new ActivityStartEvent(0.0, idleDriverId, Id.createLinkId(1), null, "DrtStay", null));
+		events.add(new ActivityEndEvent(10.0, lateDriverId, Id.createLinkId(3), null, "DrtStay", null));
+
+		double time = 100.0;
+
+		for (int k = 0; k < 20; k++) {
+			Id<Person> passengerId = Id.createPersonId("passenger" + k);
+
+			events.add(new PersonDepartureEvent(time, driverId, Id.createLinkId(1), "drt", "drt"));
+			events.add(new PersonEntersVehicleEvent(time, passengerId, vehicleId));
+
+			for (int i = 2; i <= 10; i++) {
+				time += 10.0;
+				events.add(new LinkEnterEvent(time, vehicleId, Id.createLinkId(i)));
+			}
+
+			events.add(new PersonArrivalEvent(time, driverId, Id.createLinkId(10), "drt"));
+			events.add(new PersonLeavesVehicleEvent(time, passengerId, vehicleId));
+
+			events.add(new ActivityStartEvent(time, driverId, Id.createLinkId(10), null, "DrtStop", null));
+			time += 60.0;
+			events.add(new ActivityEndEvent(time, driverId, Id.createLinkId(10), null, "DrtStop", null));
+
+			// Non-fleet activity is ignored
+			events.add(new ActivityStartEvent(time, passengerId, Id.createLinkId(10), null, "work", null));
+		}
+
+		// Unfinished drive at the end
+		events.add(new PersonDepartureEvent(time, driverId, Id.createLinkId(1), "drt", "drt"));
+
+		return events;
+	}
+
+	static private VehicleRegistry createRegistry() {
+		VehicleRegistry registry = new VehicleRegistry();
+
+		for (String name : new String[] { "drt:idle", "drt:busy", "drt:late" }) {
+			Id<DvrpVehicle> vehicleId = Id.create(name, DvrpVehicle.class);
+			registry.handleEvent(new TaskStartedEvent(0.0, "drt", vehicleId, Id.createPersonId(vehicleId),
+					DrtStayTask.TYPE, 0, Id.createLinkId(1)));
+		}
+
+		return registry;
+	}
+
+	static private void process(VehicleAnalysisListener listener, List<Event> events) {
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler(listener);
+		eventsManager.initProcessing();
+
+		for (Event event : events) {
+			eventsManager.processEvent(event);
+		}
+
+		eventsManager.finishProcessing();
+	}
+
+	static private List<String> sortRows(List<String> lines) {
+		List<String> rows = new ArrayList<>(lines.subList(1, lines.size()));
+		rows.sort(Comparator.naturalOrder());
+		rows.add(0, lines.get(0));
+		return rows;
+	}
+
+	@Test
+	public void testListener() {
+		Network network = createNetwork();
+		VehicleAnalysisListener listener = new VehicleAnalysisListener(new LinkFinder(network), createRegistry());
+		process(listener, createEvents());
+
+		List<VehicleMovementItem> movements = listener.getMovements();
+		Assert.assertEquals(21, movements.size());
+
+		VehicleMovementItem first = movements.get(0);
+		Assert.assertEquals("drt", first.mode);
+		Assert.assertEquals(Id.createVehicleId("drt:busy"), first.vehicleId);
+		Assert.assertEquals(Id.createLinkId(1), first.originLink.getId());
+		Assert.assertEquals(Id.createLinkId(10), first.destinationLink.getId());
+		Assert.assertEquals(100.0, first.departureTime, 1e-6);
+		Assert.assertEquals(190.0, first.arrivalTime, 1e-6);
+		Assert.assertEquals(900.0, first.distance, 1e-6);
+		Assert.assertEquals(1, first.numberOfPassengers);
+
+		VehicleMovementItem last = movements.get(20);
+		Assert.assertNull(last.destinationLink);
+		Assert.assertTrue(Double.isNaN(last.arrivalTime));
+
+		List<VehicleActivityItem> activities = listener.getActivities();
+		Assert.assertEquals(22, activities.size());
+
+		Assert.assertEquals(Id.createVehicleId("drt:idle"), activities.get(0).vehicleId);
+		Assert.assertEquals(0.0, activities.get(0).startTime, 1e-6);
+		Assert.assertTrue(Double.isNaN(activities.get(0).endTime));
+
+		Assert.assertEquals(Id.createVehicleId("drt:late"), activities.get(1).vehicleId);
+		Assert.assertTrue(Double.isNaN(activities.get(1).startTime));
+		Assert.assertEquals(10.0, activities.get(1).endTime, 1e-6);
+
+		Assert.assertEquals("DrtStop", activities.get(2).type);
+		Assert.assertEquals(60.0, activities.get(2).endTime - activities.get(2).startTime, 1e-6);
+	}
+
+	@Test
+	public void testIncrementalCsv() throws IOException {
+		Network network = createNetwork();
+		List<Event> events = createEvents();
+
+		VehicleAnalysisListener batchListener = new VehicleAnalysisListener(new LinkFinder(network), createRegistry());
+		process(batchListener, events);
+
+		File batchMovements = temporaryFolder.newFile("batch_movements.csv");
+		File batchActivities = temporaryFolder.newFile("batch_activities.csv");
+		new VehicleAnalysisWriter(batchListener).writeMovements(batchMovements);
+		new VehicleAnalysisWriter(batchListener).writeActivities(batchActivities);
+
+		VehicleAnalysisListener streamListener = new VehicleAnalysisListener(new LinkFinder(network),
+				createRegistry());
+
+		File streamMovements = temporaryFolder.newFile("stream_movements.csv");
+		File streamActivities = temporaryFolder.newFile("stream_activities.csv");
+		VehicleTraceCsvWriter writer = new VehicleTraceCsvWriter(streamMovements, streamActivities);
+		streamListener.setSink(writer, 1);
+
+		process(streamListener, events);
+
+		// Completed rows have been written, only the unfinished movement and the
+		// activity of the idle vehicle are left
+		Assert.assertEquals(1, streamListener.getNumberOfMovements());
+		Assert.assertEquals(1, streamListener.getNumberOfActivities());
+		Assert.assertEquals(Id.createVehicleId("drt:idle"), streamListener.getActivities().get(0).vehicleId);
+
+		streamListener.flush();
+		writer.close();
+
+		Assert.assertEquals(0, streamListener.getNumberOfActivities());
+
+		// Rows that stay open across a flush are written later than in the batch
+		Assert.assertEquals(Files.readAllLines(batchMovements.toPath()), Files.readAllLines(streamMovements.toPath()));
+		Assert.assertEquals(sortRows(Files.readAllLines(batchActivities.toPath())),
+				sortRows(Files.readAllLines(streamActivities.toPath())));
+	}
+
+	@Test
+	public void testBinary() throws IOException {
+		Network network = createNetwork();
+		List<Event> events = createEvents();
+
+		VehicleAnalysisListener batchListener = new VehicleAnalysisListener(new LinkFinder(network), createRegistry());
+		process(batchListener, events);
+
+		VehicleAnalysisListener streamListener = new VehicleAnalysisListener(new LinkFinder(network),
+				createRegistry());
+
+		File movementsPath = temporaryFolder.newFile("movements.bin");
+		File activitiesPath = temporaryFolder.newFile("activities.bin");
+		VehicleTraceBinaryWriter writer = new VehicleTraceBinaryWriter(movementsPath, activitiesPath);
+		streamListener.setSink(writer, 5);
+
+		process(streamListener, events);
+		streamListener.flush();
+		writer.close();
+
+		VehicleTraceBinaryReader reader = new VehicleTraceBinaryReader(new LinkFinder(network));
+		Comparator<VehicleMovementItem> movementOrder = Comparator
+				.comparing((VehicleMovementItem item) -> item.vehicleId.toString())
+				.thenComparingDouble(item -> item.departureTime);
+
+		List<VehicleMovementItem> expectedMovements = batchListener.getMovements();
+		List<VehicleMovementItem> movements = reader.readMovements(movementsPath);
+		expectedMovements.sort(movementOrder);
+		movements.sort(movementOrder);
+
+		Assert.assertEquals(expectedMovements.size(), movements.size());
+
+		for (int i = 0; i < movements.size(); i++) {
+			VehicleMovementItem expected = expectedMovements.get(i);
+			VehicleMovementItem actual = movements.get(i);
+
+			Assert.assertEquals(expected.mode, actual.mode);
+			Assert.assertEquals(expected.vehicleId, actual.vehicleId);
+			Assert.assertSame(expected.originLink, actual.originLink);
+			Assert.assertSame(expected.destinationLink, actual.destinationLink);
+			Assert.assertEquals(expected.departureTime, actual.departureTime, 0.0);
+			Assert.assertEquals(expected.arrivalTime, actual.arrivalTime, 0.0);
+			Assert.assertEquals(expected.distance, actual.distance, 0.0);
+			Assert.assertEquals(expected.numberOfPassengers, actual.numberOfPassengers);
+		}
+
+		Comparator<VehicleActivityItem> activityOrder = Comparator
+				.comparing((VehicleActivityItem item) -> item.vehicleId.toString())
+				.thenComparingDouble(item -> item.endTime);
+
+		List<VehicleActivityItem> expectedActivities = batchListener.getActivities();
+		List<VehicleActivityItem> activities = reader.readActivities(activitiesPath);
+		expectedActivities.sort(activityOrder);
+		activities.sort(activityOrder);
+
+		Assert.assertEquals(expectedActivities.size(), activities.size());
+
+		for (int i = 0; i < activities.size(); i++) {
+			VehicleActivityItem expected = expectedActivities.get(i);
+			VehicleActivityItem actual = activities.get(i);
+
+			Assert.assertEquals(expected.mode, actual.mode);
+			Assert.assertEquals(expected.vehicleId, actual.vehicleId);
+			Assert.assertSame(expected.link, actual.link);
+			Assert.assertEquals(expected.type, actual.type);
+			Assert.assertEquals(expected.startTime, actual.startTime, 0.0);
+			Assert.assertEquals(expected.endTime, actual.endTime, 0.0);
+		}
+	}
+}
@@ -0,0 +1,257 @@
+package org.eqasim.simulation.feeder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eqasim.core.components.transit.events.PublicTransitEvent;
+import org.eqasim.core.simulation.modes.drt.analysis.utils.VehicleRegistry;
+import org.eqasim.core.simulation.modes.feeder_drt.analysis.passengers.FeederTripSequenceItem;
+import org.eqasim.core.simulation.modes.feeder_drt.analysis.passengers.FeederTripSequenceListener;
+import org.eqasim.core.simulation.modes.feeder_drt.config.FeederDrtConfigGroup;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.drt.schedule.DrtStayTask;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.vrpagent.TaskStartedEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+public class TestFeederTripSequenceListener {
+	static private Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		Node previous = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0.0, 0.0));
+
+		for (int i = 1; i <= 10; i++) {
+			Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId(i), new Coord(100.0 * i, 0.0));
+			NetworkUtils.createAndAddLink(network, Id.createLinkId(i), previous, node, 100.0, 10.0, 1000.0, 1.0);
+			previous = node;
+		}
+
+		return network;
+	}
+
+	static private Map<String, FeederDrtConfigGroup> createModeConfigs() {
+		Map<String, FeederDrtConfigGroup> modeConfigs = new LinkedHashMap<>();
+
+		for (String suffix : new String[] { "a", "b" }) {
+			FeederDrtConfigGroup modeConfig = new FeederDrtConfigGroup();
+			modeConfig.mode = "feeder_" + suffix;
+			modeConfig.accessEgressModeName = "drt_" + suffix;
+			modeConfig.ptModeName = "pt";
+			modeConfigs.put(modeConfig.mode, modeConfig);
+		}
+
+		return modeConfigs;
+	}
+
+	static private VehicleRegistry createRegistry() {
+		VehicleRegistry registry = new VehicleRegistry();
+
+		for (String name : new String[] { "drt_a:1", "drt_a:2", "drt_b:1" }) {
+			Id<DvrpVehicle> vehicleId = Id.create(name, DvrpVehicle.class);
+			registry.handleEvent(new TaskStartedEvent(0.0, name.substring(0, 5), vehicleId,
+					Id.createPersonId(vehicleId), DrtStayTask.TYPE, 0, Id.createLinkId(1)));
+		}
+
+		return registry;
+	}
+
+	static private class EventsBuilder {
+		final List<Event> events = new ArrayList<>();
+
+		void activityEnd(double time, String person, int link, String type) {
+			events.add(new ActivityEndEvent(time, Id.createPersonId(person), Id.createLinkId(link), null, type, null));
+		}
+
+		void activityStart(double time, String person, int link, String type) {
+			events.add(
+					new ActivityStartEvent(time, Id.createPersonId(person), Id.createLinkId(link), null, type, null));
+		}
+
+		void drt(double departureTime, double arrivalTime, String person, String routingMode, String mode,
+				String vehicle) {
+			events.add(new PersonDepartureEvent(departureTime, Id.createPersonId(person), Id.createLinkId(1), mode,
+					routingMode));
+			events.add(new PersonEntersVehicleEvent(departureTime, Id.createPersonId(person),
+					Id.createVehicleId(vehicle)));
+			events.add(new PersonArrivalEvent(arrivalTime, Id.createPersonId(person), Id.createLinkId(2), mode));
+		}
+
+		void pt(double departureTime, double arrivalTime, String person, String routingMode, String line,
+				String accessStop, String egressStop) {
+			events.add(new PersonDepartureEvent(departureTime, Id.createPersonId(person), Id.createLinkId(3), "pt",
+					routingMode));
+			events.add(new PublicTransitEvent(arrivalTime, Id.createPersonId(person),
+					Id.create(line, TransitLine.class), Id.create(line + ":route", TransitRoute.class),
+					Id.create(accessStop, TransitStopFacility.class), Id.create(egressStop, TransitStopFacility.class),
+					departureTime, 1000.0));
+			events.add(new PersonArrivalEvent(arrivalTime, Id.createPersonId(person), Id.createLinkId(4), "pt"));
+		}
+
+		void walk(double time, String person, String routingMode) {
+			events.add(new PersonDepartureEvent(time, Id.createPersonId(person), Id.createLinkId(5), "walk",
+					routingMode));
+			events.add(new PersonArrivalEvent(time + 1.0, Id.createPersonId(person), Id.createLinkId(5), "walk"));
+		}
+	}
+
+	static private List<Event> createEvents() {
+		EventsBuilder builder = new EventsBuilder();
+
+		// Access and egress by drt, with a transfer between two pt lines
+		builder.activityEnd(0.0, "full", 1, "home");
+		builder.activityEnd(0.0, "egress", 2, "home");
+		builder.activityEnd(0.0, "access", 3, "home");
+		builder.activityEnd(0.0, "car", 4, "home");
+		builder.activityEnd(0.0, "pt_only", 5, "home");
+
+		builder.drt(10.0, 100.0, "full", "feeder_a", "drt_a", "drt_a:1");
+		builder.activityEnd(100.0, "full", 2, "feeder_a interaction");
+		builder.walk(100.0, "full", "feeder_a");
+		builder.activityEnd(102.0, "full", 2, "pt interaction");
+		builder.pt(110.0, 200.0, "full", "feeder_a", "line1", "stop1", "stop2");
+		builder.pt(205.0, 250.0, "full", "feeder_a", "line2", "stop3", "stop4");
+		builder.activityEnd(250.0, "full", 4, "feeder_a interaction");
+		builder.drt(260.0, 300.0, "full", "feeder_a", "drt_a", "drt_a:2");
+		builder.activityStart(300.0, "full", 6, "feeder_a interaction");
+		builder.activityStart(300.0, "full", 7, "work");
+
+		// Only egress by drt
+		builder.pt(20.0, 120.0, "egress", "feeder_b", "line3", "stop5", "stop6");
+		builder.activityEnd(120.0, "egress", 3, "feeder_b interaction");
+		builder.drt(130.0, 180.0, "egress", "feeder_b", "drt_b", "drt_b:1");
+		builder.activityStart(180.0, "egress", 8, "work");
+
+		// Only access by drt
+		builder.drt(30.0, 60.0, "access", "feeder_a", "drt_a", "drt_a:2");
+		builder.activityEnd(60.0, "access", 4, "feeder_a interaction");
+		builder.pt(70.0, 150.0, "access", "feeder_a", "line1", "stop2", "stop7");
+		builder.activityStart(150.0, "access", 9, "shop");
+
+		// Not a feeder trip
+		builder.walk(40.0, "car", "car");
+		builder.activityStart(41.0, "car", 5, "work");
+
+		// Feeder routing mode, but no feeder interaction at all
+		builder.pt(50.0, 90.0, "pt_only", "feeder_b", "line3", "stop5", "stop6");
+		builder.activityStart(90.0, "pt_only", 6, "work");
+
+		// A second trip of the first person, which is again a feeder trip
+		builder.activityEnd(400.0, "full", 7, "work");
+		builder.drt(410.0, 450.0, "full", "feeder_b", "drt_b", "drt_b:1");
+		builder.activityEnd(450.0, "full", 5, "feeder_b interaction");
+		builder.pt(460.0, 500.0, "full", "feeder_b", "line4", "stop8", "stop9");
+		builder.activityStart(500.0, "full", 1, "home");
+
+		return builder.events;
+	}
+
+	static private FeederTripSequenceListener process(List<Event> events) {
+		VehicleRegistry registry = createRegistry();
+		FeederTripSequenceListener listener = new FeederTripSequenceListener(createModeConfigs(), registry,
+				createNetwork());
+
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler(listener);
+		eventsManager.initProcessing();
+
+		for (Event event : events) {
+			eventsManager.processEvent(event);
+		}
+
+		eventsManager.finishProcessing();
+		return listener;
+	}
+
+	static private void assertItem(FeederTripSequenceItem item, String person, String operator, int originLink,
+			int destinationLink, String accessVehicle, String egressVehicle, double accessDepartureTime,
+			double egressArrivalTime, String accessLine, String egressLine) {
+		Assert.assertEquals(Id.createPersonId(person), item.personId);
+		Assert.assertEquals(operator, item.operator);
+		Assert.assertEquals(Id.createLinkId(originLink), item.originLink.getId());
+		Assert.assertEquals(Id.createLinkId(destinationLink), item.destinationLink.getId());
+		Assert.assertEquals(accessVehicle == null ? null : Id.createVehicleId(accessVehicle), item.accessVehicleId);
+		Assert.assertEquals(egressVehicle == null ? null : Id.createVehicleId(egressVehicle), item.egressVehicleId);
+		Assert.assertEquals(accessDepartureTime, item.accessDepartureTime, 0.0);
+		Assert.assertEquals(egressArrivalTime, item.egressArrivalTime, 0.0);
+		Assert.assertEquals(Id.create(accessLine, TransitLine.class), item.accessTransitLineId);
+		Assert.assertEquals(Id.create(egressLine, TransitLine.class), item.egressTransitLineId);
+	}
+
+	@Test
+	public void testSequences() {
+		List<FeederTripSequenceItem> items = process(createEvents()).getItemsList();
+		Assert.assertEquals(4, items.size());
+
+		// Items are completed in the order of the events
+		FeederTripSequenceItem full = items.get(0);
+		assertItem(full, "full", "feeder_a", 1, 7, "drt_a:1", "drt_a:2", 10.0, 300.0, "line1", "line2");
+		Assert.assertEquals(100.0, full.accessArrivalTime, 0.0);
+		Assert.assertEquals(260.0, full.egressDepartureTime, 0.0);
+		Assert.assertEquals(205.0, full.ptDepartureTime, 0.0);
+		Assert.assertEquals(250.0, full.ptArrivalTime, 0.0);
+		Assert.assertEquals(Id.create("stop1", TransitStopFacility.class), full.accessTransitStopId);
+		Assert.assertEquals(Id.create("stop4", TransitStopFacility.class), full.egressTransitStopId);
+		Assert.assertEquals(Id.create("line2:route", TransitRoute.class), full.egressTransitRouteId);
+
+		assertItem(items.get(1), "egress", "feeder_b", 2, 8, null, "drt_b:1", Double.NaN, 180.0, "line3", "line3");
+		Assert.assertEquals(130.0, items.get(1).egressDepartureTime, 0.0);
+		Assert.assertEquals(20.0, items.get(1).ptDepartureTime, 0.0);
+
+		assertItem(items.get(2), "access", "feeder_a", 3, 9, "drt_a:2", null, 30.0, Double.NaN, "line1", "line1");
+		Assert.assertEquals(60.0, items.get(2).accessArrivalTime, 0.0);
+		Assert.assertTrue(Double.isNaN(items.get(2).egressDepartureTime));
+
+		assertItem(items.get(3), "full", "feeder_b", 7, 1, "drt_b:1", null, 410.0, Double.NaN, "line4", "line4");
+	}
+
+	@Test
+	public void testReset() {
+		List<Event> events = createEvents();
+
+		VehicleRegistry registry = createRegistry();
+		FeederTripSequenceListener listener = new FeederTripSequenceListener(createModeConfigs(), registry,
+				createNetwork());
+
+		for (int iteration = 0; iteration < 2; iteration++) {
+			listener.reset(iteration);
+
+			EventsManager eventsManager = EventsUtils.createEventsManager();
+			eventsManager.addHandler(listener);
+			eventsManager.initProcessing();
+
+			for (Event event : events) {
+				eventsManager.processEvent(event);
+			}
+
+			eventsManager.finishProcessing();
+			Assert.assertEquals(4, listener.getItemsList().size());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testPtAfterInteractionWithoutDrt() {
+		EventsBuilder builder = new EventsBuilder();
+		builder.activityEnd(0.0, "person", 1, "home");
+		builder.activityEnd(10.0, "person", 1, "feeder_a interaction");
+		builder.pt(20.0, 30.0, "person", "feeder_a", "line1", "stop1", "stop2");
+
+		process(builder.events);
+	}
+}
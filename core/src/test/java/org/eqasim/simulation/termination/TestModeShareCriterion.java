@@ -0,0 +1,64 @@
+package org.eqasim.simulation.termination;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eqasim.core.simulation.termination.IterationData;
+import org.eqasim.core.simulation.termination.TerminationData;
+import org.eqasim.core.simulation.termination.mode_share.ModeShareCriterion;
+import org.eqasim.core.simulation.termination.mode_share.ModeShareIndicator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class TestModeShareCriterion {
+	static private double calculateNaively(List<TerminationData> history, String mode, int horizon, int smoothing,
+			double threshold) {
+		if (history.size() - smoothing - horizon - 1 < 0) {
+			return Double.NaN;
+		}
+
+		double first = history.subList(history.size() - horizon - smoothing - 1, history.size() - horizon).stream()
+				.mapToDouble(item -> item.indicators.get(ModeShareIndicator.PREFIX + mode)).average().getAsDouble();
+
+		double second = history.subList(history.size() - smoothing - 1, history.size()).stream()
+				.mapToDouble(item -> item.indicators.get(ModeShareIndicator.PREFIX + mode)).average().getAsDouble();
+
+		return Math.max(0.0, Math.abs(second - first) - threshold);
+	}
+
+	@Test
+	public void testEquivalence() {
+		Random random = new Random(0);
+
+		int horizon = 10;
+		int smoothing = 4;
+		double threshold = 0.01;
+
+		ModeShareCriterion criterion = new ModeShareCriterion("car", horizon, smoothing, threshold);
+		List<TerminationData> history = new ArrayList<>();
+
+		for (int iteration = 0; iteration < 200; iteration++) {
+			ImmutableMap<String, Double> indicators = ImmutableMap.of(ModeShareIndicator.PREFIX + "car",
+					0.4 + 0.2 * random.nextDouble() / (1.0 + iteration));
+			IterationData iterationData = new IterationData(iteration, indicators);
+
+			double expected = calculateNaively(history, "car", horizon, smoothing, threshold);
+			double actual = criterion.calculate(history, iterationData);
+
+			if (Double.isNaN(expected)) {
+				Assert.assertTrue(Double.isNaN(actual));
+			} else {
+				Assert.assertEquals(expected, actual, 1e-12);
+			}
+
+			// Repeated evaluation on the same history gives the same value
+			Assert.assertEquals(Double.doubleToLongBits(actual),
+					Double.doubleToLongBits(criterion.calculate(history, iterationData)));
+
+			history.add(new TerminationData(iteration, indicators, ImmutableMap.of("car", actual)));
+		}
+	}
+}
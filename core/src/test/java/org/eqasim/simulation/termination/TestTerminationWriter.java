@@ -0,0 +1,76 @@
+package org.eqasim.simulation.termination;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eqasim.core.simulation.termination.TerminationData;
+import org.eqasim.core.simulation.termination.TerminationWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+
+public class TestTerminationWriter {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Generates the full report from the template, as it was done for every
+	 * iteration before the report was updated in place.
+	 */
+	static private String generateHtml(List<String> jsonRows) throws IOException {
+		StringBuilder builder = new StringBuilder();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				TerminationWriter.class.getResourceAsStream("termination.html"), StandardCharsets.UTF_8))) {
+			String line = null;
+			while ((line = reader.readLine()) != null) {
+				if (line.indexOf("const data = {};") >= 0) {
+					builder.append("const data = [").append(String.join(",", jsonRows)).append("];\n");
+				} else {
+					builder.append(line).append("\n");
+				}
+			}
+		}
+
+		return builder.toString();
+	}
+
+	@Test
+	public void testIncrementalOutput() throws IOException {
+		File csvPath = new File(temporaryFolder.getRoot(), "termination.csv");
+		File htmlPath = new File(temporaryFolder.getRoot(), "termination.html");
+
+		// Existing content from a previous run is replaced
+		Files.writeString(htmlPath.toPath(), "x".repeat(10000));
+
+		TerminationWriter writer = new TerminationWriter(csvPath.toString(), htmlPath.toString(),
+				List.of("mode_share:car"), List.of("mode_share:car"));
+
+		ObjectMapper objectMapper = new ObjectMapper();
+		List<String> jsonRows = new ArrayList<>();
+
+		for (int iteration = 0; iteration < 5; iteration++) {
+			TerminationData item = new TerminationData(iteration, ImmutableMap.of("mode_share:car", 0.5 + 0.01 * iteration),
+					ImmutableMap.of("mode_share:car", 0.1 / (iteration + 1)));
+
+			writer.append(item);
+			jsonRows.add(objectMapper.writeValueAsString(item));
+
+			Assert.assertEquals(generateHtml(jsonRows), Files.readString(htmlPath.toPath()));
+		}
+
+		List<String> lines = Files.readAllLines(csvPath.toPath());
+		Assert.assertEquals(6, lines.size());
+		Assert.assertEquals("iteration;indicator:mode_share:car;criterion:mode_share:car", lines.get(0));
+	}
+}
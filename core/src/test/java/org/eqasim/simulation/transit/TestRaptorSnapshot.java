@@ -0,0 +1,212 @@
+package org.eqasim.simulation.transit;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.eqasim.core.components.raptor.RaptorSnapshot;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.DefaultRoutingRequest;
+import org.matsim.core.router.LinkWrapperFacility;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.facilities.Facility;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+import ch.sbb.matsim.routing.pt.raptor.RaptorUtils;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptor;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData;
+
+public class TestRaptorSnapshot {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Scenario createScenario() {
+		Config config = ConfigUtils.createConfig();
+		config.transit().setUseTransit(true);
+		return ScenarioUtils.createScenario(config);
+	}
+
+	private SwissRailRaptor createRaptor(Scenario scenario) {
+		Config config = scenario.getConfig();
+		SwissRailRaptorData data = SwissRailRaptorData.create(scenario.getTransitSchedule(), null,
+				RaptorUtils.createStaticConfig(config), scenario.getNetwork(), null);
+		return new SwissRailRaptor.Builder(data, config).build();
+	}
+
+	private List<TransitStopFacility> getSortedStops(Scenario scenario) {
+		List<TransitStopFacility> stops = new ArrayList<>(scenario.getTransitSchedule().getFacilities().values());
+		stops.sort(Comparator.comparing(stop -> stop.getId().toString()));
+		return stops;
+	}
+
+	@Test
+	public void testRoutingEquivalence() {
+		URL networkURL = getClass().getClassLoader().getResource("melun/network.xml.gz");
+		URL scheduleURL = getClass().getClassLoader().getResource("melun/transit_schedule.xml.gz");
+		File snapshotPath = new File(temporaryFolder.getRoot(), "raptor.snapshot");
+
+		// First load reads the XML inputs and writes the snapshot
+		Scenario freshScenario = createScenario();
+		RaptorSnapshot.load(freshScenario, networkURL, scheduleURL, snapshotPath);
+		Assert.assertTrue(snapshotPath.exists());
+
+		// Second load reads the snapshot
+		byte[] checksum = RaptorSnapshot.computeChecksum(networkURL, scheduleURL);
+		Scenario snapshotScenario = createScenario();
+		Assert.assertTrue(RaptorSnapshot.read(snapshotPath, null, checksum, snapshotScenario.getNetwork(),
+				snapshotScenario.getTransitSchedule()));
+
+		Assert.assertEquals(freshScenario.getNetwork().getLinks().size(),
+				snapshotScenario.getNetwork().getLinks().size());
+		Assert.assertEquals(freshScenario.getTransitSchedule().getTransitLines().size(),
+				snapshotScenario.getTransitSchedule().getTransitLines().size());
+
+		SwissRailRaptor freshRaptor = createRaptor(freshScenario);
+		SwissRailRaptor snapshotRaptor = createRaptor(snapshotScenario);
+
+		List<TransitStopFacility> freshStops = getSortedStops(freshScenario);
+		List<TransitStopFacility> snapshotStops = getSortedStops(snapshotScenario);
+
+		Random random = new Random(0);
+
+		for (int k = 0; k < 200; k++) {
+			int originIndex = random.nextInt(freshStops.size());
+			int destinationIndex = random.nextInt(freshStops.size());
+			double departureTime = 5.0 * 3600.0 + random.nextDouble() * 16.0 * 3600.0;
+
+			List<? extends PlanElement> freshRoute = route(freshRaptor, freshScenario.getNetwork(),
+					freshStops.get(originIndex), freshStops.get(destinationIndex), departureTime);
+			List<? extends PlanElement> snapshotRoute = route(snapshotRaptor, snapshotScenario.getNetwork(),
+					snapshotStops.get(originIndex), snapshotStops.get(destinationIndex), departureTime);
+
+			assertEqualRoutes(freshRoute, snapshotRoute);
+		}
+	}
+
+	@Test
+	public void testChecksumMismatch() {
+		URL networkURL = getClass().getClassLoader().getResource("melun/network.xml.gz");
+		URL scheduleURL = getClass().getClassLoader().getResource("melun/transit_schedule.xml.gz");
+		File snapshotPath = new File(temporaryFolder.getRoot(), "raptor.snapshot");
+
+		RaptorSnapshot.load(createScenario(), networkURL, scheduleURL, snapshotPath);
+
+		// A snapshot of different inputs is rejected and leaves the scenario untouched
+		byte[] networkOnlyChecksum = RaptorSnapshot.computeChecksum(networkURL, null);
+		Scenario scenario = createScenario();
+
+		Assert.assertFalse(RaptorSnapshot.read(snapshotPath, null, networkOnlyChecksum, scenario.getNetwork(),
+				scenario.getTransitSchedule()));
+		Assert.assertEquals(0, scenario.getNetwork().getLinks().size());
+
+		// Loading falls back to the inputs and replaces the snapshot
+		RaptorSnapshot.load(scenario, networkURL, null, snapshotPath);
+		Assert.assertTrue(scenario.getNetwork().getLinks().size() > 0);
+		Assert.assertEquals(0, scenario.getTransitSchedule().getTransitLines().size());
+
+		Assert.assertTrue(
+				RaptorSnapshot.read(snapshotPath, null, networkOnlyChecksum, createScenario().getNetwork(), null));
+	}
+
+	@Test
+	public void testFingerprint() {
+		URL networkURL = getClass().getClassLoader().getResource("melun/network.xml.gz");
+		URL scheduleURL = getClass().getClassLoader().getResource("melun/transit_schedule.xml.gz");
+		File snapshotPath = new File(temporaryFolder.getRoot(), "raptor.snapshot");
+
+		RaptorSnapshot.load(createScenario(), networkURL, scheduleURL, snapshotPath);
+
+		// A matching fingerprint is sufficient, the checksum is not needed
+		String fingerprint = RaptorSnapshot.computeFingerprint(networkURL, scheduleURL);
+		Assert.assertNotNull(fingerprint);
+
+		Scenario scenario = createScenario();
+		Assert.assertTrue(RaptorSnapshot.read(snapshotPath, fingerprint, null, scenario.getNetwork(),
+				scenario.getTransitSchedule()));
+
+		Assert.assertFalse(RaptorSnapshot.read(snapshotPath, fingerprint + "other", null,
+				createScenario().getNetwork(), createScenario().getTransitSchedule()));
+	}
+
+	@Test
+	public void testUnsupportedContent() {
+		File snapshotPath = new File(temporaryFolder.getRoot(), "raptor.snapshot");
+		byte[] checksum = new byte[] { 1, 2, 3 };
+
+		Network network = createScenario().getNetwork();
+		Node fromNode = NetworkUtils.createAndAddNode(network, Id.createNodeId("a"), new Coord(0.0, 0.0, 10.0));
+		Node toNode = NetworkUtils.createAndAddNode(network, Id.createNodeId("b"), new Coord(100.0, 0.0));
+		Link link = NetworkUtils.createAndAddLink(network, Id.createLinkId("ab"), fromNode, toNode, 100.0, 10.0,
+				1000.0, 1.0);
+		network.getAttributes().putAttribute("crs", "EPSG:2154");
+
+		// Elevation and network attributes are kept
+		Assert.assertTrue(RaptorSnapshot.write(snapshotPath, null, checksum, network, null));
+
+		Network snapshotNetwork = createScenario().getNetwork();
+		Assert.assertTrue(RaptorSnapshot.read(snapshotPath, null, checksum, snapshotNetwork, null));
+		Assert.assertEquals(10.0, snapshotNetwork.getNodes().get(fromNode.getId()).getCoord().getZ(), 1e-6);
+		Assert.assertFalse(snapshotNetwork.getNodes().get(toNode.getId()).getCoord().hasZ());
+		Assert.assertEquals("EPSG:2154", snapshotNetwork.getAttributes().getAttribute("crs"));
+
+		// Attributes that cannot be stored prevent writing the snapshot
+		snapshotPath.delete();
+		link.getAttributes().putAttribute("location", new Coord(50.0, 0.0));
+
+		Assert.assertFalse(RaptorSnapshot.write(snapshotPath, null, checksum, network, null));
+		Assert.assertFalse(snapshotPath.exists());
+	}
+
+	private List<? extends PlanElement> route(SwissRailRaptor raptor, Network network, TransitStopFacility origin,
+			TransitStopFacility destination, double departureTime) {
+		Facility fromFacility = new LinkWrapperFacility(NetworkUtils.getNearestLink(network, origin.getCoord()));
+		Facility toFacility = new LinkWrapperFacility(NetworkUtils.getNearestLink(network, destination.getCoord()));
+
+		return raptor.calcRoute(DefaultRoutingRequest.withoutAttributes(fromFacility, toFacility, departureTime, null));
+	}
+
+	private void assertEqualRoutes(List<? extends PlanElement> expected, List<? extends PlanElement> actual) {
+		if (expected == null || actual == null) {
+			Assert.assertEquals(expected == null, actual == null);
+			return;
+		}
+
+		Assert.assertEquals(expected.size(), actual.size());
+
+		for (int i = 0; i < expected.size(); i++) {
+			PlanElement expectedElement = expected.get(i);
+			PlanElement actualElement = actual.get(i);
+
+			if (expectedElement instanceof Leg expectedLeg) {
+				Leg actualLeg = (Leg) actualElement;
+
+				Assert.assertEquals(expectedLeg.getMode(), actualLeg.getMode());
+				Assert.assertEquals(expectedLeg.getDepartureTime().seconds(), actualLeg.getDepartureTime().seconds(),
+						1e-6);
+				Assert.assertEquals(expectedLeg.getTravelTime().seconds(), actualLeg.getTravelTime().seconds(), 1e-6);
+				Assert.assertEquals(expectedLeg.getRoute().getRouteDescription(),
+						actualLeg.getRoute().getRouteDescription());
+			} else {
+				Assert.assertEquals(((Activity) expectedElement).getType(), ((Activity) actualElement).getType());
+			}
+		}
+	}
+}
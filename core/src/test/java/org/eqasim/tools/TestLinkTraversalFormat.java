@@ -0,0 +1,84 @@
+package org.eqasim.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.eqasim.core.tools.traversals.LinkTraversalReader;
+import org.eqasim.core.tools.traversals.LinkTraversalWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.vehicles.Vehicle;
+
+public class TestLinkTraversalFormat {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Random random = new Random(0);
+		int numberOfTraversals = 10000;
+		String[] modes = { "car", "truck", null };
+
+		String[] personIds = new String[numberOfTraversals];
+		String[] vehicleIds = new String[numberOfTraversals];
+		String[] linkIds = new String[numberOfTraversals];
+		double[] enterTimes = new double[numberOfTraversals];
+		double[] leaveTimes = new double[numberOfTraversals];
+		int[] tripIndices = new int[numberOfTraversals];
+		int[] legIndices = new int[numberOfTraversals];
+		String[] legModes = new String[numberOfTraversals];
+
+		File path = new File(temporaryFolder.getRoot(), "traversals.bin");
+		double time = 0.0;
+
+		// Small blocks to cover dictionary entries and time deltas across blocks
+		try (LinkTraversalWriter writer = new LinkTraversalWriter(path, 777)) {
+			for (int i = 0; i < numberOfTraversals; i++) {
+				time += random.nextInt(3);
+
+				personIds[i] = "person" + random.nextInt(500);
+				vehicleIds[i] = "vehicle" + random.nextInt(500);
+				linkIds[i] = "link" + random.nextInt(2000);
+				enterTimes[i] = random.nextInt(20) == 0 ? Double.NaN : time;
+				leaveTimes[i] = random.nextInt(20) == 0 ? Double.NaN : time + random.nextInt(600) + 0.25;
+				tripIndices[i] = random.nextInt(5);
+				legIndices[i] = random.nextInt(10);
+				legModes[i] = modes[random.nextInt(modes.length)];
+
+				writer.write(Id.create(personIds[i], Person.class), Id.create(vehicleIds[i], Vehicle.class),
+						Id.create(linkIds[i], Link.class), enterTimes[i], leaveTimes[i], tripIndices[i],
+						legIndices[i], legModes[i]);
+			}
+		}
+
+		int index = 0;
+
+		try (LinkTraversalReader reader = new LinkTraversalReader(path)) {
+			LinkTraversalReader.Block block = new LinkTraversalReader.Block();
+
+			while (reader.read(block)) {
+				for (int k = 0; k < block.size; k++) {
+					Assert.assertEquals(personIds[index], reader.getPersonId(block.personIndices[k]));
+					Assert.assertEquals(vehicleIds[index], reader.getVehicleId(block.vehicleIndices[k]));
+					Assert.assertEquals(linkIds[index], reader.getLinkId(block.linkIndices[k]));
+					Assert.assertEquals(enterTimes[index], block.enterTimes[k], 0.0);
+					Assert.assertEquals(leaveTimes[index], block.leaveTimes[k], 0.0);
+					Assert.assertEquals(tripIndices[index], block.tripIndices[k]);
+					Assert.assertEquals(legIndices[index], block.legIndices[k]);
+					Assert.assertEquals(legModes[index], reader.getMode(block.modeIndices[k]));
+					index++;
+				}
+			}
+
+			Assert.assertFalse(reader.read(block));
+		}
+
+		Assert.assertEquals(numberOfTraversals, index);
+	}
+}
@@ -0,0 +1,130 @@
+package org.eqasim.tools;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eqasim.core.tools.accessibility.TransitAccessibilityAugmenter;
+import org.eqasim.core.tools.accessibility.TransitStopIndex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.core.utils.geometry.CoordUtils;
+
+public class TestTransitAccessibility {
+	static private List<Coord> createStops(Random random, int numberOfStops) {
+		List<Coord> stops = new ArrayList<>();
+
+		for (int i = 0; i < numberOfStops; i++) {
+			stops.add(new Coord(random.nextDouble() * 10000.0, random.nextDouble() * 5000.0));
+		}
+
+		return stops;
+	}
+
+	static private double getReferenceDistance(List<Coord> stops, Coord coord) {
+		double distance = Double.POSITIVE_INFINITY;
+
+		for (Coord stop : stops) {
+			distance = Math.min(distance, CoordUtils.calcEuclideanDistance(stop, coord));
+		}
+
+		return distance;
+	}
+
+	static private int getReferenceCount(List<Coord> stops, Coord coord, double radius) {
+		int count = 0;
+
+		for (Coord stop : stops) {
+			if (CoordUtils.calcEuclideanDistance(stop, coord) <= radius) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	@Test
+	public void testIndex() {
+		Random random = new Random(0);
+		List<Coord> stops = createStops(random, 500);
+		TransitStopIndex index = TransitStopIndex.create(stops, 300.0);
+
+		double[] radii = { 100.0, 500.0, 1500.0 };
+
+		for (int i = 0; i < 2000; i++) {
+			// Includes locations far outside of the extent of the stops
+			Coord coord = new Coord((random.nextDouble() - 0.5) * 30000.0, (random.nextDouble() - 0.5) * 30000.0);
+
+			Assert.assertEquals(getReferenceDistance(stops, coord), index.getNearestDistance(coord.getX(), coord.getY()),
+					1e-9);
+
+			int[] counts = new int[radii.length];
+			index.countWithin(coord.getX(), coord.getY(), radii, counts);
+
+			for (int k = 0; k < radii.length; k++) {
+				Assert.assertEquals(getReferenceCount(stops, coord, radii[k]), counts[k]);
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyIndex() {
+		TransitStopIndex index = TransitStopIndex.create(new ArrayList<>(), 100.0);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, index.getNearestDistance(0.0, 0.0), 0.0);
+	}
+
+	@Test
+	public void testAugmenter() throws IOException, InterruptedException {
+		Random random = new Random(0);
+		List<Coord> stops = createStops(random, 200);
+		TransitStopIndex index = TransitStopIndex.create(stops, 250.0);
+
+		List<Coord> coords = new ArrayList<>();
+		StringBuilder input = new StringBuilder("id,\"name\",home_x,home_y\n");
+
+		for (int i = 0; i < 1000; i++) {
+			Coord coord = new Coord(random.nextDouble() * 12000.0, random.nextDouble() * 6000.0);
+			coords.add(coord);
+
+			// Quoted fields with separators must not shift the coordinate columns
+			input.append(i + ",\"person, " + i + "\"," + coord.getX() + "," + coord.getY() + "\n");
+		}
+
+		TransitAccessibilityAugmenter.Settings settings = new TransitAccessibilityAugmenter.Settings();
+		settings.xColumn = "home_x";
+		settings.yColumn = "3";
+		settings.radii = new double[] { 1000.0, 250.0 };
+		settings.threshold = 300.0;
+		settings.numberOfThreads = 4;
+		settings.batchSize = 17;
+
+		StringWriter output = new StringWriter();
+
+		try (BufferedReader reader = new BufferedReader(new StringReader(input.toString()));
+				BufferedWriter writer = new BufferedWriter(output)) {
+			new TransitAccessibilityAugmenter(index, settings).process(reader, writer);
+		}
+
+		String[] lines = output.toString().split("\n");
+		Assert.assertEquals(coords.size() + 1, lines.length);
+		Assert.assertEquals("id,\"name\",home_x,home_y,pt_stop_distance,has_pt_stop,pt_stops_within_250,"
+				+ "pt_stops_within_1000", lines[0]);
+
+		for (int i = 0; i < coords.size(); i++) {
+			Coord coord = coords.get(i);
+			double distance = getReferenceDistance(stops, coord);
+
+			String expected = i + ",\"person, " + i + "\"," + coord.getX() + "," + coord.getY() + "," + distance
+					+ "," + (distance < 300.0) + "," + getReferenceCount(stops, coord, 250.0) + ","
+					+ getReferenceCount(stops, coord, 1000.0);
+
+			Assert.assertEquals(expected, lines[i + 1]);
+		}
+	}
+}
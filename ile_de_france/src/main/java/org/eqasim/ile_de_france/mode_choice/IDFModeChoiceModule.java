@@ -11,6 +11,7 @@ import org.eqasim.core.simulation.mode_choice.parameters.ModeParameters;
 import org.eqasim.core.simulation.mode_choice.tour_finder.ActivityTourFinderWithExcludedActivities;
 import org.eqasim.ile_de_france.mode_choice.costs.IDFCarCostModel;
 import org.eqasim.ile_de_france.mode_choice.costs.IDFPtCostModel;
+import org.eqasim.ile_de_france.mode_choice.costs.IDFPtFareTable;
 import org.eqasim.ile_de_france.mode_choice.parameters.IDFCostParameters;
 import org.eqasim.ile_de_france.mode_choice.parameters.IDFModeParameters;
 import org.eqasim.ile_de_france.mode_choice.utilities.estimators.IDFBikeUtilityEstimator;
@@ -22,6 +23,8 @@ import org.matsim.contribs.discrete_mode_choice.modules.config.ActivityTourFinde
 import org.matsim.contribs.discrete_mode_choice.modules.config.DiscreteModeChoiceConfigGroup;
 import org.matsim.core.config.CommandLine;
 import org.matsim.core.config.CommandLine.ConfigurationException;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
 
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
@@ -88,6 +91,12 @@ public class IDFModeChoiceModule extends AbstractEqasimExtension {
 		return parameters;
 	}
 
+	@Provides
+	@Singleton
+	public IDFPtFareTable provideFareTable(TransitSchedule schedule, ActivityFacilities facilities) {
+		return IDFPtFareTable.create(schedule, facilities);
+	}
+
 	@Provides
 	@Singleton
 	public ActivityTourFinderWithExcludedActivities provideActivityTourFinderWithExcludedActivities(DiscreteModeChoiceConfigGroup dmcConfig) {
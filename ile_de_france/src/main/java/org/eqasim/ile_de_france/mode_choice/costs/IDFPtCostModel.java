@@ -7,59 +7,28 @@ import org.eqasim.ile_de_france.mode_choice.utilities.predictors.IDFPersonPredic
 import org.eqasim.ile_de_france.mode_choice.utilities.predictors.IDFSpatialPredictor;
 import org.eqasim.ile_de_france.mode_choice.utilities.variables.IDFPersonVariables;
 import org.eqasim.ile_de_france.mode_choice.utilities.variables.IDFSpatialVariables;
-import org.matsim.api.core.v01.Coord;
-import org.matsim.api.core.v01.TransportMode;
-import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
-import org.matsim.core.utils.geometry.CoordUtils;
-import org.matsim.pt.routes.TransitPassengerRoute;
-import org.matsim.pt.transitSchedule.api.TransitSchedule;
 
 import com.google.inject.Inject;
 
 public class IDFPtCostModel implements CostModel {
 	private final IDFPersonPredictor personPredictor;
 	private final IDFSpatialPredictor spatialPredictor;
-
-	// TODO: This should be hidden by some custom predictor
-	private final TransitSchedule transitSchedule;
+	private final IDFPtFareTable fareTable;
 
 	@Inject
 	public IDFPtCostModel(IDFPersonPredictor personPredictor, IDFSpatialPredictor spatialPredictor,
-			TransitSchedule transitSchedule) {
+			IDFPtFareTable fareTable) {
 		this.personPredictor = personPredictor;
 		this.spatialPredictor = spatialPredictor;
-		this.transitSchedule = transitSchedule;
-	}
-
-	private boolean isOnlyMetroOrBus(List<? extends PlanElement> elements) {
-		for (PlanElement element : elements) {
-			if (element instanceof Leg) {
-				Leg leg = (Leg) element;
-
-				if (leg.getMode().equals(TransportMode.pt)) {
-					TransitPassengerRoute route = (TransitPassengerRoute) leg.getRoute();
-
-					String transportMode = transitSchedule.getTransitLines().get(route.getLineId()).getRoutes()
-							.get(route.getRouteId()).getTransportMode();
-
-					if (!transportMode.equals("bus") && !transportMode.equals("subway")) {
-						return false;
-					}
-				}
-			}
-		}
-
-		return true;
+		this.fareTable = fareTable;
 	}
 
-	private final static Coord CENTER = new Coord(651726, 6862287);
-
 	private double calculateBasisDistance_km(DiscreteModeChoiceTrip trip) {
-		return 1e-3 * (CoordUtils.calcEuclideanDistance(CENTER, trip.getOriginActivity().getCoord())
-				+ CoordUtils.calcEuclideanDistance(CENTER, trip.getDestinationActivity().getCoord()));
+		return 1e-3 * (fareTable.getDistanceToCenter(trip.getOriginActivity())
+				+ fareTable.getDistanceToCenter(trip.getDestinationActivity()));
 	}
 
 	@Override
@@ -78,9 +47,7 @@ public class IDFPtCostModel implements CostModel {
 		IDFSpatialVariables spatialVariables = spatialPredictor.predictVariables(person, trip, elements);
 		boolean isWithinParis = spatialVariables.hasUrbanOrigin && spatialVariables.hasUrbanDestination;
 
-		boolean isOnlyMetroOrBus = isOnlyMetroOrBus(elements);
-
-		if (isOnlyMetroOrBus || isWithinParis) {
+		if (isWithinParis || fareTable.isOnlyMetroOrBus(elements)) {
 			return 1.8;
 		}
 
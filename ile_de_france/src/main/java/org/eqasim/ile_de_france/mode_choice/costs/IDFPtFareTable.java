@@ -0,0 +1,142 @@
+package org.eqasim.ile_de_france.mode_choice.costs;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.pt.routes.TransitPassengerRoute;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+
+/**
+ * Precomputed lookup tables for the public transport fares in Île-de-France.
+ *
+ * The mode class of every transit route (metro or bus, or any other mode) is
+ * stored by route index, so that the legs of a trip can be classified without
+ * looking up the line and route in the schedule. Since route identifiers are
+ * only unique within a line, routes whose identifier is used with different
+ * mode classes on different lines are marked as ambiguous and are still looked
+ * up in the schedule.
+ *
+ * The distance to the center of Paris is precomputed for every facility. It is
+ * used for an activity that refers to a facility at exactly the same location,
+ * otherwise it is calculated from the activity coordinate.
+ */
+public class IDFPtFareTable {
+	private final static Coord CENTER = new Coord(651726, 6862287);
+
+	private final static byte UNKNOWN = 0;
+	private final static byte METRO_OR_BUS = 1;
+	private final static byte OTHER = 2;
+	private final static byte AMBIGUOUS = 3;
+
+	private final TransitSchedule schedule;
+	private final byte[] routeClasses;
+
+	private final double[] facilityX;
+	private final double[] facilityY;
+	private final double[] facilityDistances;
+
+	IDFPtFareTable(TransitSchedule schedule, byte[] routeClasses, double[] facilityX, double[] facilityY,
+			double[] facilityDistances) {
+		this.schedule = schedule;
+		this.routeClasses = routeClasses;
+		this.facilityX = facilityX;
+		this.facilityY = facilityY;
+		this.facilityDistances = facilityDistances;
+	}
+
+	static private boolean isMetroOrBus(String transportMode) {
+		return transportMode.equals("bus") || transportMode.equals("subway");
+	}
+
+	private boolean isMetroOrBus(TransitPassengerRoute route) {
+		int routeIndex = route.getRouteId().index();
+		byte routeClass = routeIndex < routeClasses.length ? routeClasses[routeIndex] : UNKNOWN;
+
+		if (routeClass == METRO_OR_BUS) {
+			return true;
+		} else if (routeClass == OTHER) {
+			return false;
+		}
+
+		return isMetroOrBus(schedule.getTransitLines().get(route.getLineId()).getRoutes().get(route.getRouteId())
+				.getTransportMode());
+	}
+
+	public boolean isOnlyMetroOrBus(List<? extends PlanElement> elements) {
+		for (PlanElement element : elements) {
+			if (element instanceof Leg) {
+				Leg leg = (Leg) element;
+
+				if (leg.getMode().equals(TransportMode.pt)) {
+					if (!isMetroOrBus((TransitPassengerRoute) leg.getRoute())) {
+						return false;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	public double getDistanceToCenter(Activity activity) {
+		Coord coord = activity.getCoord();
+		Id<ActivityFacility> facilityId = activity.getFacilityId();
+
+		if (facilityId != null) {
+			int facilityIndex = facilityId.index();
+
+			if (facilityIndex < facilityDistances.length && facilityX[facilityIndex] == coord.getX()
+					&& facilityY[facilityIndex] == coord.getY()) {
+				return facilityDistances[facilityIndex];
+			}
+		}
+
+		return CoordUtils.calcEuclideanDistance(CENTER, coord);
+	}
+
+	static public IDFPtFareTable create(TransitSchedule schedule, ActivityFacilities facilities) {
+		byte[] routeClasses = new byte[Id.getNumberOfIds(TransitRoute.class)];
+
+		for (TransitLine transitLine : schedule.getTransitLines().values()) {
+			for (TransitRoute transitRoute : transitLine.getRoutes().values()) {
+				int routeIndex = transitRoute.getId().index();
+				byte routeClass = isMetroOrBus(transitRoute.getTransportMode()) ? METRO_OR_BUS : OTHER;
+
+				if (routeClasses[routeIndex] == UNKNOWN) {
+					routeClasses[routeIndex] = routeClass;
+				} else if (routeClasses[routeIndex] != routeClass) {
+					routeClasses[routeIndex] = AMBIGUOUS;
+				}
+			}
+		}
+
+		int numberOfFacilities = Id.getNumberOfIds(ActivityFacility.class);
+		double[] facilityX = new double[numberOfFacilities];
+		double[] facilityY = new double[numberOfFacilities];
+		double[] facilityDistances = new double[numberOfFacilities];
+
+		// Facilities that do not exist never match an activity coordinate
+		Arrays.fill(facilityX, Double.NaN);
+		Arrays.fill(facilityY, Double.NaN);
+
+		for (ActivityFacility facility : facilities.getFacilities().values()) {
+			int facilityIndex = facility.getId().index();
+			facilityX[facilityIndex] = facility.getCoord().getX();
+			facilityY[facilityIndex] = facility.getCoord().getY();
+			facilityDistances[facilityIndex] = CoordUtils.calcEuclideanDistance(CENTER, facility.getCoord());
+		}
+
+		return new IDFPtFareTable(schedule, routeClasses, facilityX, facilityY, facilityDistances);
+	}
+}
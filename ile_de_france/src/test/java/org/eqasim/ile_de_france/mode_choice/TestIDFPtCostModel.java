@@ -0,0 +1,177 @@
+package org.eqasim.ile_de_france.mode_choice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eqasim.ile_de_france.mode_choice.costs.IDFPtCostModel;
+import org.eqasim.ile_de_france.mode_choice.costs.IDFPtFareTable;
+import org.eqasim.ile_de_france.mode_choice.utilities.predictors.IDFPersonPredictor;
+import org.eqasim.ile_de_france.mode_choice.utilities.predictors.IDFPredictorUtils;
+import org.eqasim.ile_de_france.mode_choice.utilities.predictors.IDFSpatialPredictor;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.contribs.discrete_mode_choice.model.DiscreteModeChoiceTrip;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.FacilitiesUtils;
+import org.matsim.pt.routes.DefaultTransitPassengerRoute;
+import org.matsim.pt.routes.TransitPassengerRoute;
+import org.matsim.pt.transitSchedule.TransitScheduleFactoryImpl;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.utils.objectattributes.attributable.AttributesImpl;
+
+public class TestIDFPtCostModel {
+	private final static String[] TRANSPORT_MODES = { "bus", "subway", "rail", "tram" };
+	private final static Coord CENTER = new Coord(651726, 6862287);
+
+	/**
+	 * Straightforward implementation of the fare calculation that looks up every
+	 * route in the schedule.
+	 */
+	static private double calculateReferenceCost(TransitSchedule schedule, Person person,
+			DiscreteModeChoiceTrip trip, List<? extends PlanElement> elements) {
+		if (IDFPredictorUtils.hasSubscription(person)) {
+			return 0.0;
+		}
+
+		boolean isWithinParis = IDFPredictorUtils.isUrbanArea(trip.getOriginActivity())
+				&& IDFPredictorUtils.isUrbanArea(trip.getDestinationActivity());
+
+		boolean isOnlyMetroOrBus = true;
+
+		for (PlanElement element : elements) {
+			if (element instanceof Leg leg && leg.getMode().equals(TransportMode.pt)) {
+				TransitPassengerRoute route = (TransitPassengerRoute) leg.getRoute();
+				String transportMode = schedule.getTransitLines().get(route.getLineId()).getRoutes()
+						.get(route.getRouteId()).getTransportMode();
+
+				if (!transportMode.equals("bus") && !transportMode.equals("subway")) {
+					isOnlyMetroOrBus = false;
+				}
+			}
+		}
+
+		if (isOnlyMetroOrBus || isWithinParis) {
+			return 1.8;
+		}
+
+		return 0.25 * 1e-3 * (CoordUtils.calcEuclideanDistance(CENTER, trip.getOriginActivity().getCoord())
+				+ CoordUtils.calcEuclideanDistance(CENTER, trip.getDestinationActivity().getCoord()));
+	}
+
+	static private Coord createCoord(Random random) {
+		return new Coord(CENTER.getX() + (random.nextDouble() - 0.5) * 100000.0,
+				CENTER.getY() + (random.nextDouble() - 0.5) * 100000.0);
+	}
+
+	static private Activity createActivity(Random random, ActivityFacilities facilities) {
+		Activity activity;
+
+		switch (random.nextInt(3)) {
+		case 0:
+			// At a facility
+			ActivityFacility facility = facilities.getFacilities()
+					.get(Id.create("f" + random.nextInt(facilities.getFacilities().size()), ActivityFacility.class));
+			activity = PopulationUtils.createActivityFromCoord("other", facility.getCoord());
+			activity.setFacilityId(facility.getId());
+			break;
+		case 1:
+			// Referring to a facility, but at a different location
+			activity = PopulationUtils.createActivityFromCoord("other", createCoord(random));
+			activity.setFacilityId(
+					Id.create("f" + random.nextInt(facilities.getFacilities().size()), ActivityFacility.class));
+			break;
+		default:
+			// Without facility
+			activity = PopulationUtils.createActivityFromCoord("other", createCoord(random));
+			break;
+		}
+
+		activity.getAttributes().putAttribute("isUrban", random.nextDouble() < 0.2);
+		return activity;
+	}
+
+	@Test
+	public void testEquivalence() {
+		Random random = new Random(0);
+
+		// Route identifiers are reused across lines, partly with different modes
+		TransitScheduleFactory scheduleFactory = new TransitScheduleFactoryImpl();
+		TransitSchedule schedule = scheduleFactory.createTransitSchedule();
+		List<TransitPassengerRoute> routes = new ArrayList<>();
+
+		for (int i = 0; i < 20; i++) {
+			TransitLine transitLine = scheduleFactory.createTransitLine(Id.create("line" + i, TransitLine.class));
+			schedule.addTransitLine(transitLine);
+
+			for (int j = 0; j < 3; j++) {
+				String transportMode = TRANSPORT_MODES[random.nextInt(i < 10 ? 2 : TRANSPORT_MODES.length)];
+				TransitRoute transitRoute = scheduleFactory.createTransitRoute(
+						Id.create("route" + j + (i % 2), TransitRoute.class), null, Collections.emptyList(),
+						transportMode);
+				transitLine.addRoute(transitRoute);
+
+				routes.add(new DefaultTransitPassengerRoute(null, null, null, null, transitLine.getId(),
+						transitRoute.getId()));
+			}
+		}
+
+		ActivityFacilities facilities = FacilitiesUtils.createActivityFacilities();
+
+		for (int i = 0; i < 500; i++) {
+			facilities.addActivityFacility(facilities.getFactory()
+					.createActivityFacility(Id.create("f" + i, ActivityFacility.class), createCoord(random)));
+		}
+
+		IDFPtFareTable fareTable = IDFPtFareTable.create(schedule, facilities);
+		IDFPtCostModel costModel = new IDFPtCostModel(new IDFPersonPredictor(), new IDFSpatialPredictor(),
+				fareTable);
+
+		int numberOfDistanceBasedFares = 0;
+
+		for (int i = 0; i < 5000; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.createPersonId("person" + i));
+			person.getAttributes().putAttribute("hasPtSubscription", random.nextDouble() < 0.3);
+
+			DiscreteModeChoiceTrip trip = new DiscreteModeChoiceTrip(createActivity(random, facilities),
+					createActivity(random, facilities), TransportMode.pt, Collections.emptyList(), i, 0, 0,
+					new AttributesImpl());
+
+			List<PlanElement> elements = new ArrayList<>();
+			elements.add(PopulationUtils.createLeg(TransportMode.walk));
+
+			for (int k = 0; k < 1 + random.nextInt(3); k++) {
+				Leg leg = PopulationUtils.createLeg(TransportMode.pt);
+				leg.setRoute(routes.get(random.nextInt(routes.size())));
+				elements.add(leg);
+				elements.add(PopulationUtils.createLeg(TransportMode.walk));
+			}
+
+			double expected = calculateReferenceCost(schedule, person, trip, elements);
+			double actual = costModel.calculateCost_MU(person, trip, elements);
+
+			Assert.assertEquals(expected, actual, 0.0);
+
+			if (expected != 0.0 && expected != 1.8) {
+				numberOfDistanceBasedFares++;
+			}
+		}
+
+		// Make sure that all branches are covered
+		Assert.assertTrue(numberOfDistanceBasedFares > 100);
+	}
+}
@@ -6,8 +6,8 @@ import java.io.IOException;
 import org.eqasim.core.components.config.EqasimConfigGroup;
 import org.eqasim.core.simulation.mode_choice.AbstractEqasimExtension;
 import org.eqasim.core.simulation.mode_choice.ParameterDefinition;
+import org.eqasim.core.simulation.mode_choice.constraints.VehicleTourConstraintWithCarPassenger;
 import org.eqasim.core.simulation.mode_choice.parameters.ModeParameters;
-import org.eqasim.los_angeles.mode_choice.constraints.VehicleTourConstraintWithCarPassenger;
 import org.eqasim.los_angeles.mode_choice.constraints.WalkDurationConstraint;
 import org.eqasim.los_angeles.mode_choice.costs.LosAngelesCarCostModel;
 import org.eqasim.los_angeles.mode_choice.costs.LosAngelesPtCostModel;
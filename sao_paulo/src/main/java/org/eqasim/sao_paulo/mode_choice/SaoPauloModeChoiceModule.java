@@ -7,9 +7,9 @@ import java.util.Map;
 import org.eqasim.core.components.config.EqasimConfigGroup;
 import org.eqasim.core.simulation.mode_choice.AbstractEqasimExtension;
 import org.eqasim.core.simulation.mode_choice.ParameterDefinition;
+import org.eqasim.core.simulation.mode_choice.constraints.VehicleTourConstraintWithCarPassenger;
 import org.eqasim.core.simulation.mode_choice.cost.CostModel;
 import org.eqasim.core.simulation.mode_choice.parameters.ModeParameters;
-import org.eqasim.sao_paulo.mode_choice.constraints.VehicleTourConstraintWithCarPassenger;
 import org.eqasim.sao_paulo.mode_choice.constraints.WalkDurationConstraint;
 import org.eqasim.sao_paulo.mode_choice.costs.SaoPauloCarCostModel;
 import org.eqasim.sao_paulo.mode_choice.costs.SaoPauloPtCostModel;
@@ -2,11 +2,13 @@ package org.eqasim.server;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URL;
 import java.util.Collections;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.eqasim.core.components.raptor.EqasimRaptorConfigGroup;
+import org.eqasim.core.components.raptor.RaptorSnapshot;
 import org.eqasim.server.api.RoadIsochroneEndpoint;
 import org.eqasim.server.api.RoadRouterEndpoint;
 import org.eqasim.server.api.TransitIsochroneEndpoint;
@@ -41,7 +43,7 @@ public class RunServer {
 			throws ConfigurationException, JsonParseException, JsonMappingException, IOException {
 		CommandLine cmd = new CommandLine.Builder(args) //
 				.requireOptions("config-path", "port") //
-				.allowOptions("threads", "configuration-path", "use-transit") //
+				.allowOptions("threads", "configuration-path", "use-transit", "snapshot-path") //
 				.build();
 
 		int threads = cmd.getOption("threads").map(Integer::parseInt)
@@ -67,13 +69,21 @@ public class RunServer {
 		Config config = ConfigUtils.loadConfig(cmd.getOptionStrict("config-path"), new EqasimRaptorConfigGroup());
 		Scenario scenario = ScenarioUtils.createScenario(config);
 
-		new MatsimNetworkReader(scenario.getNetwork())
-				.readURL(ConfigGroup.getInputFileURL(config.getContext(), config.network().getInputFile()));
-
 		boolean useTransit = cmd.getOption("use-transit").map(Boolean::parseBoolean).orElse(true);
-		if (useTransit) {
-			new TransitScheduleReader(scenario).readURL(
-					ConfigGroup.getInputFileURL(config.getContext(), config.transit().getTransitScheduleFile()));
+
+		URL networkURL = ConfigGroup.getInputFileURL(config.getContext(), config.network().getInputFile());
+		URL scheduleURL = useTransit
+				? ConfigGroup.getInputFileURL(config.getContext(), config.transit().getTransitScheduleFile())
+				: null;
+
+		if (cmd.hasOption("snapshot-path")) {
+			RaptorSnapshot.load(scenario, networkURL, scheduleURL, new File(cmd.getOptionStrict("snapshot-path")));
+		} else {
+			new MatsimNetworkReader(scenario.getNetwork()).readURL(networkURL);
+
+			if (useTransit) {
+				new TransitScheduleReader(scenario).readURL(scheduleURL);
+			}
 		}
 
 		ExecutorService executor = Executors.newFixedThreadPool(threads);
@@ -83,7 +93,7 @@ public class RunServer {
 		new NetworkCleaner().run(roadNetwork);
 
 		RoadRouterService roadRouterService = RoadRouterService.create(config, roadNetwork, configuration.walk,
-				threads);
+				configuration.road, threads);
 		RoadRouterEndpoint roadRouterEndpoint = new RoadRouterEndpoint(executor, roadRouterService);
 		app.post("/router/road", roadRouterEndpoint::post);
 
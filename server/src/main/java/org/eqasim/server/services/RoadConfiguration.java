@@ -0,0 +1,5 @@
+package org.eqasim.server.services;
+
+public class RoadConfiguration {
+	public Integer freespeedCacheSize = null;
+}
@@ -3,4 +3,5 @@ package org.eqasim.server.services;
 public class ServiceConfiguration {
 	public WalkConfiguration walk = new WalkConfiguration();
 	public TransitConfiguration transit = new TransitConfiguration();
+	public RoadConfiguration road = new RoadConfiguration();
 }
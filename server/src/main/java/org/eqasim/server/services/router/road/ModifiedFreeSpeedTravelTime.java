@@ -1,39 +1,130 @@
 package org.eqasim.server.services.router.road;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
-import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
-import org.matsim.vehicles.Vehicle;
 
+/**
+ * Provides free-flow link travel times that are modified by road type factors
+ * and crossing penalties from a {@link FreespeedSettings} profile. For every
+ * distinct profile, the travel times of all links are compiled once into a
+ * dense array by link index, so routing only needs an array access per link.
+ * The most recently used profiles are kept in a bounded cache.
+ * 
+ * The free-flow travel times are obtained once when the tables are created,
+ * so the network is assumed not to be time-variant.
+ */
 public class ModifiedFreeSpeedTravelTime {
-	private final TravelTime delegate = new FreeSpeedTravelTime();
-	private final IdMap<Link, LinkRecord> links;
+	static public final int DEFAULT_CACHE_SIZE = 16;
 
-	private ModifiedFreeSpeedTravelTime(IdMap<Link, LinkRecord> links) {
-		this.links = links;
-	}
+	private final int numberOfLinks;
 
-	public double getLinkTravelTime(FreespeedSettings settings, Link link, double time, Person person,
-			Vehicle vehicle) {
-		LinkRecord linkRecord = links.get(link.getId());
+	private final int[] linkIndices;
+	private final double[] freespeedTravelTimes;
+	private final LinkType[] linkTypes;
+	private final CrossingType[] crossingTypes;
 
-		double roadFactor = switch (linkRecord.linkType) {
-		case major -> settings.majorFactor;
-		case intermediate -> settings.intermediateFactor;
-		case minor -> settings.minorFactor;
-		default -> 1.0;
-		};
+	private final double[] defaultTravelTimes;
+	private final Map<Profile, double[]> cache;
+
+	private ModifiedFreeSpeedTravelTime(Network network, IdMap<Link, LinkRecord> links, int cacheSize) {
+		this.numberOfLinks = Id.getNumberOfIds(Link.class);
+
+		this.linkIndices = new int[links.size()];
+		this.freespeedTravelTimes = new double[links.size()];
+		this.linkTypes = new LinkType[links.size()];
+		this.crossingTypes = new CrossingType[links.size()];
+
+		TravelTime delegate = new FreeSpeedTravelTime();
+		this.defaultTravelTimes = new double[numberOfLinks];
+
+		int k = 0;
+		for (Link link : network.getLinks().values()) {
+			LinkRecord record = links.get(link.getId());
+
+			linkIndices[k] = link.getId().index();
+			freespeedTravelTimes[k] = delegate.getLinkTravelTime(link, 0.0, null, null);
+			linkTypes[k] = record.linkType;
+			crossingTypes[k] = record.crossingType;
 
-		double crossingPenalty = switch (linkRecord.crossingType) {
-		case major -> settings.majorCrossingPenalty_s;
-		case minor -> settings.minorCrossingPenalty_s;
-		default -> 0.0;
+			defaultTravelTimes[linkIndices[k]] = freespeedTravelTimes[k];
+			k++;
+		}
+
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Profile, double[]> eldest) {
+				return size() > cacheSize;
+			}
 		};
+	}
+
+	/**
+	 * Returns the modified travel times of all links by link index. The array is
+	 * shared and must not be modified.
+	 */
+	public double[] getTravelTimes(FreespeedSettings settings) {
+		Profile profile = new Profile(settings);
+		double[] travelTimes;
+
+		synchronized (cache) {
+			travelTimes = cache.get(profile);
+		}
+
+		if (travelTimes == null) {
+			// Compiled outside of the lock, concurrent requests for a new profile may
+			// compile it twice, but the results are identical
+			travelTimes = compile(profile);
 
-		return delegate.getLinkTravelTime(link, time, person, vehicle) * roadFactor + crossingPenalty;
+			synchronized (cache) {
+				cache.put(profile, travelTimes);
+			}
+		}
+
+		return travelTimes;
+	}
+
+	/**
+	 * Returns the unmodified free-flow travel times of all links by link index.
+	 */
+	public double[] getDefaultTravelTimes() {
+		return defaultTravelTimes;
+	}
+
+	private double[] compile(Profile profile) {
+		double[] roadFactors = new double[LinkType.values().length];
+		roadFactors[LinkType.major.ordinal()] = profile.majorFactor;
+		roadFactors[LinkType.intermediate.ordinal()] = profile.intermediateFactor;
+		roadFactors[LinkType.minor.ordinal()] = profile.minorFactor;
+
+		double[] crossingPenalties = new double[CrossingType.values().length];
+		crossingPenalties[CrossingType.major.ordinal()] = profile.majorCrossingPenalty_s;
+		crossingPenalties[CrossingType.minor.ordinal()] = profile.minorCrossingPenalty_s;
+
+		double[] travelTimes = new double[numberOfLinks];
+
+		for (int k = 0; k < linkIndices.length; k++) {
+			travelTimes[linkIndices[k]] = freespeedTravelTimes[k] * roadFactors[linkTypes[k].ordinal()]
+					+ crossingPenalties[crossingTypes[k].ordinal()];
+		}
+
+		return travelTimes;
+	}
+
+	private record Profile(double majorFactor, double intermediateFactor, double minorFactor,
+			double majorCrossingPenalty_s, double minorCrossingPenalty_s) {
+		Profile(FreespeedSettings settings) {
+			this(settings.majorFactor, settings.intermediateFactor, settings.minorFactor,
+					settings.majorCrossingPenalty_s, settings.minorCrossingPenalty_s);
+		}
 	}
 
 	public enum LinkType {
@@ -48,6 +139,10 @@ public class ModifiedFreeSpeedTravelTime {
 	}
 
 	static public ModifiedFreeSpeedTravelTime create(Network network) {
+		return create(network, DEFAULT_CACHE_SIZE);
+	}
+
+	static public ModifiedFreeSpeedTravelTime create(Network network, int cacheSize) {
 		IdMap<Link, LinkRecord> links = new IdMap<>(Link.class);
 
 		for (Link link : network.getLinks().values()) {
@@ -102,7 +197,7 @@ public class ModifiedFreeSpeedTravelTime {
 
 		// System.exit(1);
 
-		return new ModifiedFreeSpeedTravelTime(links);
+		return new ModifiedFreeSpeedTravelTime(network, links, cacheSize);
 	}
 
 	private static LinkType decideLinkType(Link link) {
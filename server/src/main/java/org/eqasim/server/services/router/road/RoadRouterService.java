@@ -5,6 +5,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import org.eqasim.server.services.RoadConfiguration;
 import org.eqasim.server.services.WalkConfiguration;
 import org.eqasim.server.services.router.road.RoadRouterResponse.LinkRecord;
 import org.locationtech.jts.geom.Coordinate;
@@ -26,7 +27,6 @@ import org.matsim.core.router.util.LeastCostPathCalculator.Path;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
-import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
 import org.matsim.core.utils.collections.QuadTree;
 import org.matsim.core.utils.collections.QuadTrees;
 import org.matsim.core.utils.geometry.CoordUtils;
@@ -46,10 +46,10 @@ public class RoadRouterService {
 	private final SpeedyALTFactory routerFactory = new SpeedyALTFactory();
 	private final ConcurrentLinkedQueue<RouterInstance> routerPool = new ConcurrentLinkedQueue<>();
 
-	private final FreeSpeedTravelTime defaultTravelTime = new FreeSpeedTravelTime();
 	private final ModifiedFreeSpeedTravelTime modifiedTravelTime;
 
-	RoadRouterService(Network network, QuadTree<? extends Link> linkIndex, WalkParameters walkParameters, int threads) {
+	RoadRouterService(Network network, QuadTree<? extends Link> linkIndex, WalkParameters walkParameters, int threads,
+			int freespeedCacheSize) {
 		this.walkParameters = walkParameters;
 		this.linkIndex = linkIndex;
 
@@ -57,7 +57,7 @@ public class RoadRouterService {
 			routerPool.add(createRouterInstance(network));
 		}
 
-		this.modifiedTravelTime = ModifiedFreeSpeedTravelTime.create(network);
+		this.modifiedTravelTime = ModifiedFreeSpeedTravelTime.create(network, freespeedCacheSize);
 	}
 
 	private RouterInstance createRouterInstance(Network network) {
@@ -105,13 +105,9 @@ public class RoadRouterService {
 			}
 		}
 
-		TravelTime travelTime = defaultTravelTime;
-
-		if (request.freespeed != null || freespeed != null) {
-			FreespeedSettings settings = request.freespeed == null ? freespeed : request.freespeed;
-			travelTime = (Link link, double time, Person person, Vehicle vehicle) -> modifiedTravelTime
-					.getLinkTravelTime(settings, link, time, person, vehicle);
-		}
+		FreespeedSettings settings = request.freespeed == null ? freespeed : request.freespeed;
+		double[] travelTimes = settings == null ? modifiedTravelTime.getDefaultTravelTimes()
+				: modifiedTravelTime.getTravelTimes(settings);
 
 		for (Link fromLink : fromLinks) {
 			for (Link toLink : toLinks) {
@@ -138,7 +134,7 @@ public class RoadRouterService {
 				double departureTime = request.departureTime_s + response.accessTime_min * 60.0;
 
 				RouterInstance router = routerPool.poll();
-				router.travelTime = travelTime;
+				router.travelTimes = travelTimes;
 				Path path = router.router.calcLeastCostPath(fromNode, toNode, departureTime, null, null);
 				routerPool.add(router);
 
@@ -157,7 +153,7 @@ public class RoadRouterService {
 						linkRecord.id = link.getId().toString();
 						linkRecord.enterTime_s = currentTime;
 
-						currentTime += travelTime.getLinkTravelTime(link, currentTime, null, null);
+						currentTime += travelTimes[link.getId().index()];
 						linkRecord.exitTime_s = currentTime;
 
 						response.links.add(linkRecord);
@@ -196,11 +192,15 @@ public class RoadRouterService {
 	}
 
 	static public RoadRouterService create(Config config, Network network, WalkConfiguration configuration,
-			int threads) {
+			RoadConfiguration roadConfiguration, int threads) {
 		WalkParameters walkParameters = createWalkParameters(config, configuration);
 		QuadTree<? extends Link> linkIndex = QuadTrees.createQuadTree(network.getLinks().values());
 
-		return new RoadRouterService(network, linkIndex, walkParameters, threads);
+		int freespeedCacheSize = roadConfiguration.freespeedCacheSize == null
+				? ModifiedFreeSpeedTravelTime.DEFAULT_CACHE_SIZE
+				: roadConfiguration.freespeedCacheSize;
+
+		return new RoadRouterService(network, linkIndex, walkParameters, threads, freespeedCacheSize);
 	}
 
 	static public record WalkParameters(double beelineWalkFactor, double beelineWalkSpeed_m_s) {
@@ -225,11 +225,11 @@ public class RoadRouterService {
 
 	private class RouterInstance {
 		LeastCostPathCalculator router;
-		TravelTime travelTime;
+		double[] travelTimes;
 
 		RouterInstance(LeastCostPathCalculatorFactory factory, Network network) {
-			TravelTime travelTime = (Link link, double time, Person person, Vehicle vehicle) -> this.travelTime
-					.getLinkTravelTime(link, time, person, vehicle);
+			TravelTime travelTime = (Link link, double time, Person person, Vehicle vehicle) -> this.travelTimes[link
+					.getId().index()];
 			TravelDisutility travelDisutility = new OnlyTimeDependentTravelDisutility(travelTime);
 
 			this.router = factory.createPathCalculator(network, travelDisutility, travelTime);
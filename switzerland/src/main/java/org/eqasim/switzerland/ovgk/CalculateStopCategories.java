@@ -1,12 +1,9 @@
 package org.eqasim.switzerland.ovgk;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
-import org.matsim.pt.transitSchedule.api.Departure;
 import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitRoute;
 import org.matsim.pt.transitSchedule.api.TransitRouteStop;
@@ -14,84 +11,75 @@ import org.matsim.pt.transitSchedule.api.TransitSchedule;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
 public class CalculateStopCategories {
-	private class StopInfo {
-		boolean hasCategoryA = false;
-		boolean hasCategoryB = false;
-		double depatures = 0;
+	static public final double START_TIME = 6.0 * 3600.0;
+	static public final double END_TIME = 20.0 * 3600.0;
 
-		Set<TransitLine> railLines = new HashSet<>();
-		Set<TransitStopFacility> facilities = new HashSet<>();
+	private final int numberOfThreads;
+
+	public CalculateStopCategories() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public CalculateStopCategories(int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
 	}
 
-	public void run(TransitSchedule schedule) {
+	public void run(TransitSchedule schedule) throws InterruptedException {
 		Set<String> categoryAModes = new HashSet<>(Arrays.asList("rail"));
 		Set<String> categoryBModes = new HashSet<>(Arrays.asList("tram", "bus", "ferry", "metro"));
 
 		// I) Prepare data structure
-		Map<String, StopInfo> stopInfos = new HashMap<>();
+		StopClusterIndex index = StopClusterIndex.create(schedule);
+		int numberOfClusters = index.getNumberOfClusters();
 
-		for (TransitStopFacility stop : schedule.getFacilities().values()) {
-			String stopId = stop.getName().split(".link:")[0];
+		boolean[] hasCategoryA = new boolean[numberOfClusters];
+		boolean[] hasCategoryB = new boolean[numberOfClusters];
 
-			if (!stopInfos.containsKey(stopId)) {
-				stopInfos.put(stopId, new StopInfo());
-			}
-
-			stopInfos.get(stopId).facilities.add(stop);
-		}
+		// Number of distinct rail lines per cluster, tracked by the last counted line
+		int[] railLines = new int[numberOfClusters];
+		int[] lastRailLine = new int[numberOfClusters];
+		Arrays.fill(lastRailLine, -1);
 
 		// Find mode category (A, B, C) for each stop facility
+		int lineIndex = 0;
 		for (TransitLine line : schedule.getTransitLines().values()) {
 			for (TransitRoute route : line.getRoutes().values()) {
-				boolean hasCategoryA = categoryAModes.contains(route.getTransportMode());
-				boolean hasCategoryB = categoryBModes.contains(route.getTransportMode());
+				boolean isCategoryA = categoryAModes.contains(route.getTransportMode());
+				boolean isCategoryB = categoryBModes.contains(route.getTransportMode());
+				boolean isRail = route.getTransportMode().equals("rail");
 
 				for (TransitRouteStop stop : route.getStops()) {
-					String stopId = stop.getStopFacility().getName().split(".link:")[0];
-					StopInfo info = stopInfos.get(stopId);
-
-					info.hasCategoryA |= hasCategoryA;
-					info.hasCategoryB |= hasCategoryB;
+					int cluster = index.getCluster(stop.getStopFacility());
 
-					if (route.getTransportMode().equals("rail")) {
-						info.railLines.add(line);
-					}
-
-					double departureOffset = stop.getDepartureOffset().seconds();
-
-					boolean isTerminus = route.getStops().get(0) == stop
-							|| route.getStops().get(route.getStops().size() - 1) == stop;
-
-					boolean isCycle = route.getStops().get(0).getStopFacility() == route.getStops()
-							.get(route.getStops().size() - 1).getStopFacility();
+					hasCategoryA[cluster] |= isCategoryA;
+					hasCategoryB[cluster] |= isCategoryB;
 
-					for (Departure departure : route.getDepartures().values()) {
-						double stopDepartureTime = departure.getDepartureTime() + departureOffset;
-
-						if (stopDepartureTime >= 6.0 * 3600.0 && stopDepartureTime <= 20.0 * 3600.0) {
-							if (isTerminus && isCycle) {
-								info.depatures += 0.25;
-							} else {
-								info.depatures += 0.5;
-							}
-						}
+					if (isRail && lastRailLine[cluster] != lineIndex) {
+						lastRailLine[cluster] = lineIndex;
+						railLines[cluster]++;
 					}
 				}
 			}
+
+			lineIndex++;
 		}
 
+		// Find number of departures for each stop
+		double[] departures = new StopDepartureCounter(schedule, index, numberOfThreads).countDepartures(START_TIME,
+				END_TIME);
+
 		// II) Aggergate information
-		for (StopInfo info : stopInfos.values()) {
+		for (int cluster = 0; cluster < numberOfClusters; cluster++) {
 			// Check if it is a rail hub or just a station
-			boolean isRailHub = info.railLines.size() > 1;
+			boolean isRailHub = railLines[cluster] > 1;
 
 			// Find frequency
-			double frequency_min = 840.0 / info.depatures;
+			double frequency_min = 840.0 / departures[cluster];
 
 			// Find stop category
 			int stopCategory = OVGKConstants.WORST_STOP_CATEGORY;
 
-			if (info.hasCategoryA) {
+			if (hasCategoryA[cluster]) {
 				if (frequency_min < 5.0) {
 					stopCategory = 1;
 				} else if (frequency_min < 10.0) {
@@ -103,7 +91,7 @@ public class CalculateStopCategories {
 				} else if (frequency_min <= 60.0) {
 					stopCategory = isRailHub ? 4 : 5;
 				}
-			} else if (info.hasCategoryB) {
+			} else if (hasCategoryB[cluster]) {
 				if (frequency_min < 5.0) {
 					stopCategory = 2;
 				} else if (frequency_min < 10.0) {
@@ -113,7 +101,7 @@ public class CalculateStopCategories {
 				}
 			}
 
-			for (TransitStopFacility facility : info.facilities) {
+			for (TransitStopFacility facility : index.getFacilities(cluster)) {
 				facility.getAttributes().putAttribute(OVGKConstants.STOP_CATEGORY_ATTRIBUTE, stopCategory);
 			}
 		}
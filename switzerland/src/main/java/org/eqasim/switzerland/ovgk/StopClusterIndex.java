@@ -0,0 +1,87 @@
+package org.eqasim.switzerland.ovgk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * Groups the stop facilities of a schedule into clusters that represent one
+ * physical stop. Facilities belong to the same cluster if their name is the
+ * same up to the ".link:" suffix that is added when stops are mapped to the
+ * network. The names are only parsed once, afterwards the cluster of a
+ * facility is found by its index.
+ */
+public class StopClusterIndex {
+	private final static Pattern LINK_SUFFIX = Pattern.compile(".link:");
+
+	private final int[] facilityClusters;
+	private final List<String> names;
+	private final List<List<TransitStopFacility>> facilities;
+
+	private StopClusterIndex(int[] facilityClusters, List<String> names,
+			List<List<TransitStopFacility>> facilities) {
+		this.facilityClusters = facilityClusters;
+		this.names = names;
+		this.facilities = facilities;
+	}
+
+	public int getNumberOfClusters() {
+		return names.size();
+	}
+
+	public int getCluster(TransitStopFacility facility) {
+		int facilityIndex = facility.getId().index();
+		int cluster = facilityIndex < facilityClusters.length ? facilityClusters[facilityIndex] : -1;
+
+		if (cluster < 0) {
+			throw new IllegalStateException("Stop facility is not part of the schedule: " + facility.getId());
+		}
+
+		return cluster;
+	}
+
+	public String getName(int cluster) {
+		return names.get(cluster);
+	}
+
+	public List<TransitStopFacility> getFacilities(int cluster) {
+		return facilities.get(cluster);
+	}
+
+	static public String getClusterName(TransitStopFacility facility) {
+		return LINK_SUFFIX.split(facility.getName())[0];
+	}
+
+	static public StopClusterIndex create(TransitSchedule schedule) {
+		int[] facilityClusters = new int[Id.getNumberOfIds(TransitStopFacility.class)];
+		Arrays.fill(facilityClusters, -1);
+
+		Map<String, Integer> clusters = new HashMap<>();
+		List<String> names = new ArrayList<>();
+		List<List<TransitStopFacility>> facilities = new ArrayList<>();
+
+		for (TransitStopFacility facility : schedule.getFacilities().values()) {
+			String name = getClusterName(facility);
+			Integer cluster = clusters.get(name);
+
+			if (cluster == null) {
+				cluster = names.size();
+				clusters.put(name, cluster);
+				names.add(name);
+				facilities.add(new ArrayList<>());
+			}
+
+			facilityClusters[facility.getId().index()] = cluster;
+			facilities.get(cluster).add(facility);
+		}
+
+		return new StopClusterIndex(facilityClusters, names, facilities);
+	}
+}
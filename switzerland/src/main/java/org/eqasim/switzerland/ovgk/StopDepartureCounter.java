@@ -0,0 +1,171 @@
+package org.eqasim.switzerland.ovgk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eqasim.core.misc.ParallelProgress;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+
+/**
+ * Counts the departures at every stop cluster within a time window. The routes
+ * of the schedule are compiled once into the clusters and departure offsets of
+ * their stops and their sorted departure times, so that the departures of a
+ * stop within a window are found by binary search. Counting runs in parallel
+ * over the transit lines, with one array of counts per thread.
+ *
+ * Every departure counts as half a departure per direction. At the terminus of
+ * a cyclic route, where arrival and departure happen at the same stop, it
+ * counts as a quarter.
+ */
+public class StopDepartureCounter {
+	private final StopClusterIndex index;
+	private final int numberOfThreads;
+
+	private final List<CompiledRoute[]> lines = new ArrayList<>();
+
+	public StopDepartureCounter(TransitSchedule schedule, StopClusterIndex index, int numberOfThreads) {
+		this.index = index;
+		this.numberOfThreads = numberOfThreads;
+
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			List<CompiledRoute> routes = new ArrayList<>(line.getRoutes().size());
+
+			for (TransitRoute route : line.getRoutes().values()) {
+				if (route.getStops().size() > 0) {
+					routes.add(new CompiledRoute(route, index));
+				}
+			}
+
+			lines.add(routes.toArray(CompiledRoute[]::new));
+		}
+	}
+
+	private record CompiledRoute(int[] clusters, double[] offsets, double[] departureTimes, boolean isCycle) {
+		CompiledRoute(TransitRoute route, StopClusterIndex index) {
+			this(new int[route.getStops().size()], new double[route.getStops().size()],
+					new double[route.getDepartures().size()], route.getStops().get(0).getStopFacility() == route
+							.getStops().get(route.getStops().size() - 1).getStopFacility());
+
+			for (int k = 0; k < clusters.length; k++) {
+				clusters[k] = index.getCluster(route.getStops().get(k).getStopFacility());
+				offsets[k] = route.getStops().get(k).getDepartureOffset().seconds();
+			}
+
+			int k = 0;
+			for (Departure departure : route.getDepartures().values()) {
+				departureTimes[k++] = departure.getDepartureTime();
+			}
+
+			Arrays.sort(departureTimes);
+		}
+	}
+
+	/**
+	 * Returns the first position at which the departure time plus the offset is
+	 * at least (or, if inclusive is false, greater than) the given time.
+	 */
+	static private int search(double[] departureTimes, double offset, double time, boolean inclusive) {
+		int low = 0;
+		int high = departureTimes.length;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			double value = departureTimes[middle] + offset;
+
+			if (inclusive ? value >= time : value > time) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+
+		return low;
+	}
+
+	static private void countLine(CompiledRoute[] routes, double startTime, double endTime, double[] counts) {
+		for (CompiledRoute route : routes) {
+			int lastStop = route.clusters.length - 1;
+
+			for (int k = 0; k <= lastStop; k++) {
+				double offset = route.offsets[k];
+
+				// Departures for which startTime <= departure + offset <= endTime
+				int numberOfDepartures = search(route.departureTimes, offset, endTime, false)
+						- search(route.departureTimes, offset, startTime, true);
+
+				if (numberOfDepartures > 0) {
+					boolean isTerminus = k == 0 || k == lastStop;
+					double weight = isTerminus && route.isCycle ? 0.25 : 0.5;
+					counts[route.clusters[k]] += weight * numberOfDepartures;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Counts the departures per stop cluster between the start and end time, both
+	 * inclusive.
+	 */
+	public double[] countDepartures(double startTime, double endTime) throws InterruptedException {
+		int numberOfClusters = index.getNumberOfClusters();
+		double[][] threadCounts = new double[numberOfThreads][];
+
+		List<Thread> threads = new LinkedList<>();
+
+		ParallelProgress progress = new ParallelProgress("Counting departures ...", lines.size());
+		progress.start();
+
+		AtomicInteger nextLine = new AtomicInteger(0);
+		AtomicBoolean errorsOccured = new AtomicBoolean(false);
+
+		for (int i = 0; i < numberOfThreads; i++) {
+			double[] counts = new double[numberOfClusters];
+			threadCounts[i] = counts;
+
+			Thread thread = new Thread(() -> {
+				int lineIndex;
+
+				while ((lineIndex = nextLine.getAndIncrement()) < lines.size()) {
+					countLine(lines.get(lineIndex), startTime, endTime, counts);
+					progress.update();
+				}
+			});
+
+			thread.setUncaughtExceptionHandler((t, e) -> {
+				e.printStackTrace();
+				errorsOccured.set(true);
+			});
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		progress.close();
+
+		if (errorsOccured.get()) {
+			throw new RuntimeException("Errors occured while counting departures.");
+		}
+
+		// Counts are multiples of a quarter, so the sum is exact in any order
+		double[] counts = new double[numberOfClusters];
+
+		for (double[] partialCounts : threadCounts) {
+			for (int k = 0; k < numberOfClusters; k++) {
+				counts[k] += partialCounts[k];
+			}
+		}
+
+		return counts;
+	}
+}
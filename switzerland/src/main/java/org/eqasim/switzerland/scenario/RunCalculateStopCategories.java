@@ -11,16 +11,20 @@ import org.matsim.pt.transitSchedule.api.TransitScheduleReader;
 import org.matsim.pt.transitSchedule.api.TransitScheduleWriter;
 
 public class RunCalculateStopCategories {
-	static public void main(String[] args) throws ConfigurationException {
+	static public void main(String[] args) throws ConfigurationException, InterruptedException {
 		CommandLine cmd = new CommandLine.Builder(args) //
 				.requireOptions("input-path", "output-path") //
+				.allowOptions("threads") //
 				.build();
 
+		int numberOfThreads = cmd.getOption("threads").map(Integer::parseInt)
+				.orElse(Runtime.getRuntime().availableProcessors());
+
 		Config config = ConfigUtils.createConfig();
 		Scenario scenario = ScenarioUtils.createScenario(config);
 
 		new TransitScheduleReader(scenario).readFile(cmd.getOptionStrict("input-path"));
-		new CalculateStopCategories().run(scenario.getTransitSchedule());
+		new CalculateStopCategories(numberOfThreads).run(scenario.getTransitSchedule());
 		new TransitScheduleWriter(scenario.getTransitSchedule()).writeFile(cmd.getOptionStrict("output-path"));
 	}
 }